@@ -0,0 +1,111 @@
+package com.benchmarks;
+
+import com.common.kafka.EventCodec;
+import com.common.kafka.events.TokenRevokedEvent;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.kafka.events.UploadCreatedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the Kafka events: the Smile encoding {@link EventCodec} gives the producer and
+ * the listeners, against plain JSON strings from a shared {@link ObjectMapper} as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EventCodec eventCodec = new EventCodec();
+
+    private UploadCreatedEvent uploadCreated;
+    private UploadChangedEvent uploadChanged;
+    private TokenRevokedEvent tokenRevoked;
+    private String uploadCreatedJson;
+    private String uploadChangedJson;
+    private String tokenRevokedJson;
+    private byte[] uploadCreatedSmile;
+    private byte[] uploadChangedSmile;
+
+    @Setup
+    public void setUp() throws IOException {
+        long now = System.currentTimeMillis();
+        uploadCreated = new UploadCreatedEvent("6f1c2e4a-9d3b-4c5e-8f7a-1b2c3d4e5f60",
+                "3a/3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b.mp4",
+                "3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b", "benchmark-user", now);
+        uploadChanged = new UploadChangedEvent("6f1c2e4a-9d3b-4c5e-8f7a-1b2c3d4e5f60", "READY", now);
+        tokenRevoked = new TokenRevokedEvent("0b9d2f7e-5c1a-4e8b-9a3d-6f2e1c0b7a95", now + 3_600_000L);
+        uploadCreatedJson = objectMapper.writeValueAsString(uploadCreated);
+        uploadChangedJson = objectMapper.writeValueAsString(uploadChanged);
+        tokenRevokedJson = objectMapper.writeValueAsString(tokenRevoked);
+        uploadCreatedSmile = eventCodec.encode(uploadCreated);
+        uploadChangedSmile = eventCodec.encode(uploadChanged);
+    }
+
+    @Benchmark
+    public byte[] encodeUploadCreated() {
+        return eventCodec.encode(uploadCreated);
+    }
+
+    @Benchmark
+    public UploadCreatedEvent decodeUploadCreated() throws IOException {
+        return eventCodec.decode(uploadCreatedSmile, UploadCreatedEvent.class);
+    }
+
+    @Benchmark
+    public byte[] encodeUploadChanged() {
+        return eventCodec.encode(uploadChanged);
+    }
+
+    @Benchmark
+    public UploadChangedEvent decodeUploadChanged() throws IOException {
+        return eventCodec.decode(uploadChangedSmile, UploadChangedEvent.class);
+    }
+
+    @Benchmark
+    public String writeUploadCreated() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(uploadCreated);
+    }
+
+    @Benchmark
+    public UploadCreatedEvent readUploadCreated() throws JsonProcessingException {
+        return objectMapper.readValue(uploadCreatedJson, UploadCreatedEvent.class);
+    }
+
+    @Benchmark
+    public String writeUploadChanged() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(uploadChanged);
+    }
+
+    @Benchmark
+    public UploadChangedEvent readUploadChanged() throws JsonProcessingException {
+        return objectMapper.readValue(uploadChangedJson, UploadChangedEvent.class);
+    }
+
+    @Benchmark
+    public String writeTokenRevoked() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(tokenRevoked);
+    }
+
+    @Benchmark
+    public TokenRevokedEvent readTokenRevoked() throws JsonProcessingException {
+        return objectMapper.readValue(tokenRevokedJson, TokenRevokedEvent.class);
+    }
+}
@@ -0,0 +1,88 @@
+package com.benchmarks;
+
+import com.auth.components.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification in {@link JwtUtil}.
+ * <p>
+ * The cached variants present the same token over and over, as a client does between logins.
+ * The uncached variants cycle through more distinct tokens than the claims cache holds, so every
+ * call pays for the HMAC check and the JSON parse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+    private static final int UNCACHED_TOKENS = 4096;
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+    private String[] uncachedTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        String secret = Base64.getEncoder().encodeToString(key);
+        long expirationMs = TimeUnit.HOURS.toMillis(1);
+
+        jwtUtil = new JwtUtil(secret, expirationMs, 10_000);
+        token = jwtUtil.generateToken(USERNAME);
+        jwtUtil.verify(token);
+
+        uncachedJwtUtil = new JwtUtil(secret, expirationMs, 1);
+        uncachedTokens = new String[UNCACHED_TOKENS];
+        for (int i = 0; i < UNCACHED_TOKENS; i++) {
+            uncachedTokens[i] = uncachedJwtUtil.generateToken(USERNAME + i);
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Claims verifyUncached() {
+        next = (next + 1) % UNCACHED_TOKENS;
+        return uncachedJwtUtil.verify(uncachedTokens[next]);
+    }
+
+    @Benchmark
+    public Boolean validateTokenForUser() {
+        return jwtUtil.validateToken(token, USERNAME);
+    }
+
+    @Benchmark
+    public String extractUsernameUncached() {
+        next = (next + 1) % UNCACHED_TOKENS;
+        return uncachedJwtUtil.extractUsername(uncachedTokens[next]);
+    }
+}
@@ -0,0 +1,125 @@
+package com.benchmarks;
+
+import com.common.storage.LocalBlobStorage;
+import com.streamer.cache.ChunkCache;
+import com.streamer.cache.ReadaheadPrefetcher;
+import com.streamer.components.ClientAddresses;
+import com.streamer.components.RangeResponseWriter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Range serving through {@link RangeResponseWriter} from local storage, with and without the
+ * chunk cache. The response body is counted and discarded, so the score is the writer's own
+ * cost: header parsing, chunk lookups and the copy out of the file or the cache.
+ * <p>
+ * Sendfile is not offered by the mock request, so this measures the transferTo and cache path
+ * that multipart ranges and non-Tomcat connectors always take.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeResponseBenchmark {
+
+    private static final int VIDEO_SIZE = 16 * 1024 * 1024;
+    private static final String BLOB_KEY = "ab/benchmark.mp4";
+
+    @Param({"true", "false"})
+    public boolean chunkCache;
+
+    /** A seek into the middle, the first megabyte, the whole video and a two-part multipart range. */
+    @Param({"bytes=8388608-9437183", "bytes=0-1048575", "", "bytes=0-99,1048576-1114111"})
+    public String range;
+
+    private Path storageDir;
+    private RangeResponseWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("range-benchmark");
+        Path blob = storageDir.resolve(BLOB_KEY);
+        Files.createDirectories(blob.getParent());
+        byte[] video = new byte[VIDEO_SIZE];
+        new Random(42).nextBytes(video);
+        Files.write(blob, video);
+        ChunkCache cache = new ChunkCache(chunkCache, 1024 * 1024, 64L * 1024 * 1024);
+        // Read-ahead is off: it works in the background and would blur per-request timings
+        writer = new RangeResponseWriter(cache, new ReadaheadPrefetcher(cache, false, 2, 8, 1, 1),
+                new LocalBlobStorage(storageDir.toString()), new ClientAddresses(List.of()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(storageDir);
+    }
+
+    @Benchmark
+    public long serve() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stream/benchmark");
+        if (!range.isEmpty()) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        DiscardingResponse response = new DiscardingResponse();
+        writer.write(request, response, BLOB_KEY);
+        return response.written;
+    }
+
+    /** A response whose body only counts bytes, so the benchmark does not measure buffering in the mock. */
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+
+        private long written;
+
+        private final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written += len;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.benchmarks;
+
+import com.common.models.uploads.UploadRepository;
+import com.common.models.uploads.Uploads;
+import com.streamer.cache.UploadLookupCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identifier to blob key lookups in the streamer's {@link UploadLookupCache}, for known uploads
+ * and for cached misses. The repository is an in-memory stand-in, so after warmup every call is
+ * served from the cache; the {@code invalidated} variant drops the entry first and so includes a
+ * load through the cache's executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class UploadLookupBenchmark {
+
+    private static final int UPLOADS = 10_000;
+
+    /** Whether misses are loaded on virtual threads (spring.threads.virtual.enabled). */
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private UploadLookupCache cache;
+
+    @Setup
+    public void setUp() {
+        cache = new UploadLookupCache(inMemoryRepository(), 100_000, 300, 30, virtualThreads);
+        for (int i = 0; i < UPLOADS; i++) {
+            cache.findBlobKey("upload-" + i);
+            cache.findBlobKey("missing-" + i);
+        }
+    }
+
+    @Benchmark
+    public Optional<String> hit() {
+        return cache.findBlobKey("upload-" + ThreadLocalRandom.current().nextInt(UPLOADS));
+    }
+
+    @Benchmark
+    public Optional<String> negativeHit() {
+        return cache.findBlobKey("missing-" + ThreadLocalRandom.current().nextInt(UPLOADS));
+    }
+
+    @Benchmark
+    public Optional<String> invalidated() {
+        String identifier = "upload-" + ThreadLocalRandom.current().nextInt(UPLOADS);
+        cache.invalidate(identifier);
+        return cache.findBlobKey(identifier);
+    }
+
+    /** Answers findByIdentifier for identifiers starting with "upload-"; no other method is used by the cache. */
+    private static UploadRepository inMemoryRepository() {
+        return (UploadRepository) Proxy.newProxyInstance(UploadRepository.class.getClassLoader(),
+                new Class<?>[]{UploadRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByIdentifier" -> {
+                            String identifier = (String) args[0];
+                            if (!identifier.startsWith("upload-")) {
+                                return Optional.empty();
+                            }
+                            Uploads upload = new Uploads(identifier, identifier, "benchmark", "READY", false,
+                                    "ab/" + identifier + ".mp4", null, false);
+                            return Optional.of(upload);
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "toString" -> {
+                            return "InMemoryUploadRepository";
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
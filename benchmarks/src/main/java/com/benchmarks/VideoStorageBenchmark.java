@@ -0,0 +1,85 @@
+package com.benchmarks;
+
+import com.common.models.locks.BlobLocks;
+import com.common.storage.LocalBlobStorage;
+import com.uploads.StoredVideo;
+import com.uploads.VideoStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staging throughput of {@link VideoStorageService#storeVideo}: copying the request body to a
+ * staging file while hashing it. Bytes per second is the score times {@code size}.
+ * <p>
+ * The source is an in-memory stream, so the numbers exclude the network and show the cost of
+ * hashing and of the staging write. Each staged file is deleted after the call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VideoStorageBenchmark {
+
+    /** 64 KiB (one copy buffer), 1 MiB and 32 MiB. */
+    @Param({"65536", "1048576", "33554432"})
+    public int size;
+
+    private Path storageDir;
+    private VideoStorageService videoStorageService;
+    private byte[] video;
+
+    @Setup
+    public void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("storage-benchmark");
+        videoStorageService = new VideoStorageService(new LocalBlobStorage(storageDir.toString()),
+                new InProcessBlobLocks(), storageDir.toString());
+        video = new byte[size];
+        new Random(42).nextBytes(video);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(storageDir);
+    }
+
+    @Benchmark
+    public StoredVideo storeVideo() throws IOException {
+        StoredVideo stored = videoStorageService.storeVideo(new ByteArrayInputStream(video), "video.mp4", "video/mp4");
+        Files.delete(stored.getStagingFile());
+        return stored;
+    }
+
+    /** Locks blobs within this process instead of in a database, which staging never touches anyway. */
+    private static final class InProcessBlobLocks extends BlobLocks {
+
+        InProcessBlobLocks() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized <T> T withLock(String contentHash, LockedAction<T> action) throws IOException {
+            return action.run();
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.auth;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+@SpringBootApplication(exclude = {
+        SecurityAutoConfiguration.class,
+        ManagementWebSecurityAutoConfiguration.class,
+})
 @ComponentScan(basePackages = {
-        "com.common.models",
+        "com.auth",
+        "com.common",
 })
+@EntityScan(basePackages = "com.common")
+@EnableJpaRepositories(basePackages = "com.common.models")
+@EnableScheduling
 public class AuthApplication {
 
     public static void main(String[] args) {
@@ -1,16 +1,23 @@
 package com.auth;
 
+import com.auth.components.JwtAuthenticationFilter;
 import com.auth.payloads.request.NewUser;
 import com.auth.payloads.request.UserLogin;
 import com.auth.payloads.request.UserIdentifier;
+import com.auth.payloads.response.LoginResponse;
+import com.auth.payloads.response.LogoutResponse;
 import com.auth.payloads.response.NewUserCreationResponse;
-import com.common.models.user.User;
+import com.common.kafka.EventPublishException;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -31,25 +38,18 @@ public class AuthController {
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> newUser(@RequestBody NewUser newUser) {
-        System.out.println("Creating user");
-        Optional<User> user  = this.authService.createUser(newUser);
-        System.out.println(user.toString());
-        if (user.isPresent()) {
-            System.out.println(user);
-            NewUserCreationResponse obj = new NewUserCreationResponse(user.get().getUsername(), "User Created", "");
-            System.out.println("User Created");
+    public CompletableFuture<ResponseEntity<NewUserCreationResponse>> newUser(@RequestBody NewUser newUser) {
+        return this.authService.createUser(newUser).thenApply(user -> {
+            NewUserCreationResponse obj = new NewUserCreationResponse(user.getUsername(), "User Created", "");
             return new ResponseEntity<>(obj, HttpStatus.CREATED);
-        } else {
-            System.out.println("User Failed to be created");
-            NewUserCreationResponse obj = new NewUserCreationResponse("", "User Failed to be created", "");
-            return new ResponseEntity<>(obj, HttpStatus.BAD_REQUEST);
-        }
+        });
     }
 
     @PostMapping("/login")
-    public String validateUser(@RequestBody UserLogin getUser) {
-        return "validating new user";
+    public CompletableFuture<ResponseEntity<LoginResponse>> validateUser(@RequestBody UserLogin getUser,
+                                                                         HttpServletRequest request) {
+        return this.authService.login(getUser, request.getRemoteAddr()).thenApply(token ->
+                new ResponseEntity<>(new LoginResponse(getUser.getUsername(), "Logged in", token), HttpStatus.OK));
     }
 
     @PostMapping("/get_user")
@@ -58,8 +58,40 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public String logoutUser(@RequestBody UserIdentifier logoutUser) {
-        return "logging user out";
+    public ResponseEntity<LogoutResponse> logoutUser(
+            @RequestAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE) Claims claims) {
+        this.authService.logout(claims);
+        return new ResponseEntity<>(new LogoutResponse(claims.getSubject(), "Logged out"), HttpStatus.OK);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(BadCredentialsException.class)
+    public ResponseEntity<String> handleBadCredentials(BadCredentialsException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<String> handleThrottled(LoginThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<String> handleHashingSaturated(HashingCapacityExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(EventPublishException.class)
+    public ResponseEntity<String> handleBroadcastFailure(EventPublishException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Logout could not be confirmed on every server, please try again");
+    }
 }
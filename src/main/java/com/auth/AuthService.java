@@ -1,35 +1,130 @@
 package com.auth;
 
+import com.auth.components.JwtUtil;
+import com.auth.components.LoginThrottle;
+import com.auth.components.PasswordHashingService;
 import com.auth.payloads.request.NewUser;
+import com.auth.payloads.request.UserLogin;
+import com.auth.revocation.TokenRevocationStore;
 import com.common.models.user.User;
 import com.common.models.user.UserRepository;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
+/**
+ * Signup, login and logout. Password hashing runs on {@link PasswordHashingService}'s pool, so
+ * these methods return futures and never hold a request thread for a BCrypt round. The
+ * repository work that follows a hash runs on virtual threads, so a slow database never holds
+ * one of the pool's CPU-sized threads.
+ */
 @Service
 public class AuthService {
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final UserRepository userRepository;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final LoginThrottle loginThrottle;
+    private final JwtUtil jwtUtil;
+    private final Executor repositoryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    /** Compared against when the account does not exist, so unknown usernames take as long as wrong passwords. */
+    private final String unknownUserHash;
 
     @Autowired
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository, PasswordHashingService passwordHashingService,
+                       TokenRevocationStore tokenRevocationStore, LoginThrottle loginThrottle, JwtUtil jwtUtil) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.loginThrottle = loginThrottle;
+        this.jwtUtil = jwtUtil;
+        this.unknownUserHash = passwordHashingService.encodeInline(UUID.randomUUID().toString());
     }
 
-    public Optional<User> createUser(NewUser newUser) {
+    /**
+     * Creates a user once their password has been hashed.
+     *
+     * @param newUser The signup request.
+     * @return The saved user.
+     * @throws IllegalArgumentException         If the username is taken.
+     * @throws HashingCapacityExceededException If the hashing pool is saturated.
+     */
+    public CompletableFuture<User> createUser(NewUser newUser) {
         // check for existing user
         if (userRepository.existsByUsername(newUser.getUsername())) {
             throw new IllegalArgumentException("Username already exists");
         }
-        User user = new User();
-        user.setUsername(newUser.getUsername());
-        user.setEmail(newUser.getEmail());
-        user.setPassword(passwordEncoder.encode(newUser.getPassword()));
-        user = userRepository.save(user);
-        return Optional.of(user);
+        return passwordHashingService.encode(newUser.getPassword()).thenApplyAsync(hash -> {
+            User user = new User();
+            user.setUsername(newUser.getUsername());
+            user.setEmail(newUser.getEmail());
+            user.setPassword(hash);
+            return userRepository.save(user);
+        }, repositoryExecutor);
+    }
+
+    /**
+     * Checks a user's credentials and issues a token. Hashes made with an outdated BCrypt cost
+     * are replaced while the plaintext is at hand.
+     *
+     * @param login   The login request.
+     * @param address The client address, for throttling.
+     * @return A signed token for the user.
+     * @throws LoginThrottledException          If the account or address has too many recent failures.
+     * @throws HashingCapacityExceededException If the hashing pool is saturated.
+     * @throws BadCredentialsException          (through the future) If the credentials are wrong.
+     */
+    public CompletableFuture<String> login(UserLogin login, String address) {
+        if (login.getUsername() == null || login.getPassword() == null) {
+            throw new IllegalArgumentException("Username and password are required");
+        }
+        // Counted as a failure from here on, so concurrent attempts cannot all slip under the limit
+        loginThrottle.reserve(login.getUsername(), address);
+        CompletableFuture<Boolean> matches;
+        User user;
+        try {
+            user = userRepository.findByUsername(login.getUsername());
+            String storedHash = user != null ? user.getPassword() : unknownUserHash;
+            matches = passwordHashingService.matches(login.getPassword(), storedHash);
+        } catch (RuntimeException ex) {
+            loginThrottle.release(login.getUsername(), address);
+            throw ex;
+        }
+        return matches.thenComposeAsync(matched -> {
+            if (user == null || !matched) {
+                throw new BadCredentialsException("Invalid username or password");
+            }
+            loginThrottle.recordSuccess(login.getUsername(), address);
+            String token = jwtUtil.generateToken(user.getUsername());
+            if (!passwordHashingService.needsRehash(user.getPassword())) {
+                return CompletableFuture.completedFuture(token);
+            }
+            CompletableFuture<String> rehash;
+            try {
+                rehash = passwordHashingService.encode(login.getPassword());
+            } catch (HashingCapacityExceededException ex) {
+                // The old hash still works; it is replaced at a later login
+                return CompletableFuture.completedFuture(token);
+            }
+            return rehash.thenApplyAsync(hash -> {
+                user.setPassword(hash);
+                userRepository.save(user);
+                return token;
+            }, repositoryExecutor);
+        }, repositoryExecutor);
+    }
+
+    /**
+     * Logs a user out by revoking the token they authenticated with, on every node.
+     *
+     * @param claims The verified claims of the caller's token.
+     */
+    public void logout(Claims claims) {
+        tokenRevocationStore.revoke(claims);
     }
 }
@@ -0,0 +1,10 @@
+package com.auth;
+
+/**
+ * The password hashing pool is saturated; the request should be retried later.
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package com.auth.beans;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -9,7 +10,8 @@ import org.springframework.security.crypto.password.PasswordEncoder; // This is
 public class SecurityConfig { // Or any other @Configuration class
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:10}") int strength) {
+        // Stored hashes with a different cost are rehashed at the next successful login
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -0,0 +1,122 @@
+package com.auth.components;
+
+import com.auth.revocation.TokenRevocationStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates API requests carrying an {@code Authorization: Bearer <jwt>} header.
+ * <p>
+ * Valid tokens expose the caller's username and claims as request attributes. Invalid, expired
+ * or revoked tokens are rejected with 401. Requests without a token are let through, except on
+ * the paths listed in {@code auth.jwt.required-paths}.
+ * <p>
+ * Verification, including the revocation check, is timed as {@code auth.jwt.verification},
+ * tagged with its outcome (valid, invalid or revoked).
+ */
+@Component
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String USERNAME_ATTRIBUTE = "auth.username";
+    public static final String CLAIMS_ATTRIBUTE = "auth.claims";
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final List<String> requiredPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+    private final Timer revokedTimer;
+
+    @Autowired
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenRevocationStore tokenRevocationStore, MeterRegistry meterRegistry,
+                                   @Value("${auth.jwt.required-paths:/api/auth/get_user,/api/auth/logout}") List<String> requiredPaths) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.requiredPaths = requiredPaths;
+        this.validTimer = verificationTimer(meterRegistry, "valid");
+        this.invalidTimer = verificationTimer(meterRegistry, "invalid");
+        this.revokedTimer = verificationTimer(meterRegistry, "revoked");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !path(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            if (isRequired(request)) {
+                response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Authentication required");
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long started = System.nanoTime();
+        Claims claims;
+        try {
+            claims = jwtUtil.verify(header.substring(BEARER_PREFIX.length()).trim());
+        } catch (JwtException | IllegalArgumentException ex) {
+            invalidTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            logger.debug("Rejected bearer token: {}", ex.getMessage());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+            return;
+        }
+        if (tokenRevocationStore.isRevoked(claims)) {
+            revokedTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token has been revoked");
+            return;
+        }
+        validTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        request.setAttribute(USERNAME_ATTRIBUTE, claims.getSubject());
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isRequired(HttpServletRequest request) {
+        String path = path(request);
+        for (String pattern : requiredPaths) {
+            if (pathMatcher.match(pattern.trim(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Timer verificationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.jwt.verification").tag("outcome", outcome).register(meterRegistry);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
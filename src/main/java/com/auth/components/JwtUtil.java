@@ -1,41 +1,63 @@
 package com.auth.components;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.security.SecurityException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the HS256 tokens used across the services.
+ * <p>
+ * The signing key and the parser are built once; both are immutable and thread-safe. Tokens
+ * that pass verification are cached with their claims until the token itself expires, so a
+ * client presenting the same token on every request pays for the HMAC check and the JSON
+ * parse once.
+ */
 @Component
 public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
-    @Value("${jwt.secret}")
-    private String secret;
-
-    @Value("${jwt.expiration.ms}")
-    private long jwtExpirationInMs;
-
-    // Helper method to get the signing key
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final long jwtExpirationInMs;
+    private final Cache<String, Claims> verifiedTokens;
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration.ms}") long jwtExpirationInMs,
+                   @Value("${jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        this.jwtExpirationInMs = jwtExpirationInMs;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
     /**
@@ -61,12 +83,29 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims) // Custom claims
                 .setSubject(subject) // The principal about whom the token is issued
+                .setId(UUID.randomUUID().toString()) // Token id (jti), so a single token can be revoked
                 .setIssuedAt(new Date(System.currentTimeMillis())) // When the token was issued
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationInMs)) // When the token expires
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Sign with your secret key and algorithm
+                .signWith(signingKey, SignatureAlgorithm.HS256) // Sign with your secret key and algorithm
                 .compact(); // Builds the JWT and serializes it to a compact, URL-safe string
     }
 
+    /**
+     * Verifies a token's signature and expiry and returns its claims. Results are cached per
+     * token until the token expires; failures are never cached.
+     *
+     * @param token The JWT token string.
+     * @return The verified claims.
+     * @throws JwtException             If the token is malformed, forged or expired.
+     * @throws IllegalArgumentException If the token is null or empty.
+     */
+    public Claims verify(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT string is empty");
+        }
+        return verifiedTokens.get(token, t -> jwtParser.parseSignedClaims(t).getPayload());
+    }
+
     /**
      * Extracts the subject (username) from the token.
      *
@@ -96,32 +135,7 @@ public class JwtUtil {
      * @return The extracted claim.
      */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    /**
-     * Extracts all claims from the token.
-     *
-     * @param token The JWT token string.
-     * @return The Claims object containing all claims.
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey()) // Provide your secret key for parsing
-                .build()
-                .parseClaimsJws(token) // Parses the signed JWT
-                .getBody(); // Returns the claims (payload)
-    }
-
-    /**
-     * Checks if the token is expired.
-     *
-     * @param token The JWT token string.
-     * @return true if the token is expired, false otherwise.
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return claimsResolver.apply(verify(token));
     }
 
     /**
@@ -132,8 +146,8 @@ public class JwtUtil {
      * @return true if the token is valid for the given username and not expired, false otherwise.
      */
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        // verify() rejects expired tokens, and cached entries are evicted when the token expires
+        return Boolean.TRUE.equals(validateToken(token)) && username.equals(extractUsername(token));
     }
 
     /**
@@ -144,9 +158,9 @@ public class JwtUtil {
      */
     public Boolean validateToken(String token) {
         try {
-//            Jwts.setSigningKey(getSigningKey()).build().parseClaimsJws(token);
+            verify(token);
             return true;
-        } catch (SignatureException e) {
+        } catch (SecurityException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
@@ -154,9 +168,38 @@ public class JwtUtil {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
         return false;
     }
+
+    /**
+     * Keeps each verified token exactly until its exp claim. Tokens without an expiry are not
+     * kept at all, so they are re-verified every time.
+     */
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long remainingMs = expiration.getTime() - System.currentTimeMillis();
+            return remainingMs <= 0 ? 0 : TimeUnit.MILLISECONDS.toNanos(remainingMs);
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
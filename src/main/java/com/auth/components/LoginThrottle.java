@@ -0,0 +1,99 @@
+package com.auth.components;
+
+import com.auth.LoginThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts failed logins per account and per client address over a fixed window starting at the
+ * first attempt. Requests over either limit are refused before any password hashing happens,
+ * so a credential-stuffing burst is turned away cheaply.
+ * <p>
+ * Every attempt reserves its place in both counts before the password is checked, and a
+ * successful or abandoned attempt gives it back. Concurrent attempts therefore cannot all pass
+ * the limit while their checks are still running: at most the limit's worth of attempts are
+ * failed or in progress at once.
+ */
+@Component
+public class LoginThrottle {
+
+    private final int maxAccountFailures;
+    private final int maxAddressFailures;
+    private final Duration window;
+    private final Cache<String, AtomicInteger> accountFailures;
+    private final Cache<String, AtomicInteger> addressFailures;
+
+    @Autowired
+    public LoginThrottle(@Value("${auth.login.max-failures-per-account:5}") int maxAccountFailures,
+                         @Value("${auth.login.max-failures-per-address:50}") int maxAddressFailures,
+                         @Value("${auth.login.window-minutes:15}") long windowMinutes,
+                         @Value("${auth.login.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this.maxAccountFailures = maxAccountFailures;
+        this.maxAddressFailures = maxAddressFailures;
+        this.window = Duration.ofMinutes(windowMinutes);
+        // The window runs from the first attempt: counters are updated in place, which is not a write
+        this.accountFailures = Caffeine.newBuilder().maximumSize(maxTrackedKeys).expireAfterWrite(window).build();
+        this.addressFailures = Caffeine.newBuilder().maximumSize(maxTrackedKeys).expireAfterWrite(window).build();
+    }
+
+    /**
+     * Reserves a login attempt, counted as a failure until {@link #recordSuccess} or
+     * {@link #release} gives it back.
+     *
+     * @param username The account being logged into.
+     * @param address  The client address.
+     * @throws LoginThrottledException If either already has too many recent failures; nothing is reserved then.
+     */
+    public void reserve(String username, String address) {
+        if (!tryIncrement(addressFailures, address, maxAddressFailures)) {
+            throw new LoginThrottledException("Too many failed logins from this address", window.toSeconds());
+        }
+        if (!tryIncrement(accountFailures, accountKey(username), maxAccountFailures)) {
+            decrement(addressFailures, address);
+            throw new LoginThrottledException("Too many failed logins for this account", window.toSeconds());
+        }
+    }
+
+    /**
+     * Gives back a reserved attempt whose password was never checked, e.g. because hashing was refused.
+     */
+    public void release(String username, String address) {
+        decrement(accountFailures, accountKey(username));
+        decrement(addressFailures, address);
+    }
+
+    /**
+     * Gives back a reserved attempt that succeeded and clears the account's failures.
+     */
+    public void recordSuccess(String username, String address) {
+        accountFailures.invalidate(accountKey(username));
+        decrement(addressFailures, address);
+    }
+
+    private static boolean tryIncrement(Cache<String, AtomicInteger> failures, String key, int max) {
+        AtomicInteger count = failures.get(key, k -> new AtomicInteger());
+        if (count.incrementAndGet() > max) {
+            count.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private static void decrement(Cache<String, AtomicInteger> failures, String key) {
+        AtomicInteger count = failures.getIfPresent(key);
+        if (count != null) {
+            count.updateAndGet(value -> Math.max(0, value - 1));
+        }
+    }
+
+    private static String accountKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,130 @@
+package com.auth.components;
+
+import com.auth.HashingCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated pool sized to the CPU count.
+ * <p>
+ * BCrypt is deliberately slow, so running it on request threads lets a burst of logins occupy
+ * every servlet thread. Here at most one hash per core runs at a time, a short queue absorbs
+ * spikes, and anything beyond that is refused immediately with
+ * {@link HashingCapacityExceededException} instead of waiting.
+ * <p>
+ * The pool is published as executor metrics named {@code password-hashing}
+ * ({@code executor.queued} is the queue depth), alongside {@code auth.hashing.queue.wait} for the
+ * time each operation spent queued and {@code auth.hashing.rejected} for refused operations.
+ */
+@Component
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    @Autowired
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${auth.password.bcrypt-strength:10}") int strength,
+                                  @Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(meterRegistry);
+        this.queueWait = Timer.builder("auth.hashing.queue.wait").register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected").register(meterRegistry);
+    }
+
+    /**
+     * Hashes a password on the hashing pool.
+     *
+     * @param rawPassword The password to hash.
+     * @return The encoded hash.
+     * @throws HashingCapacityExceededException If the pool's queue is full.
+     */
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks a password against a stored hash on the hashing pool.
+     *
+     * @param rawPassword     The password presented by the client.
+     * @param encodedPassword The stored hash.
+     * @return Whether they match.
+     * @throws HashingCapacityExceededException If the pool's queue is full.
+     */
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes a password on the calling thread. Only for callers that run once, e.g. the dummy hash
+     * made at startup, or are already on the hashing pool.
+     *
+     * @param rawPassword The password to hash.
+     * @return The encoded hash.
+     */
+    public String encodeInline(CharSequence rawPassword) {
+        return passwordEncoder.encode(rawPassword);
+    }
+
+    /**
+     * @param encodedPassword A stored hash.
+     * @return true if the hash was made with a different cost than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            }, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new HashingCapacityExceededException("Too many password operations in progress, retry shortly");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,4 +1,33 @@
 package com.auth.payloads.response;
 
 public class LogoutResponse {
+    private String username;
+    private String message;
+
+    // Constructors
+    public LogoutResponse() {
+    }
+
+    public LogoutResponse(String username, String message) {
+        this.username = username;
+        this.message = message;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    // Setters
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
 }
@@ -0,0 +1,51 @@
+package com.auth.revocation;
+
+import com.common.kafka.BroadcastGroups;
+import com.common.kafka.EventCodec;
+import com.common.kafka.KafkaTopics;
+import com.common.kafka.events.TokenRevokedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Applies revocations broadcast by any auth node, including this one. Every node uses its own
+ * consumer group ({@link BroadcastGroups}) so each of them sees every event. A node's first start
+ * begins at the earliest offset, which replays the revocations still inside the topic's retention;
+ * later starts resume where the node stopped, after {@link TokenRevocationStore#loadRevocations}
+ * has rebuilt the filters from the database.
+ */
+@Component
+public class TokenRevocationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationListener.class);
+
+    private final TokenRevocationStore tokenRevocationStore;
+    private final EventCodec eventCodec;
+
+    @Autowired
+    public TokenRevocationListener(TokenRevocationStore tokenRevocationStore, EventCodec eventCodec) {
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.eventCodec = eventCodec;
+    }
+
+    @KafkaListener(topics = KafkaTopics.TOKEN_REVOKED,
+            groupId = "#{T(com.common.kafka.BroadcastGroups).forNode('${auth.revocation.group-prefix:auth-revocation}', '${kafka.node-id:}')}",
+            properties = "auto.offset.reset=earliest")
+    public void onTokenRevoked(byte[] message) {
+        TokenRevokedEvent event;
+        try {
+            event = eventCodec.decode(message, TokenRevokedEvent.class);
+        } catch (IOException ex) {
+            logger.warn("Ignoring malformed token-revoked event: {}", ex.getMessage());
+            return;
+        }
+        if (event.getJti() != null) {
+            tokenRevocationStore.remember(event.getJti(), event.getExpiresAt());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.auth.revocation;
+
+import com.common.kafka.EventPublishException;
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.events.TokenRevokedEvent;
+import com.common.models.revocation.RevokedToken;
+import com.common.models.revocation.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Revoked token ids (jti), checked on every authenticated request.
+ * <p>
+ * The database holds the authoritative list. In memory each node keeps one Bloom filter per
+ * expiry bucket: a token is only looked up in the database when the filter of the bucket its
+ * exp falls into says it might be revoked, so a non-revoked token costs a few hash probes.
+ * Once every token in a bucket has expired the whole bucket is dropped, because the JWT
+ * verifier rejects those tokens on its own.
+ * <p>
+ * Revocations reach the other nodes through the token-revoked topic; a starting node rebuilds
+ * its filters from the database.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final long bucketMs;
+    private final long expectedPerBucket;
+    private final double falsePositiveRate;
+    /** Keyed by the exclusive end of each bucket's expiry range, in bucket units. */
+    private final ConcurrentNavigableMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                KafkaProducerService kafkaProducerService,
+                                @Value("${auth.revocation.bucket-minutes:15}") long bucketMinutes,
+                                @Value("${auth.revocation.expected-per-bucket:10000}") long expectedPerBucket,
+                                @Value("${auth.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.bucketMs = bucketMinutes * 60_000L;
+        this.expectedPerBucket = expectedPerBucket;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Rebuilds the in-memory filters from the database once the node is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        int loaded = 0;
+        for (RevokedToken revoked : revokedTokenRepository.findByExpiresAtAfter(Instant.now())) {
+            remember(revoked.getJti(), revoked.getExpiresAt().toEpochMilli());
+            loaded++;
+        }
+        logger.info("Loaded {} token revocations", loaded);
+    }
+
+    /**
+     * Checks whether a verified token has been revoked.
+     *
+     * @param claims The token's verified claims.
+     * @return true if the token's jti has been revoked.
+     */
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (jti == null || expiration == null) {
+            // Tokens issued without an id cannot be revoked individually
+            return false;
+        }
+        dropExpiredBuckets();
+        Bucket bucket = buckets.get(bucketKey(expiration.getTime()));
+        if (bucket == null || !bucket.filter.mightContain(jti)) {
+            return false;
+        }
+        if (bucket.confirmed.contains(jti)) {
+            return true;
+        }
+        // Possible false positive; the database has the final word
+        if (revokedTokenRepository.existsById(jti)) {
+            bucket.confirmed.add(jti);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Revokes a token until it expires and broadcasts the revocation to the other nodes. Waits
+     * for the broadcast: a node that misses it would keep accepting the token until it restarts.
+     *
+     * @param claims The token's verified claims.
+     * @throws IllegalArgumentException If the token has no id or no expiry.
+     * @throws EventPublishException    If the revocation is stored but could not be broadcast;
+     *                                  revoking again is harmless.
+     */
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (jti == null || expiration == null) {
+            throw new IllegalArgumentException("Token has no id or expiry and cannot be revoked");
+        }
+        if (expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(jti, expiration.toInstant()));
+        remember(jti, expiration.getTime());
+        kafkaProducerService.await(kafkaProducerService.publishTokenRevoked(
+                new TokenRevokedEvent(jti, expiration.getTime())));
+    }
+
+    /**
+     * Deletes revocations of tokens that have expired, which the JWT verifier rejects on its own.
+     * Runs on every auth node; the delete is idempotent, so overlapping runs are harmless.
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpired(Instant.now());
+        if (purged > 0) {
+            logger.info("Purged {} expired token revocations", purged);
+        }
+    }
+
+    /**
+     * Records a revocation announced by another node.
+     *
+     * @param jti       The revoked token id.
+     * @param expiresAt The token's expiry in epoch milliseconds.
+     */
+    public void remember(String jti, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        buckets.computeIfAbsent(bucketKey(expiresAt), key -> new Bucket(expectedPerBucket, falsePositiveRate))
+                .filter.add(jti);
+    }
+
+    private long bucketKey(long expiresAtMs) {
+        return expiresAtMs / bucketMs + 1;
+    }
+
+    private void dropExpiredBuckets() {
+        // Bucket k holds tokens expiring before k * bucketMs; once that time has passed all of them are dead
+        buckets.headMap(System.currentTimeMillis() / bucketMs, true).clear();
+    }
+
+    private static final class Bucket {
+        final BloomFilter filter;
+        /** Token ids confirmed revoked, so a client retrying a revoked token does not hit the database each time. */
+        final Set<String> confirmed = ConcurrentHashMap.newKeySet();
+
+        Bucket(long expectedInsertions, double falsePositiveRate) {
+            this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        }
+    }
+}
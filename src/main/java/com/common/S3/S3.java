@@ -1,8 +0,0 @@
-package com.common.S3;
-
-import org.springframework.stereotype.Service;
-
-@Service
-public class S3 {
-
-}
@@ -0,0 +1,32 @@
+package com.common.kafka;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Consumer group ids for broadcast topics, which every node reads in full. Each node needs a
+ * group of its own, and the same one across restarts: a new group per start would leave an
+ * abandoned group (and its committed offsets) on the brokers every time a node is redeployed.
+ */
+public final class BroadcastGroups {
+
+    private BroadcastGroups() {
+    }
+
+    /**
+     * @param prefix The group prefix of the listener.
+     * @param nodeId The configured id of this node ({@code kafka.node-id}); blank for the host name.
+     * @return The listener's consumer group on this node.
+     */
+    public static String forNode(String prefix, String nodeId) {
+        return prefix + "-" + (nodeId == null || nodeId.isBlank() ? hostName() : nodeId);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            throw new IllegalStateException("Cannot resolve the host name; set kafka.node-id", ex);
+        }
+    }
+}
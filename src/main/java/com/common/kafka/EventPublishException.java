@@ -0,0 +1,10 @@
+package com.common.kafka;
+
+/**
+ * Thrown when the broker did not acknowledge an event that the caller waited for.
+ */
+public class EventPublishException extends RuntimeException {
+    public EventPublishException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,22 +1,142 @@
 package com.common.kafka;
 
 
+import com.common.kafka.events.TokenRevokedEvent;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.kafka.events.UploadCreatedEvent;
+import com.common.kafka.events.UploadStatusEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the services' events, encoded by {@link EventCodec}.
+ * <p>
+ * Upload events are keyed by the upload identifier, so all events for one video land on the
+ * same partition and are consumed in the order they were sent. The producer is idempotent and
+ * batches and compresses records (see spring.kafka.producer.* in application.properties), so
+ * retries cannot reorder or duplicate events within a partition.
+ * <p>
+ * Sends are asynchronous. Every send is timed from the call until the broker acknowledges it,
+ * as {@code kafka.produce} tagged with the topic and outcome, and failures are logged with the
+ * event. A send the producer refuses on the spot, e.g. because the broker is unreachable for
+ * {@code max.block.ms}, fails the same way instead of throwing at the caller. Upload-changed events are best effort and return nothing; every other publish method
+ * returns the send's future, and its callers either wait for it through {@link #await} or
+ * attach their own recovery.
+ */
 @Service
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final EventCodec eventCodec;
+    private final MeterRegistry meterRegistry;
+    private final Duration awaitTimeout;
 
     @Autowired
-    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, byte[]> kafkaTemplate, EventCodec eventCodec,
+                                MeterRegistry meterRegistry,
+                                @Value("${kafka.publish.await-timeout-ms:10000}") long awaitTimeoutMs) {
         this.kafkaTemplate = kafkaTemplate;
+        this.eventCodec = eventCodec;
+        this.meterRegistry = meterRegistry;
+        this.awaitTimeout = Duration.ofMillis(awaitTimeoutMs);
+    }
+
+    /**
+     * Publishes an upload-created event for the processing workers.
+     *
+     * @param event The event to publish.
+     * @return Completes when the broker has acknowledged the event, or exceptionally if it could not be sent.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> publishUploadCreated(UploadCreatedEvent event) {
+        return publish(KafkaTopics.UPLOAD_CREATED, event.getIdentifier(), event);
+    }
+
+    /**
+     * Broadcasts a token revocation to every auth node. The revocation is already in the
+     * database, so nodes that miss the event pick it up on their next start.
+     *
+     * @param event The event to publish.
+     * @return Completes when the broker has acknowledged the event, or exceptionally if it could not be sent.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> publishTokenRevoked(TokenRevokedEvent event) {
+        return publish(KafkaTopics.TOKEN_REVOKED, event.getJti(), event);
+    }
+
+    /**
+     * Tells every streamer node that an upload row changed. Best effort: a failure is logged and
+     * counted here, and the streamers' cache TTL bounds how long a missed event leaves an entry
+     * stale, so callers do not wait.
+     *
+     * @param event The event to publish.
+     */
+    public void publishUploadChanged(UploadChangedEvent event) {
+        publish(KafkaTopics.UPLOAD_CHANGED, event.getIdentifier(), event);
+    }
+
+    /**
+     * Publishes a status reached by a processing worker, to be written to the uploads table by
+     * the status batch listener.
+     *
+     * @param event The event to publish.
+     * @return Completes when the broker has acknowledged the event, or exceptionally if it could not be sent.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> publishUploadStatus(UploadStatusEvent event) {
+        return publish(KafkaTopics.UPLOAD_STATUS, event.getIdentifier(), event);
+    }
+
+    /**
+     * Waits, at most {@code kafka.publish.await-timeout-ms}, for the broker to acknowledge a send.
+     *
+     * @param send The future returned by one of the publish methods.
+     * @throws EventPublishException If the send failed or timed out.
+     */
+    public void await(CompletableFuture<SendResult<String, byte[]>> send) {
+        try {
+            send.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EventPublishException("Interrupted while publishing an event", ex);
+        } catch (ExecutionException ex) {
+            throw new EventPublishException("Could not publish an event: " + ex.getCause().getMessage(), ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new EventPublishException("The broker did not acknowledge an event within " + awaitTimeout, ex);
+        }
     }
 
-    public void sendMessage(String topic, String message) {
-        System.out.println("Sending message: " + message + " to topic: " + topic);
-        kafkaTemplate.send(topic, message);
+    private CompletableFuture<SendResult<String, byte[]>> publish(String topic, String key, Object event) {
+        byte[] payload = eventCodec.encode(event);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<SendResult<String, byte[]>> send;
+        try {
+            send = kafkaTemplate.send(topic, key, payload);
+        } catch (RuntimeException ex) {
+            // The producer throws instead of failing the future when it cannot get the topic's
+            // metadata or buffer space within max.block.ms
+            send = CompletableFuture.failedFuture(ex);
+        }
+        return send
+                .whenComplete((result, ex) -> {
+                    sample.stop(Timer.builder("kafka.produce")
+                            .tags("topic", topic, "outcome", ex == null ? "success" : "failure")
+                            .register(meterRegistry));
+                    if (ex != null) {
+                        logger.error("Failed to publish {} to {}: {}", event, topic, ex.getMessage());
+                    }
+                });
     }
 }
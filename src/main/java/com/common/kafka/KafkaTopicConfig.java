@@ -0,0 +1,52 @@
+package com.common.kafka;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Declares the topics so KafkaAdmin creates them on startup. The partition count of
+ * upload-created caps how many processing consumers can work in parallel.
+ */
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic uploadCreatedTopic(@Value("${kafka.topics.upload-created.partitions:6}") int partitions) {
+        return TopicBuilder.name(KafkaTopics.UPLOAD_CREATED).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic uploadCreatedDeadLetterTopic(@Value("${kafka.topics.upload-created.partitions:6}") int partitions) {
+        // Same partition count so the recoverer can keep each record on its original partition
+        return TopicBuilder.name(KafkaTopics.UPLOAD_CREATED_DLT).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic uploadStatusTopic(@Value("${kafka.topics.upload-created.partitions:6}") int partitions) {
+        // Keyed by upload identifier like upload-created, so each video's statuses stay in order
+        return TopicBuilder.name(KafkaTopics.UPLOAD_STATUS).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic tokenRevokedTopic(@Value("${kafka.topics.token-revoked.retention-ms:86400000}") long retentionMs) {
+        // Every node reads the whole topic, so one partition is enough; retention only has to
+        // outlive the longest-lived token so a restarted node can replay what it missed
+        return TopicBuilder.name(KafkaTopics.TOKEN_REVOKED)
+                .partitions(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, Long.toString(retentionMs))
+                .build();
+    }
+
+    @Bean
+    public NewTopic uploadChangedTopic(@Value("${kafka.topics.upload-changed.retention-ms:3600000}") long retentionMs) {
+        // Invalidations are only useful to nodes that are running; a starting node has an empty cache
+        return TopicBuilder.name(KafkaTopics.UPLOAD_CHANGED)
+                .partitions(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, Long.toString(retentionMs))
+                .build();
+    }
+}
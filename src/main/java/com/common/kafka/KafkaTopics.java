@@ -0,0 +1,25 @@
+package com.common.kafka;
+
+/**
+ * Topic names shared by the producing and consuming services.
+ */
+public final class KafkaTopics {
+
+    /** Published by the upload service once an upload row has been committed. */
+    public static final String UPLOAD_CREATED = "upload-created";
+
+    /** Upload events that kept failing after all retries. */
+    public static final String UPLOAD_CREATED_DLT = UPLOAD_CREATED + "-dlt";
+
+    /** Broadcast to every auth node when a token is revoked at logout. */
+    public static final String TOKEN_REVOKED = "token-revoked";
+
+    /** Broadcast to every streamer node whenever an upload row changes, so cached lookups are dropped. */
+    public static final String UPLOAD_CHANGED = "upload-changed";
+
+    /** Final statuses reached by the processing workers, applied to the uploads table in batches. */
+    public static final String UPLOAD_STATUS = "upload-status";
+
+    private KafkaTopics() {
+    }
+}
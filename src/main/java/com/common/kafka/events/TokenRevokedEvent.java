@@ -0,0 +1,42 @@
+package com.common.kafka.events;
+
+public class TokenRevokedEvent {
+    private String jti;
+    private long expiresAt;
+
+    // Constructors
+    public TokenRevokedEvent() {
+    }
+
+    public TokenRevokedEvent(String jti, long expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    /** @return The revoked token's expiry, in epoch milliseconds. */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    // Setters
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenRevokedEvent{" +
+                "jti='" + jti + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package com.common.kafka.events;
+
+public class UploadChangedEvent {
+    private String identifier;
+    private String change; // e.g. CREATED, DELETED or the new status
+    private long changedAt;
+
+    // Constructors
+    public UploadChangedEvent() {
+    }
+
+    public UploadChangedEvent(String identifier, String change, long changedAt) {
+        this.identifier = identifier;
+        this.change = change;
+        this.changedAt = changedAt;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getChange() {
+        return change;
+    }
+
+    /** @return When the row was changed, in epoch milliseconds. */
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    // Setters
+
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public void setChange(String change) {
+        this.change = change;
+    }
+
+    public void setChangedAt(long changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadChangedEvent{" +
+                "identifier='" + identifier + '\'' +
+                ", change='" + change + '\'' +
+                ", changedAt=" + changedAt +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+package com.common.kafka.events;
+
+public class UploadCreatedEvent {
+    private String identifier;
+    private String dataPathLink;
+    private String contentHash;
+    private String uploadedBy;
+    private long createdAt;
+
+    // Constructors
+    public UploadCreatedEvent() {
+    }
+
+    public UploadCreatedEvent(String identifier, String dataPathLink, String contentHash, String uploadedBy,
+                              long createdAt) {
+        this.identifier = identifier;
+        this.dataPathLink = dataPathLink;
+        this.contentHash = contentHash;
+        this.uploadedBy = uploadedBy;
+        this.createdAt = createdAt;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getDataPathLink() {
+        return dataPathLink;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getUploadedBy() {
+        return uploadedBy;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    // Setters
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public void setDataPathLink(String dataPathLink) {
+        this.dataPathLink = dataPathLink;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public void setUploadedBy(String uploadedBy) {
+        this.uploadedBy = uploadedBy;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadCreatedEvent{" +
+                "identifier='" + identifier + '\'' +
+                ", dataPathLink='" + dataPathLink + '\'' +
+                ", contentHash='" + contentHash + '\'' +
+                ", uploadedBy='" + uploadedBy + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
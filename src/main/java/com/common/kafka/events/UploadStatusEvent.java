@@ -0,0 +1,53 @@
+package com.common.kafka.events;
+
+public class UploadStatusEvent {
+    private String identifier;
+    private String status; // READY or FAILED
+    private long changedAt;
+
+    // Constructors
+    public UploadStatusEvent() {
+    }
+
+    public UploadStatusEvent(String identifier, String status, long changedAt) {
+        this.identifier = identifier;
+        this.status = status;
+        this.changedAt = changedAt;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /** @return When the worker reached the status, in epoch milliseconds. */
+    public long getChangedAt() {
+        return changedAt;
+    }
+
+    // Setters
+
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public void setChangedAt(long changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadStatusEvent{" +
+                "identifier='" + identifier + '\'' +
+                ", status='" + status + '\'' +
+                ", changedAt=" + changedAt +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.common.media;
+
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * Layout of the fragmented-MP4 renditions written next to each stored video, both as local paths
+ * and as blob storage keys. Shared by the processing worker that writes them and the streamer
+ * that serves them.
+ */
+public final class SegmentLayout {
+
+    public static final String INIT_SEGMENT = "init.mp4";
+    public static final String HLS_MASTER_PLAYLIST = "master.m3u8";
+    public static final String HLS_MEDIA_PLAYLIST = "playlist.m3u8";
+    public static final String DASH_MANIFEST = "manifest.mpd";
+    public static final String MEDIA_SEGMENT_FORMAT = "seg-%05d.m4s";
+    public static final String DASH_MEDIA_TEMPLATE = "seg-$Number%05d$.m4s";
+
+    private static final String DIRECTORY_SUFFIX = ".segments";
+    private static final Pattern SERVABLE_NAME = Pattern.compile(
+            "init\\.mp4|seg-\\d{5,9}\\.m4s|master\\.m3u8|playlist\\.m3u8|manifest\\.mpd");
+
+    private SegmentLayout() {
+    }
+
+    /**
+     * @param video The stored video blob.
+     * @return The directory holding its segments and manifests.
+     */
+    public static Path segmentDirectory(Path video) {
+        return video.resolveSibling(video.getFileName() + DIRECTORY_SUFFIX);
+    }
+
+    /**
+     * @param blobKey The blob key of the stored video.
+     * @return The directory key holding its segments and manifests, the storage-key equivalent
+     * of {@link #segmentDirectory}.
+     */
+    public static String segmentDirectoryKey(String blobKey) {
+        return blobKey + DIRECTORY_SUFFIX;
+    }
+
+    /**
+     * @param blobKey The blob key of the stored video.
+     * @param name    A servable file name.
+     * @return The blob key of that segment or manifest.
+     */
+    public static String segmentKey(String blobKey, String name) {
+        return segmentDirectoryKey(blobKey) + "/" + name;
+    }
+
+    public static String mediaSegmentName(int sequence) {
+        return String.format(MEDIA_SEGMENT_FORMAT, sequence);
+    }
+
+    /**
+     * Whitelist of file names the streamer may serve out of a segment directory.
+     *
+     * @param name A client-supplied file name.
+     * @return true if the name is one of the generated files.
+     */
+    public static boolean isServableName(String name) {
+        return name != null && SERVABLE_NAME.matcher(name).matches();
+    }
+
+    /**
+     * @param name A servable file name.
+     * @return The content type to serve it with.
+     */
+    public static String contentType(String name) {
+        if (name.endsWith(".m3u8")) {
+            return "application/vnd.apple.mpegurl";
+        }
+        if (name.endsWith(".mpd")) {
+            return "application/dash+xml";
+        }
+        if (name.endsWith(".m4s")) {
+            return "video/iso.segment";
+        }
+        return "video/mp4";
+    }
+}
@@ -0,0 +1,78 @@
+package com.common.models;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Id allocation for the uploads and users tables.
+ * <p>
+ * MySQL has no sequences, so Hibernate keeps each one as a single-row table ({@code next_val}).
+ * With the pooled-lo optimizer a node reads the value, advances it by a whole block and then
+ * hands out the ids of that block from memory: one round-trip per {@link #ALLOCATION_SIZE}
+ * inserts, and the ids are known before the insert, which lets Hibernate and the bulk importer
+ * batch them. Any client may reserve a block of any size as long as it advances the value the
+ * same way, which is what {@link #reserve} does for the importer.
+ * <p>
+ * Rows inserted before the switch from AUTO_INCREMENT are above the sequences' initial value,
+ * so each sequence is moved past the table's highest id on startup.
+ */
+@Component
+@DependsOn("entityManagerFactory") // The sequence tables are created with the schema
+public class IdSequences implements InitializingBean {
+
+    public static final String UPLOADS = "uploads_seq";
+    public static final String USERS = "users_seq";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequences.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public IdSequences(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        align(UPLOADS, "uploads");
+        align(USERS, "users");
+    }
+
+    /**
+     * Reserves a block of ids in its own transaction, so the row lock is released at once.
+     *
+     * @param sequence {@link #UPLOADS} or {@link #USERS}.
+     * @param count    The number of ids to reserve.
+     * @return The first id of the block; the block is {@code [first, first + count)}.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserve(String sequence, int count) {
+        Long first = jdbcTemplate.queryForObject("select next_val from " + table(sequence) + " for update", Long.class);
+        if (first == null) {
+            throw new IllegalStateException("Sequence " + sequence + " has no value");
+        }
+        jdbcTemplate.update("update " + table(sequence) + " set next_val = ?", first + count);
+        return first;
+    }
+
+    private void align(String sequence, String table) {
+        jdbcTemplate.update("update " + sequence + " set next_val = greatest(next_val, " +
+                "(select coalesce(max(id), 0) + 1 from " + table + "))");
+        logger.debug("Aligned {} with the ids in {}", sequence, table);
+    }
+
+    private static String table(String sequence) {
+        if (!UPLOADS.equals(sequence) && !USERS.equals(sequence)) {
+            throw new IllegalArgumentException("Unknown sequence: " + sequence);
+        }
+        return sequence;
+    }
+}
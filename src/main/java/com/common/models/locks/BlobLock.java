@@ -0,0 +1,27 @@
+package com.common.models.locks;
+
+import jakarta.persistence.*;
+
+/**
+ * One row per content hash that has ever been locked; see {@link BlobLocks}. The row only
+ * exists to be locked with {@code select ... for update}.
+ */
+@Entity
+@Table(name = "blob_locks")
+public class BlobLock {
+
+    @Id
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    // Default constructor (REQUIRED by JPA/Hibernate)
+    public BlobLock() {
+    }
+
+    public BlobLock(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+}
@@ -0,0 +1,66 @@
+package com.common.models.locks;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Cluster-wide mutual exclusion per content-addressed blob, held as a row lock in the database.
+ * <p>
+ * Every decision to share, delete or re-point a blob (upload commits, upload deletes, tier
+ * migrations) runs under the lock of the blob's digest, so a node can never delete a copy that a
+ * node elsewhere has just decided to share. The action runs in the lock's transaction: rows it
+ * saves through JPA or JDBC become visible together with the release of the lock, and are rolled
+ * back if the action fails.
+ */
+@Component
+public class BlobLocks {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public BlobLocks(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs an action while holding the lock of a digest, waiting for other holders first.
+     *
+     * @param contentHash The SHA-256 of the blob.
+     * @param action      The work to do under the lock.
+     * @param <T>         The result of the action.
+     * @return The result of the action.
+     * @throws IOException If the action fails with one; the transaction is rolled back.
+     */
+    public <T> T withLock(String contentHash, LockedAction<T> action) throws IOException {
+        // Created outside the locking transaction: concurrent inserts of a new key inside
+        // transactions can deadlock on the duplicate-key check
+        jdbcTemplate.update("insert ignore into blob_locks (content_hash) values (?)", contentHash);
+        try {
+            return transactionTemplate.execute(status -> {
+                jdbcTemplate.queryForObject("select content_hash from blob_locks where content_hash = ? for update",
+                        String.class, contentHash);
+                try {
+                    return action.run();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /** Work done under a blob lock. */
+    @FunctionalInterface
+    public interface LockedAction<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,32 @@
+package com.common.models.locks;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/** Who may run a cluster-wide job until when; see {@link JobLeases}. */
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    @Id
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+
+    // Default constructor (REQUIRED by JPA/Hibernate)
+    public JobLease() {
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+}
@@ -0,0 +1,57 @@
+package com.common.models.locks;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Time-limited leases that let a scheduled job run on one node of the cluster at a time, however
+ * many nodes have it enabled. A lease is taken with a single conditional update, timed by the
+ * database clock so node clocks do not matter, and expires by itself if its holder dies.
+ */
+@Component
+public class JobLeases {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    @Autowired
+    public JobLeases(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    /**
+     * @param job   The job's name.
+     * @param lease How long the lease is held unless released; should exceed one run of the job.
+     * @return true if this node now holds the lease, false if another node does.
+     */
+    public boolean tryAcquire(String job, Duration lease) {
+        jdbcTemplate.update("insert ignore into job_leases (name, locked_until, locked_by) values (?, now(3), '')", job);
+        return jdbcTemplate.update("update job_leases set locked_until = timestampadd(microsecond, ?, now(3)), " +
+                        "locked_by = ? where name = ? and (locked_until <= now(3) or locked_by = ?)",
+                lease.toNanos() / 1000, owner, job, owner) == 1;
+    }
+
+    /**
+     * Gives a lease held by this node back early, so the next run anywhere need not wait for it.
+     *
+     * @param job The job's name.
+     */
+    public void release(String job) {
+        jdbcTemplate.update("update job_leases set locked_until = now(3) where name = ? and locked_by = ?", job, owner);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.common.models.revocation;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A token id (jti) that was revoked before its expiry. Rows are only needed until the token
+ * would have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+public class RevokedToken {
+
+    @Id
+    @Column(name = "jti", nullable = false, length = 64)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Default constructor (REQUIRED by JPA/Hibernate)
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String jti, Instant expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() { return jti; }
+    public void setJti(String jti) { this.jti = jti; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    @Override
+    public String toString() {
+        return "RevokedToken{" +
+                "jti='" + jti + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package com.common.models.uploads;
+
+/**
+ * Projection identifying one stored blob, which several uploads may share.
+ */
+public interface BlobRef {
+    String getContentHash();
+    String getDataPathLink();
+}
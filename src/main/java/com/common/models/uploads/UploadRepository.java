@@ -1,7 +1,14 @@
 package com.common.models.uploads;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,15 +24,222 @@ public interface UploadRepository extends JpaRepository<Uploads, Long> {
     Optional<Uploads> findByIdentifier(String identifier);
 
     /**
-     * Finds all Upload entities associated with a specific uploader, excluding deleted ones.
+     * First page of a user's public uploads (not hidden, not deleted), newest first. Seeks
+     * through idx_uploads_uploader_public_created.
      * @param uploadedBy The user ID or username of the uploader.
-     * @return A list of Upload entities.
+     * @param limit      The page size.
+     * @return Up to {@code limit} summaries.
      */
-    List<Uploads> findByUploadedByAndIsDeletedFalse(String uploadedBy);
+    @Query("select u.id as id, u.identifier as identifier, u.name as name, u.thumbnailLink as thumbnailLink, " +
+            "u.createdAt as createdAt from Uploads u " +
+            "where u.uploadedBy = :uploadedBy and u.isHidden = false and u.isDeleted = false " +
+            "order by u.createdAt desc, u.id desc")
+    List<UploadSummary> findPublicUploaderPage(@Param("uploadedBy") String uploadedBy, Limit limit);
 
     /**
-     * Finds all Upload entities that are not hidden and not deleted.
-     * @return A list of publicly visible and active Upload entities.
+     * Next page of a user's public uploads: the rows strictly after the last row of the previous
+     * page in (created_at, id) order, found by seeking the index instead of scanning the rows of
+     * earlier pages.
+     * @param uploadedBy The user ID or username of the uploader.
+     * @param createdAt  created_at of the last row already returned.
+     * @param id         id of the last row already returned.
+     * @param limit      The page size.
+     * @return Up to {@code limit} summaries.
+     */
+    @Query("select u.id as id, u.identifier as identifier, u.name as name, u.thumbnailLink as thumbnailLink, " +
+            "u.createdAt as createdAt from Uploads u " +
+            "where u.uploadedBy = :uploadedBy and u.isHidden = false and u.isDeleted = false " +
+            "and (u.createdAt < :createdAt or (u.createdAt = :createdAt and u.id < :id)) " +
+            "order by u.createdAt desc, u.id desc")
+    List<UploadSummary> findPublicUploaderPageAfter(@Param("uploadedBy") String uploadedBy,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id,
+                                                    Limit limit);
+
+    /**
+     * First page of the public catalog (not hidden, not deleted), newest first.
+     * @param limit The page size.
+     * @return Up to {@code limit} summaries.
+     */
+    @Query("select u.id as id, u.identifier as identifier, u.name as name, u.thumbnailLink as thumbnailLink, " +
+            "u.createdAt as createdAt from Uploads u " +
+            "where u.isHidden = false and u.isDeleted = false " +
+            "order by u.createdAt desc, u.id desc")
+    List<UploadSummary> findCatalogPage(Limit limit);
+
+    /**
+     * Next page of the public catalog after the given (created_at, id) position. Seeks through
+     * idx_uploads_catalog_created.
+     * @param createdAt created_at of the last row already returned.
+     * @param id        id of the last row already returned.
+     * @param limit     The page size.
+     * @return Up to {@code limit} summaries.
+     */
+    @Query("select u.id as id, u.identifier as identifier, u.name as name, u.thumbnailLink as thumbnailLink, " +
+            "u.createdAt as createdAt from Uploads u " +
+            "where u.isHidden = false and u.isDeleted = false " +
+            "and (u.createdAt < :createdAt or (u.createdAt = :createdAt and u.id < :id)) " +
+            "order by u.createdAt desc, u.id desc")
+    List<UploadSummary> findCatalogPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    /**
+     * Checks whether any live (not soft-deleted) upload still points at a stored blob.
+     * Used as the reference count for content-addressed blobs shared between uploads. The same
+     * bytes uploaded with different extensions are different blobs, so the key is part of it.
+     * @param contentHash  The SHA-256 of the blob.
+     * @param dataPathLink The blob key.
+     * @return true if at least one non-deleted upload references the blob.
+     */
+    boolean existsByContentHashAndDataPathLinkAndIsDeletedFalse(String contentHash, String dataPathLink);
+
+    /**
+     * Checks whether any upload, live or deleted, points at a blob key.
+     * @param contentHash  The SHA-256 of the blob.
+     * @param dataPathLink The blob key.
+     * @return true if at least one upload holds the key.
+     */
+    boolean existsByContentHashAndDataPathLink(String contentHash, String dataPathLink);
+
+    /**
+     * Uploads that have been in a status since before a cutoff, oldest first. Seeks through
+     * idx_uploads_status_updated.
+     * @param uploadStatus The status.
+     * @param cutoff       Only rows last updated before this are returned.
+     * @param limit        The batch size.
+     * @return Up to {@code limit} uploads.
+     */
+    List<Uploads> findByUploadStatusAndUpdatedAtBeforeAndIsDeletedFalseOrderByUpdatedAt(String uploadStatus,
+                                                                                       LocalDateTime cutoff,
+                                                                                       Limit limit);
+
+    /**
+     * Bumps updated_at of an upload that is still in the given status, e.g. after its event was
+     * published again, so it is not picked up again before the next cutoff.
+     * @param identifier The unique string identifier of the upload.
+     * @param status     The status the upload must still be in.
+     * @param now        The new value of updated_at.
+     * @return The number of rows updated (0 or 1).
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Uploads u set u.updatedAt = :now where u.identifier = :identifier and u.uploadStatus = :status")
+    int touchIfStatus(@Param("identifier") String identifier,
+                      @Param("status") String status,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Moves an upload to a new status, but only if it is currently in one of the expected states.
+     * This makes status transitions idempotent under redelivery of processing events.
+     * @param identifier The unique string identifier of the upload.
+     * @param expected   The statuses the upload may currently be in.
+     * @param status     The new status.
+     * @param now        The new value of updated_at (bulk updates bypass @UpdateTimestamp).
+     * @return The number of rows updated (0 or 1).
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Uploads u set u.uploadStatus = :status, u.updatedAt = :now " +
+            "where u.identifier = :identifier and u.uploadStatus in :expected")
+    int transitionStatus(@Param("identifier") String identifier,
+                         @Param("expected") Collection<String> expected,
+                         @Param("status") String status,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Adds playback starts counted by a streamer node since its last flush.
+     * @param identifier The unique string identifier of the upload.
+     * @param hits       The number of playback starts to add.
+     * @param now        The time of the flush.
+     * @return The number of rows updated (0 or 1).
+     */
+    @Transactional
+    @Modifying
+    @Query("update Uploads u set u.accessCount = coalesce(u.accessCount, 0) + :hits, u.lastAccessedAt = :now " +
+            "where u.identifier = :identifier")
+    int recordAccess(@Param("identifier") String identifier,
+                     @Param("hits") long hits,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Blobs on the hot tier that no live upload sharing them has played since the cutoff.
+     * Uploads that were never played count from their creation.
+     * @param coldPrefix The key prefix of the cold tier.
+     * @param cutoff     The idle cutoff.
+     * @param limit      The maximum number of blobs to return.
+     * @return The blobs.
+     */
+    @Query("select u.contentHash as contentHash, u.dataPathLink as dataPathLink from Uploads u " +
+            "where u.isDeleted = false and u.contentHash is not null and u.dataPathLink not like concat(:coldPrefix, '%') " +
+            "group by u.contentHash, u.dataPathLink " +
+            "having max(coalesce(u.lastAccessedAt, u.createdAt)) < :cutoff")
+    List<BlobRef> findHotBlobsIdleSince(@Param("coldPrefix") String coldPrefix,
+                                         @Param("cutoff") LocalDateTime cutoff,
+                                         Limit limit);
+
+    /**
+     * Blobs on the cold tier played at least {@code minHits} times since they were demoted.
+     * @param coldPrefix The key prefix of the cold tier.
+     * @param minHits    The number of playback starts that makes a blob hot again.
+     * @param limit      The maximum number of blobs to return.
+     * @return The blobs.
+     */
+    @Query("select u.contentHash as contentHash, u.dataPathLink as dataPathLink from Uploads u " +
+            "where u.isDeleted = false and u.contentHash is not null and u.dataPathLink like concat(:coldPrefix, '%') " +
+            "group by u.contentHash, u.dataPathLink " +
+            "having sum(coalesce(u.accessCount, 0)) >= :minHits")
+    List<BlobRef> findColdBlobsPlayedAtLeast(@Param("coldPrefix") String coldPrefix,
+                                              @Param("minHits") long minHits,
+                                              Limit limit);
+
+    /**
+     * Points every upload sharing a blob at its copy on another tier, in one statement, but only
+     * if they all still point at the old key. Resets the access count so the blob has to prove
+     * itself again on its new tier.
+     * @param contentHash The SHA-256 of the blob.
+     * @param oldKey      The key the rows are expected to hold.
+     * @param newKey      The key of the copy.
+     * @param now         The time of the switch; the old copy is deleted a grace period later.
+     * @return The number of rows switched; 0 if the rows changed in the meantime.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Uploads u set u.dataPathLink = :newKey, u.accessCount = 0, u.tierChangedAt = :now " +
+            "where u.contentHash = :contentHash and u.dataPathLink = :oldKey")
+    int switchBlobKey(@Param("contentHash") String contentHash,
+                      @Param("oldKey") String oldKey,
+                      @Param("newKey") String newKey,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * @param contentHash The SHA-256 of the blob.
+     * @param dataPathLink The blob key.
+     * @return The identifiers of every upload, live or deleted, pointing at the blob.
+     */
+    @Query("select u.identifier from Uploads u where u.contentHash = :contentHash and u.dataPathLink = :dataPathLink")
+    List<String> findIdentifiersByBlob(@Param("contentHash") String contentHash,
+                                       @Param("dataPathLink") String dataPathLink);
+
+    /**
+     * Blobs whose tier switch happened before the cutoff and whose previous copy still has to be
+     * deleted.
+     * @param cutoff The end of the grace period.
+     * @param limit  The maximum number of blobs to return.
+     * @return The blobs, by their current key.
+     */
+    @Query("select distinct u.contentHash as contentHash, u.dataPathLink as dataPathLink from Uploads u where u.tierChangedAt < :cutoff")
+    List<BlobRef> findBlobsSwitchedBefore(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    /**
+     * Marks the previous copy of a blob as deleted.
+     * @param contentHash  The SHA-256 of the blob.
+     * @param dataPathLink The current blob key.
+     * @return The number of rows updated.
      */
-    List<Uploads> findByIsHiddenFalseAndIsDeletedFalse();
+    @Transactional
+    @Modifying
+    @Query("update Uploads u set u.tierChangedAt = null where u.contentHash = :contentHash and u.dataPathLink = :dataPathLink")
+    int clearTierChange(@Param("contentHash") String contentHash,
+                        @Param("dataPathLink") String dataPathLink);
 }
@@ -0,0 +1,12 @@
+package com.common.models.uploads;
+
+/**
+ * Lifecycle of an upload, stored by name in {@code uploads.upload_status}.
+ * PENDING → PROCESSING → READY or FAILED.
+ */
+public enum UploadStatus {
+    PENDING,
+    PROCESSING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,16 @@
+package com.common.models.uploads;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the columns needed to list uploads. Listing queries select only these, so no
+ * entity is materialised or tracked by the persistence context.
+ */
+public interface UploadSummary {
+    /** @return The primary key, used only as the keyset tie-breaker. */
+    Long getId();
+    String getIdentifier();
+    String getName();
+    String getThumbnailLink();
+    LocalDateTime getCreatedAt();
+}
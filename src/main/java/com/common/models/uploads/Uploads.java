@@ -1,5 +1,6 @@
 package com.common.models.uploads;
 
+import com.common.models.IdSequences;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -8,11 +9,22 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "uploads") // Maps to the 'uploads' table in your database
+@Table(name = "uploads", indexes = { // Maps to the 'uploads' table in your database
+        @Index(name = "idx_uploads_content_hash", columnList = "content_hash"),
+        // Finds uploads stuck in PENDING without scanning the table
+        @Index(name = "idx_uploads_status_updated", columnList = "upload_status, updated_at"),
+        // Keyset pagination: equality filters first, then the (created_at, id) sort key
+        @Index(name = "idx_uploads_catalog_created", columnList = "is_deleted, is_hidden, created_at, id"),
+        @Index(name = "idx_uploads_uploader_public_created",
+                columnList = "uploaded_by, is_deleted, is_hidden, created_at, id")
+})
 public class Uploads {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Correct for MySQL's AUTO_INCREMENT
+    // Ids come in blocks from uploads_seq (pooled-lo), so inserts can be batched; see IdSequences
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdSequences.UPLOADS)
+    @SequenceGenerator(name = IdSequences.UPLOADS, sequenceName = IdSequences.UPLOADS,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "name", nullable = false)
@@ -36,9 +48,27 @@ public class Uploads {
     @Column(name = "thumbnail_link", length = 2048)
     private String thumbnailLink; // URL or path to the thumbnail, can be null
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 of the video; uploads with the same hash share one stored blob
+
+    @Column(name = "etag", length = 80)
+    private String etag; // Strong HTTP entity tag of the video (quoted), set when the upload completes
+
+    @Column(name = "content_length")
+    private Long contentLength; // Size of the video in bytes, set when the upload completes
+
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted; // Maps to TINYINT(1) in MySQL (for soft deletion)
 
+    @Column(name = "last_accessed_at")
+    private LocalDateTime lastAccessedAt; // Last playback start, flushed periodically by the streamer
+
+    @Column(name = "access_count")
+    private Long accessCount; // Playback starts since the blob last changed storage tier
+
+    @Column(name = "tier_changed_at")
+    private LocalDateTime tierChangedAt; // Set when the blob moved tiers; cleared once the old copy is deleted
+
     @CreationTimestamp // Automatically sets the creation timestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -80,8 +110,20 @@ public class Uploads {
     public void setDataPathLink(String dataPathLink) { this.dataPathLink = dataPathLink; }
     public String getThumbnailLink() { return thumbnailLink; }
     public void setThumbnailLink(String thumbnailLink) { this.thumbnailLink = thumbnailLink; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+    public Long getContentLength() { return contentLength; }
+    public void setContentLength(Long contentLength) { this.contentLength = contentLength; }
     public Boolean getIsDeleted() { return isDeleted; }
     public void setIsDeleted(Boolean deleted) { isDeleted = deleted; }
+    public LocalDateTime getLastAccessedAt() { return lastAccessedAt; }
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) { this.lastAccessedAt = lastAccessedAt; }
+    public Long getAccessCount() { return accessCount; }
+    public void setAccessCount(Long accessCount) { this.accessCount = accessCount; }
+    public LocalDateTime getTierChangedAt() { return tierChangedAt; }
+    public void setTierChangedAt(LocalDateTime tierChangedAt) { this.tierChangedAt = tierChangedAt; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
 
@@ -101,6 +143,7 @@ public class Uploads {
                 ", isHidden=" + isHidden +
                 ", dataPathLink='" + dataPathLink + '\'' +
                 ", thumbnailLink=" + thumbnailLink +
+                ", contentHash='" + contentHash + '\'' +
                 ", isDeleted=" + isDeleted +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
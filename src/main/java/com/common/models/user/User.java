@@ -1,5 +1,6 @@
 package com.common.models.user; // Adjust your package name
 
+import com.common.models.IdSequences;
 import jakarta.persistence.*; // Use jakarta.persistence for Spring Boot 3+
 
 @Entity // Marks this class as a JPA entity
@@ -7,7 +8,10 @@ import jakarta.persistence.*; // Use jakarta.persistence for Spring Boot 3+
 public class User {
 
     @Id // Primary key
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // IDENTITY for MySQL's AUTO_INCREMENT
+    // Ids come in blocks from users_seq (pooled-lo), so inserts can be batched; see IdSequences
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdSequences.USERS)
+    @SequenceGenerator(name = IdSequences.USERS, sequenceName = IdSequences.USERS,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 100)
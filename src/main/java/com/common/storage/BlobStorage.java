@@ -0,0 +1,91 @@
+package com.common.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where video blobs and their generated segments live. Keys are relative, slash-separated paths
+ * such as {@code ab/ab12...ef.mp4}; the same key works against every backend, so the value
+ * stored in {@code Uploads.dataPathLink} does not depend on where the bytes are.
+ * <p>
+ * Selected with {@code storage.backend}: {@code local} (the default) or {@code s3}. With
+ * {@code storage.tiering.enabled} the local backend is wrapped in a {@link TieredBlobStorage}.
+ */
+public interface BlobStorage {
+
+    /**
+     * Stores a local file under a key, replacing any blob already stored there. The file may be
+     * moved into place rather than copied, so callers must not use it afterwards.
+     *
+     * @param key    The blob key.
+     * @param source The file to store.
+     * @throws IOException If the file cannot be read or stored.
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * @param key The blob key.
+     * @return true if a blob is stored under the key.
+     * @throws IOException If the backend cannot be reached.
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * @param key The blob key.
+     * @return The size of the blob in bytes.
+     * @throws NoSuchFileException If no blob is stored under the key.
+     * @throws IOException         If the backend cannot be reached.
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * Opens a byte range of a blob for reading.
+     *
+     * @param key    The blob key.
+     * @param offset The first byte to read.
+     * @param length The number of bytes to read; must be positive.
+     * @return A stream of exactly {@code length} bytes unless the blob is shorter.
+     * @throws NoSuchFileException If no blob is stored under the key.
+     * @throws IOException         If the backend cannot be reached.
+     */
+    InputStream openRange(String key, long offset, long length) throws IOException;
+
+    /**
+     * Deletes a blob. Deleting a missing blob is not an error.
+     *
+     * @param key The blob key.
+     * @throws IOException If the backend cannot be reached.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Deletes every blob below a directory key, e.g. the segments generated for a video.
+     *
+     * @param directoryKey The key prefix, without a trailing slash.
+     * @throws IOException If the backend cannot be reached.
+     */
+    void deleteDirectory(String directoryKey) throws IOException;
+
+    /**
+     * Lists the blobs directly below a directory key.
+     *
+     * @param directoryKey The key prefix, without a trailing slash.
+     * @return The names (not full keys) of the blobs, sorted; empty if there are none.
+     * @throws IOException If the backend cannot be reached.
+     */
+    List<String> list(String directoryKey) throws IOException;
+
+    /**
+     * Gives callers that need a real file (sendfile, random-access parsing) direct access when
+     * the blob is already on this machine.
+     *
+     * @param key The blob key.
+     * @return The local path of the blob, or empty if the backend is not a local filesystem. The
+     * path is returned whether or not a blob exists there.
+     */
+    Optional<Path> localPath(String key);
+}
@@ -0,0 +1,300 @@
+package com.common.storage;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Blobs stored in an S3-compatible bucket (AWS S3, MinIO, ...), so every node sees the same
+ * videos and capacity is not bound to one disk.
+ * <p>
+ * Files larger than one part are sent as a multipart upload with several parts in flight at
+ * once. Parts are read sequentially from the source file into buffers taken from a fixed pool;
+ * when every buffer is in flight the reader waits, which bounds both memory and concurrency no
+ * matter how large the file is. Buffers are recycled rather than reallocated because part-sized
+ * arrays are humongous objects for G1. Reads are ranged GETs, so seeking never downloads more
+ * than the requested bytes.
+ * <p>
+ * Created by {@link S3StorageConfig}; any {@link S3Client} works, including an in-process fake.
+ */
+public class S3BlobStorage implements BlobStorage {
+
+    /** S3 rejects multipart parts smaller than this, except the last one. */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final int partSize;
+    private final ExecutorService uploadExecutor;
+    private final Semaphore freeBuffers;
+    private final ConcurrentLinkedQueue<byte[]> bufferPool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param s3                The client to use; not closed by this class.
+     * @param bucket            The bucket holding the blobs.
+     * @param partSize          The multipart part size in bytes, at least 5 MiB.
+     * @param uploadConcurrency The number of parts uploaded at the same time.
+     * @param partBuffers       The number of part buffers; bounds memory at partBuffers * partSize.
+     * @param virtualThreads    Whether part uploads run on virtual threads. The number in flight
+     *                          is still uploadConcurrency.
+     */
+    public S3BlobStorage(S3Client s3, String bucket, int partSize, int uploadConcurrency, int partBuffers,
+                         boolean virtualThreads) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("storage.s3.part-size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.freeBuffers = new Semaphore(Math.max(1, partBuffers));
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("s3-upload-", 1).factory()
+                : Thread.ofPlatform().name("s3-upload-", 1).daemon(true).factory();
+        this.uploadExecutor = Executors.newFixedThreadPool(Math.max(1, uploadConcurrency), threadFactory);
+    }
+
+    /**
+     * Uploads the file, then deletes the local copy.
+     */
+    @Override
+    public void put(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        try {
+            if (size <= partSize) {
+                s3.putObject(b -> b.bucket(bucket).key(key), RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size);
+            }
+        } catch (SdkException ex) {
+            throw new IOException("Could not store " + key + " in bucket " + bucket, ex);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    private void putMultipart(String key, Path source, long size) throws IOException {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(key)).uploadId();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<CompletedPart>> pending = new ArrayList<>();
+        List<CompletedPart> completed = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            int partNumber = 1;
+            for (long position = 0; position < size; position += partSize, partNumber++) {
+                byte[] buffer = acquireBuffer();
+                int length = (int) Math.min(partSize, size - position);
+                try {
+                    readFully(channel, position, buffer, length);
+                } catch (IOException ex) {
+                    releaseBuffer(buffer);
+                    throw ex;
+                }
+                int number = partNumber;
+                pending.add(uploadExecutor.submit(() -> {
+                    try {
+                        // Parts queued behind a failure are skipped rather than sent to an aborted upload
+                        return failed.get() ? null : uploadPart(key, uploadId, number, buffer, length);
+                    } finally {
+                        releaseBuffer(buffer);
+                    }
+                }));
+                // Surface a failed part early instead of reading the rest of the file first
+                while (completed.size() < pending.size() && pending.get(completed.size()).isDone()) {
+                    completed.add(await(pending.get(completed.size())));
+                }
+            }
+            while (completed.size() < pending.size()) {
+                completed.add(await(pending.get(completed.size())));
+            }
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(completed)));
+        } catch (IOException | RuntimeException ex) {
+            failed.set(true);
+            try {
+                s3.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (SdkException abortFailure) {
+                // Left for the bucket's incomplete-multipart-upload lifecycle rule
+                ex.addSuppressed(abortFailure);
+            }
+            throw ex;
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer, int length) {
+        // The provider is called again on retries, so each attempt gets a fresh stream over the same bytes
+        UploadPartResponse response = s3.uploadPart(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                        .partNumber(partNumber).contentLength((long) length),
+                RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length,
+                        "application/octet-stream"));
+        return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            head(key);
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return head(key).contentLength();
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Range length must be positive");
+        }
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(key).range(range));
+        } catch (S3Exception ex) {
+            throw translate(key, ex);
+        } catch (SdkException ex) {
+            throw new IOException("Could not read " + key + " from bucket " + bucket, ex);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(key));
+        } catch (SdkException ex) {
+            throw new IOException("Could not delete " + key + " from bucket " + bucket, ex);
+        }
+    }
+
+    @Override
+    public void deleteDirectory(String directoryKey) throws IOException {
+        String prefix = directoryKey + "/";
+        try {
+            // A listing page holds at most 1000 keys, which is also the DeleteObjects limit
+            for (ListObjectsV2Response page : s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(prefix))) {
+                if (page.contents().isEmpty()) {
+                    continue;
+                }
+                List<ObjectIdentifier> objects = page.contents().stream()
+                        .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                        .toList();
+                s3.deleteObjects(b -> b.bucket(bucket).delete(d -> d.objects(objects).quiet(true)));
+            }
+        } catch (SdkException ex) {
+            throw new IOException("Could not delete " + prefix + " from bucket " + bucket, ex);
+        }
+    }
+
+    @Override
+    public List<String> list(String directoryKey) throws IOException {
+        String prefix = directoryKey + "/";
+        try {
+            // Keys come back in lexicographic order
+            List<String> names = new ArrayList<>();
+            for (ListObjectsV2Response page : s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(prefix))) {
+                page.contents().stream()
+                        .map(object -> object.key().substring(prefix.length()))
+                        .filter(name -> !name.isEmpty() && name.indexOf('/') < 0)
+                        .forEach(names::add);
+            }
+            return names;
+        } catch (SdkException ex) {
+            throw new IOException("Could not list " + prefix + " in bucket " + bucket, ex);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
+    }
+
+    private HeadObjectResponse head(String key) throws IOException {
+        try {
+            return s3.headObject(b -> b.bucket(bucket).key(key));
+        } catch (S3Exception ex) {
+            throw translate(key, ex);
+        } catch (SdkException ex) {
+            throw new IOException("Could not read " + key + " from bucket " + bucket, ex);
+        }
+    }
+
+    private IOException translate(String key, S3Exception ex) {
+        if (ex.statusCode() == 404) {
+            return new NoSuchFileException(key);
+        }
+        return new IOException("Could not read " + key + " from bucket " + bucket, ex);
+    }
+
+    private byte[] acquireBuffer() throws InterruptedIOException {
+        try {
+            freeBuffers.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an upload buffer");
+        }
+        byte[] buffer = bufferPool.poll();
+        return buffer != null ? buffer : new byte[partSize];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        bufferPool.offer(buffer);
+        freeBuffers.release();
+    }
+
+    private static void readFully(FileChannel channel, long position, byte[] buffer, int length) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("File ended while reading part at offset " + position);
+            }
+        }
+    }
+
+    private static CompletedPart await(Future<CompletedPart> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a part upload");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Part upload failed", ex.getCause());
+        }
+    }
+}
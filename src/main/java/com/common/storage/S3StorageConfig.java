@@ -0,0 +1,56 @@
+package com.common.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.net.URI;
+
+/**
+ * Wires {@link S3BlobStorage} when {@code storage.backend=s3}. Setting {@code storage.s3.endpoint}
+ * points the client at an S3-compatible server such as MinIO; without explicit keys the default
+ * AWS credential chain is used.
+ */
+@Configuration
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+public class S3StorageConfig {
+
+    @Bean
+    public S3Client s3Client(@Value("${storage.s3.region:us-east-1}") String region,
+                             @Value("${storage.s3.endpoint:}") String endpoint,
+                             @Value("${storage.s3.path-style-access:true}") boolean pathStyleAccess,
+                             @Value("${storage.s3.access-key:}") String accessKey,
+                             @Value("${storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build());
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if (StringUtils.hasText(accessKey)) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public S3BlobStorage blobStorage(S3Client s3Client,
+                                     @Value("${storage.s3.bucket}") String bucket,
+                                     @Value("${storage.s3.part-size:16777216}") int partSize,
+                                     @Value("${storage.s3.upload-concurrency:4}") int uploadConcurrency,
+                                     @Value("${storage.s3.part-buffers:8}") int partBuffers,
+                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return new S3BlobStorage(s3Client, bucket, partSize, uploadConcurrency, partBuffers, virtualThreads);
+    }
+}
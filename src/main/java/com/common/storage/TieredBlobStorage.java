@@ -0,0 +1,94 @@
+package com.common.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Two storage tiers behind one {@link BlobStorage}: keys starting with {@code cold/} live on the
+ * cold tier (cheaper, slower disk), every other key on the hot tier (fast local disk). A blob's
+ * tier is therefore part of the key stored in {@code Uploads.dataPathLink}, and moving a blob
+ * between tiers is a copy followed by a change of that column.
+ */
+public class TieredBlobStorage implements BlobStorage {
+
+    public static final String COLD_PREFIX = "cold/";
+
+    private final BlobStorage hot;
+    private final BlobStorage cold;
+
+    public TieredBlobStorage(BlobStorage hot, BlobStorage cold) {
+        this.hot = hot;
+        this.cold = cold;
+    }
+
+    /**
+     * @param key A blob key.
+     * @return true if the key addresses the cold tier.
+     */
+    public static boolean isCold(String key) {
+        return key.startsWith(COLD_PREFIX);
+    }
+
+    /**
+     * @param key A blob key on either tier.
+     * @return The key of the same blob on the cold tier.
+     */
+    public static String coldKey(String key) {
+        return isCold(key) ? key : COLD_PREFIX + key;
+    }
+
+    /**
+     * @param key A blob key on either tier.
+     * @return The key of the same blob on the hot tier.
+     */
+    public static String hotKey(String key) {
+        return isCold(key) ? key.substring(COLD_PREFIX.length()) : key;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        tier(key).put(hotKey(key), source);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return tier(key).exists(hotKey(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return tier(key).size(hotKey(key));
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) throws IOException {
+        return tier(key).openRange(hotKey(key), offset, length);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        tier(key).delete(hotKey(key));
+    }
+
+    @Override
+    public void deleteDirectory(String directoryKey) throws IOException {
+        tier(directoryKey).deleteDirectory(hotKey(directoryKey));
+    }
+
+    @Override
+    public List<String> list(String directoryKey) throws IOException {
+        return tier(directoryKey).list(hotKey(directoryKey));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return tier(key).localPath(hotKey(key));
+    }
+
+    private BlobStorage tier(String key) {
+        return isCold(key) ? cold : hot;
+    }
+}
@@ -0,0 +1,25 @@
+package com.common.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Puts a cold tier under {@code storage.tiering.cold-dir} next to the local hot tier when
+ * {@code storage.tiering.enabled=true}. Requires {@code storage.backend=local}. Every node that
+ * reads or writes blobs needs it; the migration job itself is switched on separately with
+ * {@code storage.tiering.job.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "storage.tiering.enabled", havingValue = "true")
+public class TieringConfig {
+
+    @Bean
+    @Primary
+    public TieredBlobStorage tieredBlobStorage(LocalBlobStorage hot,
+                                               @Value("${storage.tiering.cold-dir}") String coldDir) {
+        return new TieredBlobStorage(hot, new LocalBlobStorage(coldDir));
+    }
+}
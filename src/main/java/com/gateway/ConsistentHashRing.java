@@ -0,0 +1,207 @@
+package com.gateway;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consistent hashing with virtual nodes and bounded loads.
+ * <p>
+ * Each node is placed on a 64-bit ring at {@code virtualNodes} pseudo-random points, and a key
+ * belongs to the first point at or after its own hash. Adding or removing one of n nodes
+ * therefore moves only about 1/n of the keys, and the virtual nodes keep the shares even.
+ * <p>
+ * {@link #acquire} also bounds the load: no node may have more than
+ * {@code ceil(loadFactor * (inFlight + 1) / nodes)} requests in flight. A key whose owner is full
+ * walks on along the ring to the next node with room, so a single hot key spills over to a
+ * few neighbours instead of overloading its owner, and returns home once the owner drains.
+ * <p>
+ * Membership changes replace the ring as a whole, so lookups never lock.
+ */
+public final class ConsistentHashRing {
+
+    private final int virtualNodes;
+    private final double loadFactor;
+    private final ConcurrentHashMap<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Ring ring = new Ring(new long[0], new String[0], Set.of());
+
+    /**
+     * @param virtualNodes Points per node on the ring.
+     * @param loadFactor   How far above the average load a node may go, e.g. 1.25; at least 1.
+     */
+    public ConsistentHashRing(int virtualNodes, double loadFactor) {
+        if (virtualNodes < 1 || loadFactor < 1.0) {
+            throw new IllegalArgumentException("virtualNodes must be positive and loadFactor at least 1");
+        }
+        this.virtualNodes = virtualNodes;
+        this.loadFactor = loadFactor;
+    }
+
+    /** @param node A node to add; adding a present node has no effect. */
+    public synchronized void add(String node) {
+        if (ring.nodes.contains(node)) {
+            return;
+        }
+        TreeMap<Long, String> points = ring.toMap();
+        for (int i = 0; i < virtualNodes; i++) {
+            // On the rare collision the earlier node keeps the point
+            points.putIfAbsent(hash(node + "#" + i), node);
+        }
+        loads.putIfAbsent(node, new AtomicInteger());
+        ring = Ring.of(points);
+    }
+
+    /** @param node A node to remove; its in-flight requests still release normally. */
+    public synchronized void remove(String node) {
+        if (!ring.nodes.contains(node)) {
+            return;
+        }
+        TreeMap<Long, String> points = ring.toMap();
+        points.values().removeIf(node::equals);
+        ring = Ring.of(points);
+    }
+
+    /** @return The current members. */
+    public Set<String> nodes() {
+        return ring.nodes;
+    }
+
+    /**
+     * @param key A routing key.
+     * @return The key's owner ignoring load, or null if the ring is empty.
+     */
+    public String locate(String key) {
+        Ring current = ring;
+        if (current.points.length == 0) {
+            return null;
+        }
+        return current.owners[current.indexOf(hash(key))];
+    }
+
+    /**
+     * Picks the node for a request and counts it as in flight until the lease is closed.
+     *
+     * @param key A routing key.
+     * @return The lease, or null if the ring is empty.
+     */
+    public Lease acquire(String key) {
+        Ring current = ring;
+        int nodeCount = current.nodes.size();
+        if (nodeCount == 0) {
+            return null;
+        }
+        int capacity = (int) Math.ceil(loadFactor * (inFlight.get() + 1) / nodeCount);
+        int start = current.indexOf(hash(key));
+        String chosen = null;
+        for (int i = 0; i < current.points.length; i++) {
+            String candidate = current.owners[(start + i) % current.points.length];
+            if (counter(candidate).get() < capacity) {
+                chosen = candidate;
+                break;
+            }
+        }
+        if (chosen == null) {
+            // Only reachable through concurrent acquires racing past the bound; fall back to the owner
+            chosen = current.owners[start];
+        }
+        counter(chosen).incrementAndGet();
+        inFlight.incrementAndGet();
+        return new Lease(chosen);
+    }
+
+    /** @return The requests in flight on a node. */
+    public int load(String node) {
+        AtomicInteger load = loads.get(node);
+        return load == null ? 0 : load.get();
+    }
+
+    private AtomicInteger counter(String node) {
+        return loads.computeIfAbsent(node, n -> new AtomicInteger());
+    }
+
+    /** FNV-1a with a Murmur3 finalizer, so similar keys land far apart. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** A request routed to a node. Closing it more than once has no further effect. */
+    public final class Lease implements AutoCloseable {
+
+        private final String node;
+        private boolean closed;
+
+        private Lease(String node) {
+            this.node = node;
+        }
+
+        public String node() {
+            return node;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                counter(node).decrementAndGet();
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /** An immutable snapshot of the ring: sorted points and the node owning each. */
+    private static final class Ring {
+
+        private final long[] points;
+        private final String[] owners;
+        private final Set<String> nodes;
+
+        private Ring(long[] points, String[] owners, Set<String> nodes) {
+            this.points = points;
+            this.owners = owners;
+            this.nodes = nodes;
+        }
+
+        static Ring of(TreeMap<Long, String> map) {
+            long[] points = new long[map.size()];
+            String[] owners = new String[map.size()];
+            int i = 0;
+            for (var entry : map.entrySet()) {
+                points[i] = entry.getKey();
+                owners[i] = entry.getValue();
+                i++;
+            }
+            return new Ring(points, owners, Set.copyOf(map.values()));
+        }
+
+        TreeMap<Long, String> toMap() {
+            TreeMap<Long, String> map = new TreeMap<>();
+            for (int i = 0; i < points.length; i++) {
+                map.put(points[i], owners[i]);
+            }
+            return map;
+        }
+
+        /** @return The index of the first point at or after the hash, wrapping around. */
+        int indexOf(long hash) {
+            int index = Arrays.binarySearch(points, hash);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index == points.length ? 0 : index;
+        }
+    }
+}
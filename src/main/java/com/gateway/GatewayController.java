@@ -0,0 +1,109 @@
+package com.gateway;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Proxies {@code /api/streamer/{identifier}/...} to the streamer node chosen by
+ * {@link StreamerRouter}, streaming the body through without buffering it. Only the request
+ * headers the streamer uses are forwarded; the client's address is passed on in
+ * {@code X-Forwarded-For}.
+ */
+@RestController
+public class GatewayController {
+
+    private static final String STREAMER_PATH = "/api/streamer/";
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(
+            HttpHeaders.RANGE, HttpHeaders.IF_RANGE, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE,
+            HttpHeaders.IF_MATCH, HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.ACCEPT, HttpHeaders.AUTHORIZATION,
+            HttpHeaders.USER_AGENT);
+    /** Hop-by-hop headers, and those the servlet container sets itself. */
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade", "proxy-authenticate",
+            "date", "server", ":status");
+
+    private final StreamerRouter streamerRouter;
+    private final HttpClient httpClient;
+
+    @Autowired
+    public GatewayController(StreamerRouter streamerRouter, HttpClient httpClient) {
+        this.streamerRouter = streamerRouter;
+        this.httpClient = httpClient;
+    }
+
+    @GetMapping("/api/streamer/**")
+    public void forward(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String identifier = identifier(path);
+        try (ConsistentHashRing.Lease lease = streamerRouter.route(identifier)) {
+            if (lease == null) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No streamer available");
+            }
+            HttpResponse<InputStream> upstream = send(request, lease.node(), path);
+            try (InputStream body = upstream.body()) {
+                response.setStatus(upstream.statusCode());
+                upstream.headers().map().forEach((name, values) -> {
+                    if (!SKIPPED_RESPONSE_HEADERS.contains(name.toLowerCase())) {
+                        values.forEach(value -> response.addHeader(name, value));
+                    }
+                });
+                if (!"HEAD".equalsIgnoreCase(request.getMethod())) {
+                    body.transferTo(response.getOutputStream());
+                }
+            }
+        }
+    }
+
+    @ExceptionHandler({ConnectException.class, HttpConnectTimeoutException.class})
+    public ResponseEntity<String> handleUnreachableStreamer(IOException ex) {
+        return new ResponseEntity<>("Streamer unavailable", HttpStatus.BAD_GATEWAY);
+    }
+
+    private HttpResponse<InputStream> send(HttpServletRequest request, String node, String path) throws IOException {
+        String query = request.getQueryString();
+        HttpRequest.Builder upstream = HttpRequest.newBuilder(URI.create(node + path + (query == null ? "" : "?" + query)))
+                .method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                upstream.header(name, value);
+            }
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        upstream.header("X-Forwarded-For", forwardedFor == null ? request.getRemoteAddr()
+                : forwardedFor + ", " + request.getRemoteAddr());
+        try {
+            return httpClient.send(upstream.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the streamer");
+        }
+    }
+
+    /** @return The first path segment after /api/streamer/, the video identifier for video routes. */
+    static String identifier(String path) {
+        String rest = path.startsWith(STREAMER_PATH) ? path.substring(STREAMER_PATH.length()) : path;
+        int slash = rest.indexOf('/');
+        return slash < 0 ? rest : rest.substring(0, slash);
+    }
+}
@@ -0,0 +1,101 @@
+package com.gateway;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps video identifiers to streamer nodes on a {@link ConsistentHashRing}.
+ * <p>
+ * The nodes come from {@code gateway.streamer.nodes} (base URLs). Each is probed on its health
+ * endpoint every {@code gateway.streamer.health-interval-ms}; a node that fails leaves the ring
+ * and rejoins once it answers again. Either way only the failed node's share of videos moves.
+ */
+@Component
+public class StreamerRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamerRouter.class);
+    private static final String HEALTH_PATH = "/api/streamer/health";
+
+    private final List<String> configuredNodes;
+    private final ConsistentHashRing ring;
+    private final HttpClient httpClient;
+
+    @Autowired
+    public StreamerRouter(HttpClient httpClient,
+                          @Value("${gateway.streamer.nodes:http://localhost:8080}") List<String> nodes,
+                          @Value("${gateway.ring.virtual-nodes:160}") int virtualNodes,
+                          @Value("${gateway.ring.load-factor:1.25}") double loadFactor) {
+        this.httpClient = httpClient;
+        this.configuredNodes = new ArrayList<>();
+        this.ring = new ConsistentHashRing(virtualNodes, loadFactor);
+        for (String node : nodes) {
+            String baseUrl = node.trim().replaceAll("/+$", "");
+            if (!baseUrl.isEmpty()) {
+                configuredNodes.add(baseUrl);
+                ring.add(baseUrl);
+            }
+        }
+    }
+
+    /**
+     * Picks the streamer for a request and counts it against that node's load until the lease
+     * is closed.
+     *
+     * @param identifier The video identifier from the request path.
+     * @return The lease naming the node's base URL, or null if no node is available.
+     */
+    public ConsistentHashRing.Lease route(String identifier) {
+        return ring.acquire(identifier);
+    }
+
+    /** @return The base URLs of the nodes currently taking traffic. */
+    public List<String> liveNodes() {
+        return ring.nodes().stream().sorted().toList();
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.streamer.health-interval-ms:5000}")
+    public void probeNodes() {
+        for (String node : configuredNodes) {
+            boolean healthy;
+            try {
+                healthy = isHealthy(node);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            boolean member = ring.nodes().contains(node);
+            if (healthy && !member) {
+                ring.add(node);
+                logger.info("Streamer {} is back; it takes over its share of videos again", node);
+            } else if (!healthy && member) {
+                ring.remove(node);
+                logger.warn("Streamer {} failed its health check; its videos move to the other nodes", node);
+            }
+        }
+    }
+
+    private boolean isHealthy(String node) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + HEALTH_PATH))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
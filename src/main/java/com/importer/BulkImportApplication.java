@@ -0,0 +1,35 @@
+package com.importer;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.ComponentScan;
+
+/**
+ * One-off import of an existing user base and video catalog, for migrations. Reads CSV or JSON
+ * Lines files and inserts them in JDBC batches, then exits:
+ * <pre>
+ * java -cp streamer-0.0.1-SNAPSHOT-exec.jar -Dloader.main=com.importer.BulkImportApplication \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --spring.profiles.active=prod --users=users.csv --uploads=uploads.jsonl
+ * </pre>
+ * See {@link BulkImportRunner} for the file formats.
+ */
+@SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+@ComponentScan(basePackages = {
+        "com.importer",
+        "com.common.models",
+})
+@EntityScan(basePackages = {
+        "com.common",
+})
+public class BulkImportApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(BulkImportApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+}
@@ -0,0 +1,51 @@
+package com.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs the import named on the command line:
+ * <ul>
+ *     <li>{@code --users=<file>}: {@link UserRecord}s, columns {@code username,email,password}.</li>
+ *     <li>{@code --uploads=<file>}: {@link UploadRecord}s, columns {@code name,identifier,uploadedBy,
+ *     dataPathLink} and optionally {@code uploadStatus,isHidden,thumbnailLink,contentHash,createdAt}.</li>
+ * </ul>
+ * Files ending in {@code .csv} are read as CSV with a header row, others as JSON Lines with the
+ * same property names. Users are imported first. Either option may be repeated.
+ */
+@Component
+public class BulkImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportRunner.class);
+
+    private final BulkImportService bulkImportService;
+
+    @Autowired
+    public BulkImportRunner(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> users = args.containsOption("users") ? args.getOptionValues("users") : List.of();
+        List<String> uploads = args.containsOption("uploads") ? args.getOptionValues("uploads") : List.of();
+        if (users.isEmpty() && uploads.isEmpty()) {
+            logger.warn("Nothing to import: pass --users=<file> and/or --uploads=<file>");
+            return;
+        }
+        for (String file : users) {
+            bulkImportService.importUsers(Path.of(file));
+        }
+        for (String file : uploads) {
+            bulkImportService.importUploads(Path.of(file));
+        }
+    }
+}
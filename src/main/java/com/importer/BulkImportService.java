@@ -0,0 +1,218 @@
+package com.importer;
+
+import com.common.models.IdSequences;
+import com.common.models.uploads.UploadStatus;
+import com.fasterxml.jackson.databind.MappingIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams import files into the users and uploads tables.
+ * <p>
+ * Records are validated as they are read; invalid ones are logged with their line and skipped.
+ * Valid records are collected into batches of {@code import.batch-size}. Each batch reserves
+ * its ids from the table's sequence in one statement pair (see {@link IdSequences}) and is then
+ * inserted in one transaction, so the database sees a few large round-trips instead of one
+ * insert, one commit and one AUTO_INCREMENT lock per row.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    private final BulkImportWriter bulkImportWriter;
+    private final IdSequences idSequences;
+    private final int batchSize;
+    private final long progressInterval;
+
+    @Autowired
+    public BulkImportService(BulkImportWriter bulkImportWriter, IdSequences idSequences,
+                             @Value("${import.batch-size:1000}") int batchSize,
+                             @Value("${import.progress-interval:100000}") long progressInterval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("import.batch-size must be at least 1");
+        }
+        this.bulkImportWriter = bulkImportWriter;
+        this.idSequences = idSequences;
+        this.batchSize = batchSize;
+        this.progressInterval = Math.max(1, progressInterval);
+    }
+
+    /**
+     * @param file A CSV or JSON Lines file of {@link UserRecord}s.
+     * @return The number of users written, including any that already existed.
+     * @throws IOException If the file cannot be read or is not valid CSV/JSON.
+     */
+    public long importUsers(Path file) throws IOException {
+        Progress progress = new Progress(file);
+        List<UserRecord> batch = new ArrayList<>(batchSize);
+        try (MappingIterator<UserRecord> records = ImportFiles.open(file, UserRecord.class)) {
+            while (records.hasNextValue()) {
+                UserRecord user = records.nextValue();
+                String problem = validate(user);
+                if (problem != null) {
+                    progress.skip(records, problem);
+                    continue;
+                }
+                batch.add(user);
+                if (batch.size() == batchSize) {
+                    writeUsers(batch, progress);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeUsers(batch, progress);
+        }
+        return progress.done();
+    }
+
+    /**
+     * @param file A CSV or JSON Lines file of {@link UploadRecord}s.
+     * @return The number of uploads written, including any that already existed.
+     * @throws IOException If the file cannot be read or is not valid CSV/JSON.
+     */
+    public long importUploads(Path file) throws IOException {
+        Progress progress = new Progress(file);
+        List<UploadRecord> batch = new ArrayList<>(batchSize);
+        List<LocalDateTime> createdAt = new ArrayList<>(batchSize);
+        LocalDateTime importedAt = LocalDateTime.now();
+        try (MappingIterator<UploadRecord> records = ImportFiles.open(file, UploadRecord.class)) {
+            while (records.hasNextValue()) {
+                UploadRecord upload = records.nextValue();
+                String problem = validate(upload);
+                LocalDateTime created = null;
+                if (problem == null) {
+                    try {
+                        created = upload.getCreatedAt() == null ? importedAt : parseTime(upload.getCreatedAt());
+                    } catch (DateTimeParseException ex) {
+                        problem = "createdAt is not an ISO-8601 date-time";
+                    }
+                }
+                if (problem != null) {
+                    progress.skip(records, problem);
+                    continue;
+                }
+                if (upload.getUploadStatus() == null) {
+                    upload.setUploadStatus(UploadStatus.READY.name());
+                }
+                batch.add(upload);
+                createdAt.add(created);
+                if (batch.size() == batchSize) {
+                    writeUploads(batch, createdAt, progress);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeUploads(batch, createdAt, progress);
+        }
+        return progress.done();
+    }
+
+    private void writeUsers(List<UserRecord> batch, Progress progress) {
+        bulkImportWriter.insertUsers(batch, idSequences.reserve(IdSequences.USERS, batch.size()));
+        progress.written(batch.size());
+        batch.clear();
+    }
+
+    private void writeUploads(List<UploadRecord> batch, List<LocalDateTime> createdAt, Progress progress) {
+        bulkImportWriter.insertUploads(batch, createdAt, idSequences.reserve(IdSequences.UPLOADS, batch.size()));
+        progress.written(batch.size());
+        batch.clear();
+        createdAt.clear();
+    }
+
+    /** @return Why the user cannot be imported, or null if it can. */
+    static String validate(UserRecord user) {
+        if (isBlank(user.getUsername()) || isBlank(user.getEmail()) || isBlank(user.getPassword())) {
+            return "username, email and password are required";
+        }
+        if (user.getUsername().length() > 100 || user.getEmail().length() > 255) {
+            return "username or email is too long";
+        }
+        if (!user.getPassword().matches("\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}")) {
+            return "password is not a BCrypt hash";
+        }
+        return null;
+    }
+
+    /** @return Why the upload cannot be imported, or null if it can. */
+    static String validate(UploadRecord upload) {
+        if (isBlank(upload.getName()) || isBlank(upload.getIdentifier()) || isBlank(upload.getUploadedBy())
+                || isBlank(upload.getDataPathLink())) {
+            return "name, identifier, uploadedBy and dataPathLink are required";
+        }
+        // Nothing would ever process an imported PENDING upload
+        if (upload.getUploadStatus() != null && !UploadStatus.READY.name().equals(upload.getUploadStatus())
+                && !UploadStatus.FAILED.name().equals(upload.getUploadStatus())) {
+            return "uploadStatus must be READY or FAILED";
+        }
+        if (upload.getDataPathLink().length() > 2048
+                || (upload.getThumbnailLink() != null && upload.getThumbnailLink().length() > 2048)
+                || (upload.getContentHash() != null && upload.getContentHash().length() > 64)) {
+            return "dataPathLink, thumbnailLink or contentHash is too long";
+        }
+        return null;
+    }
+
+    /** Accepts a date-time with an offset, or a local one in the server's time zone like the other timestamps. */
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException ex) {
+            return LocalDateTime.parse(value);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /** Counts and periodically logs the progress of one file. */
+    private class Progress {
+        private final Path file;
+        private final long startedAt = System.nanoTime();
+        private long written;
+        private long skipped;
+        private long nextReport = progressInterval;
+
+        Progress(Path file) {
+            this.file = file;
+        }
+
+        void skip(MappingIterator<?> records, String problem) {
+            skipped++;
+            logger.warn("Skipping record at {}:{}: {}", file, records.getCurrentLocation().getLineNr(), problem);
+        }
+
+        void written(int count) {
+            written += count;
+            if (written >= nextReport) {
+                logger.info("{}: {} records written ({}/s)", file, written, rate());
+                nextReport += progressInterval;
+            }
+        }
+
+        long done() {
+            logger.info("{}: imported {} records, skipped {} invalid, {}/s", file, written, skipped, rate());
+            return written;
+        }
+
+        private long rate() {
+            long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt);
+            return written / Math.max(1, seconds);
+        }
+    }
+}
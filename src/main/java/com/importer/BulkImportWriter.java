@@ -0,0 +1,96 @@
+package com.importer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Inserts one batch of validated records per transaction with explicit ids. Rows whose unique
+ * key (username, email or upload identifier) already exists are left as they are, so an
+ * interrupted import can simply be run again.
+ * <p>
+ * Needs {@code rewriteBatchedStatements=true} on the MySQL URL for the driver to send each
+ * batch as multi-row inserts.
+ */
+@Component
+public class BulkImportWriter {
+
+    private static final String INSERT_USER =
+            "insert into users (id, username, email, password) values (?, ?, ?, ?) " +
+                    "on duplicate key update id = id";
+    private static final String INSERT_UPLOAD =
+            "insert into uploads (id, name, identifier, uploaded_by, upload_status, is_hidden, data_path_link, " +
+                    "thumbnail_link, content_hash, etag, is_deleted, created_at, updated_at) " +
+                    "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?) on duplicate key update id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BulkImportWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param users   The users to insert.
+     * @param firstId The first of {@code users.size()} reserved ids.
+     */
+    @Transactional
+    public void insertUsers(List<UserRecord> users, long firstId) {
+        jdbcTemplate.batchUpdate(INSERT_USER, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                UserRecord user = users.get(i);
+                ps.setLong(1, firstId + i);
+                ps.setString(2, user.getUsername());
+                ps.setString(3, user.getEmail());
+                ps.setString(4, user.getPassword());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+    }
+
+    /**
+     * @param uploads   The uploads to insert.
+     * @param createdAt Each upload's creation time, by position.
+     * @param firstId   The first of {@code uploads.size()} reserved ids.
+     */
+    @Transactional
+    public void insertUploads(List<UploadRecord> uploads, List<LocalDateTime> createdAt, long firstId) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_UPLOAD, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                UploadRecord upload = uploads.get(i);
+                ps.setLong(1, firstId + i);
+                ps.setString(2, upload.getName());
+                ps.setString(3, upload.getIdentifier());
+                ps.setString(4, upload.getUploadedBy());
+                ps.setString(5, upload.getUploadStatus());
+                ps.setBoolean(6, Boolean.TRUE.equals(upload.getIsHidden()));
+                ps.setString(7, upload.getDataPathLink());
+                ps.setString(8, upload.getThumbnailLink());
+                ps.setString(9, upload.getContentHash());
+                // The content hash doubles as the streamer's ETag; the length is not known here
+                ps.setString(10, upload.getContentHash() == null ? null : "\"" + upload.getContentHash() + "\"");
+                ps.setObject(11, createdAt.get(i));
+                ps.setObject(12, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return uploads.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.importer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Streaming readers for import files. Records are parsed one at a time, so memory use does not
+ * depend on the file size.
+ * <ul>
+ *     <li>{@code .csv}: a header row naming the record properties, then one record per row.
+ *     Empty cells are read as missing values.</li>
+ *     <li>Anything else: JSON Lines, one object per line.</li>
+ * </ul>
+ * Unknown columns or properties are ignored.
+ */
+public final class ImportFiles {
+
+    private static final CsvMapper csvMapper = CsvMapper.builder()
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private static final ObjectMapper jsonMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private ImportFiles() {
+    }
+
+    /**
+     * @param file The file to read.
+     * @param type The record class.
+     * @param <T>  The record type.
+     * @return An iterator over the file's records; closing it closes the file.
+     * @throws IOException If the file cannot be opened or its header cannot be read.
+     */
+    public static <T> MappingIterator<T> open(Path file, Class<T> type) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            return open(in, isCsv(file), type);
+        } catch (IOException | RuntimeException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param in   The records; closed when the returned iterator is.
+     * @param csv  true for CSV with a header row, false for JSON Lines.
+     * @param type The record class.
+     * @param <T>  The record type.
+     * @return An iterator over the records.
+     * @throws IOException If the header cannot be read.
+     */
+    public static <T> MappingIterator<T> open(InputStream in, boolean csv, Class<T> type) throws IOException {
+        if (csv) {
+            return csvMapper.readerFor(type)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(in);
+        }
+        return jsonMapper.readerFor(type).readValues(in);
+    }
+
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+}
@@ -0,0 +1,97 @@
+package com.importer;
+
+/**
+ * One catalog entry to import. Only {@code name}, {@code identifier}, {@code uploadedBy} and
+ * {@code dataPathLink} are required; the status defaults to READY since migrated videos have
+ * already been processed, and {@code createdAt} (ISO-8601, with or without an offset) to the
+ * time of the import.
+ */
+public class UploadRecord {
+    private String name;
+    private String identifier;
+    private String uploadedBy;
+    private String uploadStatus;
+    private Boolean isHidden;
+    private String dataPathLink;
+    private String thumbnailLink;
+    private String contentHash;
+    private String createdAt;
+
+    // Constructors
+    public UploadRecord() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getUploadedBy() {
+        return uploadedBy;
+    }
+
+    public String getUploadStatus() {
+        return uploadStatus;
+    }
+
+    public Boolean getIsHidden() {
+        return isHidden;
+    }
+
+    public String getDataPathLink() {
+        return dataPathLink;
+    }
+
+    public String getThumbnailLink() {
+        return thumbnailLink;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    // Setters
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public void setUploadedBy(String uploadedBy) {
+        this.uploadedBy = uploadedBy;
+    }
+
+    public void setUploadStatus(String uploadStatus) {
+        this.uploadStatus = uploadStatus;
+    }
+
+    public void setIsHidden(Boolean isHidden) {
+        this.isHidden = isHidden;
+    }
+
+    public void setDataPathLink(String dataPathLink) {
+        this.dataPathLink = dataPathLink;
+    }
+
+    public void setThumbnailLink(String thumbnailLink) {
+        this.thumbnailLink = thumbnailLink;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+}
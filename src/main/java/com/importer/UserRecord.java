@@ -0,0 +1,47 @@
+package com.importer;
+
+/**
+ * One user to import. {@code password} must already be a BCrypt hash; plain-text passwords
+ * are rejected rather than hashed, since hashing millions of them would dominate the import.
+ */
+public class UserRecord {
+    private String username;
+    private String email;
+    private String password;
+
+    // Constructors
+    public UserRecord() {
+    }
+
+    public UserRecord(String username, String email, String password) {
+        this.username = username;
+        this.email = email;
+        this.password = password;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    // Setters
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
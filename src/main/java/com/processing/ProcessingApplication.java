@@ -0,0 +1,32 @@
+package com.processing;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Video processing worker. Consumes upload-created events and has no HTTP endpoints, so it can
+ * be scaled independently of the upload service by starting more instances in the same
+ * consumer group.
+ */
+@SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+@ComponentScan(basePackages = {
+        "com.processing",
+        "com.common",
+})
+@EntityScan(basePackages = {
+        "com.common",
+})
+@EnableJpaRepositories(basePackages = "com.common.models")
+public class ProcessingApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ProcessingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+}
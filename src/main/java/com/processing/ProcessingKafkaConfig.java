@@ -0,0 +1,142 @@
+package com.processing;
+
+import com.common.kafka.KafkaTopics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listener container for the processing workers.
+ * <p>
+ * Each container thread owns a subset of the upload-created partitions, so concurrency is
+ * capped at the partition count and events for one video are always handled in order by one
+ * thread. Backpressure comes from polling only a few records at a time and committing each
+ * offset after it has been processed; a worker that falls behind simply stops polling.
+ * Failed events are retried with exponential backoff, then marked FAILED and parked on the
+ * dead-letter topic.
+ * <p>
+ * This factory is not built by Spring Boot, so spring.threads.virtual.enabled is applied here:
+ * each consumer then runs on its own virtual thread. Concurrency stays capped at the partition
+ * count either way; the gain is that a worker blocked on storage or the database no longer
+ * holds a platform thread.
+ * <p>
+ * The consumers' client metrics, including {@code kafka.consumer.fetch.manager.records.lag.max}
+ * for consumer lag, are registered with Micrometer like those of Boot-built consumers.
+ */
+@Configuration
+public class ProcessingKafkaConfig {
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> processingListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            VideoProcessingService videoProcessingService,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.topics.upload-created.partitions:6}") int partitions,
+            @Value("${processing.worker.concurrency:3}") int concurrency,
+            @Value("${processing.worker.max-poll-records:4}") int maxPollRecords,
+            @Value("${processing.worker.max-poll-interval-ms:1800000}") int maxPollIntervalMs,
+            @Value("${processing.worker.max-retries:3}") int maxRetries,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        Map<String, Object> props = new HashMap<>(kafkaProperties.buildConsumerProperties(null));
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // Processing a large video can take a while; don't let the broker think the worker died
+        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollIntervalMs);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // Adding a worker instance only moves the partitions it takes over
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        DefaultKafkaConsumerFactory<String, byte[]> consumerFactory = new DefaultKafkaConsumerFactory<>(props);
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(Math.max(1, Math.min(concurrency, partitions)));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("processing-worker-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+        factory.setCommonErrorHandler(errorHandler(kafkaTemplate, videoProcessingService, maxRetries));
+        return factory;
+    }
+
+    /**
+     * Batch container for {@link UploadStatusListener}. The consumer waits for a few kilobytes or
+     * a short time before returning a poll, so bursts of finished videos arrive as one batch and
+     * become one database write. Offsets are committed by the listener after that write.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> statusListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            MeterRegistry meterRegistry,
+            @Value("${processing.status.max-poll-records:500}") int maxPollRecords,
+            @Value("${processing.status.fetch-min-bytes:4096}") int fetchMinBytes,
+            @Value("${processing.status.fetch-max-wait-ms:250}") int fetchMaxWaitMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        Map<String, Object> props = new HashMap<>(kafkaProperties.buildConsumerProperties(null));
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        DefaultKafkaConsumerFactory<String, byte[]> consumerFactory = new DefaultKafkaConsumerFactory<>(props);
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("upload-status-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+        // A failed write (database down) retries the whole batch until it succeeds; nothing is committed meanwhile
+        ExponentialBackOff backOff = new ExponentialBackOff(1_000L, 2.0);
+        backOff.setMaxInterval(30_000L);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+
+    private static DefaultErrorHandler errorHandler(KafkaTemplate<String, byte[]> kafkaTemplate,
+                                                    VideoProcessingService videoProcessingService,
+                                                    int maxRetries) {
+        DeadLetterPublishingRecoverer deadLetter = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(KafkaTopics.UPLOAD_CREATED_DLT, record.partition()));
+        ConsumerRecordRecoverer recoverer = (record, ex) -> {
+            if (record.key() != null) {
+                videoProcessingService.markFailed(record.key().toString(), ex);
+            }
+            deadLetter.accept(record, ex);
+        };
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(maxRetries);
+        backOff.setInitialInterval(1_000L);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(30_000L);
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        // A malformed event will never succeed, so skip straight to the dead-letter topic
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class);
+        return errorHandler;
+    }
+}
@@ -0,0 +1,87 @@
+package com.processing;
+
+import com.common.kafka.EventCodec;
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.KafkaTopics;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.kafka.events.UploadStatusEvent;
+import com.common.models.uploads.UploadStatus;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies the final statuses published by the processing workers, one poll at a time.
+ * <p>
+ * Each poll is coalesced to the last event per upload, written with one JDBC batch, and only
+ * then acknowledged, so a crash before the write replays the poll instead of losing it. The
+ * writes are conditional, which makes the replay harmless. The streamers are told about the
+ * rows that actually changed once the offsets are committed.
+ */
+@Component
+public class UploadStatusListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadStatusListener.class);
+
+    private final UploadStatusWriter uploadStatusWriter;
+    private final KafkaProducerService kafkaProducerService;
+    private final EventCodec eventCodec;
+
+    @Autowired
+    public UploadStatusListener(UploadStatusWriter uploadStatusWriter, KafkaProducerService kafkaProducerService,
+                                EventCodec eventCodec) {
+        this.uploadStatusWriter = uploadStatusWriter;
+        this.kafkaProducerService = kafkaProducerService;
+        this.eventCodec = eventCodec;
+    }
+
+    @KafkaListener(id = "upload-status",
+            topics = KafkaTopics.UPLOAD_STATUS,
+            groupId = "${processing.status.group-id:upload-status}",
+            containerFactory = "statusListenerContainerFactory")
+    public void onStatuses(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        // Records for one upload share a partition, so the last one seen is the latest
+        Map<String, UploadStatusEvent> latest = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            UploadStatusEvent event;
+            try {
+                event = eventCodec.decode(record.value(), UploadStatusEvent.class);
+            } catch (IOException ex) {
+                logger.warn("Skipping malformed upload-status event at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), ex.getMessage());
+                continue;
+            }
+            if (event.getIdentifier() == null || !isFinal(event.getStatus())) {
+                logger.warn("Skipping invalid upload-status event at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            latest.put(event.getIdentifier(), event);
+        }
+
+        List<String> updated = uploadStatusWriter.write(new ArrayList<>(latest.values()));
+        ack.acknowledge();
+        logger.debug("Applied {} of {} upload statuses from {} records", updated.size(), latest.size(),
+                records.size());
+
+        long now = System.currentTimeMillis();
+        for (String identifier : updated) {
+            kafkaProducerService.publishUploadChanged(new UploadChangedEvent(identifier,
+                    latest.get(identifier).getStatus(), now));
+        }
+    }
+
+    private static boolean isFinal(String status) {
+        return UploadStatus.READY.name().equals(status) || UploadStatus.FAILED.name().equals(status);
+    }
+}
@@ -0,0 +1,122 @@
+package com.processing;
+
+import com.common.kafka.events.UploadStatusEvent;
+import com.common.models.uploads.UploadStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes final upload statuses with one JDBC batch in one transaction. Each update is
+ * conditional on the upload still being in a state that may reach the new status, the same rule
+ * {@link VideoProcessingService} applies, so replayed or stale events change nothing.
+ * <p>
+ * Needs {@code rewriteBatchedStatements=true} on the MySQL URL for the driver to send the batch
+ * in one round-trip. Drivers may then report {@link Statement#SUCCESS_NO_INFO} instead of a row
+ * count; those rows are looked up again in the same transaction rather than assumed changed, so a
+ * batch of replayed events does not invalidate every cached lookup.
+ */
+@Component
+public class UploadStatusWriter {
+
+    private static final String UPDATE_STATUS =
+            "update uploads set upload_status = ?, updated_at = ? where identifier = ? and upload_status in (?, ?)";
+    private static final String SELECT_WRITTEN =
+            "select identifier, upload_status from uploads where updated_at = ? and identifier in (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UploadStatusWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param events At most one event per upload identifier.
+     * @return The identifiers whose row was updated.
+     * @throws IllegalArgumentException If an event carries a status other than READY or FAILED.
+     */
+    @Transactional
+    public List<String> write(List<UploadStatusEvent> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        // updated_at holds microseconds; a finer value would not compare equal once stored
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS, events, events.size(), (ps, event) -> {
+            String[] expected = expectedStatuses(event.getStatus());
+            ps.setString(1, event.getStatus());
+            ps.setObject(2, now);
+            ps.setString(3, event.getIdentifier());
+            ps.setString(4, expected[0]);
+            ps.setString(5, expected[1]);
+        });
+
+        List<String> updated = new ArrayList<>();
+        List<UploadStatusEvent> unreported = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                UploadStatusEvent event = events.get(index++);
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unreported.add(event);
+                } else if (count > 0) {
+                    updated.add(event.getIdentifier());
+                }
+            }
+        }
+        if (!unreported.isEmpty()) {
+            updated.addAll(findWritten(unreported, now));
+        }
+        return updated;
+    }
+
+    /**
+     * Finds which rows of a batch were changed when the driver did not report their counts. Only
+     * a row this batch changed has the batch's timestamp and the event's status.
+     *
+     * @param events The events whose update counts are unknown.
+     * @param now    The updated_at value the batch wrote.
+     * @return Their identifiers whose row was updated, in event order.
+     */
+    private List<String> findWritten(List<UploadStatusEvent> events, LocalDateTime now) {
+        List<Object> args = new ArrayList<>(events.size() + 1);
+        args.add(now);
+        for (UploadStatusEvent event : events) {
+            args.add(event.getIdentifier());
+        }
+        Map<String, String> statuses = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_WRITTEN, String.join(", ", Collections.nCopies(events.size(), "?"))),
+                (RowCallbackHandler) rs -> statuses.put(rs.getString(1), rs.getString(2)), args.toArray());
+
+        List<String> written = new ArrayList<>();
+        for (UploadStatusEvent event : events) {
+            if (event.getStatus().equals(statuses.get(event.getIdentifier()))) {
+                written.add(event.getIdentifier());
+            }
+        }
+        return written;
+    }
+
+    /** @return The two statuses (possibly the same) an upload may be in to move to the given one. */
+    private static String[] expectedStatuses(String status) {
+        if (UploadStatus.READY.name().equals(status)) {
+            return new String[]{UploadStatus.PROCESSING.name(), UploadStatus.PROCESSING.name()};
+        }
+        if (UploadStatus.FAILED.name().equals(status)) {
+            return new String[]{UploadStatus.PENDING.name(), UploadStatus.PROCESSING.name()};
+        }
+        throw new IllegalArgumentException("Not a final upload status: " + status);
+    }
+}
@@ -0,0 +1,38 @@
+package com.processing;
+
+import com.common.kafka.EventCodec;
+import com.common.kafka.KafkaTopics;
+import com.common.kafka.events.UploadCreatedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Component
+public class VideoProcessingListener {
+
+    private final VideoProcessingService videoProcessingService;
+    private final EventCodec eventCodec;
+
+    @Autowired
+    public VideoProcessingListener(VideoProcessingService videoProcessingService, EventCodec eventCodec) {
+        this.videoProcessingService = videoProcessingService;
+        this.eventCodec = eventCodec;
+    }
+
+    @KafkaListener(id = "video-processing",
+            topics = KafkaTopics.UPLOAD_CREATED,
+            groupId = "${processing.worker.group-id:video-processing}",
+            containerFactory = "processingListenerContainerFactory")
+    public void onUploadCreated(ConsumerRecord<String, byte[]> record) throws IOException {
+        UploadCreatedEvent event;
+        try {
+            event = eventCodec.decode(record.value(), UploadCreatedEvent.class);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Malformed upload-created event at offset " + record.offset(), ex);
+        }
+        videoProcessingService.process(event);
+    }
+}
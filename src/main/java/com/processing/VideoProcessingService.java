@@ -0,0 +1,198 @@
+package com.processing;
+
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.kafka.events.UploadCreatedEvent;
+import com.common.kafka.events.UploadStatusEvent;
+import com.common.models.uploads.UploadRepository;
+import com.common.media.SegmentLayout;
+import com.common.models.uploads.UploadStatus;
+import com.common.storage.BlobStorage;
+import com.processing.mp4.Mp4Segmenter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Moves uploads through PENDING → PROCESSING → READY, segmenting MP4s for adaptive streaming on
+ * the way. Transitions are conditional on the current
+ * status, so a redelivered event for an upload that is already READY is a no-op, and one for an
+ * upload left in PROCESSING by a crashed worker is picked up again.
+ * <p>
+ * Claiming an upload is written straight to the database because it must be decided before the
+ * work starts. Final statuses (READY, FAILED) are published to the upload-status topic instead
+ * and written in batches by {@link UploadStatusListener}, so a burst of workers finishing at once
+ * costs a few batched updates rather than one commit each. The worker waits for the broker's
+ * acknowledgement before its own offset is committed; if the status cannot be published it is
+ * written directly.
+ * <p>
+ * Blobs on local storage are segmented in place. Blobs in remote storage are downloaded to a
+ * scratch directory, segmented there and the segments uploaded next to the blob, manifests last,
+ * so a manifest is only visible once every segment it lists is.
+ */
+@Service
+public class VideoProcessingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoProcessingService.class);
+
+    private final UploadRepository uploadRepository;
+    private final Mp4Segmenter mp4Segmenter;
+    private final KafkaProducerService kafkaProducerService;
+    private final BlobStorage blobStorage;
+    private final Path workDirectory;
+
+    @Autowired
+    public VideoProcessingService(UploadRepository uploadRepository, Mp4Segmenter mp4Segmenter,
+                                  KafkaProducerService kafkaProducerService, BlobStorage blobStorage,
+                                  @Value("${processing.work-dir:${java.io.tmpdir}}") String workDir) {
+        this.uploadRepository = uploadRepository;
+        this.mp4Segmenter = mp4Segmenter;
+        this.kafkaProducerService = kafkaProducerService;
+        this.blobStorage = blobStorage;
+        this.workDirectory = Paths.get(workDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Processes a newly created upload.
+     *
+     * @param event The upload-created event.
+     * @throws IOException If the video cannot be read or segmented; the event is then retried.
+     * @throws com.processing.mp4.Mp4FormatException If the video is a malformed MP4; the upload
+     * is marked FAILED without retrying.
+     */
+    public void process(UploadCreatedEvent event) throws IOException {
+        String identifier = event.getIdentifier();
+        if (identifier == null || event.getDataPathLink() == null) {
+            throw new IllegalArgumentException("upload-created event is missing its identifier or path");
+        }
+        boolean claimed = transition(identifier,
+                List.of(UploadStatus.PENDING.name(), UploadStatus.PROCESSING.name()), UploadStatus.PROCESSING);
+        if (!claimed) {
+            logger.info("Skipping upload {}: it is no longer pending", identifier);
+            return;
+        }
+
+        String blobKey = event.getDataPathLink();
+        Optional<Path> localVideo = blobStorage.localPath(blobKey);
+        boolean segmented;
+        if (localVideo.isPresent()) {
+            if (!Files.isRegularFile(localVideo.get())) {
+                throw new IOException("Video blob for upload " + identifier + " is missing: " + localVideo.get());
+            }
+            segmented = mp4Segmenter.segment(localVideo.get());
+        } else {
+            segmented = segmentRemote(blobKey);
+        }
+        if (!segmented) {
+            // Still playable through whole-file range requests
+            logger.info("Upload {} has no adaptive-streaming segments", identifier);
+        }
+
+        finish(identifier, List.of(UploadStatus.PROCESSING.name()), UploadStatus.READY);
+        logger.info("Upload {} is ready", identifier);
+    }
+
+    /**
+     * Marks an upload FAILED once its event has exhausted all retries.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @param cause      The last failure.
+     */
+    public void markFailed(String identifier, Exception cause) {
+        finish(identifier,
+                List.of(UploadStatus.PENDING.name(), UploadStatus.PROCESSING.name()), UploadStatus.FAILED);
+        logger.error("Processing of upload {} failed: {}", identifier, cause.getMessage());
+    }
+
+    /**
+     * Applies a conditional status transition and, if it happened, tells the streamers.
+     *
+     * @return true if the upload was in one of the expected states and has been moved.
+     */
+    private boolean transition(String identifier, List<String> expected, UploadStatus status) {
+        if (uploadRepository.transitionStatus(identifier, expected, status.name(), LocalDateTime.now()) == 0) {
+            return false;
+        }
+        kafkaProducerService.publishUploadChanged(new UploadChangedEvent(identifier, status.name(),
+                System.currentTimeMillis()));
+        return true;
+    }
+
+    /**
+     * Hands a final status to the status batch listener, falling back to a direct conditional
+     * write if the event cannot be published.
+     */
+    private void finish(String identifier, List<String> expected, UploadStatus status) {
+        try {
+            kafkaProducerService.await(kafkaProducerService.publishUploadStatus(new UploadStatusEvent(identifier,
+                    status.name(), System.currentTimeMillis())));
+            return;
+        } catch (RuntimeException ex) {
+            logger.warn("Could not publish status {} of upload {}, writing it directly: {}",
+                    status, identifier, ex.getMessage());
+        }
+        transition(identifier, expected, status);
+    }
+
+    private boolean segmentRemote(String blobKey) throws IOException {
+        if (!mp4Segmenter.isEnabled()) {
+            return false;
+        }
+        if (blobStorage.exists(SegmentLayout.segmentKey(blobKey, SegmentLayout.HLS_MASTER_PLAYLIST))) {
+            // A deduplicated blob shared with an earlier upload
+            return true;
+        }
+        long size = blobStorage.size(blobKey);
+        if (size == 0) {
+            return false;
+        }
+        Files.createDirectories(workDirectory);
+        Path scratch = Files.createTempDirectory(workDirectory, "segment-");
+        try {
+            Path video = scratch.resolve(blobKey.substring(blobKey.lastIndexOf('/') + 1));
+            try (InputStream in = blobStorage.openRange(blobKey, 0, size)) {
+                Files.copy(in, video);
+            }
+            if (!mp4Segmenter.segment(video)) {
+                return false;
+            }
+            uploadSegments(blobKey, SegmentLayout.segmentDirectory(video));
+            return true;
+        } finally {
+            FileSystemUtils.deleteRecursively(scratch);
+        }
+    }
+
+    private void uploadSegments(String blobKey, Path segmentDirectory) throws IOException {
+        List<Path> media = new ArrayList<>();
+        try (Stream<Path> files = Files.list(segmentDirectory)) {
+            files.filter(file -> !isManifest(file.getFileName().toString())).forEach(media::add);
+        }
+        for (Path file : media) {
+            blobStorage.put(SegmentLayout.segmentKey(blobKey, file.getFileName().toString()), file);
+        }
+        // The master playlist goes last: its presence marks the rendition as complete
+        for (String manifest : List.of(SegmentLayout.HLS_MEDIA_PLAYLIST, SegmentLayout.DASH_MANIFEST,
+                SegmentLayout.HLS_MASTER_PLAYLIST)) {
+            blobStorage.put(SegmentLayout.segmentKey(blobKey, manifest), segmentDirectory.resolve(manifest));
+        }
+    }
+
+    private static boolean isManifest(String name) {
+        return name.endsWith(".m3u8") || name.endsWith(".mpd");
+    }
+}
@@ -0,0 +1,107 @@
+package com.processing.mp4;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ISO BMFF box held in memory. Only metadata boxes (moov and below) are ever loaded this way;
+ * media data stays on disk.
+ */
+final class Box {
+
+    final String type;
+    private final ByteBuffer data;
+    private final int headerSize;
+
+    private Box(String type, ByteBuffer data, int headerSize) {
+        this.type = type;
+        this.data = data;
+        this.headerSize = headerSize;
+    }
+
+    /**
+     * Splits a buffer into the sequence of boxes it contains.
+     *
+     * @param buffer A buffer positioned at zero that holds whole boxes back to back.
+     * @return The boxes, in file order.
+     */
+    static List<Box> parseAll(ByteBuffer buffer) {
+        List<Box> boxes = new ArrayList<>();
+        ByteBuffer reader = buffer.duplicate();
+        while (reader.remaining() >= 8) {
+            int start = reader.position();
+            long size = reader.getInt() & 0xffffffffL;
+            String type = fourcc(reader.getInt());
+            int header = 8;
+            if (size == 1) {
+                if (reader.remaining() < 8) {
+                    throw new Mp4FormatException("Truncated '" + type + "' box");
+                }
+                size = reader.getLong();
+                header = 16;
+            } else if (size == 0) {
+                size = reader.limit() - start;
+            }
+            if (size < header || start + size > reader.limit()) {
+                throw new Mp4FormatException("Truncated '" + type + "' box");
+            }
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(start).limit((int) (start + size));
+            boxes.add(new Box(type, slice.slice(), header));
+            reader.position((int) (start + size));
+        }
+        return boxes;
+    }
+
+    static Box wrap(String type, ByteBuffer wholeBox, int headerSize) {
+        return new Box(type, wholeBox, headerSize);
+    }
+
+    /** @return The children of a plain container box. */
+    List<Box> children() {
+        return parseAll(payload());
+    }
+
+    /** @return The first child of the given type, or null. */
+    Box child(String childType) {
+        for (Box box : children()) {
+            if (box.type.equals(childType)) {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    /** @return The first child of the given type; fails if it is missing. */
+    Box require(String childType) {
+        Box box = child(childType);
+        if (box == null) {
+            throw new Mp4FormatException("'" + type + "' box has no '" + childType + "' child");
+        }
+        return box;
+    }
+
+    /** @return The box body after the size/type header, positioned at zero. */
+    ByteBuffer payload() {
+        ByteBuffer payload = data.duplicate();
+        payload.position(headerSize);
+        return payload.slice();
+    }
+
+    /** @return The whole box including its header, positioned at zero. */
+    ByteBuffer bytes() {
+        return data.duplicate();
+    }
+
+    /** @return The version byte of a full box. */
+    int version() {
+        return payload().get(0) & 0xff;
+    }
+
+    static String fourcc(int value) {
+        byte[] bytes = {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
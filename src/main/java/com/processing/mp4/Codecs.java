@@ -0,0 +1,176 @@
+package com.processing.mp4;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 6381 codec strings and basic stream properties, read from a track's sample entry. These
+ * go into the HLS master playlist and the DASH manifest so players can pick a decoder without
+ * downloading the init segment first.
+ */
+final class Codecs {
+
+    /** Offset of the child boxes in a VisualSampleEntry, counted from the start of the box. */
+    private static final int VISUAL_ENTRY_CHILDREN = 86;
+    /** Offset of the child boxes in a version 0 AudioSampleEntry. */
+    private static final int AUDIO_ENTRY_CHILDREN = 36;
+
+    private Codecs() {
+    }
+
+    /**
+     * @param track An audio or video track.
+     * @return The codec string, e.g. {@code avc1.64001f} or {@code mp4a.40.2}. Falls back to the
+     * sample entry's four-character code when the configuration box is missing or unknown.
+     */
+    static String codecString(Track track) {
+        String entryType = track.sampleEntryType();
+        try {
+            switch (entryType) {
+                case "avc1", "avc3" -> {
+                    Box avcC = entryChild(track, "avcC");
+                    if (avcC != null) {
+                        ByteBuffer p = avcC.payload();
+                        return String.format(Locale.ROOT, "%s.%02x%02x%02x", entryType,
+                                p.get(1) & 0xff, p.get(2) & 0xff, p.get(3) & 0xff);
+                    }
+                }
+                case "hvc1", "hev1" -> {
+                    Box hvcC = entryChild(track, "hvcC");
+                    if (hvcC != null) {
+                        return hevcCodecString(entryType, hvcC.payload());
+                    }
+                }
+                case "mp4a" -> {
+                    Box esds = entryChild(track, "esds");
+                    if (esds != null) {
+                        String codec = aacCodecString(esds.payload());
+                        if (codec != null) {
+                            return codec;
+                        }
+                    }
+                }
+                default -> {
+                    // No configuration parsing for this format; the sample entry type is still a valid prefix
+                }
+            }
+        } catch (IndexOutOfBoundsException | Mp4FormatException ex) {
+            // A malformed configuration box only costs the detailed codec string
+        }
+        return entryType;
+    }
+
+    /** @return The coded width of a video track, or 0. */
+    static int width(Track track) {
+        return track.isVideo() ? track.sampleEntry.getShort(32) & 0xffff : 0;
+    }
+
+    /** @return The coded height of a video track, or 0. */
+    static int height(Track track) {
+        return track.isVideo() ? track.sampleEntry.getShort(34) & 0xffff : 0;
+    }
+
+    /** @return The sampling rate of an audio track, or 0. */
+    static int sampleRate(Track track) {
+        return track.isAudio() ? track.sampleEntry.getShort(32) & 0xffff : 0;
+    }
+
+    private static Box entryChild(Track track, String type) {
+        ByteBuffer entry = track.sampleEntry.duplicate();
+        int childrenOffset;
+        if (track.isVideo()) {
+            childrenOffset = VISUAL_ENTRY_CHILDREN;
+        } else {
+            // QuickTime sound description versions 1 and 2 carry extra fields before the children
+            int soundVersion = entry.getShort(16) & 0xffff;
+            childrenOffset = AUDIO_ENTRY_CHILDREN + (soundVersion == 1 ? 16 : soundVersion == 2 ? 36 : 0);
+        }
+        if (childrenOffset >= entry.limit()) {
+            return null;
+        }
+        entry.position(childrenOffset);
+        List<Box> children = Box.parseAll(entry.slice());
+        for (Box child : children) {
+            if (child.type.equals(type)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static String hevcCodecString(String entryType, ByteBuffer hvcC) {
+        int profileByte = hvcC.get(1) & 0xff;
+        int profileSpace = profileByte >>> 6;
+        boolean highTier = (profileByte & 0x20) != 0;
+        int profileIdc = profileByte & 0x1f;
+        int compatibility = Integer.reverse(hvcC.getInt(2));
+        int level = hvcC.get(12) & 0xff;
+
+        StringBuilder codec = new StringBuilder(entryType).append('.');
+        if (profileSpace > 0) {
+            codec.append((char) ('A' + profileSpace - 1));
+        }
+        codec.append(profileIdc)
+                .append('.').append(Integer.toHexString(compatibility).toUpperCase(Locale.ROOT))
+                .append('.').append(highTier ? 'H' : 'L').append(level);
+        int lastConstraint = 5;
+        while (lastConstraint >= 0 && hvcC.get(6 + lastConstraint) == 0) {
+            lastConstraint--;
+        }
+        for (int i = 0; i <= lastConstraint; i++) {
+            codec.append('.').append(Integer.toHexString(hvcC.get(6 + i) & 0xff).toUpperCase(Locale.ROOT));
+        }
+        return codec.toString();
+    }
+
+    /**
+     * Walks ES_Descriptor → DecoderConfigDescriptor → DecoderSpecificInfo to find the object
+     * type and, for MPEG-4 audio, the audio object type.
+     */
+    private static String aacCodecString(ByteBuffer esds) {
+        ByteBuffer p = esds.duplicate();
+        p.position(4);
+        if (readDescriptorHeader(p) != 0x03) {
+            return null;
+        }
+        p.position(p.position() + 2);
+        int esFlags = p.get() & 0xff;
+        if ((esFlags & 0x80) != 0) {
+            p.position(p.position() + 2);
+        }
+        if ((esFlags & 0x40) != 0) {
+            p.position(p.position() + 1 + (p.get(p.position()) & 0xff));
+        }
+        if ((esFlags & 0x20) != 0) {
+            p.position(p.position() + 2);
+        }
+        if (readDescriptorHeader(p) != 0x04) {
+            return null;
+        }
+        int objectType = p.get() & 0xff;
+        p.position(p.position() + 12);
+        if (objectType != 0x40) {
+            return String.format(Locale.ROOT, "mp4a.%02x", objectType);
+        }
+        if (!p.hasRemaining() || readDescriptorHeader(p) != 0x05) {
+            return "mp4a.40.2";
+        }
+        int audioObjectType = (p.get(p.position()) & 0xff) >>> 3;
+        if (audioObjectType == 31) {
+            audioObjectType = 32 + (((p.getShort(p.position()) & 0x07e0)) >>> 5);
+        }
+        return "mp4a.40." + audioObjectType;
+    }
+
+    /** Reads a descriptor tag and its variable-length size, leaving the buffer at the body. */
+    private static int readDescriptorHeader(ByteBuffer p) {
+        int tag = p.get() & 0xff;
+        for (int i = 0; i < 4; i++) {
+            if ((p.get() & 0x80) == 0) {
+                break;
+            }
+        }
+        return tag;
+    }
+}
@@ -0,0 +1,231 @@
+package com.processing.mp4;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the init segment and the moof/mdat media segments of a fragmented MP4.
+ * <p>
+ * Box headers are built in memory; sample data is copied from the source file with
+ * {@link FileChannel#transferTo}, one call per run of contiguous samples, so the payload never
+ * passes through the heap.
+ */
+final class FragmentWriter {
+
+    private static final int TFHD_DEFAULT_BASE_IS_MOOF = 0x020000;
+    private static final int TRUN_DATA_OFFSET = 0x000001;
+    private static final int TRUN_SAMPLE_DURATION = 0x000100;
+    private static final int TRUN_SAMPLE_SIZE = 0x000200;
+    private static final int TRUN_SAMPLE_FLAGS = 0x000400;
+    private static final int TRUN_COMPOSITION_OFFSET = 0x000800;
+
+    /** sample_depends_on = 2 (does not depend on others). */
+    private static final int SYNC_SAMPLE_FLAGS = 0x02000000;
+    /** sample_depends_on = 1, sample_is_non_sync_sample = 1. */
+    private static final int NON_SYNC_SAMPLE_FLAGS = 0x01010000;
+
+    private FragmentWriter() {
+    }
+
+    /**
+     * Writes the init segment: a new ftyp plus the source moov with empty sample tables and an
+     * mvex declaring that the samples follow in movie fragments.
+     */
+    static void writeInit(Movie movie, FileChannel out) throws IOException {
+        List<byte[]> moovChildren = new ArrayList<>();
+        moovChildren.add(copy(movie.moov.require("mvhd")));
+        List<byte[]> trexes = new ArrayList<>();
+        for (Track track : movie.tracks) {
+            moovChildren.add(initTrak(track));
+            ByteBuffer trex = ByteBuffer.allocate(20);
+            trex.putInt(track.trackId).putInt(1).putInt(0).putInt(0).putInt(0);
+            trexes.add(fullBox("trex", 0, 0, trex.array()));
+        }
+        moovChildren.add(box("mvex", trexes));
+
+        ByteBuffer ftyp = ByteBuffer.allocate(24);
+        ftyp.put(ascii("iso6")).putInt(0).put(ascii("iso6")).put(ascii("iso5")).put(ascii("mp41")).put(ascii("dash"));
+        writeFully(out, ByteBuffer.wrap(box("ftyp", List.of(ftyp.array()))));
+        writeFully(out, ByteBuffer.wrap(box("moov", moovChildren)));
+    }
+
+    /**
+     * Writes one media segment.
+     *
+     * @param movie   The source movie.
+     * @param segment The samples to include.
+     * @param source  The source file.
+     * @param out     The segment file.
+     * @throws IOException If reading the source or writing the segment fails.
+     */
+    static void writeSegment(Movie movie, Segment segment, FileChannel source, FileChannel out) throws IOException {
+        List<Track> tracks = movie.tracks;
+
+        int moofSize = 8 + 16;
+        for (int t = 0; t < tracks.size(); t++) {
+            int count = segment.endSample[t] - segment.firstSample[t];
+            if (count > 0) {
+                moofSize += trafSize(tracks.get(t), count);
+            }
+        }
+        long mdatSize = 8 + segment.mediaBytes;
+        int mdatHeader = mdatSize > 0xffffffffL ? 16 : 8;
+        mdatSize += mdatHeader - 8;
+
+        ByteBuffer header = ByteBuffer.allocate(moofSize + mdatHeader);
+        header.putInt(moofSize).put(ascii("moof"));
+        header.putInt(16).put(ascii("mfhd")).putInt(0).putInt(segment.sequence);
+        long dataOffset = moofSize + mdatHeader;
+        for (int t = 0; t < tracks.size(); t++) {
+            Track track = tracks.get(t);
+            int first = segment.firstSample[t];
+            int count = segment.endSample[t] - first;
+            if (count == 0) {
+                continue;
+            }
+            boolean compositionOffsets = track.compositionOffsets != null;
+            int trunFlags = TRUN_DATA_OFFSET | TRUN_SAMPLE_DURATION | TRUN_SAMPLE_SIZE | TRUN_SAMPLE_FLAGS
+                    | (compositionOffsets ? TRUN_COMPOSITION_OFFSET : 0);
+            int trunVersion = track.signedCompositionOffsets ? 1 : 0;
+
+            header.putInt(trafSize(track, count)).put(ascii("traf"));
+            header.putInt(16).put(ascii("tfhd")).putInt(TFHD_DEFAULT_BASE_IS_MOOF).putInt(track.trackId);
+            header.putInt(20).put(ascii("tfdt")).putInt(1 << 24).putLong(track.decodeTimes[first]);
+            header.putInt(20 + count * sampleRecordSize(track)).put(ascii("trun"))
+                    .putInt((trunVersion << 24) | trunFlags).putInt(count).putInt((int) dataOffset);
+            for (int i = first; i < first + count; i++) {
+                header.putInt(track.durations[i]).putInt(track.sizes[i])
+                        .putInt(track.isSync(i) ? SYNC_SAMPLE_FLAGS : NON_SYNC_SAMPLE_FLAGS);
+                if (compositionOffsets) {
+                    header.putInt(track.compositionOffsets[i]);
+                }
+                dataOffset += track.sizes[i];
+            }
+        }
+        if (mdatHeader == 16) {
+            header.putInt(1).put(ascii("mdat")).putLong(mdatSize);
+        } else {
+            header.putInt((int) mdatSize).put(ascii("mdat"));
+        }
+        header.flip();
+        writeFully(out, header);
+
+        for (int t = 0; t < tracks.size(); t++) {
+            Track track = tracks.get(t);
+            int i = segment.firstSample[t];
+            int end = segment.endSample[t];
+            while (i < end) {
+                // Coalesce samples that are adjacent in the source into one transfer
+                long position = track.offsets[i];
+                long length = track.sizes[i];
+                i++;
+                while (i < end && track.offsets[i] == position + length) {
+                    length += track.sizes[i];
+                    i++;
+                }
+                transferFully(source, position, length, out);
+            }
+        }
+    }
+
+    private static int trafSize(Track track, int sampleCount) {
+        // traf header + tfhd + tfdt + trun header + one record per sample
+        return 8 + 16 + 20 + 20 + sampleCount * sampleRecordSize(track);
+    }
+
+    private static int sampleRecordSize(Track track) {
+        return track.compositionOffsets != null ? 16 : 12;
+    }
+
+    /**
+     * Rebuilds a trak for the init segment: tkhd and edts are kept, and the sample table keeps
+     * only the first sample description, with every per-sample table emptied.
+     */
+    private static byte[] initTrak(Track track) {
+        Box mdia = track.trak.require("mdia");
+        Box minf = mdia.require("minf");
+        Box stbl = minf.require("stbl");
+
+        ByteBuffer stsdBody = ByteBuffer.allocate(4 + track.sampleEntry.remaining());
+        stsdBody.putInt(1).put(track.sampleEntry.duplicate());
+        List<byte[]> stblChildren = List.of(
+                fullBox("stsd", stbl.require("stsd").version(), 0, stsdBody.array()),
+                fullBox("stts", 0, 0, new byte[4]),
+                fullBox("stsc", 0, 0, new byte[4]),
+                fullBox("stsz", 0, 0, new byte[8]),
+                fullBox("stco", 0, 0, new byte[4]));
+
+        List<byte[]> minfChildren = new ArrayList<>();
+        for (Box child : minf.children()) {
+            minfChildren.add("stbl".equals(child.type) ? box("stbl", stblChildren) : copy(child));
+        }
+        List<byte[]> mdiaChildren = new ArrayList<>();
+        for (Box child : mdia.children()) {
+            mdiaChildren.add("minf".equals(child.type) ? box("minf", minfChildren) : copy(child));
+        }
+        List<byte[]> trakChildren = new ArrayList<>();
+        for (Box child : track.trak.children()) {
+            switch (child.type) {
+                case "tkhd", "edts" -> trakChildren.add(copy(child));
+                case "mdia" -> trakChildren.add(box("mdia", mdiaChildren));
+                default -> {
+                    // tref and udta may point at tracks that are not carried over
+                }
+            }
+        }
+        return box("trak", trakChildren);
+    }
+
+    private static byte[] box(String type, List<byte[]> children) {
+        int size = 8;
+        for (byte[] child : children) {
+            size += child.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(size).put(ascii(type));
+        for (byte[] child : children) {
+            buffer.put(child);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] fullBox(String type, int version, int flags, byte[] body) {
+        ByteBuffer buffer = ByteBuffer.allocate(12 + body.length);
+        buffer.putInt(12 + body.length).put(ascii(type)).putInt((version << 24) | flags).put(body);
+        return buffer.array();
+    }
+
+    private static byte[] copy(Box box) {
+        ByteBuffer bytes = box.bytes();
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        return copy;
+    }
+
+    private static byte[] ascii(String fourcc) {
+        return fourcc.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void transferFully(FileChannel source, long position, long count, FileChannel out)
+            throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long transferred = source.transferTo(position, end - position, out);
+            if (transferred <= 0) {
+                throw new EOFException("Sample data ends before offset " + end);
+            }
+            position += transferred;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.processing.mp4;
+
+import com.common.media.SegmentLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the HLS playlists and the DASH manifest for a segmented movie. All URIs are relative,
+ * so the files can be served from any path and cached by any CDN.
+ */
+final class Manifests {
+
+    private Manifests() {
+    }
+
+    /** @return The HLS media playlist listing every segment with its exact duration. */
+    static String hlsMediaPlaylist(List<Segment> segments, long timescale) {
+        double longest = 0;
+        for (Segment segment : segments) {
+            longest = Math.max(longest, segment.durationSeconds(timescale));
+        }
+        StringBuilder playlist = new StringBuilder()
+                .append("#EXTM3U\n")
+                .append("#EXT-X-VERSION:7\n")
+                .append("#EXT-X-TARGETDURATION:").append((long) Math.ceil(longest)).append('\n')
+                .append("#EXT-X-MEDIA-SEQUENCE:1\n")
+                .append("#EXT-X-PLAYLIST-TYPE:VOD\n")
+                .append("#EXT-X-INDEPENDENT-SEGMENTS\n")
+                .append("#EXT-X-MAP:URI=\"").append(SegmentLayout.INIT_SEGMENT).append("\"\n");
+        for (Segment segment : segments) {
+            playlist.append(String.format(Locale.ROOT, "#EXTINF:%.3f,\n", segment.durationSeconds(timescale)))
+                    .append(SegmentLayout.mediaSegmentName(segment.sequence)).append('\n');
+        }
+        return playlist.append("#EXT-X-ENDLIST\n").toString();
+    }
+
+    /** @return The HLS master playlist pointing at the single muxed rendition. */
+    static String hlsMasterPlaylist(Movie movie, List<Segment> segments, long timescale) {
+        StringBuilder attributes = new StringBuilder()
+                .append("BANDWIDTH=").append(peakBandwidth(segments, timescale))
+                .append(",AVERAGE-BANDWIDTH=").append(averageBandwidth(segments, timescale))
+                .append(",CODECS=\"").append(codecs(movie)).append('"');
+        Track video = videoTrack(movie);
+        if (video != null && Codecs.width(video) > 0) {
+            attributes.append(",RESOLUTION=").append(Codecs.width(video)).append('x').append(Codecs.height(video));
+        }
+        return "#EXTM3U\n"
+                + "#EXT-X-VERSION:7\n"
+                + "#EXT-X-INDEPENDENT-SEGMENTS\n"
+                + "#EXT-X-STREAM-INF:" + attributes + "\n"
+                + SegmentLayout.HLS_MEDIA_PLAYLIST + "\n";
+    }
+
+    /**
+     * @return A static MPD with one muxed representation addressed through a SegmentTemplate
+     * and a SegmentTimeline in the reference track's timescale.
+     */
+    static String dashManifest(Movie movie, List<Segment> segments, long timescale) {
+        double total = 0;
+        double longest = 0;
+        for (Segment segment : segments) {
+            total += segment.durationSeconds(timescale);
+            longest = Math.max(longest, segment.durationSeconds(timescale));
+        }
+        Track video = videoTrack(movie);
+        String contentType = video != null ? "video/mp4" : "audio/mp4";
+
+        StringBuilder representation = new StringBuilder("<Representation id=\"0\"")
+                .append(" codecs=\"").append(codecs(movie)).append('"')
+                .append(" bandwidth=\"").append(peakBandwidth(segments, timescale)).append('"');
+        if (video != null && Codecs.width(video) > 0) {
+            representation.append(" width=\"").append(Codecs.width(video)).append('"')
+                    .append(" height=\"").append(Codecs.height(video)).append('"');
+        }
+        for (Track track : movie.tracks) {
+            if (track.isAudio() && Codecs.sampleRate(track) > 0) {
+                representation.append(" audioSamplingRate=\"").append(Codecs.sampleRate(track)).append('"');
+                break;
+            }
+        }
+        representation.append('>');
+
+        StringBuilder mpd = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<MPD xmlns=\"urn:mpeg:dash:schema:mpd:2011\" type=\"static\"")
+                .append(" profiles=\"urn:mpeg:dash:profile:isoff-live:2011\"")
+                .append(String.format(Locale.ROOT, " mediaPresentationDuration=\"PT%.3fS\"", total))
+                .append(String.format(Locale.ROOT, " minBufferTime=\"PT%.3fS\">\n", longest))
+                .append("  <Period id=\"0\" start=\"PT0S\">\n")
+                .append("    <AdaptationSet mimeType=\"").append(contentType)
+                .append("\" segmentAlignment=\"true\" startWithSAP=\"1\">\n")
+                .append("      <SegmentTemplate timescale=\"").append(timescale).append('"')
+                .append(" initialization=\"").append(SegmentLayout.INIT_SEGMENT).append('"')
+                .append(" media=\"").append(SegmentLayout.DASH_MEDIA_TEMPLATE).append('"')
+                .append(" startNumber=\"1\">\n")
+                .append("        <SegmentTimeline>\n");
+        for (int i = 0; i < segments.size(); ) {
+            Segment segment = segments.get(i);
+            int repeat = 0;
+            while (i + repeat + 1 < segments.size() && segments.get(i + repeat + 1).duration == segment.duration) {
+                repeat++;
+            }
+            mpd.append("          <S t=\"").append(segment.startTime).append("\" d=\"").append(segment.duration).append('"');
+            if (repeat > 0) {
+                mpd.append(" r=\"").append(repeat).append('"');
+            }
+            mpd.append("/>\n");
+            i += repeat + 1;
+        }
+        return mpd.append("        </SegmentTimeline>\n")
+                .append("      </SegmentTemplate>\n")
+                .append("      ").append(representation).append("</Representation>\n")
+                .append("    </AdaptationSet>\n")
+                .append("  </Period>\n")
+                .append("</MPD>\n")
+                .toString();
+    }
+
+    private static String codecs(Movie movie) {
+        List<String> codecs = new ArrayList<>();
+        for (Track track : movie.tracks) {
+            codecs.add(Codecs.codecString(track));
+        }
+        return String.join(",", codecs);
+    }
+
+    private static Track videoTrack(Movie movie) {
+        for (Track track : movie.tracks) {
+            if (track.isVideo()) {
+                return track;
+            }
+        }
+        return null;
+    }
+
+    private static long peakBandwidth(List<Segment> segments, long timescale) {
+        long peak = 0;
+        for (Segment segment : segments) {
+            double seconds = segment.durationSeconds(timescale);
+            if (seconds > 0) {
+                peak = Math.max(peak, (long) Math.ceil(segment.mediaBytes * 8 / seconds));
+            }
+        }
+        return Math.max(peak, 1);
+    }
+
+    private static long averageBandwidth(List<Segment> segments, long timescale) {
+        long bytes = 0;
+        double seconds = 0;
+        for (Segment segment : segments) {
+            bytes += segment.mediaBytes;
+            seconds += segment.durationSeconds(timescale);
+        }
+        return seconds > 0 ? Math.max(1, (long) Math.ceil(bytes * 8 / seconds)) : 1;
+    }
+}
@@ -0,0 +1,127 @@
+package com.processing.mp4;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The metadata of a progressive MP4: its ftyp and moov boxes plus the audio and video tracks
+ * found in the moov. Only the top-level box headers and the moov itself are read; media data
+ * is left on disk.
+ */
+final class Movie {
+
+    /** A moov larger than this is treated as hostile rather than loaded into memory. */
+    private static final long MAX_MOOV_BYTES = 64L * 1024 * 1024;
+
+    /** Top-level boxes an ISO BMFF / QuickTime file may start with. */
+    private static final Set<String> LEADING_BOXES = Set.of("ftyp", "moov", "mdat", "free", "skip", "wide", "pnot");
+
+    final Box moov;
+    final List<Track> tracks;
+
+    private Movie(Box moov, List<Track> tracks) {
+        this.moov = moov;
+        this.tracks = tracks;
+    }
+
+    /**
+     * Reads the movie metadata of a file.
+     *
+     * @param channel The file.
+     * @return The movie, or null if the file is not an MP4 or is already fragmented.
+     * @throws IOException          If the file cannot be read.
+     * @throws Mp4FormatException   If the file looks like an MP4 but is malformed.
+     */
+    static Movie read(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long position = 0;
+        Box moov = null;
+        boolean first = true;
+        ByteBuffer header = ByteBuffer.allocate(16);
+        while (position + 8 <= fileSize) {
+            header.clear().limit(8);
+            readFully(channel, header, position);
+            long size = header.getInt(0) & 0xffffffffL;
+            String type = Box.fourcc(header.getInt(4));
+            if (first && !LEADING_BOXES.contains(type)) {
+                return null;
+            }
+            first = false;
+            int headerSize = 8;
+            if (size == 1) {
+                header.limit(16).position(8);
+                readFully(channel, header, position + 8);
+                size = header.getLong(8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position;
+            }
+            if (size < headerSize || position + size > fileSize) {
+                throw new Mp4FormatException("Box '" + type + "' at offset " + position + " runs past the end of the file");
+            }
+            if ("moof".equals(type)) {
+                return null;
+            }
+            if ("moov".equals(type)) {
+                if (size > MAX_MOOV_BYTES) {
+                    throw new Mp4FormatException("moov box of " + size + " bytes is too large");
+                }
+                ByteBuffer data = ByteBuffer.allocate((int) size);
+                readFully(channel, data, position);
+                moov = Box.wrap(type, data.flip(), headerSize);
+            }
+            position += size;
+        }
+        if (moov == null) {
+            throw new Mp4FormatException("File has no moov box");
+        }
+        if (moov.child("mvex") != null) {
+            return null;
+        }
+
+        List<Track> tracks = new ArrayList<>();
+        for (Box box : moov.children()) {
+            if ("trak".equals(box.type)) {
+                Track track = Track.parse(box);
+                if (track != null) {
+                    checkSampleBounds(track, fileSize);
+                    tracks.add(track);
+                }
+            }
+        }
+        return new Movie(moov, tracks);
+    }
+
+    /** @return The first video track, else the first audio track; segments are cut on its sync samples. */
+    Track referenceTrack() {
+        for (Track track : tracks) {
+            if (track.isVideo()) {
+                return track;
+            }
+        }
+        return tracks.isEmpty() ? null : tracks.get(0);
+    }
+
+    private static void checkSampleBounds(Track track, long fileSize) {
+        for (int i = 0; i < track.sampleCount; i++) {
+            if (track.offsets[i] < 0 || track.offsets[i] + track.sizes[i] > fileSize || track.sizes[i] < 0) {
+                throw new Mp4FormatException("Sample " + i + " of track " + track.trackId + " lies outside the file");
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("File ended while reading box data at offset " + position);
+            }
+            position += read;
+        }
+    }
+}
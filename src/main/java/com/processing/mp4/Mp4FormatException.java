@@ -0,0 +1,14 @@
+package com.processing.mp4;
+
+/**
+ * The file is not an MP4 the segmenter can handle. Retrying will not help.
+ */
+public class Mp4FormatException extends IllegalArgumentException {
+    public Mp4FormatException(String message) {
+        super(message);
+    }
+
+    public Mp4FormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,131 @@
+package com.processing.mp4;
+
+import com.common.media.SegmentLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits a progressive MP4 into keyframe-aligned fragmented-MP4 segments and writes an HLS
+ * playlist and a DASH manifest for them, entirely in Java.
+ * <p>
+ * Only the moov box is read into memory. Sample data is copied from the source file into each
+ * segment with {@link FileChannel#transferTo}, so memory use does not grow with the video.
+ * Everything is written to a temporary directory that is renamed into place at the end; a
+ * segment directory therefore either is complete or does not exist.
+ */
+@Component
+public class Mp4Segmenter {
+
+    private static final Logger logger = LoggerFactory.getLogger(Mp4Segmenter.class);
+
+    private final boolean enabled;
+    private final double targetDurationSeconds;
+
+    @Autowired
+    public Mp4Segmenter(@Value("${processing.segmenter.enabled:true}") boolean enabled,
+                        @Value("${processing.segmenter.target-duration-seconds:6}") double targetDurationSeconds) {
+        if (targetDurationSeconds <= 0) {
+            throw new IllegalArgumentException("processing.segmenter.target-duration-seconds must be positive");
+        }
+        this.enabled = enabled;
+        this.targetDurationSeconds = targetDurationSeconds;
+    }
+
+    /** @return false if segmentation is switched off with processing.segmenter.enabled. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Segments a video into {@link SegmentLayout#segmentDirectory}. Videos that already have
+     * segments (for example a deduplicated blob shared with an earlier upload) are left alone.
+     *
+     * @param video The stored video.
+     * @return true if the video has segments after this call, false if it was skipped because
+     * segmentation is disabled or the file is not a progressive MP4.
+     * @throws IOException        If reading the video or writing the segments fails.
+     * @throws Mp4FormatException If the video is a malformed MP4, including tables that point
+     *                            outside their boxes; never worth retrying.
+     */
+    public boolean segment(Path video) throws IOException {
+        if (!enabled) {
+            return false;
+        }
+        Path target = SegmentLayout.segmentDirectory(video);
+        if (Files.isDirectory(target)) {
+            return true;
+        }
+
+        try (FileChannel source = FileChannel.open(video, StandardOpenOption.READ)) {
+            Movie movie = Movie.read(source);
+            if (movie == null) {
+                logger.info("Not segmenting {}: not a progressive MP4", video.getFileName());
+                return false;
+            }
+            Track reference = movie.referenceTrack();
+            if (reference == null) {
+                logger.info("Not segmenting {}: no audio or video tracks", video.getFileName());
+                return false;
+            }
+
+            List<Segment> segments = Segment.plan(movie, reference, targetDurationSeconds);
+            Path staging = target.resolveSibling(target.getFileName() + ".tmp-" + UUID.randomUUID());
+            Files.createDirectory(staging);
+            try {
+                write(movie, reference, segments, source, staging);
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException ex) {
+                // Another worker segmented the same blob first; its output is identical
+                FileSystemUtils.deleteRecursively(staging);
+            } catch (IOException | RuntimeException ex) {
+                FileSystemUtils.deleteRecursively(staging);
+                throw ex;
+            }
+            logger.info("Segmented {} into {} segments", video.getFileName(), segments.size());
+            return true;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | NegativeArraySizeException ex) {
+            // A field the explicit checks missed points outside its box; the same bytes fail the same way on a retry
+            throw new Mp4FormatException("Malformed MP4 " + video.getFileName() + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private void write(Movie movie, Track reference, List<Segment> segments, FileChannel source, Path directory)
+            throws IOException {
+        try (FileChannel out = create(directory.resolve(SegmentLayout.INIT_SEGMENT))) {
+            FragmentWriter.writeInit(movie, out);
+        }
+        for (Segment segment : segments) {
+            try (FileChannel out = create(directory.resolve(SegmentLayout.mediaSegmentName(segment.sequence)))) {
+                FragmentWriter.writeSegment(movie, segment, source, out);
+            }
+        }
+        long timescale = reference.timescale;
+        Files.writeString(directory.resolve(SegmentLayout.HLS_MEDIA_PLAYLIST),
+                Manifests.hlsMediaPlaylist(segments, timescale), StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve(SegmentLayout.HLS_MASTER_PLAYLIST),
+                Manifests.hlsMasterPlaylist(movie, segments, timescale), StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve(SegmentLayout.DASH_MANIFEST),
+                Manifests.dashManifest(movie, segments, timescale), StandardCharsets.UTF_8);
+    }
+
+    private static FileChannel create(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+}
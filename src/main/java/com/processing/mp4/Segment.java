@@ -0,0 +1,95 @@
+package com.processing.mp4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One media segment: a run of samples from every track, starting on a sync sample of the
+ * reference track. Times are in the reference track's timescale.
+ */
+final class Segment {
+
+    final int sequence;
+    /** Per track, the first sample in this segment. */
+    final int[] firstSample;
+    /** Per track, one past the last sample in this segment. */
+    final int[] endSample;
+    final long startTime;
+    final long duration;
+    final long mediaBytes;
+
+    private Segment(int sequence, int[] firstSample, int[] endSample, long startTime, long duration,
+                    long mediaBytes) {
+        this.sequence = sequence;
+        this.firstSample = firstSample;
+        this.endSample = endSample;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.mediaBytes = mediaBytes;
+    }
+
+    /**
+     * Cuts a movie into segments of at least {@code targetSeconds}, each starting on a sync
+     * sample of the reference track. Samples of the other tracks go to the segment whose time
+     * span contains their decode time, so every segment can be decoded on its own.
+     *
+     * @param movie         The movie.
+     * @param reference     The track whose sync samples define the cut points.
+     * @param targetSeconds The minimum segment duration; segments run to the next sync sample after it.
+     * @return The segments in presentation order, numbered from 1.
+     */
+    static List<Segment> plan(Movie movie, Track reference, double targetSeconds) {
+        long target = Math.max(1, Math.round(targetSeconds * reference.timescale));
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(0);
+        int segmentStart = 0;
+        for (int i = 1; i < reference.sampleCount; i++) {
+            if (reference.isSync(i) && reference.decodeTimes[i] - reference.decodeTimes[segmentStart] >= target) {
+                cuts.add(i);
+                segmentStart = i;
+            }
+        }
+        cuts.add(reference.sampleCount);
+
+        List<Track> tracks = movie.tracks;
+        int[] cursor = new int[tracks.size()];
+        List<Segment> segments = new ArrayList<>(cuts.size() - 1);
+        for (int s = 0; s + 1 < cuts.size(); s++) {
+            int refEnd = cuts.get(s + 1);
+            boolean last = s + 2 == cuts.size();
+            long startTime = reference.decodeTimes[cuts.get(s)];
+            long endTime = reference.decodeTimes[refEnd];
+
+            int[] first = new int[tracks.size()];
+            int[] end = new int[tracks.size()];
+            long bytes = 0;
+            for (int t = 0; t < tracks.size(); t++) {
+                Track track = tracks.get(t);
+                first[t] = cursor[t];
+                int j = cursor[t];
+                if (track == reference) {
+                    j = refEnd;
+                } else if (last) {
+                    j = track.sampleCount;
+                } else {
+                    // decodeTime / track.timescale < endTime / reference.timescale
+                    while (j < track.sampleCount
+                            && track.decodeTimes[j] * reference.timescale < endTime * track.timescale) {
+                        j++;
+                    }
+                }
+                end[t] = j;
+                cursor[t] = j;
+                for (int k = first[t]; k < j; k++) {
+                    bytes += track.sizes[k];
+                }
+            }
+            segments.add(new Segment(s + 1, first, end, startTime, endTime - startTime, bytes));
+        }
+        return segments;
+    }
+
+    double durationSeconds(long timescale) {
+        return (double) duration / timescale;
+    }
+}
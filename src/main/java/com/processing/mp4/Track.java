@@ -0,0 +1,299 @@
+package com.processing.mp4;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One audio or video track of a progressive MP4, with its sample tables expanded to one entry
+ * per sample so fragments can be cut at arbitrary sample boundaries.
+ */
+final class Track {
+
+    /** Most samples accepted per track, so a forged count cannot force huge table allocations. */
+    static final int MAX_SAMPLES = 1 << 24;
+
+    /** Offset of the child boxes in a VisualSampleEntry, which the codec and size fields precede. */
+    private static final int MIN_VISUAL_ENTRY = 86;
+    /** Size of a version 0 AudioSampleEntry without children. */
+    private static final int MIN_AUDIO_ENTRY = 36;
+
+    final int trackId;
+    final String handler;
+    final long timescale;
+    final Box trak;
+    final ByteBuffer sampleEntry;
+
+    final int sampleCount;
+    final int[] sizes;
+    final long[] offsets;
+    final int[] durations;
+    final long[] decodeTimes;
+    final int[] compositionOffsets;
+    final boolean[] sync;
+    final boolean signedCompositionOffsets;
+
+    private Track(int trackId, String handler, long timescale, Box trak, ByteBuffer sampleEntry, int[] sizes,
+                  long[] offsets, int[] durations, int[] compositionOffsets, boolean[] sync,
+                  boolean signedCompositionOffsets) {
+        this.trackId = trackId;
+        this.handler = handler;
+        this.timescale = timescale;
+        this.trak = trak;
+        this.sampleEntry = sampleEntry;
+        this.sampleCount = sizes.length;
+        this.sizes = sizes;
+        this.offsets = offsets;
+        this.durations = durations;
+        this.compositionOffsets = compositionOffsets;
+        this.sync = sync;
+        this.signedCompositionOffsets = signedCompositionOffsets;
+        this.decodeTimes = new long[sampleCount + 1];
+        for (int i = 0; i < sampleCount; i++) {
+            decodeTimes[i + 1] = decodeTimes[i] + durations[i];
+        }
+    }
+
+    boolean isVideo() {
+        return "vide".equals(handler);
+    }
+
+    boolean isAudio() {
+        return "soun".equals(handler);
+    }
+
+    boolean isSync(int sample) {
+        return sync == null || sync[sample];
+    }
+
+    /** @return The total decode duration of the track in its own timescale. */
+    long duration() {
+        return decodeTimes[sampleCount];
+    }
+
+    /** @return The four-character code of the sample entry, e.g. avc1 or mp4a. */
+    String sampleEntryType() {
+        return Box.fourcc(sampleEntry.getInt(4));
+    }
+
+    /**
+     * Builds a track from a trak box, or returns null for tracks that are neither audio nor video.
+     *
+     * @param trak The trak box.
+     * @return The expanded track, or null.
+     * @throws Mp4FormatException If a box is too short for its fields or a table for its entries.
+     */
+    static Track parse(Box trak) {
+        Box tkhd = trak.require("tkhd");
+        ByteBuffer tkhdPayload = payload(tkhd, 24);
+        int trackId = tkhd.version() == 1 ? tkhdPayload.getInt(20) : tkhdPayload.getInt(12);
+
+        Box mdia = trak.require("mdia");
+        Box mdhd = mdia.require("mdhd");
+        ByteBuffer mdhdPayload = payload(mdhd, 24);
+        long timescale = (mdhd.version() == 1 ? mdhdPayload.getInt(20) : mdhdPayload.getInt(12)) & 0xffffffffL;
+        String handler = Box.fourcc(payload(mdia.require("hdlr"), 12).getInt(8));
+        if (!"vide".equals(handler) && !"soun".equals(handler)) {
+            return null;
+        }
+        if (timescale == 0) {
+            throw new Mp4FormatException("Track " + trackId + " has a zero timescale");
+        }
+
+        Box stbl = mdia.require("minf").require("stbl");
+        ByteBuffer sampleEntry = firstSampleEntry(stbl.require("stsd"));
+        if (sampleEntry.remaining() < ("vide".equals(handler) ? MIN_VISUAL_ENTRY : MIN_AUDIO_ENTRY)) {
+            throw new Mp4FormatException("Sample entry of track " + trackId + " is too short");
+        }
+        int[] sizes = sampleSizes(stbl);
+        int count = sizes.length;
+        if (count == 0) {
+            return null;
+        }
+        int[] durations = sampleDurations(stbl.require("stts"), count);
+        Box ctts = stbl.child("ctts");
+        int[] compositionOffsets = ctts == null ? null : compositionOffsets(ctts, count);
+        boolean[] sync = syncSamples(stbl.child("stss"), count);
+        long[] offsets = sampleOffsets(stbl, sizes);
+        return new Track(trackId, handler, timescale, trak, sampleEntry, sizes, offsets, durations,
+                compositionOffsets, sync, ctts != null && ctts.version() == 1);
+    }
+
+    private static ByteBuffer firstSampleEntry(Box stsd) {
+        ByteBuffer payload = payload(stsd, 8);
+        payload.position(8);
+        java.util.List<Box> entries = Box.parseAll(payload.slice());
+        if (payload.getInt(4) == 0 || entries.isEmpty()) {
+            throw new Mp4FormatException("stsd has no sample entries");
+        }
+        return entries.get(0).bytes();
+    }
+
+    private static int[] sampleSizes(Box stbl) {
+        Box stsz = stbl.child("stsz");
+        if (stsz != null) {
+            ByteBuffer p = payload(stsz, 12);
+            int fixedSize = p.getInt(4);
+            int count = entryCount(stsz, p, 8, fixedSize != 0 ? 0 : 32);
+            int[] sizes = new int[count];
+            for (int i = 0; i < count; i++) {
+                sizes[i] = fixedSize != 0 ? fixedSize : p.getInt(12 + 4 * i);
+            }
+            return sizes;
+        }
+        Box stz2 = stbl.child("stz2");
+        if (stz2 == null) {
+            throw new Mp4FormatException("Sample table has neither stsz nor stz2");
+        }
+        ByteBuffer p = payload(stz2, 12);
+        int fieldSize = p.get(7) & 0xff;
+        if (fieldSize != 4 && fieldSize != 8 && fieldSize != 16) {
+            throw new Mp4FormatException("Unsupported stz2 field size " + fieldSize);
+        }
+        int count = entryCount(stz2, p, 8, fieldSize);
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            switch (fieldSize) {
+                case 4 -> {
+                    int b = p.get(12 + i / 2) & 0xff;
+                    sizes[i] = (i % 2 == 0) ? b >>> 4 : b & 0x0f;
+                }
+                case 8 -> sizes[i] = p.get(12 + i) & 0xff;
+                case 16 -> sizes[i] = p.getShort(12 + 2 * i) & 0xffff;
+                default -> throw new Mp4FormatException("Unsupported stz2 field size " + fieldSize);
+            }
+        }
+        return sizes;
+    }
+
+    private static int[] sampleDurations(Box stts, int count) {
+        ByteBuffer p = payload(stts, 8);
+        int entries = entryCount(stts, p, 4, 64);
+        int[] durations = new int[count];
+        int sample = 0;
+        for (int e = 0; e < entries && sample < count; e++) {
+            int run = p.getInt(8 + 8 * e);
+            int delta = p.getInt(12 + 8 * e);
+            if (delta < 0) {
+                throw new Mp4FormatException("stts has a sample delta over 2^31");
+            }
+            for (int k = 0; k < run && sample < count; k++) {
+                durations[sample++] = delta;
+            }
+        }
+        if (sample < count) {
+            throw new Mp4FormatException("stts covers " + sample + " of " + count + " samples");
+        }
+        return durations;
+    }
+
+    private static int[] compositionOffsets(Box ctts, int count) {
+        ByteBuffer p = payload(ctts, 8);
+        int entries = entryCount(ctts, p, 4, 64);
+        int[] offsets = new int[count];
+        int sample = 0;
+        for (int e = 0; e < entries && sample < count; e++) {
+            int run = p.getInt(8 + 8 * e);
+            int offset = p.getInt(12 + 8 * e);
+            for (int k = 0; k < run && sample < count; k++) {
+                offsets[sample++] = offset;
+            }
+        }
+        return offsets;
+    }
+
+    private static boolean[] syncSamples(Box stss, int count) {
+        if (stss == null) {
+            // No stss means every sample is a sync sample
+            return null;
+        }
+        ByteBuffer p = payload(stss, 8);
+        int entries = entryCount(stss, p, 4, 32);
+        boolean[] sync = new boolean[count];
+        for (int e = 0; e < entries; e++) {
+            int sampleNumber = p.getInt(8 + 4 * e);
+            if (sampleNumber >= 1 && sampleNumber <= count) {
+                sync[sampleNumber - 1] = true;
+            }
+        }
+        return sync;
+    }
+
+    private static long[] sampleOffsets(Box stbl, int[] sizes) {
+        long[] chunkOffsets;
+        Box stco = stbl.child("stco");
+        if (stco != null) {
+            ByteBuffer p = payload(stco, 8);
+            chunkOffsets = new long[entryCount(stco, p, 4, 32)];
+            for (int i = 0; i < chunkOffsets.length; i++) {
+                chunkOffsets[i] = p.getInt(8 + 4 * i) & 0xffffffffL;
+            }
+        } else {
+            Box co64 = stbl.require("co64");
+            ByteBuffer p = payload(co64, 8);
+            chunkOffsets = new long[entryCount(co64, p, 4, 64)];
+            for (int i = 0; i < chunkOffsets.length; i++) {
+                chunkOffsets[i] = p.getLong(8 + 8 * i);
+            }
+        }
+
+        Box stscBox = stbl.require("stsc");
+        ByteBuffer stsc = payload(stscBox, 8);
+        int entries = entryCount(stscBox, stsc, 4, 96);
+        long[] offsets = new long[sizes.length];
+        int sample = 0;
+        for (int e = 0; e < entries && sample < sizes.length; e++) {
+            long firstChunk = stsc.getInt(8 + 12 * e) & 0xffffffffL;
+            long nextFirstChunk = e + 1 < entries ? stsc.getInt(8 + 12 * (e + 1)) & 0xffffffffL : chunkOffsets.length + 1L;
+            long samplesPerChunk = stsc.getInt(12 + 12 * e) & 0xffffffffL;
+            for (long chunk = firstChunk; chunk < nextFirstChunk && sample < sizes.length; chunk++) {
+                if (chunk < 1 || chunk > chunkOffsets.length) {
+                    throw new Mp4FormatException("stsc refers to missing chunk " + chunk);
+                }
+                long offset = chunkOffsets[(int) (chunk - 1)];
+                for (long k = 0; k < samplesPerChunk && sample < sizes.length; k++) {
+                    offsets[sample] = offset;
+                    offset += sizes[sample];
+                    sample++;
+                }
+            }
+        }
+        if (sample < sizes.length) {
+            throw new Mp4FormatException("Chunk tables cover " + sample + " of " + sizes.length + " samples");
+        }
+        return offsets;
+    }
+
+    /**
+     * @param box           A full box.
+     * @param minimumLength The bytes of payload its fixed fields need.
+     * @return The box payload.
+     * @throws Mp4FormatException If the payload is shorter.
+     */
+    private static ByteBuffer payload(Box box, int minimumLength) {
+        ByteBuffer payload = box.payload();
+        if (payload.limit() < minimumLength) {
+            throw new Mp4FormatException("'" + box.type + "' box is too short");
+        }
+        return payload;
+    }
+
+    /**
+     * Reads the entry count of a table box and checks that the entries it declares fit in the box.
+     *
+     * @param box          The table box.
+     * @param payload      Its payload, at least {@code countOffset + 4} bytes long.
+     * @param countOffset  Offset of the 32-bit entry count; the entries follow it.
+     * @param bitsPerEntry Size of one entry, or 0 if the entries are not stored (fixed sample size).
+     * @return The entry count.
+     * @throws Mp4FormatException If the count exceeds {@link #MAX_SAMPLES} or the entries run past the box.
+     */
+    private static int entryCount(Box box, ByteBuffer payload, int countOffset, int bitsPerEntry) {
+        long count = payload.getInt(countOffset) & 0xffffffffL;
+        if (count > MAX_SAMPLES) {
+            throw new Mp4FormatException("'" + box.type + "' box declares " + count + " entries");
+        }
+        if (countOffset + 4 + (count * bitsPerEntry + 7) / 8 > payload.limit()) {
+            throw new Mp4FormatException("'" + box.type + "' box is too short for its " + count + " entries");
+        }
+        return (int) count;
+    }
+}
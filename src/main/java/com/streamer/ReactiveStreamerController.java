@@ -0,0 +1,118 @@
+package com.streamer;
+
+import com.common.media.SegmentLayout;
+import com.streamer.cache.ChunkCache;
+import com.streamer.cache.ChunkCacheStats;
+import com.streamer.cache.StreamableUpload;
+import com.streamer.components.ReactiveRangeResponseWriter;
+import com.streamer.tiering.AccessTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.NoSuchFileException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The streamer endpoints on WebFlux, for {@code spring.main.web-application-type=reactive}
+ * (the {@code reactive} profile). Same paths, headers and status codes as
+ * {@link StreamerController}, but no request holds a thread while it waits on the network, so
+ * one node can keep many more mostly idle viewer connections open.
+ */
+@RestController
+@RequestMapping("/api/streamer")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStreamerController {
+
+    /** Videos and segments never change once written, so any cache may keep them indefinitely. */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    /** Manifests are revalidated so a deleted upload stops being advertised. */
+    private static final String MANIFEST_CACHE_CONTROL = "public, max-age=60";
+
+    private final StreamerService streamerService;
+    private final ReactiveRangeResponseWriter rangeResponseWriter;
+    private final ChunkCache chunkCache;
+    private final AccessTracker accessTracker;
+
+    @Autowired
+    public ReactiveStreamerController(StreamerService streamerService, ReactiveRangeResponseWriter rangeResponseWriter,
+                                      ChunkCache chunkCache, AccessTracker accessTracker) {
+        this.streamerService = streamerService;
+        this.rangeResponseWriter = rangeResponseWriter;
+        this.chunkCache = chunkCache;
+        this.accessTracker = accessTracker;
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/health")
+    public String health() {
+        return "Streamer Server Up and Running";
+    }
+
+    @GetMapping("/cache/stats")
+    public ChunkCacheStats cacheStats() {
+        return chunkCache.stats();
+    }
+
+    @GetMapping("/{identifier}/stream")
+    public Mono<Void> streamVideo(@PathVariable String identifier, ServerWebExchange exchange) {
+        return lookup(streamerService.resolveVideoAsync(identifier), "Video not found")
+                .flatMap(video -> {
+                    String range = exchange.getRequest().getHeaders().getFirst(HttpHeaders.RANGE);
+                    if (range == null || range.startsWith("bytes=0-")) {
+                        // A playback start; seeks within the video are not counted
+                        accessTracker.recordPlayback(identifier);
+                    }
+                    exchange.getResponse().getHeaders().setCacheControl(IMMUTABLE_CACHE_CONTROL);
+                    return rangeResponseWriter.write(exchange, video.getBlobKey(),
+                            MediaTypeFactory.getMediaType(video.getBlobKey()).orElse(MediaType.APPLICATION_OCTET_STREAM),
+                            video.video());
+                });
+    }
+
+    /**
+     * Serves the HLS playlists, DASH manifest, init segment and media segments of an upload,
+     * like {@link StreamerController#streamSegment}.
+     */
+    @GetMapping("/{identifier}/segments/{name}")
+    public Mono<Void> streamSegment(@PathVariable String identifier, @PathVariable String name,
+                                    ServerWebExchange exchange) {
+        return lookup(streamerService.resolveSegmentAsync(identifier, name), "Segment not found")
+                .flatMap(upload -> {
+                    boolean manifest = name.endsWith(".m3u8") || name.endsWith(".mpd");
+                    if (SegmentLayout.HLS_MASTER_PLAYLIST.equals(name) || SegmentLayout.DASH_MANIFEST.equals(name)) {
+                        accessTracker.recordPlayback(identifier);
+                    }
+                    exchange.getResponse().getHeaders()
+                            .setCacheControl(manifest ? MANIFEST_CACHE_CONTROL : IMMUTABLE_CACHE_CONTROL);
+                    return rangeResponseWriter.write(exchange, upload.segmentKey(name),
+                            MediaType.parseMediaType(SegmentLayout.contentType(name)), upload.segment(name));
+                });
+    }
+
+    @ExceptionHandler(NoSuchFileException.class)
+    public ResponseEntity<String> handleMissingBlob(NoSuchFileException ex, ServerWebExchange exchange) {
+        // Replaces the long-lived Cache-Control and validators set before the blob turned out to be missing
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.setCacheControl("no-store");
+        headers.remove(HttpHeaders.ETAG);
+        headers.remove(HttpHeaders.LAST_MODIFIED);
+        return new ResponseEntity<>("Not found", HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * A viewer going away must not cancel a lookup other requests may be waiting on, so
+     * cancellation is not passed on to the shared future.
+     */
+    private static Mono<StreamableUpload> lookup(CompletableFuture<Optional<StreamableUpload>> upload,
+                                                 String notFound) {
+        return Mono.fromFuture(upload, true)
+                .flatMap(Mono::justOrEmpty)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, notFound)));
+    }
+}
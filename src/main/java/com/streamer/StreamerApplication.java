@@ -1,13 +1,38 @@
 package com.streamer;
 
-import com.auth.AuthController;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.ReactiveManagementWebSecurityAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+/**
+ * Runs on Tomcat by default; with the {@code reactive} profile it runs the WebFlux endpoints on
+ * Netty instead (see {@link ReactiveStreamerController}).
+ */
+@SpringBootApplication(exclude = {
+        SecurityAutoConfiguration.class,
+        ManagementWebSecurityAutoConfiguration.class,
+        ReactiveSecurityAutoConfiguration.class,
+        ReactiveManagementWebSecurityAutoConfiguration.class,
+})
+@ComponentScan(basePackages = {
+        "com.streamer",
+        "com.common",
+})
+@EntityScan(basePackages = {
+        "com.common",
+})
+@EnableJpaRepositories(basePackages = "com.common.models")
+@EnableScheduling
 public class StreamerApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(AuthController.class, args);
+        SpringApplication.run(StreamerApplication.class, args);
     }
 }
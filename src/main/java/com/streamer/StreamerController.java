@@ -1,21 +1,101 @@
 package com.streamer;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.ResourceRegion;
+import com.common.media.SegmentLayout;
+import com.streamer.cache.ChunkCache;
+import com.streamer.cache.ChunkCacheStats;
+import com.streamer.cache.StreamableUpload;
+import com.streamer.components.RangeResponseWriter;
+import com.streamer.tiering.AccessTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Optional;
+import java.nio.file.NoSuchFileException;
 
 @RestController
 @RequestMapping("/api/streamer")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class StreamerController {
-//    @GetMapping("/{identifier}/stream")
-//    public ResponseEntity<ResourceRegion> streamVideo(
-//            @PathVariable String identifier,
-//            HttpServletRequest request) throws IOException {
-//
-//    }
+
+    /** Videos and segments never change once written, so any cache may keep them indefinitely. */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    /** Manifests are revalidated so a deleted upload stops being advertised. */
+    private static final String MANIFEST_CACHE_CONTROL = "public, max-age=60";
+
+    private final StreamerService streamerService;
+    private final RangeResponseWriter rangeResponseWriter;
+    private final ChunkCache chunkCache;
+    private final AccessTracker accessTracker;
+
+    @Autowired
+    public StreamerController(StreamerService streamerService, RangeResponseWriter rangeResponseWriter,
+                              ChunkCache chunkCache, AccessTracker accessTracker) {
+        this.streamerService = streamerService;
+        this.rangeResponseWriter = rangeResponseWriter;
+        this.chunkCache = chunkCache;
+        this.accessTracker = accessTracker;
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/health")
+    public String health() {
+        return "Streamer Server Up and Running";
+    }
+
+    @GetMapping("/cache/stats")
+    public ChunkCacheStats cacheStats() {
+        return chunkCache.stats();
+    }
+
+    @GetMapping("/{identifier}/stream")
+    public void streamVideo(
+            @PathVariable String identifier,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        StreamableUpload video = streamerService.resolveVideo(identifier)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Video not found"));
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || range.startsWith("bytes=0-")) {
+            // A playback start; seeks within the video are not counted
+            accessTracker.recordPlayback(identifier);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        rangeResponseWriter.write(request, response, video.getBlobKey(), video.video());
+    }
+
+    /**
+     * Serves the HLS playlists, DASH manifest, init segment and media segments of an upload.
+     * Players start from {@code master.m3u8} or {@code manifest.mpd}; every URI inside them is
+     * relative to this path.
+     */
+    @GetMapping("/{identifier}/segments/{name}")
+    public void streamSegment(
+            @PathVariable String identifier,
+            @PathVariable String name,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        StreamableUpload upload = streamerService.resolveSegment(identifier, name)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Segment not found"));
+        boolean manifest = name.endsWith(".m3u8") || name.endsWith(".mpd");
+        if (SegmentLayout.HLS_MASTER_PLAYLIST.equals(name) || SegmentLayout.DASH_MANIFEST.equals(name)) {
+            accessTracker.recordPlayback(identifier);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, manifest ? MANIFEST_CACHE_CONTROL : IMMUTABLE_CACHE_CONTROL);
+        rangeResponseWriter.write(request, response, upload.segmentKey(name),
+                MediaType.parseMediaType(SegmentLayout.contentType(name)), upload.segment(name));
+    }
+
+    @ExceptionHandler(NoSuchFileException.class)
+    public ResponseEntity<String> handleMissingBlob(NoSuchFileException ex, HttpServletResponse response) {
+        // Replaces the long-lived Cache-Control and validators set before the blob turned out to be missing
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setHeader(HttpHeaders.ETAG, null);
+        response.setHeader(HttpHeaders.LAST_MODIFIED, null);
+        return new ResponseEntity<>("Not found", HttpStatus.NOT_FOUND);
+    }
 }
@@ -0,0 +1,72 @@
+package com.streamer;
+
+import com.common.media.SegmentLayout;
+import com.streamer.cache.StreamableUpload;
+import com.streamer.cache.UploadLookupCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+public class StreamerService {
+
+    private final UploadLookupCache uploadLookupCache;
+
+    @Autowired
+    public StreamerService(UploadLookupCache uploadLookupCache) {
+        this.uploadLookupCache = uploadLookupCache;
+    }
+
+    /**
+     * Resolves an upload identifier to the blob written by the upload service.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @return The blob key and validators of the video, or empty if the upload does not exist or
+     * has been deleted.
+     */
+    public Optional<StreamableUpload> resolveVideo(String identifier) {
+        return uploadLookupCache.find(identifier);
+    }
+
+    /**
+     * Resolves one of the HLS/DASH files generated for an upload by the processing worker.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @param name       The segment or manifest file name, e.g. {@code seg-00001.m4s}.
+     * @return The upload owning the segment (see {@link StreamableUpload#segmentKey}), or empty
+     * if the name is not a generated file name or the upload does not exist. Whether the upload
+     * has actually been segmented is only known once the blob is read.
+     */
+    public Optional<StreamableUpload> resolveSegment(String identifier, String name) {
+        if (!SegmentLayout.isServableName(name)) {
+            return Optional.empty();
+        }
+        return resolveVideo(identifier);
+    }
+
+    /**
+     * Like {@link #resolveVideo}, without blocking the caller.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @return Completes with the blob key and validators of the video, or empty.
+     */
+    public CompletableFuture<Optional<StreamableUpload>> resolveVideoAsync(String identifier) {
+        return uploadLookupCache.findAsync(identifier);
+    }
+
+    /**
+     * Like {@link #resolveSegment}, without blocking the caller.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @param name       The segment or manifest file name.
+     * @return Completes with the upload owning the segment, or empty.
+     */
+    public CompletableFuture<Optional<StreamableUpload>> resolveSegmentAsync(String identifier, String name) {
+        if (!SegmentLayout.isServableName(name)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return resolveVideoAsync(identifier);
+    }
+}
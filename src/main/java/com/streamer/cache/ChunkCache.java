@@ -0,0 +1,390 @@
+package com.streamer.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared cache of fixed-size file chunks held in direct (off-heap) buffers.
+ * <p>
+ * The cache owns a bounded pool of chunk-sized slots that are allocated once and recycled, so
+ * the byte budget is exact and eviction never waits on the garbage collector to free native
+ * memory. Entries are kept in LRU order; a chunk is only admitted on its second miss within the
+ * recent-miss window, which keeps one-off reads of cold videos from flushing the hot set.
+ * Readers pin the chunk they are writing out so its slot cannot be recycled underneath them.
+ * <p>
+ * {@link ReadaheadPrefetcher} loads chunks ahead of sequential readers through
+ * {@link #prefetch}; those skip the admission check, since a reader moving forward through the
+ * file is about to ask for them. A prefetch only takes a free slot or the slot of an older
+ * prefetched chunk nobody has read yet, never an admitted chunk's, so read-ahead cannot flush the
+ * hot set. A prefetched chunk counts as admitted once it is read.
+ */
+@Component
+public class ChunkCache {
+
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int maxSlots;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<ChunkKey, Chunk> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<ChunkKey, Boolean> recentMisses = new LinkedHashMap<>();
+    private final ArrayDeque<ByteBuffer> freeSlots = new ArrayDeque<>();
+    private int allocatedSlots;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder prefetches = new LongAdder();
+
+    public ChunkCache(@Value("${streamer.cache.enabled:true}") boolean enabled,
+                      @Value("${streamer.cache.chunk-size:1048576}") int chunkSize,
+                      @Value("${streamer.cache.max-bytes:268435456}") long maxBytes) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("streamer.cache.chunk-size must be positive");
+        }
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.maxSlots = (int) Math.min(Integer.MAX_VALUE, maxBytes / chunkSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled && maxSlots > 0;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the cached chunk, loading it from the channel if it has earned admission.
+     * A non-null result is pinned and must be handed back through {@link #release(Chunk)}.
+     *
+     * @param file       The file the chunk belongs to; used as part of the cache key.
+     * @param channel    An open channel on the file, used to load the chunk on admission.
+     * @param fileLength The current length of the file.
+     * @param chunkIndex The zero-based index of the chunk.
+     * @return The pinned chunk, or null if the caller should read the bytes from disk itself.
+     * @throws IOException If loading the chunk fails.
+     */
+    public Chunk acquire(Path file, FileChannel channel, long fileLength, long chunkIndex) throws IOException {
+        ChunkKey key = new ChunkKey(file.toString(), fileLength, chunkIndex);
+        ByteBuffer slot;
+        lock.lock();
+        try {
+            Chunk cached = entries.get(key);
+            if (cached != null) {
+                cached.pins++;
+                cached.prefetched = false;
+                hits.increment();
+                return cached;
+            }
+            misses.increment();
+            if (recentMisses.remove(key) == null) {
+                recentMisses.put(key, Boolean.TRUE);
+                trimRecentMisses();
+                return null;
+            }
+            slot = takeSlot(false);
+            if (slot == null) {
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Chunk loaded;
+        try {
+            loaded = load(key, slot, channel, fileLength);
+        } catch (IOException | RuntimeException ex) {
+            returnSlot(slot);
+            throw ex;
+        }
+
+        lock.lock();
+        try {
+            Chunk raced = entries.get(key);
+            if (raced != null) {
+                // Another reader loaded the same chunk first; keep theirs
+                freeSlots.push(slot);
+                raced.pins++;
+                raced.prefetched = false;
+                return raced;
+            }
+            entries.put(key, loaded);
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks, without pinning anything or counting hits and misses, whether every chunk covering
+     * a byte range is cached. Lets callers hand uncached ranges to sendfile instead.
+     *
+     * @param file       The file the range belongs to.
+     * @param fileLength The current length of the file.
+     * @param position   The first byte of the range.
+     * @param count      The number of bytes in the range.
+     * @return true if all of the range can be served from the cache.
+     */
+    public boolean isCached(Path file, long fileLength, long position, long count) {
+        if (!isEnabled() || count <= 0) {
+            return false;
+        }
+        String name = file.toString();
+        lock.lock();
+        try {
+            for (long index = position / chunkSize; index <= (position + count - 1) / chunkSize; index++) {
+                if (!entries.containsKey(new ChunkKey(name, fileLength, index))) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads a chunk into the cache ahead of demand, unless it is already cached. Only uses a free
+     * slot or recycles the least recently used prefetched chunk that has not been read; never
+     * evicts an admitted or pinned chunk and never waits for one to be released.
+     *
+     * @param file       The file the chunk belongs to.
+     * @param channel    An open channel on the file.
+     * @param fileLength The current length of the file.
+     * @param chunkIndex The zero-based index of the chunk.
+     * @return true if the chunk was read into the cache, false if it was cached already or no slot could be had.
+     * @throws IOException If reading the chunk fails.
+     */
+    public boolean prefetch(Path file, FileChannel channel, long fileLength, long chunkIndex) throws IOException {
+        ChunkKey key = new ChunkKey(file.toString(), fileLength, chunkIndex);
+        ByteBuffer slot;
+        lock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                return false;
+            }
+            slot = takeSlot(true);
+            if (slot == null) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Chunk loaded;
+        try {
+            loaded = load(key, slot, channel, fileLength);
+        } catch (IOException | RuntimeException ex) {
+            returnSlot(slot);
+            throw ex;
+        }
+        loaded.pins = 0;
+        loaded.prefetched = true;
+
+        lock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                freeSlots.push(slot);
+                return false;
+            }
+            entries.put(key, loaded);
+            recentMisses.remove(key);
+            prefetches.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Unpins a chunk returned by {@link #acquire}.
+     *
+     * @param chunk The chunk to release.
+     */
+    public void release(Chunk chunk) {
+        lock.lock();
+        try {
+            chunk.pins--;
+            if (chunk.pins == 0 && chunk.evicted) {
+                freeSlots.push(chunk.buffer);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every cached chunk of the given file, e.g. after it was moved or deleted.
+     *
+     * @param file The file whose chunks should be dropped.
+     */
+    public void invalidate(Path file) {
+        String name = file.toString();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<ChunkKey, Chunk>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Chunk chunk = it.next().getValue();
+                if (chunk.key.file.equals(name)) {
+                    it.remove();
+                    discard(chunk);
+                }
+            }
+            recentMisses.keySet().removeIf(key -> key.file.equals(name));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ChunkCacheStats stats() {
+        lock.lock();
+        try {
+            return new ChunkCacheStats(hits.sum(), misses.sum(), evictions.sum(), prefetches.sum(), entries.size(),
+                    (long) entries.size() * chunkSize, (long) maxSlots * chunkSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Chunk load(ChunkKey key, ByteBuffer slot, FileChannel channel, long fileLength) throws IOException {
+        long offset = key.chunkIndex * chunkSize;
+        int length = (int) Math.min(chunkSize, fileLength - offset);
+        slot.clear().limit(Math.max(length, 0));
+        while (slot.hasRemaining()) {
+            if (channel.read(slot, offset + slot.position()) < 0) {
+                break;
+            }
+        }
+        slot.flip();
+        return new Chunk(key, slot, slot.limit());
+    }
+
+    /**
+     * Must be called with the lock held.
+     *
+     * @param forPrefetch Only evict prefetched chunks that have not been read.
+     */
+    private ByteBuffer takeSlot(boolean forPrefetch) {
+        ByteBuffer free = freeSlots.poll();
+        if (free != null) {
+            return free;
+        }
+        if (allocatedSlots < maxSlots) {
+            allocatedSlots++;
+            return ByteBuffer.allocateDirect(chunkSize);
+        }
+        Iterator<Chunk> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Chunk eldest = it.next();
+            if (eldest.pins == 0 && (eldest.prefetched || !forPrefetch)) {
+                it.remove();
+                evictions.increment();
+                return eldest.buffer;
+            }
+        }
+        return null;
+    }
+
+    private void returnSlot(ByteBuffer slot) {
+        lock.lock();
+        try {
+            freeSlots.push(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Must be called with the lock held. */
+    private void discard(Chunk chunk) {
+        evictions.increment();
+        if (chunk.pins == 0) {
+            freeSlots.push(chunk.buffer);
+        } else {
+            chunk.evicted = true;
+        }
+    }
+
+    /** Must be called with the lock held. */
+    private void trimRecentMisses() {
+        Iterator<ChunkKey> it = recentMisses.keySet().iterator();
+        while (recentMisses.size() > Math.max(maxSlots, 1) * 2 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * A cached chunk. The backing buffer is shared, so callers only ever see read-only views.
+     */
+    public static final class Chunk {
+        private final ChunkKey key;
+        private final ByteBuffer buffer;
+        private final int length;
+        private int pins = 1;
+        private boolean evicted;
+        /** Loaded by a prefetch and not read since. */
+        private boolean prefetched;
+
+        private Chunk(ChunkKey key, ByteBuffer buffer, int length) {
+            this.key = key;
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Returns a read-only view of part of the chunk.
+         *
+         * @param offset Offset within the chunk.
+         * @param count  Number of bytes.
+         * @return A buffer positioned at the first byte and limited to the last.
+         */
+        public ByteBuffer slice(int offset, int count) {
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+            view.limit(offset + count).position(offset);
+            return view;
+        }
+    }
+
+    private static final class ChunkKey {
+        private final String file;
+        private final long fileLength;
+        private final long chunkIndex;
+
+        private ChunkKey(String file, long fileLength, long chunkIndex) {
+            this.file = file;
+            this.fileLength = fileLength;
+            this.chunkIndex = chunkIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChunkKey)) return false;
+            ChunkKey other = (ChunkKey) o;
+            return fileLength == other.fileLength && chunkIndex == other.chunkIndex && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, fileLength, chunkIndex);
+        }
+    }
+}
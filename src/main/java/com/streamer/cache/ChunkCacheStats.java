@@ -0,0 +1,43 @@
+package com.streamer.cache;
+
+public class ChunkCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long prefetches;
+    private final int cachedChunks;
+    private final long cachedBytes;
+    private final long capacityBytes;
+
+    public ChunkCacheStats(long hits, long misses, long evictions, long prefetches, int cachedChunks,
+                           long cachedBytes, long capacityBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.prefetches = prefetches;
+        this.cachedChunks = cachedChunks;
+        this.cachedBytes = cachedBytes;
+        this.capacityBytes = capacityBytes;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getPrefetches() { return prefetches; }
+    public int getCachedChunks() { return cachedChunks; }
+    public long getCachedBytes() { return cachedBytes; }
+    public long getCapacityBytes() { return capacityBytes; }
+
+    @Override
+    public String toString() {
+        return "ChunkCacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", prefetches=" + prefetches +
+                ", cachedChunks=" + cachedChunks +
+                ", cachedBytes=" + cachedBytes +
+                ", capacityBytes=" + capacityBytes +
+                '}';
+    }
+}
@@ -0,0 +1,206 @@
+package com.streamer.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads ahead of viewers that move forward through a video in consecutive range requests, so
+ * the next request finds its bytes in memory instead of paying a cold read.
+ * <p>
+ * Each viewer of a file (client address and user agent) has a small read state. A range that
+ * starts where the previous one ended, give or take a chunk, extends a sequential run; after
+ * {@code streamer.prefetch.trigger} such ranges the chunks following the current range are
+ * loaded in the background. The window starts at one chunk and doubles with every further
+ * sequential range up to {@code streamer.prefetch.max-window-chunks}, like the kernel's
+ * readahead. A range anywhere else is a seek: it ends the run and stops the viewer's pending
+ * prefetch before its next chunk.
+ * <p>
+ * All prefetching shares one I/O budget: a fixed pool of {@code streamer.prefetch.threads}
+ * readers with a bounded queue. When the budget is spent, prefetches are dropped rather than
+ * queued, since a late prefetch is worthless. Chunks go into the {@link ChunkCache}; with the
+ * cache disabled, or without room that does not cost an admitted chunk, they are read and
+ * discarded, which still leaves them in the page cache for sendfile.
+ */
+@Component
+public class ReadaheadPrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadaheadPrefetcher.class);
+
+    private final ChunkCache chunkCache;
+    private final boolean enabled;
+    private final int trigger;
+    private final int maxWindowChunks;
+    private final long chunkSize;
+    private final Executor executor;
+    private final Cache<String, ReadState> readers;
+    private final ThreadLocal<ByteBuffer> scratch;
+
+    @Autowired
+    public ReadaheadPrefetcher(ChunkCache chunkCache,
+                               @Value("${streamer.prefetch.enabled:true}") boolean enabled,
+                               @Value("${streamer.prefetch.trigger:2}") int trigger,
+                               @Value("${streamer.prefetch.max-window-chunks:8}") int maxWindowChunks,
+                               @Value("${streamer.prefetch.threads:4}") int threads,
+                               @Value("${streamer.prefetch.queue-capacity:64}") int queueCapacity) {
+        this(chunkCache, enabled && threads > 0, trigger, maxWindowChunks, pool(threads, queueCapacity));
+    }
+
+    ReadaheadPrefetcher(ChunkCache chunkCache, boolean enabled, int trigger, int maxWindowChunks, Executor executor) {
+        this.chunkCache = chunkCache;
+        this.enabled = enabled && maxWindowChunks > 0;
+        this.trigger = Math.max(1, trigger);
+        this.maxWindowChunks = Math.max(1, maxWindowChunks);
+        this.chunkSize = chunkCache.getChunkSize();
+        this.executor = executor;
+        this.readers = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(1, TimeUnit.MINUTES)
+                .build();
+        this.scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect((int) chunkSize));
+    }
+
+    /** The shared prefetch I/O budget: a fixed pool that refuses work once its queue is full. */
+    private static ThreadPoolExecutor pool(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "prefetch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a range about to be served and, if it continues a sequential run, schedules the
+     * chunks after it. Returns at once; the reads happen on the prefetch pool.
+     *
+     * @param reader     Identifies the viewer, e.g. client address and user agent.
+     * @param file       The file being served.
+     * @param fileLength The length of the file.
+     * @param start      The first byte of the range.
+     * @param count      The length of the range.
+     */
+    public void onRange(String reader, Path file, long fileLength, long start, long count) {
+        if (!enabled) {
+            return;
+        }
+        long end = start + count;
+        ReadState state = readers.get(reader + '|' + file, key -> new ReadState());
+        long from;
+        long to;
+        int generation;
+        synchronized (state) {
+            boolean sequential = state.nextOffset >= 0
+                    && start >= state.nextOffset - chunkSize && start <= state.nextOffset + chunkSize;
+            if (sequential) {
+                state.run++;
+            } else {
+                // A seek: whatever is still queued for the old position is no longer wanted
+                state.run = 0;
+                state.generation++;
+                state.prefetchedTo = end;
+            }
+            state.nextOffset = end;
+            if (state.run < trigger) {
+                return;
+            }
+            int window = (int) Math.min(maxWindowChunks, 1L << Math.min(30, state.run - trigger));
+            from = Math.max(state.prefetchedTo, end);
+            to = Math.min(fileLength, end + window * chunkSize);
+            if (from >= to) {
+                return;
+            }
+            state.prefetchedTo = to;
+            generation = state.generation;
+        }
+
+        try {
+            executor.execute(() -> prefetch(state, generation, file, fileLength, from, to));
+        } catch (RejectedExecutionException ex) {
+            // Over budget; the next range of the run asks again
+            synchronized (state) {
+                if (state.generation == generation) {
+                    state.prefetchedTo = Math.min(state.prefetchedTo, from);
+                }
+            }
+        }
+    }
+
+    private void prefetch(ReadState state, int generation, Path file, long fileLength, long from, long to) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long chunkIndex = from / chunkSize; chunkIndex * chunkSize < to; chunkIndex++) {
+                synchronized (state) {
+                    if (state.generation != generation) {
+                        return;
+                    }
+                }
+                long position = chunkIndex * chunkSize;
+                long count = Math.min(chunkSize, fileLength - position);
+                if (!chunkCache.isEnabled()) {
+                    readThrough(channel, position, count);
+                } else if (!chunkCache.prefetch(file, channel, fileLength, chunkIndex)
+                        && !chunkCache.isCached(file, fileLength, position, count)) {
+                    // No room without evicting an admitted chunk; the page cache still helps sendfile
+                    readThrough(channel, position, count);
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            // Moved to another tier or deleted since the range was served
+        } catch (IOException | RuntimeException ex) {
+            logger.debug("Prefetch of {} failed: {}", file, ex.getMessage());
+        }
+    }
+
+    /** Reads a region into a scratch buffer so it lands in the page cache. */
+    private void readThrough(FileChannel channel, long position, long count) throws IOException {
+        ByteBuffer buffer = scratch.get();
+        buffer.clear().limit((int) count);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    /** Where one viewer is in one file. Guarded by its own monitor; never held across I/O. */
+    private static final class ReadState {
+        private long nextOffset = -1;
+        private int run;
+        private long prefetchedTo;
+        private int generation;
+    }
+}
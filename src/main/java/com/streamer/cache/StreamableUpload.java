@@ -0,0 +1,68 @@
+package com.streamer.cache;
+
+import com.common.media.SegmentLayout;
+import com.common.models.uploads.Uploads;
+import com.streamer.components.ContentMetadata;
+
+import java.time.ZoneId;
+
+/**
+ * The parts of a live upload the streamer needs to serve it: where the video is stored and the
+ * validators and length recorded when the upload completed, so conditional requests can be
+ * answered without touching the blob.
+ */
+public final class StreamableUpload {
+
+    private final String blobKey;
+    private final String etag;
+    private final long lastModified;
+    private final long contentLength;
+
+    public StreamableUpload(String blobKey, String etag, long lastModified, long contentLength) {
+        this.blobKey = blobKey;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * @param upload A live upload row.
+     * @return Its streamable view. Rows from before ETags were stored fall back to the content
+     * hash, which is the same value.
+     */
+    public static StreamableUpload of(Uploads upload) {
+        String etag = upload.getEtag();
+        if (etag == null && upload.getContentHash() != null) {
+            etag = "\"" + upload.getContentHash() + "\"";
+        }
+        // The blob is written before the row, and never rewritten
+        long lastModified = upload.getCreatedAt() == null ? -1
+                : upload.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long contentLength = upload.getContentLength() == null ? -1 : upload.getContentLength();
+        return new StreamableUpload(upload.getDataPathLink(), etag, lastModified, contentLength);
+    }
+
+    public String getBlobKey() { return blobKey; }
+
+    /** @return The validators and length of the video itself. */
+    public ContentMetadata video() {
+        return new ContentMetadata(etag, lastModified, contentLength);
+    }
+
+    /**
+     * Segments are written once per stored video, so the video's tag qualified by the file name
+     * identifies their content as strongly as the video's own tag.
+     *
+     * @param name A servable segment or manifest name.
+     * @return The validators of that file; its length is not recorded.
+     */
+    public ContentMetadata segment(String name) {
+        String segmentEtag = etag == null ? null : etag.substring(0, etag.length() - 1) + ":" + name + "\"";
+        return new ContentMetadata(segmentEtag, lastModified, -1);
+    }
+
+    /** @return The blob key of one of the video's segments or manifests. */
+    public String segmentKey(String name) {
+        return SegmentLayout.segmentKey(blobKey, name);
+    }
+}
@@ -0,0 +1,53 @@
+package com.streamer.cache;
+
+import com.common.kafka.BroadcastGroups;
+import com.common.kafka.EventCodec;
+import com.common.kafka.KafkaTopics;
+import com.common.kafka.events.UploadChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Drops cached upload lookups when any service changes an upload row. Every streamer node uses
+ * its own consumer group ({@link BroadcastGroups}) so each of them sees every event. A node's
+ * first start begins at the latest offset: a node that just started has nothing cached that older
+ * events could invalidate. Later starts resume where the node stopped, and the events missed while
+ * it was down only invalidate entries that are not there.
+ */
+@Component
+public class UploadChangedListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadChangedListener.class);
+
+    private final UploadLookupCache uploadLookupCache;
+    private final EventCodec eventCodec;
+
+    @Autowired
+    public UploadChangedListener(UploadLookupCache uploadLookupCache, EventCodec eventCodec) {
+        this.uploadLookupCache = uploadLookupCache;
+        this.eventCodec = eventCodec;
+    }
+
+    @KafkaListener(topics = KafkaTopics.UPLOAD_CHANGED,
+            groupId = "#{T(com.common.kafka.BroadcastGroups).forNode('${streamer.lookup-cache.group-prefix:streamer-lookup}', '${kafka.node-id:}')}",
+            properties = "auto.offset.reset=latest")
+    public void onUploadChanged(byte[] message) {
+        UploadChangedEvent event;
+        try {
+            event = eventCodec.decode(message, UploadChangedEvent.class);
+        } catch (IOException ex) {
+            // Cannot tell which entry is stale, so drop them all
+            logger.warn("Malformed upload-changed event, clearing the lookup cache: {}", ex.getMessage());
+            uploadLookupCache.invalidateAll();
+            return;
+        }
+        if (event.getIdentifier() != null) {
+            uploadLookupCache.invalidate(event.getIdentifier());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.streamer.cache;
+
+import com.common.models.uploads.UploadRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through near-cache from upload identifier to blob key, ETag and length, so serving a
+ * stream (and every seek or revalidation of it) does not cost a database round-trip.
+ * <p>
+ * Unknown and deleted identifiers are cached as empty results as well, so probing for missing
+ * videos cannot exhaust the connection pool either. Entries are dropped as soon as an
+ * upload-changed event for the identifier arrives; the TTLs only bound staleness if an event is
+ * lost. Negative entries get a shorter TTL because a newly created upload must become visible.
+ * <p>
+ * The cache holds futures, so concurrent misses for one identifier still share a single query
+ * but the query never runs inside the cache's map lock. With virtual threads that lock is a
+ * monitor, and holding it across a JDBC call would pin the carrier thread; loads therefore run
+ * on their own virtual threads and callers park on the future. With platform threads loads run
+ * on the calling thread as before.
+ * <p>
+ * {@link #findAsync} never blocks its caller: misses are loaded on virtual threads whatever the
+ * thread model, for the reactive streamer's event loops.
+ */
+@Component
+public class UploadLookupCache {
+
+    private final UploadRepository uploadRepository;
+    private final AsyncLoadingCache<String, Optional<StreamableUpload>> uploads;
+    private final Executor asyncLoadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public UploadLookupCache(UploadRepository uploadRepository,
+                             @Value("${streamer.lookup-cache.max-size:100000}") long maxSize,
+                             @Value("${streamer.lookup-cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${streamer.lookup-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.uploadRepository = uploadRepository;
+        Executor loadExecutor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Runnable::run;
+        this.uploads = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new LookupExpiry(TimeUnit.SECONDS.toNanos(ttlSeconds),
+                        TimeUnit.SECONDS.toNanos(negativeTtlSeconds)))
+                .executor(loadExecutor)
+                .buildAsync(this::load);
+    }
+
+    /**
+     * Looks up the blob key of a live upload.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @return The upload's dataPathLink, or empty if the upload does not exist or has been deleted.
+     */
+    public Optional<String> findBlobKey(String identifier) {
+        return find(identifier).map(StreamableUpload::getBlobKey);
+    }
+
+    /**
+     * Looks up a live upload.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @return The upload's blob key and validators, or empty if the upload does not exist or has
+     * been deleted.
+     */
+    public Optional<StreamableUpload> find(String identifier) {
+        try {
+            return uploads.get(identifier).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Looks up a live upload without blocking: a cached result completes the future at once,
+     * a miss is loaded on a virtual thread. Concurrent callers share one load either way.
+     *
+     * @param identifier The unique string identifier of the upload.
+     * @return The upload's blob key and validators, or empty if the upload does not exist or has
+     * been deleted.
+     */
+    public CompletableFuture<Optional<StreamableUpload>> findAsync(String identifier) {
+        return uploads.get(identifier, (key, executor) ->
+                CompletableFuture.supplyAsync(() -> load(key), asyncLoadExecutor));
+    }
+
+    /**
+     * Drops the cached lookup for an upload. A load already in flight for the identifier is
+     * detached from the cache, so it cannot reinstate a stale value.
+     *
+     * @param identifier The unique string identifier of the upload.
+     */
+    public void invalidate(String identifier) {
+        uploads.synchronous().invalidate(identifier);
+    }
+
+    /** Drops every cached lookup. */
+    public void invalidateAll() {
+        uploads.synchronous().invalidateAll();
+    }
+
+    private Optional<StreamableUpload> load(String identifier) {
+        return uploadRepository.findByIdentifier(identifier)
+                .filter(upload -> !Boolean.TRUE.equals(upload.getIsDeleted()))
+                .map(StreamableUpload::of);
+    }
+
+    private static final class LookupExpiry implements Expiry<String, Optional<StreamableUpload>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        LookupExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String identifier, Optional<StreamableUpload> upload, long currentTime) {
+            return upload.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String identifier, Optional<StreamableUpload> upload, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(identifier, upload, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String identifier, Optional<StreamableUpload> upload, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.streamer.components;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Paces video and segment response bodies through the {@link BandwidthScheduler} when a limit
+ * is configured. Requests share the allowance of their viewer, identified by its client address
+ * alone (see {@link ClientAddresses}): headers the client chooses freely, like the user agent,
+ * would let it open a fresh allowance per request. The kernel cannot be paced, so sendfile is
+ * hidden from the handler and paced responses are written through the response stream instead.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BandwidthFilter extends OncePerRequestFilter {
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private final BandwidthScheduler bandwidthScheduler;
+    private final ClientAddresses clientAddresses;
+
+    @Autowired
+    public BandwidthFilter(BandwidthScheduler bandwidthScheduler, ClientAddresses clientAddresses) {
+        this.bandwidthScheduler = bandwidthScheduler;
+        this.clientAddresses = clientAddresses;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !bandwidthScheduler.isEnabled() || StreamMetricsFilter.kind(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (BandwidthScheduler.Allowance allowance = bandwidthScheduler.open(clientAddresses.clientAddress(request))) {
+            filterChain.doFilter(new HttpServletRequestWrapper(request) {
+                @Override
+                public Object getAttribute(String name) {
+                    return SENDFILE_SUPPORT_ATTR.equals(name) ? Boolean.FALSE : super.getAttribute(name);
+                }
+            }, new PacedResponse(response, allowance));
+        }
+    }
+
+    /** Charges every body write to the stream's allowance before passing it on. */
+    private static final class PacedResponse extends HttpServletResponseWrapper {
+
+        private final BandwidthScheduler.Allowance allowance;
+        private ServletOutputStream outputStream;
+
+        PacedResponse(HttpServletResponse response, BandwidthScheduler.Allowance allowance) {
+            super(response);
+            this.allowance = allowance;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        allowance.acquire(1);
+                        delegate.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        while (len > 0) {
+                            int piece = Math.min(len, BandwidthScheduler.MAX_PIECE);
+                            allowance.acquire(piece);
+                            delegate.write(b, off, piece);
+                            off += piece;
+                            len -= piece;
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
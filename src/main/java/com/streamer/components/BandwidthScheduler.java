@@ -0,0 +1,215 @@
+package com.streamer.components;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket pacing of stream responses, so one client on a fast link cannot take the node's
+ * whole egress or disk bandwidth.
+ * <p>
+ * Every viewer has one bucket, shared by all of its range and segment requests and kept until it
+ * has had no request for {@code streamer.bandwidth.viewer-idle-ms}. Its refill rate is the node
+ * budget ({@code streamer.bandwidth.node-bytes-per-second}) divided by the number of viewers,
+ * capped by {@code streamer.bandwidth.stream-bytes-per-second}; either limit may be 0 for none.
+ * The share is recomputed on every write, so viewers speed up as others leave. A new viewer's
+ * bucket starts with {@code streamer.bandwidth.initial-burst-bytes}, so the first frames (or a
+ * whole short segment) go out at full speed, and afterwards holds at most a tenth of a second of
+ * its rate.
+ * <p>
+ * Every write is also charged to a node bucket filling at the node budget, so bursts of viewers
+ * arriving together come out of the node budget instead of adding to it.
+ * <p>
+ * Streams wait by sleeping on their own request thread, which is cheap with virtual threads;
+ * with platform threads a paced stream holds its Tomcat thread for longer.
+ */
+@Component
+public class BandwidthScheduler {
+
+    /** Largest write charged at once, so a bucket never has to hold more than this to make progress. */
+    static final int MAX_PIECE = 64 * 1024;
+
+    private final long nodeBytesPerSecond;
+    private final long streamBytesPerSecond;
+    private final long initialBurstBytes;
+    private final long viewerIdleNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, Bucket> viewers = new ConcurrentHashMap<>();
+    private final Bucket node;
+
+    @Autowired
+    public BandwidthScheduler(MeterRegistry meterRegistry,
+                              @Value("${streamer.bandwidth.node-bytes-per-second:0}") long nodeBytesPerSecond,
+                              @Value("${streamer.bandwidth.stream-bytes-per-second:0}") long streamBytesPerSecond,
+                              @Value("${streamer.bandwidth.initial-burst-bytes:4194304}") long initialBurstBytes,
+                              @Value("${streamer.bandwidth.viewer-idle-ms:30000}") long viewerIdleMs) {
+        this(meterRegistry, nodeBytesPerSecond, streamBytesPerSecond, initialBurstBytes, viewerIdleMs, System::nanoTime);
+    }
+
+    BandwidthScheduler(MeterRegistry meterRegistry, long nodeBytesPerSecond, long streamBytesPerSecond,
+                       long initialBurstBytes, long viewerIdleMs, LongSupplier nanoTime) {
+        this.nodeBytesPerSecond = Math.max(0, nodeBytesPerSecond);
+        this.streamBytesPerSecond = Math.max(0, streamBytesPerSecond);
+        this.initialBurstBytes = Math.max(0, initialBurstBytes);
+        this.viewerIdleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, viewerIdleMs));
+        this.nanoTime = nanoTime;
+        this.node = new Bucket(capacity(this.nodeBytesPerSecond), nanoTime.getAsLong());
+        Gauge.builder("streamer.bandwidth.streams", viewers, Map::size)
+                .description("Viewers currently sharing the bandwidth budget")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return nodeBytesPerSecond > 0 || streamBytesPerSecond > 0;
+    }
+
+    /**
+     * Opens the budget of one stream response, drawing on its viewer's bucket. The viewer counts
+     * towards the fair share until its last response is closed and it has then been idle for
+     * {@code streamer.bandwidth.viewer-idle-ms}.
+     *
+     * @param viewer Identifies the viewer, e.g. its client address.
+     * @return The response's allowance; must be closed when the response is complete.
+     */
+    public Allowance open(String viewer) {
+        Bucket bucket = viewers.compute(viewer, (key, existing) -> {
+            Bucket opened = existing != null ? existing : new Bucket(initialBurstBytes, nanoTime.getAsLong());
+            opened.inFlight++;
+            return opened;
+        });
+        return new Allowance(viewer, bucket);
+    }
+
+    /** Forgets viewers that have had no open response for the idle time, giving their share back. */
+    @Scheduled(fixedDelayString = "${streamer.bandwidth.viewer-idle-ms:30000}")
+    public void evictIdleViewers() {
+        long now = nanoTime.getAsLong();
+        for (String viewer : viewers.keySet()) {
+            viewers.computeIfPresent(viewer, (key, bucket) ->
+                    bucket.inFlight == 0 && now - bucket.idleSince >= viewerIdleNanos ? null : bucket);
+        }
+    }
+
+    /** @return The current refill rate of every viewer's bucket, in bytes per second. */
+    long streamRate() {
+        long share = nodeBytesPerSecond > 0 ? nodeBytesPerSecond / Math.max(1, viewers.size()) : Long.MAX_VALUE;
+        long cap = streamBytesPerSecond > 0 ? streamBytesPerSecond : Long.MAX_VALUE;
+        return Math.max(1, Math.min(share, cap));
+    }
+
+    /** @return The most a bucket filling at the given rate holds once its initial burst is spent. */
+    static double capacity(long rate) {
+        return Math.max(MAX_PIECE, rate / 10.0);
+    }
+
+    /**
+     * Tokens of one viewer, or of the whole node. Guarded by its own monitor; a viewer's bucket is
+     * always locked before the node's. The in-flight count and idle time are guarded by the
+     * viewers map instead.
+     */
+    private static final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+        private int inFlight;
+        private long idleSince;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        /** Adds what the rate has earned since the last refill, without topping up past the capacity. */
+        void refill(long rate, long now) {
+            double earned = (now - refilledAt) * (rate / 1e9);
+            refilledAt = now;
+            // Refills never top up past the capacity, but the initial burst is not cut down to it
+            tokens = Math.max(tokens, Math.min(capacity(rate), tokens + earned));
+        }
+
+        /** @return How long until the bucket holds the given tokens at the given rate, in nanoseconds. */
+        static long waitNanos(double missing, long rate) {
+            return Math.max((long) (missing * 1e9 / rate), TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /** The budget of one stream response. Used by the response's request thread only. */
+    public final class Allowance implements AutoCloseable {
+
+        private final String viewer;
+        private final Bucket bucket;
+        private boolean closed;
+
+        private Allowance(String viewer, Bucket bucket) {
+            this.viewer = viewer;
+            this.bucket = bucket;
+        }
+
+        /**
+         * Blocks until the stream may send the given number of bytes.
+         *
+         * @param bytes At most {@link #MAX_PIECE} bytes.
+         * @throws InterruptedIOException If the thread is interrupted while waiting.
+         */
+        public void acquire(int bytes) throws InterruptedIOException {
+            long waitNanos;
+            while ((waitNanos = tryAcquire(bytes)) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while pacing a stream");
+                }
+            }
+        }
+
+        /**
+         * Takes the given number of bytes from the viewer's bucket and the node's if both hold
+         * enough, otherwise takes nothing.
+         *
+         * @return 0 if the bytes were taken, otherwise how long to wait before trying again, in nanoseconds.
+         */
+        long tryAcquire(int bytes) {
+            long now = nanoTime.getAsLong();
+            long rate = streamRate();
+            synchronized (bucket) {
+                bucket.refill(rate, now);
+                if (bucket.tokens < bytes) {
+                    return Bucket.waitNanos(bytes - bucket.tokens, rate);
+                }
+                if (nodeBytesPerSecond > 0) {
+                    synchronized (node) {
+                        node.refill(nodeBytesPerSecond, now);
+                        if (node.tokens < bytes) {
+                            return Bucket.waitNanos(bytes - node.tokens, nodeBytesPerSecond);
+                        }
+                        node.tokens -= bytes;
+                    }
+                }
+                bucket.tokens -= bytes;
+                return 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                viewers.computeIfPresent(viewer, (key, existing) -> {
+                    existing.inFlight--;
+                    existing.idleSince = nanoTime.getAsLong();
+                    return existing;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.streamer.components;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/** Range, If-Range and precondition handling shared by the servlet and reactive range writers. */
+final class ByteRanges {
+
+    private static final String CRLF = "\r\n";
+
+    /** Headers that can turn a response into 304 or 412 from the validators alone. */
+    private static final List<String> PRECONDITIONS = List.of(HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_UNMODIFIED_SINCE);
+
+    private ByteRanges() {
+    }
+
+    /**
+     * Parses the Range header into inclusive [start, end] pairs. Ranges that start at or past
+     * the end of the file are dropped.
+     *
+     * @return The ranges to serve; an empty list, to be answered with 416, when no range is
+     * satisfiable or the ranges ask for more bytes than the file holds; or null when the header
+     * cannot be parsed or uses another unit, in which case it must be ignored (RFC 9110 §14.2).
+     */
+    static List<long[]> resolve(String rangeHeader, long length) {
+        List<long[]> resolved = new ArrayList<>();
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            long total = 0;
+            for (HttpRange range : ranges) {
+                // HttpRange returns the first position unchecked, so bytes=20-30 of 10 bytes gives 20-9
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                if (start >= length || end < start) {
+                    continue;
+                }
+                total += end - start + 1;
+                resolved.add(new long[]{start, end});
+            }
+            // Overlapping ranges must not let a client amplify a small file into a huge response
+            if (resolved.size() > 1 && total > length) {
+                return List.of();
+            }
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        return resolved;
+    }
+
+    /**
+     * A Range request with If-Range asks for the ranges only if the client's copy is still
+     * current, and for the whole representation otherwise. Entity tags are compared strongly;
+     * a date must equal Last-Modified.
+     *
+     * @param ifRange     The If-Range header, or null.
+     * @param ifRangeDate Parses the header as a date; may throw IllegalArgumentException.
+     * @param metadata    What is known about the blob.
+     * @return true if the ranges should be served.
+     */
+    static boolean ifRangeMatches(String ifRange, LongSupplier ifRangeDate, ContentMetadata metadata) {
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return metadata.getEtag() != null && metadata.getEtag().equals(ifRange);
+        }
+        if (metadata.getLastModified() < 0) {
+            return false;
+        }
+        try {
+            return ifRangeDate.getAsLong() / 1000 == metadata.getLastModified() / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Decides whether a conditional request must confirm that the blob exists before it is
+     * answered from the validators. Validators without a length were not taken from the blob
+     * itself (a segment's come from its video), so a 304 based on them could hide a 404.
+     *
+     * @param metadata What is known about the blob.
+     * @param header   Looks up a request header by name.
+     * @return true if the blob's existence should be checked first.
+     */
+    static boolean needsExistenceCheck(ContentMetadata metadata, Function<String, String> header) {
+        if (metadata.getLength() >= 0 || (metadata.getEtag() == null && metadata.getLastModified() < 0)) {
+            return false;
+        }
+        for (String precondition : PRECONDITIONS) {
+            if (header.apply(precondition) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return The headers that open one part of a multipart/byteranges body. */
+    static byte[] partHeader(String boundary, MediaType contentType, long start, long end, long length) {
+        return (CRLF + "--" + boundary + CRLF
+                + HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF
+                + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, length) + CRLF
+                + CRLF).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** @return The line that closes a multipart/byteranges body. */
+    static byte[] trailer(String boundary) {
+        return (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+}
@@ -0,0 +1,149 @@
+package com.streamer.components;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the address of the viewer behind a request, for pacing and read-ahead.
+ * <p>
+ * {@code X-Forwarded-For} is written by the client as much as by proxies, so it is only believed
+ * when the connection comes from one of {@code streamer.trusted-proxies} (addresses or CIDR
+ * ranges, e.g. the gateway's). The viewer is then the right-most forwarded address that is not
+ * itself a trusted proxy: every proxy appends the address it was called from, so whatever a
+ * client prepends stays to the left of it. Other requests are keyed by the connection's address.
+ */
+@Component
+public class ClientAddresses {
+
+    static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    /** Dotted IPv4 or colon-separated IPv6, which {@link InetAddress#getByName} parses without a DNS lookup. */
+    private static final Pattern IP_LITERAL = Pattern.compile(
+            "((25[0-5]|2[0-4][0-9]|1?[0-9]?[0-9])\\.){3}(25[0-5]|2[0-4][0-9]|1?[0-9]?[0-9])|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private final List<AddressRange> trustedProxies;
+
+    /**
+     * @param trustedProxies Addresses or CIDR ranges of the proxies whose X-Forwarded-For is believed.
+     * @throws IllegalArgumentException If an entry is not an IP address or range.
+     */
+    @Autowired
+    public ClientAddresses(@Value("${streamer.trusted-proxies:127.0.0.0/8,::1/128,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,fc00::/7}")
+                           List<String> trustedProxies) {
+        this.trustedProxies = new ArrayList<>();
+        for (String proxy : trustedProxies) {
+            if (!proxy.isBlank()) {
+                this.trustedProxies.add(AddressRange.parse(proxy.trim()));
+            }
+        }
+    }
+
+    /** @return The viewer's address, as a literal. */
+    public String clientAddress(HttpServletRequest request) {
+        return clientAddress(request.getRemoteAddr(), request.getHeader(X_FORWARDED_FOR));
+    }
+
+    /** @return The viewer's address, as a literal, or an empty string if the connection's is unknown. */
+    public String clientAddress(ServerHttpRequest request) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        String remoteAddress = remote == null ? ""
+                : remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+        return clientAddress(remoteAddress, request.getHeaders().getFirst(X_FORWARDED_FOR));
+    }
+
+    String clientAddress(String remoteAddress, String forwardedFor) {
+        if (forwardedFor == null || !isTrusted(parse(remoteAddress))) {
+            return remoteAddress;
+        }
+        String client = remoteAddress;
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            InetAddress hop = parse(hops[i].trim());
+            if (hop == null) {
+                // Not written by a proxy; the last address that was stands for the viewer
+                break;
+            }
+            client = hop.getHostAddress();
+            if (!isTrusted(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    private boolean isTrusted(InetAddress address) {
+        if (address == null) {
+            return false;
+        }
+        for (AddressRange range : trustedProxies) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return The address, or null if the text is not an IP literal. Never resolves host names. */
+    private static InetAddress parse(String text) {
+        if (text == null || !IP_LITERAL.matcher(text).matches()) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(text);
+        } catch (UnknownHostException ex) {
+            return null;
+        }
+    }
+
+    /** An address and the number of leading bits that must match it. */
+    private record AddressRange(byte[] network, int prefixBits) {
+
+        static AddressRange parse(String text) {
+            int slash = text.indexOf('/');
+            InetAddress address = ClientAddresses.parse(slash < 0 ? text : text.substring(0, slash));
+            if (address == null) {
+                throw new IllegalArgumentException("Not an IP address or CIDR range: " + text);
+            }
+            int maxBits = address.getAddress().length * 8;
+            int prefixBits;
+            try {
+                prefixBits = slash < 0 ? maxBits : Integer.parseInt(text.substring(slash + 1));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Not an IP address or CIDR range: " + text, ex);
+            }
+            if (prefixBits < 0 || prefixBits > maxBits) {
+                throw new IllegalArgumentException("Prefix length out of range: " + text);
+            }
+            return new AddressRange(address.getAddress(), prefixBits);
+        }
+
+        boolean contains(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            if (bytes.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixBits / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixBits % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xff << (8 - remainingBits);
+            return (bytes[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.streamer.components;
+
+/**
+ * What is known about a blob without reading it: the validators for conditional requests and
+ * its length. Values that are not known are null or -1, and the writer then falls back to
+ * asking the storage.
+ */
+public final class ContentMetadata {
+
+    public static final ContentMetadata UNKNOWN = new ContentMetadata(null, -1, -1);
+
+    private final String etag;
+    private final long lastModified;
+    private final long length;
+
+    /**
+     * @param etag         The strong entity tag, quoted, or null.
+     * @param lastModified The modification time in epoch milliseconds, or -1.
+     * @param length       The length in bytes, or -1.
+     */
+    public ContentMetadata(String etag, long lastModified, long length) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.length = length;
+    }
+
+    public String getEtag() { return etag; }
+    public long getLastModified() { return lastModified; }
+    public long getLength() { return length; }
+}
@@ -0,0 +1,371 @@
+package com.streamer.components;
+
+import com.common.storage.BlobStorage;
+import com.streamer.cache.ChunkCache;
+import com.streamer.cache.ReadaheadPrefetcher;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes whole files and HTTP byte ranges of files to a servlet response.
+ * <p>
+ * Single ranges and full responses are handed to Tomcat's sendfile support when the connector
+ * offers it, so the kernel moves the bytes straight from the page cache to the socket without
+ * them entering the JVM. Everything else (multipart/byteranges, connectors without sendfile)
+ * goes through {@link FileChannel#transferTo} into the servlet output stream, which the Servlet
+ * API only offers as a stream: those bytes are copied through the container's heap buffers.
+ * <p>
+ * When the {@link ChunkCache} is enabled, ranges that are not sent with sendfile are assembled
+ * chunk by chunk so hot chunks come out of off-heap memory instead of off the disk; chunks the
+ * cache declines are still transferred straight from the file channel. With sendfile available a
+ * single range only comes from the cache when all of it is cached already, which in practice
+ * means the read-ahead loaded it; those bytes are copied through a heap buffer, since a Servlet
+ * 6.0 output stream only accepts byte arrays, and everything else goes to sendfile.
+ * <p>
+ * Single ranges of local files are reported to the {@link ReadaheadPrefetcher}, which reads
+ * ahead of viewers playing forward through a file.
+ * <p>
+ * Blobs that are not on local disk are served with one ranged read per requested range, so a
+ * seek never fetches more than the bytes the client asked for.
+ * <p>
+ * When the caller knows the blob's {@link ContentMetadata}, the response carries its ETag and
+ * Last-Modified, and {@code If-None-Match} / {@code If-Modified-Since} are answered with 304
+ * before the blob is read. Metadata without a length (segments, whose validators come from
+ * their video) does not prove the blob exists, so those conditional requests first check that
+ * it does and get a 404 if not. {@code If-Range} that no longer matches turns a range request
+ * into a full response. A known length also saves the storage round-trip for remote blobs.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RangeResponseWriter {
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final ChunkCache chunkCache;
+    private final ReadaheadPrefetcher readaheadPrefetcher;
+    private final BlobStorage blobStorage;
+    private final ClientAddresses clientAddresses;
+
+    @Autowired
+    public RangeResponseWriter(ChunkCache chunkCache, ReadaheadPrefetcher readaheadPrefetcher, BlobStorage blobStorage,
+                               ClientAddresses clientAddresses) {
+        this.chunkCache = chunkCache;
+        this.readaheadPrefetcher = readaheadPrefetcher;
+        this.blobStorage = blobStorage;
+        this.clientAddresses = clientAddresses;
+    }
+
+    /**
+     * Serves a stored blob, honouring the request's Range header if present. The content type
+     * is inferred from the key's extension.
+     *
+     * @param request  The incoming request.
+     * @param response The response to write to.
+     * @param blobKey  The key of the blob to serve.
+     * @throws NoSuchFileException If no readable blob is stored under the key.
+     * @throws IOException         If the blob cannot be read or the client goes away.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, String blobKey) throws IOException {
+        write(request, response, blobKey, ContentMetadata.UNKNOWN);
+    }
+
+    /**
+     * Serves a stored blob with known validators, answering conditional requests. The content
+     * type is inferred from the key's extension.
+     *
+     * @param request  The incoming request.
+     * @param response The response to write to.
+     * @param blobKey  The key of the blob to serve.
+     * @param metadata What is known about the blob.
+     * @throws NoSuchFileException If no readable blob is stored under the key.
+     * @throws IOException         If the blob cannot be read or the client goes away.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, String blobKey,
+                      ContentMetadata metadata) throws IOException {
+        write(request, response, blobKey, MediaTypeFactory.getMediaType(blobKey)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM), metadata);
+    }
+
+    /**
+     * Serves a stored blob with an explicit content type, honouring the request's Range header
+     * if present. Blobs on local disk take the zero-copy file path.
+     *
+     * @param request     The incoming request.
+     * @param response    The response to write to.
+     * @param blobKey     The key of the blob to serve.
+     * @param contentType The content type of the blob.
+     * @throws NoSuchFileException If no readable blob is stored under the key.
+     * @throws IOException         If the blob cannot be read or the client goes away.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, String blobKey,
+                      MediaType contentType) throws IOException {
+        write(request, response, blobKey, contentType, ContentMetadata.UNKNOWN);
+    }
+
+    /**
+     * Serves a stored blob with an explicit content type and known validators, answering
+     * conditional requests without reading the blob and honouring the request's Range header
+     * if present.
+     *
+     * @param request     The incoming request.
+     * @param response    The response to write to.
+     * @param blobKey     The key of the blob to serve.
+     * @param contentType The content type of the blob.
+     * @param metadata    What is known about the blob.
+     * @throws NoSuchFileException If no readable blob is stored under the key.
+     * @throws IOException         If the blob cannot be read or the client goes away.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, String blobKey,
+                      MediaType contentType, ContentMetadata metadata) throws IOException {
+        if (ByteRanges.needsExistenceCheck(metadata, request::getHeader) && !exists(blobKey)) {
+            throw new NoSuchFileException(blobKey);
+        }
+        // Sets ETag and Last-Modified, and the 304 (or 412) status if the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(metadata.getEtag(), metadata.getLastModified())) {
+            return;
+        }
+        Optional<Path> localFile = blobStorage.localPath(blobKey);
+        if (localFile.isPresent()) {
+            Path file = localFile.get();
+            if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+                throw new NoSuchFileException(blobKey);
+            }
+            write(request, response, file, contentType, metadata);
+            return;
+        }
+        long length = metadata.getLength() >= 0 ? metadata.getLength() : blobStorage.size(blobKey);
+        serve(request, response, length, contentType, metadata, new Body() {
+            @Override
+            public void writeSingle(long start, long count) throws IOException {
+                copyRange(blobKey, start, count, response.getOutputStream());
+                response.flushBuffer();
+            }
+
+            @Override
+            public void writePart(long start, long count, OutputStream out) throws IOException {
+                copyRange(blobKey, start, count, out);
+            }
+        });
+    }
+
+    /**
+     * Serves the given file with an explicit content type, honouring the request's Range header
+     * if present.
+     *
+     * @param request     The incoming request.
+     * @param response    The response to write to.
+     * @param file        The file to serve.
+     * @param contentType The content type of the file.
+     * @param metadata    What is known about the file.
+     * @throws IOException If the file cannot be read or the client goes away.
+     */
+    private void write(HttpServletRequest request, HttpServletResponse response, Path file, MediaType contentType,
+                       ContentMetadata metadata) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            serve(request, response, length, contentType, metadata, new Body() {
+                @Override
+                public void writeSingle(long start, long count) throws IOException {
+                    if (count < length) {
+                        // Starts the read-ahead before this range is sent, so the two overlap
+                        readaheadPrefetcher.onRange(readerKey(request), file, length, start, count);
+                    }
+                    writeFile(request, response, channel, file, start, count);
+                }
+
+                @Override
+                public void writePart(long start, long count, OutputStream out) throws IOException {
+                    transfer(file, channel, start, count, Channels.newChannel(out));
+                }
+            });
+        }
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, long length,
+                       MediaType contentType, ContentMetadata metadata, Body body) throws IOException {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        boolean ifRangeMatches = ByteRanges.ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE),
+                () -> request.getDateHeader(HttpHeaders.IF_RANGE), metadata);
+        List<long[]> ranges = rangeHeader == null || rangeHeader.isBlank() || !ifRangeMatches ? null
+                : ByteRanges.resolve(rangeHeader, length);
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType.toString());
+            response.setContentLengthLong(length);
+            if (!isHead(request) && length > 0) {
+                body.writeSingle(0, length);
+            }
+            return;
+        }
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setContentType(contentType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, ByteRanges.contentRange(start, end, length));
+            response.setContentLengthLong(end - start + 1);
+            if (!isHead(request)) {
+                body.writeSingle(start, end - start + 1);
+            }
+        } else {
+            writeMultipart(request, response, body, contentType, ranges, length);
+        }
+    }
+
+    private void writeFile(HttpServletRequest request, HttpServletResponse response, FileChannel channel,
+                           Path file, long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))
+                && !chunkCache.isCached(file, channel.size(), start, count)) {
+            // Tomcat opens the file itself and streams it with sendfile once the handler returns
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        transfer(file, channel, start, count, target);
+        response.flushBuffer();
+    }
+
+    private void writeMultipart(HttpServletRequest request, HttpServletResponse response, Body body,
+                                MediaType contentType, List<long[]> ranges, long length) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] header = ByteRanges.partHeader(boundary, contentType, range[0], range[1], length);
+            partHeaders.add(header);
+            contentLength += header.length + (range[1] - range[0] + 1);
+        }
+        byte[] trailer = ByteRanges.trailer(boundary);
+        contentLength += trailer.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (isHead(request)) {
+            return;
+        }
+
+        var out = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            out.write(partHeaders.get(i));
+            body.writePart(range[0], range[1] - range[0] + 1, out);
+        }
+        out.write(trailer);
+        response.flushBuffer();
+    }
+
+    private void transfer(Path file, FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        if (!chunkCache.isEnabled()) {
+            transferDirect(channel, position, count, target);
+            return;
+        }
+        long fileLength = channel.size();
+        long chunkSize = chunkCache.getChunkSize();
+        long end = position + count;
+        while (position < end) {
+            long chunkIndex = position / chunkSize;
+            long chunkStart = chunkIndex * chunkSize;
+            long sliceEnd = Math.min(chunkStart + chunkSize, end);
+            ChunkCache.Chunk chunk = chunkCache.acquire(file, channel, fileLength, chunkIndex);
+            if (chunk == null) {
+                transferDirect(channel, position, sliceEnd - position, target);
+            } else {
+                try {
+                    ByteBuffer slice = chunk.slice((int) (position - chunkStart), (int) (sliceEnd - position));
+                    while (slice.hasRemaining()) {
+                        target.write(slice);
+                    }
+                } finally {
+                    chunkCache.release(chunk);
+                }
+            }
+            position = sliceEnd;
+        }
+    }
+
+    private static void transferDirect(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long written = channel.transferTo(position, end - position, target);
+            if (written <= 0) {
+                throw new EOFException("File truncated while streaming at offset " + position);
+            }
+            position += written;
+        }
+    }
+
+    private boolean exists(String blobKey) throws IOException {
+        Optional<Path> localFile = blobStorage.localPath(blobKey);
+        return localFile.isPresent() ? Files.isRegularFile(localFile.get()) : blobStorage.exists(blobKey);
+    }
+
+    private void copyRange(String blobKey, long start, long count, OutputStream out) throws IOException {
+        try (InputStream in = blobStorage.openRange(blobKey, start, count)) {
+            long copied = in.transferTo(out);
+            if (copied < count) {
+                throw new EOFException("Blob truncated while streaming at offset " + (start + copied));
+            }
+        }
+    }
+
+    /**
+     * Tells viewers apart well enough for read-ahead; collisions only cost prefetch accuracy.
+     * See {@link ClientAddresses} for when forwarded addresses are believed.
+     */
+    private String readerKey(HttpServletRequest request) {
+        return clientAddresses.clientAddress(request) + '|' + request.getHeader(HttpHeaders.USER_AGENT);
+    }
+
+    private static boolean isHead(HttpServletRequest request) {
+        return "HEAD".equalsIgnoreCase(request.getMethod());
+    }
+
+    /** Writes byte ranges of whatever is being served. */
+    private interface Body {
+
+        /** Writes the only range of the response, straight to the response body. */
+        void writeSingle(long start, long count) throws IOException;
+
+        /** Writes one part of a multipart/byteranges response. */
+        void writePart(long start, long count, OutputStream out) throws IOException;
+    }
+}
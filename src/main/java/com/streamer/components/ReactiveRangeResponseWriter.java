@@ -0,0 +1,271 @@
+package com.streamer.components;
+
+import com.common.storage.BlobStorage;
+import com.streamer.cache.ReadaheadPrefetcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The reactive counterpart of {@link RangeResponseWriter}: writes whole blobs and HTTP byte
+ * ranges to a WebFlux response without blocking the event loop.
+ * <p>
+ * Full responses and single ranges of local files are written as zero-copy file regions, which
+ * Reactor Netty sends with sendfile; multipart/byteranges parts are read with an
+ * {@link AsynchronousFileChannel}. Blobs that are not on local disk are read with one ranged
+ * read per requested range on the bounded-elastic scheduler, since the storage client blocks.
+ * <p>
+ * The {@link com.streamer.cache.ChunkCache} is not used: its chunks are pinned for the duration
+ * of a blocking write, which has no equivalent here. Run the reactive streamer with the chunk
+ * cache disabled, so the {@link ReadaheadPrefetcher} warms the page cache that sendfile reads from.
+ * <p>
+ * Conditional requests and If-Range are answered exactly as by the servlet writer, including
+ * the existence check for blobs whose metadata has no length.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRangeResponseWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadaheadPrefetcher readaheadPrefetcher;
+    private final BlobStorage blobStorage;
+    private final ClientAddresses clientAddresses;
+
+    @Autowired
+    public ReactiveRangeResponseWriter(ReadaheadPrefetcher readaheadPrefetcher, BlobStorage blobStorage,
+                                       ClientAddresses clientAddresses) {
+        this.readaheadPrefetcher = readaheadPrefetcher;
+        this.blobStorage = blobStorage;
+        this.clientAddresses = clientAddresses;
+    }
+
+    /**
+     * Serves a stored blob with an explicit content type and known validators, answering
+     * conditional requests without reading the blob and honouring the request's Range header
+     * if present.
+     *
+     * @param exchange    The current exchange.
+     * @param blobKey     The key of the blob to serve.
+     * @param contentType The content type of the blob.
+     * @param metadata    What is known about the blob.
+     * @return Completes when the response is written; fails with {@link NoSuchFileException} if
+     * no readable blob is stored under the key.
+     */
+    public Mono<Void> write(ServerWebExchange exchange, String blobKey, MediaType contentType,
+                            ContentMetadata metadata) {
+        if (ByteRanges.needsExistenceCheck(metadata, exchange.getRequest().getHeaders()::getFirst)) {
+            return exists(blobKey).flatMap(exists -> exists
+                    ? writeExisting(exchange, blobKey, contentType, metadata)
+                    : Mono.error(new NoSuchFileException(blobKey)));
+        }
+        return writeExisting(exchange, blobKey, contentType, metadata);
+    }
+
+    private Mono<Void> writeExisting(ServerWebExchange exchange, String blobKey, MediaType contentType,
+                                     ContentMetadata metadata) {
+        // Sets ETag and Last-Modified, and the 304 (or 412) status if the client's copy is current
+        if (exchange.checkNotModified(metadata.getEtag(), Instant.ofEpochMilli(metadata.getLastModified()))) {
+            return exchange.getResponse().setComplete();
+        }
+        Optional<Path> localFile = blobStorage.localPath(blobKey);
+        if (localFile.isPresent()) {
+            Path file = localFile.get();
+            long length;
+            try {
+                if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+                    throw new NoSuchFileException(blobKey);
+                }
+                length = Files.size(file);
+            } catch (IOException ex) {
+                return Mono.error(ex);
+            }
+            return serve(exchange, length, contentType, metadata, new FileBody(exchange, file, length));
+        }
+        Mono<Long> length = metadata.getLength() >= 0
+                ? Mono.just(metadata.getLength())
+                : Mono.fromCallable(() -> blobStorage.size(blobKey)).subscribeOn(Schedulers.boundedElastic());
+        return length.flatMap(blobLength -> serve(exchange, blobLength, contentType, metadata,
+                new BlobBody(exchange.getResponse(), blobKey)));
+    }
+
+    private Mono<Boolean> exists(String blobKey) {
+        Optional<Path> localFile = blobStorage.localPath(blobKey);
+        if (localFile.isPresent()) {
+            return Mono.just(Files.isRegularFile(localFile.get()));
+        }
+        return Mono.fromCallable(() -> blobStorage.exists(blobKey)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, long length, MediaType contentType,
+                             ContentMetadata metadata, Body body) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String rangeHeader = request.getHeaders().getFirst(HttpHeaders.RANGE);
+        boolean ifRangeMatches = ByteRanges.ifRangeMatches(request.getHeaders().getFirst(HttpHeaders.IF_RANGE),
+                () -> request.getHeaders().getFirstDate(HttpHeaders.IF_RANGE), metadata);
+        List<long[]> ranges = rangeHeader == null || rangeHeader.isBlank() || !ifRangeMatches ? null
+                : ByteRanges.resolve(rangeHeader, length);
+        if (ranges == null) {
+            response.setStatusCode(HttpStatus.OK);
+            headers.setContentType(contentType);
+            headers.setContentLength(length);
+            return isHead(request) || length == 0 ? response.setComplete() : body.writeSingle(0, length);
+        }
+        if (ranges.isEmpty()) {
+            response.setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            headers.setContentType(contentType);
+            headers.set(HttpHeaders.CONTENT_RANGE, ByteRanges.contentRange(start, end, length));
+            headers.setContentLength(end - start + 1);
+            return isHead(request) ? response.setComplete() : body.writeSingle(start, end - start + 1);
+        }
+        return writeMultipart(request, response, body, contentType, ranges, length);
+    }
+
+    private Mono<Void> writeMultipart(ServerHttpRequest request, ServerHttpResponse response, Body body,
+                                      MediaType contentType, List<long[]> ranges, long length) {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] header = ByteRanges.partHeader(boundary, contentType, range[0], range[1], length);
+            partHeaders.add(header);
+            contentLength += header.length + (range[1] - range[0] + 1);
+        }
+        byte[] trailer = ByteRanges.trailer(boundary);
+        contentLength += trailer.length;
+
+        response.getHeaders().setContentType(new MediaType("multipart", "byteranges", Map.of("boundary", boundary)));
+        response.getHeaders().setContentLength(contentLength);
+        if (isHead(request)) {
+            return response.setComplete();
+        }
+
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        Flux<DataBuffer> parts = Flux.range(0, ranges.size())
+                .concatMap(i -> Flux.concat(
+                        Mono.fromSupplier(() -> bufferFactory.wrap(partHeaders.get(i))),
+                        body.read(ranges.get(i)[0], ranges.get(i)[1] - ranges.get(i)[0] + 1)))
+                .concatWith(Mono.fromSupplier(() -> bufferFactory.wrap(trailer)));
+        return response.writeWith(parts);
+    }
+
+    /**
+     * Tells viewers apart well enough for read-ahead; collisions only cost prefetch accuracy.
+     * See {@link ClientAddresses} for when forwarded addresses are believed.
+     */
+    private String readerKey(ServerHttpRequest request) {
+        return clientAddresses.clientAddress(request) + '|' + request.getHeaders().getFirst(HttpHeaders.USER_AGENT);
+    }
+
+    private static boolean isHead(ServerHttpRequest request) {
+        return HttpMethod.HEAD.equals(request.getMethod());
+    }
+
+    /** Writes byte ranges of whatever is being served. */
+    private interface Body {
+
+        /** Writes the only range of the response as the whole response body. */
+        Mono<Void> writeSingle(long start, long count);
+
+        /** Reads one part of a multipart/byteranges response. */
+        Flux<DataBuffer> read(long start, long count);
+    }
+
+    /** A file on local disk. */
+    private final class FileBody implements Body {
+
+        private final ServerWebExchange exchange;
+        private final Path file;
+        private final long length;
+
+        FileBody(ServerWebExchange exchange, Path file, long length) {
+            this.exchange = exchange;
+            this.file = file;
+            this.length = length;
+        }
+
+        @Override
+        public Mono<Void> writeSingle(long start, long count) {
+            if (count < length) {
+                // Starts the read-ahead before this range is sent, so the two overlap
+                readaheadPrefetcher.onRange(readerKey(exchange.getRequest()), file, length, start, count);
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            if (response instanceof ZeroCopyHttpOutputMessage zeroCopy) {
+                return zeroCopy.writeWith(file, start, count);
+            }
+            return response.writeWith(read(start, count));
+        }
+
+        @Override
+        public Flux<DataBuffer> read(long start, long count) {
+            Flux<DataBuffer> buffers = DataBufferUtils.readAsynchronousFileChannel(
+                    () -> AsynchronousFileChannel.open(file, StandardOpenOption.READ),
+                    start, exchange.getResponse().bufferFactory(), BUFFER_SIZE);
+            return DataBufferUtils.takeUntilByteCount(buffers, count);
+        }
+    }
+
+    /** A blob behind a blocking storage client. */
+    private final class BlobBody implements Body {
+
+        private final ServerHttpResponse response;
+        private final String blobKey;
+
+        BlobBody(ServerHttpResponse response, String blobKey) {
+            this.response = response;
+            this.blobKey = blobKey;
+        }
+
+        @Override
+        public Mono<Void> writeSingle(long start, long count) {
+            return response.writeWith(read(start, count));
+        }
+
+        @Override
+        public Flux<DataBuffer> read(long start, long count) {
+            return DataBufferUtils.readInputStream(() -> blobStorage.openRange(blobKey, start, count),
+                            response.bufferFactory(), BUFFER_SIZE)
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+    }
+}
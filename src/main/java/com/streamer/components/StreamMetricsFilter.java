@@ -0,0 +1,177 @@
+package com.streamer.components;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures video and segment responses:
+ * <ul>
+ *     <li>{@code streamer.response.ttfb}: from the request reaching the streamer until the first
+ *     byte of the response (headers included) is handed to the connector.</li>
+ *     <li>{@code streamer.response.bytes}: body bytes served per request.</li>
+ * </ul>
+ * Both are tagged with the kind of resource (video or segment) and the shape of the Range
+ * header (none, single or multi), and only recorded for 200 and 206 responses.
+ * <p>
+ * Responses handed to Tomcat's sendfile are written after the handler returns, so for those the
+ * handler's return counts as the first byte and the byte count comes from the sendfile range.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StreamMetricsFilter extends OncePerRequestFilter {
+
+    private static final String STREAMER_PATH = "/api/streamer/";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public StreamMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return kind(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        MeteredResponse metered = new MeteredResponse(response, System.nanoTime());
+        filterChain.doFilter(request, metered);
+
+        int status = metered.getStatus();
+        if (status != HttpServletResponse.SC_OK && status != HttpServletResponse.SC_PARTIAL_CONTENT) {
+            return;
+        }
+        long bytes = metered.written;
+        if (request.getAttribute(SENDFILE_START_ATTR) instanceof Long start
+                && request.getAttribute(SENDFILE_END_ATTR) instanceof Long end) {
+            bytes += end - start;
+            metered.markFirstByte();
+        }
+        String kind = kind(request);
+        String range = rangeShape(request.getHeader(HttpHeaders.RANGE));
+        Timer.builder("streamer.response.ttfb")
+                .tags("kind", kind, "range", range)
+                .register(meterRegistry)
+                .record(metered.firstByteNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("streamer.response.bytes")
+                .baseUnit("bytes")
+                .tags("kind", kind, "range", range)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /** @return "video" or "segment", or null if the request is not for either. */
+    static String kind(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(STREAMER_PATH)) {
+            return null;
+        }
+        if (path.endsWith("/stream")) {
+            return "video";
+        }
+        return path.contains("/segments/") ? "segment" : null;
+    }
+
+    private static String rangeShape(String range) {
+        if (range == null || range.isBlank()) {
+            return "none";
+        }
+        return range.indexOf(',') >= 0 ? "multi" : "single";
+    }
+
+    /** Notes when the first byte goes out and counts body bytes, without buffering anything. */
+    private static final class MeteredResponse extends HttpServletResponseWrapper {
+
+        private final long startedAt;
+        private long firstByteAt;
+        private long written;
+        private ServletOutputStream outputStream;
+
+        MeteredResponse(HttpServletResponse response, long startedAt) {
+            super(response);
+            this.startedAt = startedAt;
+        }
+
+        void markFirstByte() {
+            if (firstByteAt == 0) {
+                firstByteAt = System.nanoTime();
+            }
+        }
+
+        long firstByteNanos() {
+            markFirstByte();
+            return firstByteAt - startedAt;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            markFirstByte();
+            super.flushBuffer();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        markFirstByte();
+                        delegate.write(b);
+                        written++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        markFirstByte();
+                        delegate.write(b, off, len);
+                        written += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        markFirstByte();
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.streamer.tiering;
+
+import com.common.models.uploads.UploadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts playback starts per upload on the streaming path and writes them to the uploads table
+ * in the background, one update per played video per flush, so the tiering job can tell hot
+ * videos from cold ones without a database write per request. Counts are approximate: a hit
+ * racing with a flush may be dropped.
+ */
+@Component
+public class AccessTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessTracker.class);
+
+    private final UploadRepository uploadRepository;
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AccessTracker(UploadRepository uploadRepository) {
+        this.uploadRepository = uploadRepository;
+    }
+
+    /**
+     * @param identifier The unique string identifier of the upload being played.
+     */
+    public void recordPlayback(String identifier) {
+        pending.computeIfAbsent(identifier, key -> new LongAdder()).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${storage.tiering.access-flush-ms:60000}")
+    public void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        for (String identifier : pending.keySet()) {
+            LongAdder hits = pending.remove(identifier);
+            if (hits == null) {
+                continue;
+            }
+            try {
+                uploadRepository.recordAccess(identifier, hits.sum(), now);
+            } catch (DataAccessException ex) {
+                logger.warn("Could not record plays of {}: {}", identifier, ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.streamer.tiering;
+
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.media.SegmentLayout;
+import com.common.models.locks.BlobLocks;
+import com.common.models.locks.JobLeases;
+import com.common.models.uploads.BlobRef;
+import com.common.models.uploads.UploadRepository;
+import com.common.storage.TieredBlobStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps only the working set on the hot tier. Each run promotes cold blobs that have been played
+ * often since they were demoted, then demotes hot blobs nobody has played for a while.
+ * <p>
+ * A move copies the blob and its segments to the other tier at a throttled rate, then switches
+ * every upload sharing the blob to the new key with one conditional update, and tells the
+ * streamers to drop their cached lookups. The old copy is only deleted a grace period later:
+ * streams already reading it keep their open file, and lookups cached before the switch still
+ * resolve.
+ * <p>
+ * The job may be enabled on any number of streamer nodes: each run first takes a lease in the
+ * database, so only one node migrates at a time. Switches and deletes run under the blob's
+ * {@link BlobLocks} lock, the same lock uploads take to share a blob, and references are checked
+ * again inside it so a copy that an upload on another node has just started sharing is kept.
+ */
+@Service
+@ConditionalOnProperty(name = {"storage.tiering.enabled", "storage.tiering.job.enabled"}, havingValue = "true")
+public class TieringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieringService.class);
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+    private static final String JOB_NAME = "storage-tiering";
+
+    private final UploadRepository uploadRepository;
+    private final TieredBlobStorage storage;
+    private final KafkaProducerService kafkaProducerService;
+    private final JobLeases jobLeases;
+    private final BlobLocks blobLocks;
+    private final Duration lease;
+    private final Duration coldAfter;
+    private final long promoteAfterPlays;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final long maxBytesPerSecond;
+
+    @Autowired
+    public TieringService(UploadRepository uploadRepository, TieredBlobStorage storage,
+                          KafkaProducerService kafkaProducerService, JobLeases jobLeases, BlobLocks blobLocks,
+                          @Value("${storage.tiering.job.lease-minutes:60}") long leaseMinutes,
+                          @Value("${storage.tiering.cold-after-days:14}") long coldAfterDays,
+                          @Value("${storage.tiering.promote-after-plays:20}") long promoteAfterPlays,
+                          @Value("${storage.tiering.grace-period-minutes:15}") long gracePeriodMinutes,
+                          @Value("${storage.tiering.batch-size:50}") int batchSize,
+                          @Value("${storage.tiering.max-bytes-per-second:52428800}") long maxBytesPerSecond) {
+        if (maxBytesPerSecond <= 0) {
+            throw new IllegalArgumentException("storage.tiering.max-bytes-per-second must be positive");
+        }
+        this.uploadRepository = uploadRepository;
+        this.storage = storage;
+        this.kafkaProducerService = kafkaProducerService;
+        this.jobLeases = jobLeases;
+        this.blobLocks = blobLocks;
+        this.lease = Duration.ofMinutes(leaseMinutes);
+        this.coldAfter = Duration.ofDays(coldAfterDays);
+        this.promoteAfterPlays = promoteAfterPlays;
+        this.gracePeriod = Duration.ofMinutes(gracePeriodMinutes);
+        this.batchSize = batchSize;
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    @Scheduled(fixedDelayString = "${storage.tiering.interval-ms:3600000}",
+            initialDelayString = "${storage.tiering.initial-delay-ms:300000}")
+    public void rebalance() {
+        if (!jobLeases.tryAcquire(JOB_NAME, lease)) {
+            logger.debug("Tiering is running on another node");
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            deleteRetiredCopies(now.minus(gracePeriod));
+            // Promotions first: a hot video on slow disk hurts more than a cold one on fast disk
+            for (BlobRef blob : uploadRepository.findColdBlobsPlayedAtLeast(TieredBlobStorage.COLD_PREFIX,
+                    promoteAfterPlays, Limit.of(batchSize))) {
+                move(blob, TieredBlobStorage.hotKey(blob.getDataPathLink()));
+            }
+            for (BlobRef blob : uploadRepository.findHotBlobsIdleSince(TieredBlobStorage.COLD_PREFIX,
+                    now.minus(coldAfter), Limit.of(batchSize))) {
+                move(blob, TieredBlobStorage.coldKey(blob.getDataPathLink()));
+            }
+        } finally {
+            jobLeases.release(JOB_NAME);
+        }
+    }
+
+    private void move(BlobRef blob, String to) {
+        String contentHash = blob.getContentHash();
+        String from = blob.getDataPathLink();
+        try {
+            copySegments(from, to);
+            copy(from, to);
+            boolean switched = blobLocks.withLock(contentHash, () -> {
+                if (uploadRepository.switchBlobKey(contentHash, from, to, LocalDateTime.now()) == 0) {
+                    // The uploads changed while we were copying; keep the copy only if something uses it
+                    if (!uploadRepository.existsByContentHashAndDataPathLink(contentHash, to)) {
+                        deleteCopy(to);
+                    }
+                    return false;
+                }
+                if (!uploadRepository.existsByContentHashAndDataPathLinkAndIsDeletedFalse(contentHash, to)) {
+                    // Deleted while copying; the delete may already have released the old key only
+                    deleteCopy(to);
+                    return false;
+                }
+                return true;
+            });
+            if (!switched) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (String identifier : uploadRepository.findIdentifiersByBlob(contentHash, to)) {
+                kafkaProducerService.publishUploadChanged(new UploadChangedEvent(identifier, "TIER", now));
+            }
+            logger.info("Moved {} to the {} tier", from, TieredBlobStorage.isCold(to) ? "cold" : "hot");
+        } catch (IOException | DataAccessException ex) {
+            logger.warn("Could not move {} to {}: {}", from, to, ex.getMessage());
+        }
+    }
+
+    private void deleteRetiredCopies(LocalDateTime cutoff) {
+        for (BlobRef blob : uploadRepository.findBlobsSwitchedBefore(cutoff, Limit.of(batchSize))) {
+            String current = blob.getDataPathLink();
+            String retired = TieredBlobStorage.isCold(current)
+                    ? TieredBlobStorage.hotKey(current) : TieredBlobStorage.coldKey(current);
+            try {
+                blobLocks.withLock(blob.getContentHash(), () -> {
+                    // A newer upload of the same video may have started sharing the old copy
+                    if (!uploadRepository.existsByContentHashAndDataPathLink(blob.getContentHash(), retired)) {
+                        deleteCopy(retired);
+                    }
+                    uploadRepository.clearTierChange(blob.getContentHash(), current);
+                    return null;
+                });
+            } catch (IOException | DataAccessException ex) {
+                logger.warn("Could not delete retired copy {}: {}", retired, ex.getMessage());
+            }
+        }
+    }
+
+    private void copySegments(String from, String to) throws IOException {
+        String fromDirectory = SegmentLayout.segmentDirectoryKey(from);
+        List<String> names = storage.list(fromDirectory);
+        for (String name : names) {
+            if (!isManifest(name)) {
+                copy(SegmentLayout.segmentKey(from, name), SegmentLayout.segmentKey(to, name));
+            }
+        }
+        // Same order as the processing worker: the master playlist marks the rendition complete
+        for (String manifest : List.of(SegmentLayout.HLS_MEDIA_PLAYLIST, SegmentLayout.DASH_MANIFEST,
+                SegmentLayout.HLS_MASTER_PLAYLIST)) {
+            if (names.contains(manifest)) {
+                copy(SegmentLayout.segmentKey(from, manifest), SegmentLayout.segmentKey(to, manifest));
+            }
+        }
+    }
+
+    private void copy(String from, String to) throws IOException {
+        long size = storage.size(from);
+        Path target = storage.localPath(to)
+                .orElseThrow(() -> new IOException("The tier holding " + to + " is not a local filesystem"));
+        Files.createDirectories(target.getParent());
+        // Staged next to the target so it is renamed into place without a second copy
+        Path staging = target.resolveSibling(target.getFileName() + ".tiering-" + UUID.randomUUID());
+        try {
+            try (InputStream in = size == 0 ? InputStream.nullInputStream() : storage.openRange(from, 0, size);
+                 OutputStream out = Files.newOutputStream(staging, StandardOpenOption.CREATE_NEW)) {
+                throttledCopy(in, out);
+            }
+            storage.put(to, staging);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(staging);
+            throw ex;
+        }
+    }
+
+    /**
+     * Copies at no more than storage.tiering.max-bytes-per-second, so migrations leave disk
+     * bandwidth for the streams being served from the same disks.
+     */
+    private void throttledCopy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long startedAt = System.nanoTime();
+        long copied = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            copied += read;
+            long aheadMs = copied * 1000 / maxBytesPerSecond - (System.nanoTime() - startedAt) / 1_000_000;
+            if (aheadMs > 0) {
+                try {
+                    Thread.sleep(aheadMs);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while migrating a blob");
+                }
+            }
+        }
+    }
+
+    private void deleteCopy(String key) throws IOException {
+        storage.deleteDirectory(SegmentLayout.segmentDirectoryKey(key));
+        storage.delete(key);
+    }
+
+    private static boolean isManifest(String name) {
+        return name.endsWith(".m3u8") || name.endsWith(".mpd");
+    }
+}
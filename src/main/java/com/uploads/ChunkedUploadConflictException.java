@@ -0,0 +1,11 @@
+package com.uploads;
+
+/**
+ * Thrown when a chunked upload cannot take the requested step in its current state: completing
+ * it before every chunk is in, or touching it while it is being completed.
+ */
+public class ChunkedUploadConflictException extends RuntimeException {
+    public ChunkedUploadConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,220 @@
+package com.uploads;
+
+import com.common.models.uploads.Uploads;
+import com.uploads.payloads.request.InitiateChunkedUpload;
+import com.uploads.payloads.response.ChunkedUploadStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the three-step chunked upload protocol: initiate, PUT chunk N (any order, in parallel),
+ * complete. Chunks are written straight to their offsets in a preallocated part file, so
+ * completing an upload is a rename rather than a concatenation pass.
+ * <p>
+ * A session stays registered while it is being completed, so the client can still see it, and
+ * is only removed once its upload row exists. If completion fails while the part file is still
+ * there the session goes back to accepting chunks and can be completed again. Sessions idle for
+ * longer than {@code uploads.chunked.session-ttl-minutes} are swept on a schedule.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private final VideoStorageService videoStorageService;
+    private final UploadService uploadService;
+    private final UploadMetrics uploadMetrics;
+    private final Map<String, ChunkedUploadSession> sessions = new ConcurrentHashMap<>();
+
+    private final int defaultChunkSize;
+    private final int maxChunkSize;
+    private final long maxTotalSize;
+    private final long sessionTtlMs;
+
+    @Autowired
+    public ChunkedUploadService(VideoStorageService videoStorageService,
+                                UploadService uploadService,
+                                UploadMetrics uploadMetrics,
+                                @Value("${uploads.chunked.default-chunk-size:8388608}") int defaultChunkSize,
+                                @Value("${uploads.chunked.max-chunk-size:67108864}") int maxChunkSize,
+                                @Value("${uploads.chunked.max-total-size:21474836480}") long maxTotalSize,
+                                @Value("${uploads.chunked.session-ttl-minutes:1440}") long sessionTtlMinutes) {
+        this.videoStorageService = videoStorageService;
+        this.uploadService = uploadService;
+        this.uploadMetrics = uploadMetrics;
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.maxTotalSize = maxTotalSize;
+        this.sessionTtlMs = TimeUnit.MINUTES.toMillis(sessionTtlMinutes);
+    }
+
+    /**
+     * Starts a chunked upload and preallocates its part file.
+     *
+     * @param request    The file name, total size and optional chunk size.
+     * @param uploadedBy The username of the uploader.
+     * @return The status of the new upload session.
+     * @throws IOException If the part file cannot be allocated.
+     */
+    public ChunkedUploadStatus initiate(InitiateChunkedUpload request, String uploadedBy) throws IOException {
+        if (!StringUtils.hasText(request.getFileName())) {
+            throw new IllegalArgumentException("fileName is required");
+        }
+        if (request.getTotalSize() <= 0 || request.getTotalSize() > maxTotalSize) {
+            throw new IllegalArgumentException("totalSize must be between 1 and " + maxTotalSize + " bytes");
+        }
+        int chunkSize = request.getChunkSize() == null ? defaultChunkSize : request.getChunkSize();
+        if (chunkSize <= 0 || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("chunkSize must be between 1 and " + maxChunkSize + " bytes");
+        }
+        if ((request.getTotalSize() + chunkSize - 1) / chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chunkSize is too small for a file of this size");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        Path partFile = videoStorageService.allocateUpload(uploadId, request.getTotalSize());
+        ChunkedUploadSession session = new ChunkedUploadSession(
+                uploadId, request.getFileName(), uploadedBy, request.getTotalSize(), chunkSize, partFile);
+        sessions.put(uploadId, session);
+        return toStatus(session, null);
+    }
+
+    /**
+     * Reports which chunks have been acknowledged so an interrupted client can resume.
+     *
+     * @param uploadId The chunked upload session id.
+     * @return The current status of the session.
+     */
+    public ChunkedUploadStatus status(String uploadId) {
+        return toStatus(session(uploadId), null);
+    }
+
+    /**
+     * Writes chunk {@code index} at its offset. Re-sending an acknowledged chunk is harmless.
+     *
+     * @param uploadId    The chunked upload session id.
+     * @param index       The zero-based chunk index.
+     * @param inputStream The raw chunk body.
+     * @return The status of the session after the chunk was acknowledged.
+     * @throws IOException If the chunk is short, long or cannot be written.
+     * @throws ChunkedUploadConflictException If the upload is being completed.
+     */
+    public ChunkedUploadStatus writeChunk(String uploadId, int index, InputStream inputStream) throws IOException {
+        ChunkedUploadSession session = session(uploadId);
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.getChunkCount() - 1));
+        }
+        if (!session.beginWrite()) {
+            throw new ChunkedUploadConflictException("Upload " + uploadId + " is being completed");
+        }
+        try {
+            session.touch();
+            long started = System.nanoTime();
+            videoStorageService.writeChunk(session.getPartFile(), session.chunkOffset(index),
+                    session.chunkLength(index), inputStream);
+            uploadMetrics.recordTransfer(UploadMetrics.CHUNKED, session.chunkLength(index), System.nanoTime() - started);
+            session.acknowledge(index);
+        } finally {
+            session.endWrite();
+        }
+        return toStatus(session, null);
+    }
+
+    /**
+     * Finishes a chunked upload once every chunk has been acknowledged.
+     *
+     * @param uploadId The chunked upload session id.
+     * @return The final status, including the identifier of the new upload.
+     * @throws IOException If the part file cannot be moved into place.
+     * @throws ChunkedUploadConflictException If a chunk is missing or still being written, or the
+     *                                        upload is already being completed.
+     */
+    public ChunkedUploadStatus complete(String uploadId) throws IOException {
+        ChunkedUploadSession session = session(uploadId);
+        if (!session.isComplete()) {
+            throw new ChunkedUploadConflictException("Upload is missing chunk " + session.nextMissingChunk());
+        }
+        if (!session.beginCompleting()) {
+            throw new ChunkedUploadConflictException(
+                    "Upload " + uploadId + " is already being completed or is still receiving a chunk");
+        }
+        Uploads upload;
+        try {
+            StoredVideo stored = videoStorageService.completeUpload(session.getPartFile(), session.getFileName());
+            upload = uploadService.commitUpload(session.getFileName(), stored, session.getUploadedBy());
+        } catch (IOException | RuntimeException ex) {
+            if (Files.exists(session.getPartFile())) {
+                session.cancelCompleting();
+            } else {
+                // The part file was already moved or shared, so there is nothing left to retry with
+                sessions.remove(uploadId, session);
+            }
+            throw ex;
+        }
+        sessions.remove(uploadId, session);
+        uploadMetrics.recordUpload(UploadMetrics.CHUNKED, System.nanoTime() - session.getStartedAt());
+        return toStatus(session, upload.getIdentifier());
+    }
+
+    /**
+     * Aborts a chunked upload and deletes its part file.
+     *
+     * @param uploadId The chunked upload session id.
+     * @throws IOException If the part file cannot be deleted.
+     * @throws ChunkedUploadConflictException If the upload is being completed.
+     */
+    public void abort(String uploadId) throws IOException {
+        ChunkedUploadSession session = session(uploadId);
+        if (session.isCompleting()) {
+            throw new ChunkedUploadConflictException("Upload " + uploadId + " is being completed");
+        }
+        if (!sessions.remove(uploadId, session)) {
+            throw new NoSuchElementException("Unknown upload " + uploadId);
+        }
+        videoStorageService.discardUpload(session.getPartFile());
+    }
+
+    private ChunkedUploadSession session(String uploadId) {
+        ChunkedUploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new NoSuchElementException("Unknown upload " + uploadId);
+        }
+        return session;
+    }
+
+    /** Removes sessions that have been idle for longer than the TTL, and their part files. */
+    @Scheduled(fixedDelayString = "${uploads.chunked.sweep-interval-ms:600000}")
+    public void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtlMs;
+        for (ChunkedUploadSession session : sessions.values()) {
+            if (session.getLastActivity() < cutoff && !session.isCompleting()
+                    && sessions.remove(session.getUploadId(), session)) {
+                try {
+                    videoStorageService.discardUpload(session.getPartFile());
+                } catch (IOException ex) {
+                    logger.warn("Could not delete expired part file {}: {}", session.getPartFile(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private static ChunkedUploadStatus toStatus(ChunkedUploadSession session, String identifier) {
+        return new ChunkedUploadStatus(session.getUploadId(), session.getTotalSize(), session.getChunkSize(),
+                session.getChunkCount(), session.receivedChunks(), session.nextMissingChunk(), identifier);
+    }
+}
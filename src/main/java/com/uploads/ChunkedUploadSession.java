@@ -0,0 +1,131 @@
+package com.uploads;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * In-memory state of one chunked upload: where its part file lives, which chunks the server
+ * has acknowledged and whether it is being completed. Chunk writes happen outside this object but
+ * are registered with it, so completion cannot start while one is still writing the part file.
+ * The acknowledgement bitmap, the completing flag and the count of writes in flight are guarded
+ * by its monitor.
+ */
+public class ChunkedUploadSession {
+    private final String uploadId;
+    private final String fileName;
+    private final String uploadedBy;
+    private final long totalSize;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final Path partFile;
+    private final BitSet acknowledged;
+    private final long startedAt;
+    private volatile long lastActivity;
+    private boolean completing;
+    private int writesInFlight;
+
+    public ChunkedUploadSession(String uploadId, String fileName, String uploadedBy, long totalSize,
+                                int chunkSize, Path partFile) {
+        this.uploadId = uploadId;
+        this.fileName = fileName;
+        this.uploadedBy = uploadedBy;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.chunkCount = (int) ((totalSize + chunkSize - 1) / chunkSize);
+        this.partFile = partFile;
+        this.acknowledged = new BitSet(chunkCount);
+        this.startedAt = System.nanoTime();
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    public String getUploadId() { return uploadId; }
+    public String getFileName() { return fileName; }
+    public String getUploadedBy() { return uploadedBy; }
+    public long getTotalSize() { return totalSize; }
+    public int getChunkSize() { return chunkSize; }
+    public int getChunkCount() { return chunkCount; }
+    public Path getPartFile() { return partFile; }
+    public long getLastActivity() { return lastActivity; }
+    /** @return The {@link System#nanoTime()} at which the session was created. */
+    public long getStartedAt() { return startedAt; }
+
+    public long chunkOffset(int index) {
+        return (long) index * chunkSize;
+    }
+
+    public long chunkLength(int index) {
+        return Math.min(chunkSize, totalSize - chunkOffset(index));
+    }
+
+    public void touch() {
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    public synchronized void acknowledge(int index) {
+        acknowledged.set(index);
+    }
+
+    /**
+     * Registers a chunk write, unless the session is being completed.
+     *
+     * @return true if the caller may write the chunk; it must then call {@link #endWrite()}.
+     */
+    public synchronized boolean beginWrite() {
+        if (completing) {
+            return false;
+        }
+        writesInFlight++;
+        return true;
+    }
+
+    /** Ends a chunk write registered by {@link #beginWrite()}, whether it succeeded or not. */
+    public synchronized void endWrite() {
+        writesInFlight--;
+    }
+
+    /**
+     * Marks the session as being completed, unless it already is or a chunk is still being
+     * written, e.g. a retry of an acknowledged chunk.
+     *
+     * @return true if the caller now completes the session.
+     */
+    public synchronized boolean beginCompleting() {
+        if (completing || writesInFlight > 0) {
+            return false;
+        }
+        completing = true;
+        return true;
+    }
+
+    /** Makes a session whose completion failed accept chunks and completion attempts again. */
+    public synchronized void cancelCompleting() {
+        completing = false;
+        touch();
+    }
+
+    public synchronized boolean isCompleting() {
+        return completing;
+    }
+
+    public synchronized boolean isComplete() {
+        return acknowledged.cardinality() == chunkCount;
+    }
+
+    public synchronized List<Integer> receivedChunks() {
+        List<Integer> received = new ArrayList<>(acknowledged.cardinality());
+        for (int i = acknowledged.nextSetBit(0); i >= 0; i = acknowledged.nextSetBit(i + 1)) {
+            received.add(i);
+        }
+        return received;
+    }
+
+    /**
+     * @return The first chunk the server has not acknowledged, or -1 if all chunks are in.
+     */
+    public synchronized int nextMissingChunk() {
+        int next = acknowledged.nextClearBit(0);
+        return next < chunkCount ? next : -1;
+    }
+}
@@ -0,0 +1,82 @@
+package com.uploads;
+
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.events.UploadCreatedEvent;
+import com.common.models.locks.JobLeases;
+import com.common.models.uploads.UploadRepository;
+import com.common.models.uploads.UploadStatus;
+import com.common.models.uploads.Uploads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Publishes the upload-created event again for uploads that have been PENDING for longer than
+ * {@code uploads.republish.pending-after-minutes}, so an event lost between saving the row and
+ * reaching the broker does not leave the upload unprocessed forever.
+ * <p>
+ * Events are keyed by identifier, so a re-published event lands behind the original on the same
+ * partition; if the original was only slow, the worker finds the upload no longer pending and
+ * skips the copy. Each re-published upload gets a new updated_at, so it waits another full
+ * period before it is tried again. One upload node runs this at a time, through a job lease.
+ */
+@Component
+public class PendingUploadRepublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingUploadRepublisher.class);
+    private static final String JOB_NAME = "upload-republish";
+
+    private final UploadRepository uploadRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final JobLeases jobLeases;
+    private final Duration pendingAfter;
+    private final int batchSize;
+
+    @Autowired
+    public PendingUploadRepublisher(UploadRepository uploadRepository, KafkaProducerService kafkaProducerService,
+                                    JobLeases jobLeases,
+                                    @Value("${uploads.republish.pending-after-minutes:15}") long pendingAfterMinutes,
+                                    @Value("${uploads.republish.batch-size:100}") int batchSize) {
+        this.uploadRepository = uploadRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.jobLeases = jobLeases;
+        this.pendingAfter = Duration.ofMinutes(pendingAfterMinutes);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${uploads.republish.interval-ms:300000}",
+            initialDelayString = "${uploads.republish.interval-ms:300000}")
+    public void republishStalePending() {
+        // The lease outlives a run but not the pending period, so a dead node's lease expires in time
+        if (!jobLeases.tryAcquire(JOB_NAME, pendingAfter)) {
+            return;
+        }
+        try {
+            List<Uploads> stale = uploadRepository.findByUploadStatusAndUpdatedAtBeforeAndIsDeletedFalseOrderByUpdatedAt(
+                    UploadStatus.PENDING.name(), LocalDateTime.now().minus(pendingAfter), Limit.of(batchSize));
+            for (Uploads upload : stale) {
+                try {
+                    kafkaProducerService.await(kafkaProducerService.publishUploadCreated(new UploadCreatedEvent(
+                            upload.getIdentifier(), upload.getDataPathLink(), upload.getContentHash(),
+                            upload.getUploadedBy(), System.currentTimeMillis())));
+                } catch (RuntimeException ex) {
+                    logger.warn("Could not re-publish upload {}, will retry: {}", upload.getIdentifier(), ex.getMessage());
+                    // The broker is most likely down; the rest of the batch would fail the same way
+                    return;
+                }
+                uploadRepository.touchIfStatus(upload.getIdentifier(), UploadStatus.PENDING.name(), LocalDateTime.now());
+                logger.info("Re-published upload {}, pending since {}", upload.getIdentifier(), upload.getUpdatedAt());
+            }
+        } finally {
+            jobLeases.release(JOB_NAME);
+        }
+    }
+}
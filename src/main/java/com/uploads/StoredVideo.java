@@ -0,0 +1,37 @@
+package com.uploads;
+
+import java.nio.file.Path;
+
+/**
+ * A video that has been fully written to a staging file, along with the size and SHA-256 digest
+ * computed while it was written. {@link VideoStorageService#commitVideo} moves it to its
+ * content-addressed location.
+ */
+public class StoredVideo {
+    private final Path stagingFile;
+    private final String extension;
+    private final long size;
+    private final String sha256;
+
+    public StoredVideo(Path stagingFile, String extension, long size, String sha256) {
+        this.stagingFile = stagingFile;
+        this.extension = extension;
+        this.size = size;
+        this.sha256 = sha256;
+    }
+
+    public Path getStagingFile() { return stagingFile; }
+    public String getExtension() { return extension; }
+    public long getSize() { return size; }
+    public String getSha256() { return sha256; }
+
+    @Override
+    public String toString() {
+        return "StoredVideo{" +
+                "stagingFile='" + stagingFile + '\'' +
+                ", extension='" + extension + '\'' +
+                ", size=" + size +
+                ", sha256='" + sha256 + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+package com.uploads;
+
+import com.common.models.uploads.Uploads;
+import com.uploads.multipart.MultipartStreamReader;
+import com.uploads.payloads.response.UploadResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Ingests multipart uploads by parsing the request body as it arrives and writing the file part
+ * straight into the video directory. Unlike the servlet multipart support nothing is spooled to a
+ * container temp file first, so every byte hits the disk once.
+ */
+@Service
+public class StreamingIngestService {
+
+    private final VideoStorageService videoStorageService;
+    private final UploadService uploadService;
+    private final UploadMetrics uploadMetrics;
+    private final long maxFileSize;
+
+    @Autowired
+    public StreamingIngestService(VideoStorageService videoStorageService,
+                                  UploadService uploadService,
+                                  UploadMetrics uploadMetrics,
+                                  @Value("${uploads.streaming.max-file-size:10GB}") DataSize maxFileSize) {
+        this.videoStorageService = videoStorageService;
+        this.uploadService = uploadService;
+        this.uploadMetrics = uploadMetrics;
+        this.maxFileSize = maxFileSize.toBytes();
+    }
+
+    /**
+     * Stores the first file part of a multipart/form-data body and records the upload.
+     *
+     * @param contentType The request's Content-Type, which carries the multipart boundary.
+     * @param body        The raw request body.
+     * @param uploadedBy  The username of the uploader.
+     * @return The identifier, size and checksum of the stored video.
+     * @throws IOException If the body is malformed, too large or cannot be stored.
+     */
+    public UploadResult ingest(String contentType, InputStream body, String uploadedBy) throws IOException {
+        long started = System.nanoTime();
+        MultipartStreamReader reader = new MultipartStreamReader(body, boundary(contentType));
+        StoredVideo stored = null;
+        String originalFilename = null;
+
+        MultipartStreamReader.Part part;
+        while ((part = reader.nextPart()) != null) {
+            if (stored == null && part.getFileName() != null) {
+                originalFilename = part.getFileName();
+                stored = videoStorageService.storeVideo(part.getInputStream(), originalFilename,
+                        part.getContentType(), maxFileSize);
+            }
+            // Any other parts are skipped by nextPart()
+        }
+        if (stored == null) {
+            throw new IllegalArgumentException("Please select a file to upload.");
+        }
+        uploadMetrics.recordTransfer(UploadMetrics.STREAM, stored.getSize(), System.nanoTime() - started);
+        Uploads upload = uploadService.registerUpload(originalFilename, stored, uploadedBy);
+        uploadMetrics.recordUpload(UploadMetrics.STREAM, System.nanoTime() - started);
+        return new UploadResult(upload.getIdentifier(), "Video uploaded successfully!", stored.getSize(),
+                stored.getSha256());
+    }
+
+    private static String boundary(String contentType) {
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if (!MediaType.MULTIPART_FORM_DATA.includes(mediaType)) {
+                throw new IllegalArgumentException("Expected a multipart/form-data request");
+            }
+            String boundary = mediaType.getParameter("boundary");
+            if (boundary == null) {
+                throw new IllegalArgumentException("Multipart request has no boundary");
+            }
+            if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                boundary = boundary.substring(1, boundary.length() - 1);
+            }
+            return boundary;
+        } catch (InvalidMediaTypeException ex) {
+            throw new IllegalArgumentException("Invalid Content-Type: " + ex.getMessage());
+        }
+    }
+}
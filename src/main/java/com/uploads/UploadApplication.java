@@ -1,13 +1,18 @@
 package com.uploads;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+@SpringBootApplication(exclude = {
+        SecurityAutoConfiguration.class,
+        ManagementWebSecurityAutoConfiguration.class,
+})
 @ComponentScan(basePackages = {
         "com.uploads",
         "com.common",
@@ -17,6 +22,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
         "com.common",
 })
 @EnableJpaRepositories(basePackages = "com.common.models")
+@EnableScheduling
 public class UploadApplication {
 
     public static void main(String[] args) {
@@ -1,21 +1,37 @@
 package com.uploads;
 
+import com.uploads.payloads.request.InitiateChunkedUpload;
+import com.uploads.payloads.response.ChunkedUploadStatus;
+import com.uploads.payloads.response.UploadListPage;
+import com.uploads.payloads.response.UploadResult;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+
 
 @RestController
 @RequestMapping("/api/uploads")
 public class UploadController {
 
     private final UploadService uploadService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final StreamingIngestService streamingIngestService;
 
     @Autowired
-    public UploadController(UploadService uploadService) {
+    public UploadController(UploadService uploadService, ChunkedUploadService chunkedUploadService,
+                            StreamingIngestService streamingIngestService) {
         this.uploadService = uploadService;
+        this.chunkedUploadService = chunkedUploadService;
+        this.streamingIngestService = streamingIngestService;
     }
 
     @ResponseStatus(HttpStatus.OK)
@@ -24,6 +40,25 @@ public class UploadController {
         return "Upload Server Up and Running";
     }
 
+    /**
+     * Public catalog, newest first. Pass the returned nextCursor back to get the following page.
+     */
+    @GetMapping
+    public ResponseEntity<UploadListPage> listCatalog(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(this.uploadService.listCatalog(cursor, limit), HttpStatus.OK);
+    }
+
+    /**
+     * One user's public uploads, newest first. Pass the returned nextCursor back to get the following page.
+     */
+    @GetMapping("/users/{uploadedBy}")
+    public ResponseEntity<UploadListPage> listByUploader(@PathVariable String uploadedBy,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(this.uploadService.listByUploader(uploadedBy, cursor, limit), HttpStatus.OK);
+    }
+
     @PostMapping("/upload")
     public ResponseEntity<String> uploadVideo(@RequestParam("file") MultipartFile file) {
         if (file.isEmpty()) {
@@ -35,4 +70,86 @@ public class UploadController {
             return new ResponseEntity<>("An error occurred during upload", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @DeleteMapping("/{identifier}")
+    public ResponseEntity<String> deleteVideo(@PathVariable String identifier) throws IOException {
+        this.uploadService.deleteUpload(identifier, "test");
+        return new ResponseEntity<>("Video deleted", HttpStatus.OK);
+    }
+
+    /**
+     * Multipart upload that is parsed while it streams in rather than spooled to a temp file.
+     * Relies on spring.servlet.multipart.resolve-lazily so the container never parses this body.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UploadResult> streamUpload(HttpServletRequest request) throws IOException {
+        UploadResult result = this.streamingIngestService.ingest(
+                request.getContentType(), request.getInputStream(), "test");
+        return new ResponseEntity<>(result, HttpStatus.CREATED);
+    }
+
+    @PostMapping("/chunked")
+    public ResponseEntity<ChunkedUploadStatus> initiateChunkedUpload(@RequestBody InitiateChunkedUpload request)
+            throws IOException {
+        return new ResponseEntity<>(this.chunkedUploadService.initiate(request, "test"), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/chunked/{uploadId}")
+    public ResponseEntity<ChunkedUploadStatus> chunkedUploadStatus(@PathVariable String uploadId) {
+        return new ResponseEntity<>(this.chunkedUploadService.status(uploadId), HttpStatus.OK);
+    }
+
+    @PutMapping("/chunked/{uploadId}/chunks/{index}")
+    public ResponseEntity<ChunkedUploadStatus> uploadChunk(@PathVariable String uploadId,
+                                                           @PathVariable int index,
+                                                           InputStream body) throws IOException {
+        return new ResponseEntity<>(this.chunkedUploadService.writeChunk(uploadId, index, body), HttpStatus.OK);
+    }
+
+    @PostMapping("/chunked/{uploadId}/complete")
+    public ResponseEntity<ChunkedUploadStatus> completeChunkedUpload(@PathVariable String uploadId)
+            throws IOException {
+        return new ResponseEntity<>(this.chunkedUploadService.complete(uploadId), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/chunked/{uploadId}")
+    public ResponseEntity<String> abortChunkedUpload(@PathVariable String uploadId) throws IOException {
+        this.chunkedUploadService.abort(uploadId);
+        return new ResponseEntity<>("Upload aborted", HttpStatus.OK);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> handleUnknownUpload(NoSuchElementException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(ChunkedUploadConflictException.class)
+    public ResponseEntity<String> handleIncompleteUpload(ChunkedUploadConflictException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(SecurityException.class)
+    public ResponseEntity<String> handleForbidden(SecurityException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(UploadTooLargeException.class)
+    public ResponseEntity<String> handleTooLarge(UploadTooLargeException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler(EOFException.class)
+    public ResponseEntity<String> handleTruncatedChunk(EOFException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IOException.class)
+    public ResponseEntity<String> handleStorageFailure(IOException ex) {
+        return new ResponseEntity<>("An error occurred during upload", HttpStatus.INTERNAL_SERVER_ERROR);
+    }
 }
@@ -0,0 +1,49 @@
+package com.uploads;
+
+import com.common.models.uploads.UploadSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for upload listings: the (created_at, id) of the last row of a page,
+ * Base64url-encoded so clients pass it back verbatim.
+ */
+final class UploadCursor {
+
+    private static final char SEPARATOR = '|';
+
+    final LocalDateTime createdAt;
+    final long id;
+
+    private UploadCursor(LocalDateTime createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    static String encode(UploadSummary last) {
+        String raw = last.getCreatedAt().toString() + SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor A cursor previously returned by {@link #encode}.
+     * @return The decoded position.
+     * @throws IllegalArgumentException If the cursor is not one we issued.
+     */
+    static UploadCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new UploadCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.uploads;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest metrics, tagged by upload mode (multipart, stream or chunked).
+ * <ul>
+ *     <li>{@code uploads.received.bytes}: bytes written to staging; its rate is upload bytes/sec.</li>
+ *     <li>{@code uploads.transfer}: time to receive and stage one request body (a whole video, or
+ *     one chunk).</li>
+ *     <li>{@code uploads.throughput}: bytes/sec of each of those bodies, so slow clients show up
+ *     in the distribution instead of being averaged away.</li>
+ *     <li>{@code uploads.duration}: from the start of the upload until its row is saved; for
+ *     chunked uploads this spans every chunk request.</li>
+ * </ul>
+ * Single-request multipart bodies are buffered by the servlet container before the handler
+ * runs, so for them the transfer time covers staging only.
+ */
+@Component
+public class UploadMetrics {
+
+    public static final String MULTIPART = "multipart";
+    public static final String STREAM = "stream";
+    public static final String CHUNKED = "chunked";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public UploadMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records one request body written to staging.
+     *
+     * @param mode         The upload mode.
+     * @param bytes        The number of bytes received.
+     * @param elapsedNanos The time taken to receive and stage them.
+     */
+    public void recordTransfer(String mode, long bytes, long elapsedNanos) {
+        Counter.builder("uploads.received.bytes")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .increment(bytes);
+        Timer.builder("uploads.transfer")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (elapsedNanos > 0) {
+            DistributionSummary.builder("uploads.throughput")
+                    .baseUnit("bytes/s")
+                    .tag("mode", mode)
+                    .register(meterRegistry)
+                    .record(bytes * 1e9 / elapsedNanos);
+        }
+    }
+
+    /**
+     * Records a finished upload.
+     *
+     * @param mode         The upload mode.
+     * @param elapsedNanos The time from the start of the upload until its row was saved.
+     */
+    public void recordUpload(String mode, long elapsedNanos) {
+        Timer.builder("uploads.duration")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,219 @@
+package com.uploads;
+
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.kafka.events.UploadCreatedEvent;
+import com.common.models.uploads.UploadRepository;
+import com.common.models.uploads.UploadStatus;
+import com.common.models.uploads.UploadSummary;
+import com.common.models.uploads.Uploads;
+import com.uploads.payloads.response.UploadListItem;
+import com.uploads.payloads.response.UploadListPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+@Service
+public class UploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
+
+    private final VideoStorageService videoStorageService;
+    private final UploadRepository uploadRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final UploadMetrics uploadMetrics;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    @Autowired
+    public UploadService(VideoStorageService videoStorageService, UploadRepository uploadRepository,
+                         KafkaProducerService kafkaProducerService, UploadMetrics uploadMetrics,
+                         @Value("${uploads.listing.default-page-size:20}") int defaultPageSize,
+                         @Value("${uploads.listing.max-page-size:100}") int maxPageSize) {
+        this.videoStorageService = videoStorageService;
+        this.uploadRepository = uploadRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.uploadMetrics = uploadMetrics;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Stores a single-request upload and records it in the uploads table.
+     *
+     * @param file       The uploaded multipart file.
+     * @param uploadedBy The username of the uploader.
+     * @return true if the file was stored and recorded, false otherwise.
+     */
+    public boolean uploadVideo(MultipartFile file, String uploadedBy) {
+        long started = System.nanoTime();
+        try {
+            StoredVideo stored = videoStorageService.storeVideo(
+                    file.getInputStream(), file.getOriginalFilename(), file.getContentType());
+            uploadMetrics.recordTransfer(UploadMetrics.MULTIPART, stored.getSize(), System.nanoTime() - started);
+            registerUpload(file.getOriginalFilename(), stored, uploadedBy);
+            uploadMetrics.recordUpload(UploadMetrics.MULTIPART, System.nanoTime() - started);
+            return true;
+        } catch (IOException ex) {
+            logger.error("Failed to store upload {}: {}", file.getOriginalFilename(), ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Commits a staged video to content-addressed storage and records it in the uploads table.
+     * If an identical video is already stored, the new row shares its blob. Once the row is saved
+     * an upload-created event is published (asynchronously) for the processing workers, and an
+     * upload-changed event for the streamers' lookup caches.
+     *
+     * @param originalFilename The client's file name, used as the display name.
+     * @param stored           The staged video as written by {@link VideoStorageService}.
+     * @param uploadedBy       The username of the uploader.
+     * @return The saved Upload entity.
+     * @throws IOException If the video cannot be moved into storage.
+     */
+    public Uploads registerUpload(String originalFilename, StoredVideo stored, String uploadedBy) throws IOException {
+        try {
+            return commitUpload(originalFilename, stored, uploadedBy);
+        } catch (IOException | RuntimeException ex) {
+            videoStorageService.discardUpload(stored.getStagingFile());
+            throw ex;
+        }
+    }
+
+    /**
+     * Like {@link #registerUpload}, but if it fails the staged file is kept, so a resumable
+     * upload can be completed again.
+     *
+     * @param originalFilename The client's file name, used as the display name.
+     * @param stored           The staged video as written by {@link VideoStorageService}.
+     * @param uploadedBy       The username of the uploader.
+     * @return The saved Upload entity.
+     * @throws IOException If the video cannot be moved into storage.
+     */
+    public Uploads commitUpload(String originalFilename, StoredVideo stored, String uploadedBy) throws IOException {
+        String name = StringUtils.hasText(originalFilename) ? originalFilename : stored.getSha256();
+        Uploads saved = videoStorageService.commitVideo(stored, blobKey -> {
+            Uploads upload = new Uploads(name, UUID.randomUUID().toString(), uploadedBy,
+                    UploadStatus.PENDING.name(), false, blobKey, null, false);
+            upload.setContentHash(stored.getSha256());
+            // The blob is content-addressed and never rewritten, so its digest is a strong validator
+            upload.setEtag("\"" + stored.getSha256() + "\"");
+            upload.setContentLength(stored.getSize());
+            return uploadRepository.saveAndFlush(upload);
+        });
+        kafkaProducerService.publishUploadCreated(new UploadCreatedEvent(saved.getIdentifier(),
+                saved.getDataPathLink(), saved.getContentHash(), saved.getUploadedBy(), System.currentTimeMillis()))
+                .whenComplete((result, ex) -> {
+                    // Already counted as a failed kafka.produce; this says what it means for the upload
+                    if (ex != null) {
+                        logger.error("Upload {} was not handed to the processing workers; it stays {} until "
+                                + "PendingUploadRepublisher publishes it again", saved.getIdentifier(), UploadStatus.PENDING);
+                    }
+                });
+        // Streamers may have cached "not found" for this identifier
+        kafkaProducerService.publishUploadChanged(new UploadChangedEvent(saved.getIdentifier(), "CREATED",
+                System.currentTimeMillis()));
+        return saved;
+    }
+
+    /**
+     * Soft-deletes an upload and frees its blob if no other live upload shares it.
+     *
+     * @param identifier  The unique string identifier of the upload.
+     * @param requestedBy The username asking for the deletion; must be the uploader.
+     * @throws IOException If the blob cannot be deleted.
+     */
+    public void deleteUpload(String identifier, String requestedBy) throws IOException {
+        Uploads upload = uploadRepository.findByIdentifier(identifier)
+                .filter(u -> !Boolean.TRUE.equals(u.getIsDeleted()))
+                .orElseThrow(() -> new NoSuchElementException("Unknown upload " + identifier));
+        if (!upload.getUploadedBy().equals(requestedBy)) {
+            throw new SecurityException("Only the uploader can delete this video");
+        }
+        upload.setIsDeleted(true);
+        uploadRepository.save(upload);
+        kafkaProducerService.publishUploadChanged(new UploadChangedEvent(identifier, "DELETED",
+                System.currentTimeMillis()));
+
+        String contentHash = upload.getContentHash();
+        String blobKey = upload.getDataPathLink();
+        boolean released = videoStorageService.releaseVideo(blobKey, contentHash,
+                () -> uploadRepository.existsByContentHashAndDataPathLinkAndIsDeletedFalse(contentHash, blobKey));
+        logger.info("Deleted upload {} (blob {})", identifier, released ? "released" : "still shared");
+    }
+
+    /**
+     * Lists the public catalog, newest first.
+     *
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param limit  The requested page size, or null for the default; clamped to the configured maximum.
+     * @return One page of uploads.
+     * @throws IllegalArgumentException If the cursor is malformed.
+     */
+    public UploadListPage listCatalog(String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        List<UploadSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = uploadRepository.findCatalogPage(fetch);
+        } else {
+            UploadCursor after = UploadCursor.decode(cursor);
+            rows = uploadRepository.findCatalogPageAfter(after.createdAt, after.id, fetch);
+        }
+        return toPage(rows, pageSize);
+    }
+
+    /**
+     * Lists one user's public uploads, newest first. Hidden uploads are left out: the upload
+     * service does not authenticate requests, so it cannot tell the uploader from anyone else.
+     *
+     * @param uploadedBy The uploader's username.
+     * @param cursor     The nextCursor of the previous page, or null for the first page.
+     * @param limit      The requested page size, or null for the default; clamped to the configured maximum.
+     * @return One page of uploads.
+     * @throws IllegalArgumentException If the cursor is malformed.
+     */
+    public UploadListPage listByUploader(String uploadedBy, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        List<UploadSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = uploadRepository.findPublicUploaderPage(uploadedBy, fetch);
+        } else {
+            UploadCursor after = UploadCursor.decode(cursor);
+            rows = uploadRepository.findPublicUploaderPageAfter(uploadedBy, after.createdAt, after.id, fetch);
+        }
+        return toPage(rows, pageSize);
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    private static UploadListPage toPage(List<UploadSummary> rows, int pageSize) {
+        // One extra row was fetched only to learn whether another page exists
+        boolean hasMore = rows.size() > pageSize;
+        List<UploadSummary> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<UploadListItem> items = new ArrayList<>(page.size());
+        for (UploadSummary row : page) {
+            items.add(new UploadListItem(row.getIdentifier(), row.getName(), row.getThumbnailLink(), row.getCreatedAt()));
+        }
+        String nextCursor = hasMore ? UploadCursor.encode(page.get(page.size() - 1)) : null;
+        return new UploadListPage(items, nextCursor);
+    }
+}
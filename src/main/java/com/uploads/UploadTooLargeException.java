@@ -0,0 +1,13 @@
+package com.uploads;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an upload streams past its configured size limit. The partial file is removed
+ * before this is thrown.
+ */
+public class UploadTooLargeException extends IOException {
+    public UploadTooLargeException(String message) {
+        super(message);
+    }
+}
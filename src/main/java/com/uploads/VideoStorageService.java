@@ -1,56 +1,117 @@
 package com.uploads;
 
 
+import com.common.media.SegmentLayout;
+import com.common.models.locks.BlobLocks;
+import com.common.storage.BlobStorage;
+import com.common.storage.TieredBlobStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 
+/**
+ * Content-addressed video storage.
+ * <p>
+ * Uploads are first written to a local staging file in {@code .parts} while their SHA-256 digest
+ * is computed, then committed to {@link BlobStorage} under
+ * {@code <first two hex chars>/<sha256><ext>}. If a blob with the same key already exists the
+ * staged copy is dropped and the new upload shares the existing blob. The blob key is what gets
+ * stored in {@code Uploads.dataPathLink}. The extension stays in the key so the streamer can
+ * infer the content type; the same bytes uploaded as {@code .mp4} and {@code .mov} are therefore
+ * two blobs, and references are counted per key, not per digest.
+ * <p>
+ * Commits and releases of the same digest are serialised through {@link BlobLocks}, a database
+ * row lock shared by every node and by the tiering job, so a blob can never be deleted between
+ * another upload deciding to share it and that upload's row being saved.
+ */
 @Service
 public class VideoStorageService {
 
-    private final Path fileStorageLocation;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
-    public VideoStorageService() {
-        String uploadDir = "uploads/videos";
-        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    private final BlobStorage blobStorage;
+    private final Path partStorageLocation;
+    private final BlobLocks blobLocks;
+
+    @Autowired
+    public VideoStorageService(BlobStorage blobStorage, BlobLocks blobLocks,
+                               @Value("${uploads.storage.dir:uploads/videos}") String uploadDir) {
+        this.blobStorage = blobStorage;
+        this.blobLocks = blobLocks;
+        // Kept inside the storage directory so the local backend can rename staged files into place atomically
+        this.partStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(".parts");
         try {
-            Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.partStorageLocation);
         } catch (Exception ex) {
             throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
         }
     }
 
-    public List<String> storeVideo(InputStream inputStream, String originalFilename, String contentType) throws IOException {
-        String fileName = StringUtils.cleanPath(originalFilename);
-
-        // Generate a unique file name to prevent overwrites and provide security
-        String fileExtension = "";
-        int dotIndex = fileName.lastIndexOf('.');
-        if (dotIndex > 0 && dotIndex < fileName.length() - 1) {
-            fileExtension = fileName.substring(dotIndex);
-        }
-        String uniqueFileName = UUID.randomUUID() + fileExtension;
+    public StoredVideo storeVideo(InputStream inputStream, String originalFilename, String contentType) throws IOException {
+        return storeVideo(inputStream, originalFilename, contentType, Long.MAX_VALUE);
+    }
 
+    /**
+     * Streams a video into a staging file, computing its size and SHA-256 digest on the way
+     * through so the bytes are written exactly once. The result must be passed to
+     * {@link #commitVideo} to become visible.
+     *
+     * @param inputStream      The video bytes; closed when this method returns.
+     * @param originalFilename The client's file name, used for the extension.
+     * @param contentType      The client's content type.
+     * @param maxBytes         The largest accepted video; anything larger is discarded.
+     * @return The staged video.
+     * @throws IOException If the stream fails, the write fails or the video exceeds maxBytes.
+     */
+    public StoredVideo storeVideo(InputStream inputStream, String originalFilename, String contentType,
+                                  long maxBytes) throws IOException {
+        Path stagingFile = partFile(UUID.randomUUID().toString());
         try {
-            if (uniqueFileName.contains("..")) {
-                throw new IOException("Filename contains invalid path sequence " + uniqueFileName);
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(stagingFile,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new UploadTooLargeException("Upload exceeds the limit of " + maxBytes + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
             }
-
-            Path targetLocation = this.fileStorageLocation.resolve(uniqueFileName);
-
-            // Use Files.copy for efficient streaming directly from InputStream to File
-            // StandardCopyOption.REPLACE_EXISTING ensures if a file with the same name exists, it's replaced
-            Files.copy(inputStream, targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            return List.of(uniqueFileName, targetLocation.toString());
+            return new StoredVideo(stagingFile, extension(originalFilename), size,
+                    HexFormat.of().formatHex(digest.digest()));
+        } catch (UploadTooLargeException | EOFException ex) {
+            // Client-side problems are reported as-is rather than as a storage failure
+            Files.deleteIfExists(stagingFile);
+            throw ex;
         } catch (IOException ex) {
+            Files.deleteIfExists(stagingFile);
             throw new IOException("Could not store file " + originalFilename + ". Please try again!", ex);
         } finally {
             // Ensure the input stream is closed, although Spring typically handles this for MultipartFile
@@ -59,4 +120,177 @@ public class VideoStorageService {
             }
         }
     }
+
+    /**
+     * Creates the part file for a chunked upload, preallocated to its final size so chunks can be
+     * written at their offsets in any order.
+     *
+     * @param uploadId  The chunked upload session id.
+     * @param totalSize The final size of the file in bytes.
+     * @return The path of the part file.
+     * @throws IOException If the file cannot be created.
+     */
+    public Path allocateUpload(String uploadId, long totalSize) throws IOException {
+        Path partFile = partFile(uploadId);
+        try (RandomAccessFile file = new RandomAccessFile(partFile.toFile(), "rw")) {
+            file.setLength(totalSize);
+        }
+        return partFile;
+    }
+
+    /**
+     * Writes one chunk of a chunked upload at its offset in the part file.
+     *
+     * @param partFile    The part file returned by {@link #allocateUpload}.
+     * @param offset      The byte offset of the chunk within the file.
+     * @param length      The exact number of bytes the chunk must contain.
+     * @param inputStream The chunk body.
+     * @throws IOException If the body is shorter than expected or the write fails.
+     * @throws IllegalArgumentException If the body is longer than expected.
+     */
+    public void writeChunk(Path partFile, long offset, long length, InputStream inputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(inputStream)) {
+            long written = 0;
+            while (written < length) {
+                long transferred = channel.transferFrom(source, offset + written, length - written);
+                if (transferred <= 0) {
+                    throw new EOFException("Chunk ended after " + written + " of " + length + " bytes");
+                }
+                written += transferred;
+            }
+            if (inputStream.read() != -1) {
+                throw new IllegalArgumentException("Chunk is larger than the expected " + length + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Turns a fully written part file into a staged video. Chunks arrive out of order, so the
+     * digest is computed here with one sequential read; nothing is rewritten.
+     *
+     * @param partFile         The part file returned by {@link #allocateUpload}.
+     * @param originalFilename The client's file name, used for the extension.
+     * @return The staged video, ready for {@link #commitVideo}.
+     * @throws IOException If the part file cannot be read.
+     */
+    public StoredVideo completeUpload(Path partFile, String originalFilename) throws IOException {
+        MessageDigest digest = sha256();
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                size += buffer.remaining();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return new StoredVideo(partFile, extension(originalFilename), size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Moves a staged video to its content-addressed key, or drops it if an identical blob
+     * already exists. {@code register} runs first, with the blob key, in the transaction of the
+     * digest's lock: if it fails the staged file is left untouched, and if storing the blob fails
+     * the lock's transaction rolls the row back. Either way the staged file can be committed again.
+     *
+     * @param staged   The staged video from {@link #storeVideo} or {@link #completeUpload}.
+     * @param register Persists the upload row pointing at the blob key; must flush it, so database
+     *                 errors surface before the blob is stored.
+     * @param <T>      The result of {@code register}.
+     * @return The result of {@code register}.
+     * @throws IOException If the staged file cannot be stored.
+     */
+    public <T> T commitVideo(StoredVideo staged, Function<String, T> register) throws IOException {
+        String hotKey = blobKey(staged.getSha256(), staged.getExtension());
+        return blobLocks.withLock(staged.getSha256(), () -> {
+            String blobKey = hotKey;
+            boolean create = false;
+            if (blobStorage.exists(blobKey)) {
+                // Shared below
+            } else if (blobStorage instanceof TieredBlobStorage
+                    && blobStorage.exists(TieredBlobStorage.coldKey(blobKey))) {
+                // Share the demoted copy; it is promoted again once it gets played
+                blobKey = TieredBlobStorage.coldKey(blobKey);
+            } else {
+                create = true;
+            }
+            T registered = register.apply(blobKey);
+            if (create) {
+                blobStorage.put(blobKey, staged.getStagingFile());
+            } else {
+                Files.deleteIfExists(staged.getStagingFile());
+            }
+            return registered;
+        });
+    }
+
+    /**
+     * Deletes a blob, and the streaming segments generated from it, once nothing references it
+     * any more. {@code stillReferenced} is evaluated under the digest's lock, after the caller
+     * has already soft-deleted its own row.
+     *
+     * @param blobKey         The blob key stored in the upload row.
+     * @param sha256          The blob's digest, or null for files stored before deduplication.
+     * @param stillReferenced Whether any live upload still points at the blob key.
+     * @return true if the blob was deleted.
+     * @throws IOException If the blob cannot be deleted.
+     */
+    public boolean releaseVideo(String blobKey, String sha256, BooleanSupplier stillReferenced) throws IOException {
+        if (sha256 == null) {
+            // Pre-deduplication files were never shared
+            return deleteBlob(blobKey);
+        }
+        return blobLocks.withLock(sha256, () -> !stillReferenced.getAsBoolean() && deleteBlob(blobKey));
+    }
+
+    private boolean deleteBlob(String blobKey) throws IOException {
+        blobStorage.deleteDirectory(SegmentLayout.segmentDirectoryKey(blobKey));
+        blobStorage.delete(blobKey);
+        return true;
+    }
+
+    /**
+     * Removes the staging or part file of an abandoned upload.
+     *
+     * @param partFile The file to delete.
+     * @throws IOException If the file exists but cannot be deleted.
+     */
+    public void discardUpload(Path partFile) throws IOException {
+        Files.deleteIfExists(partFile);
+    }
+
+    private static String blobKey(String sha256, String extension) {
+        return sha256.substring(0, 2) + "/" + sha256 + extension;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private Path partFile(String uploadId) throws IOException {
+        if (!uploadId.matches("[A-Za-z0-9-]+")) {
+            throw new IOException("Upload id contains invalid characters " + uploadId);
+        }
+        return this.partStorageLocation.resolve(uploadId + ".part");
+    }
+
+    /**
+     * Keeps a short alphanumeric extension so the streamer can still infer the content type;
+     * anything else is dropped rather than trusted in a path.
+     */
+    private static String extension(String originalFilename) {
+        String fileName = StringUtils.cleanPath(originalFilename == null ? "" : originalFilename);
+        String fileExtension = StringUtils.getFilenameExtension(fileName);
+        if (fileExtension == null) {
+            return "";
+        }
+        fileExtension = fileExtension.toLowerCase(Locale.ROOT);
+        return fileExtension.matches("[a-z0-9]{1,10}") ? "." + fileExtension : "";
+    }
 }
@@ -0,0 +1,303 @@
+package com.uploads.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Incremental multipart/form-data parser over a raw request body.
+ * <p>
+ * Parts are handed out one at a time as {@link InputStream}s that read straight off the
+ * request, so a part can be written to its final destination while it is still arriving.
+ * Nothing is buffered beyond a small fixed window used to spot the boundary.
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    private boolean eof;
+    private boolean finished;
+    private PartInputStream current;
+
+    /**
+     * @param in       The raw request body.
+     * @param boundary The boundary parameter of the request's Content-Type.
+     */
+    public MultipartStreamReader(InputStream in, String boundary) {
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new IllegalArgumentException("Invalid multipart boundary");
+        }
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // Pretend the body starts with CRLF so the opening boundary matches the delimiter too
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.tail = 2;
+        // Anything before the first boundary is preamble and is skipped like a part body
+        this.current = new PartInputStream();
+    }
+
+    /**
+     * Advances to the next part, skipping whatever is left of the current one.
+     *
+     * @return The next part, or null once the closing boundary has been read.
+     * @throws IOException If the body is malformed or ends early.
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.skipRemaining();
+
+        ensure(2);
+        if (tail - head >= 2 && buffer[head] == '-' && buffer[head + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        // Transport padding is allowed between the boundary and its CRLF
+        while (true) {
+            ensure(1);
+            if (tail == head) {
+                throw new EOFException("Multipart body ended inside a boundary line");
+            }
+            if (buffer[head] == ' ' || buffer[head] == '\t') {
+                head++;
+            } else {
+                break;
+            }
+        }
+        expectCrlf();
+
+        Map<String, String> headers = readHeaders();
+        current = new PartInputStream();
+        return new Part(headers, current);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        int consumed = 0;
+        while (true) {
+            String line = readLine(MAX_HEADER_BYTES - consumed);
+            consumed += line.length() + 2;
+            if (line.isEmpty()) {
+                return headers;
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new IOException("Malformed multipart header line");
+            }
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+    }
+
+    private String readLine(int limit) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            ensure(2);
+            if (tail - head < 2) {
+                throw new EOFException("Multipart body ended inside part headers");
+            }
+            if (buffer[head] == '\r' && buffer[head + 1] == '\n') {
+                head += 2;
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            line.write(buffer[head++]);
+            if (line.size() > limit) {
+                throw new IOException("Multipart part headers are too large");
+            }
+        }
+    }
+
+    private void expectCrlf() throws IOException {
+        ensure(2);
+        if (tail - head < 2 || buffer[head] != '\r' || buffer[head + 1] != '\n') {
+            throw new IOException("Malformed multipart boundary line");
+        }
+        head += 2;
+    }
+
+    /** Reads until at least {@code count} bytes are buffered or the body is exhausted. */
+    private void ensure(int count) throws IOException {
+        while (tail - head < count && !eof) {
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        int read = in.read(buffer, tail, buffer.length - tail);
+        if (read < 0) {
+            eof = true;
+        } else {
+            tail += read;
+        }
+    }
+
+    private int indexOfDelimiter() {
+        int last = tail - delimiter.length;
+        outer:
+        for (int i = head; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Body of a single part. Ends (returns -1) at the next boundary, which it consumes.
+     */
+    private final class PartInputStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int idx = indexOfDelimiter();
+                if (idx >= 0) {
+                    int available = idx - head;
+                    if (available == 0) {
+                        head = idx + delimiter.length;
+                        done = true;
+                        return -1;
+                    }
+                    return copyOut(b, off, Math.min(len, available));
+                }
+                // Bytes that cannot be the start of a delimiter are safe to hand out
+                int safe = tail - head - (delimiter.length - 1);
+                if (safe > 0) {
+                    return copyOut(b, off, Math.min(len, safe));
+                }
+                if (eof) {
+                    throw new EOFException("Multipart body ended before the closing boundary");
+                }
+                fill();
+            }
+        }
+
+        private int copyOut(byte[] b, int off, int count) {
+            System.arraycopy(buffer, head, b, off, count);
+            head += count;
+            return count;
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] scratch = new byte[8192];
+            while (read(scratch, 0, scratch.length) >= 0) {
+                // discard
+            }
+        }
+
+        @Override
+        public void close() {
+            // The request body is owned by the reader; closing a part does not close it
+        }
+    }
+
+    /**
+     * A part's headers plus a stream over its body.
+     */
+    public static final class Part {
+        private final Map<String, String> headers;
+        private final InputStream body;
+        private final Map<String, String> disposition;
+
+        private Part(Map<String, String> headers, InputStream body) {
+            this.headers = headers;
+            this.body = body;
+            this.disposition = parseDisposition(headers.get("content-disposition"));
+        }
+
+        /** @return The form field name, or null if the part has none. */
+        public String getName() {
+            return disposition.get("name");
+        }
+
+        /** @return The client's file name, or null if this is a plain form field. */
+        public String getFileName() {
+            return disposition.get("filename");
+        }
+
+        public String getContentType() {
+            return headers.get("content-type");
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        public InputStream getInputStream() {
+            return body;
+        }
+
+        private static Map<String, String> parseDisposition(String value) {
+            Map<String, String> params = new LinkedHashMap<>();
+            if (value == null) {
+                return params;
+            }
+            int i = value.indexOf(';');
+            while (i >= 0 && i < value.length()) {
+                int eq = value.indexOf('=', i + 1);
+                if (eq < 0) {
+                    break;
+                }
+                String key = value.substring(i + 1, eq).trim().toLowerCase(Locale.ROOT);
+                int start = eq + 1;
+                String param;
+                int next;
+                if (start < value.length() && value.charAt(start) == '"') {
+                    StringBuilder quoted = new StringBuilder();
+                    int j = start + 1;
+                    while (j < value.length() && value.charAt(j) != '"') {
+                        char c = value.charAt(j);
+                        if (c == '\\' && j + 1 < value.length()) {
+                            c = value.charAt(++j);
+                        }
+                        quoted.append(c);
+                        j++;
+                    }
+                    param = quoted.toString();
+                    next = value.indexOf(';', j);
+                } else {
+                    next = value.indexOf(';', start);
+                    param = (next < 0 ? value.substring(start) : value.substring(start, next)).trim();
+                }
+                params.putIfAbsent(key, param);
+                i = next;
+            }
+            return params;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.uploads.payloads.request;
+
+public class InitiateChunkedUpload {
+    private String fileName;
+    private long totalSize;
+    private Integer chunkSize;
+
+    // Constructors
+    public InitiateChunkedUpload() {
+    }
+
+    public InitiateChunkedUpload(String fileName, long totalSize, Integer chunkSize) {
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    // Setters
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
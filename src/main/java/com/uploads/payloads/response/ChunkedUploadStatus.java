@@ -0,0 +1,85 @@
+package com.uploads.payloads.response;
+
+import java.util.List;
+
+public class ChunkedUploadStatus {
+    private String uploadId;
+    private long totalSize;
+    private int chunkSize;
+    private int chunkCount;
+    private List<Integer> receivedChunks;
+    private int nextChunk;
+    private String identifier;
+
+    // Constructors
+    public ChunkedUploadStatus() {
+    }
+
+    public ChunkedUploadStatus(String uploadId, long totalSize, int chunkSize, int chunkCount,
+                               List<Integer> receivedChunks, int nextChunk, String identifier) {
+        this.uploadId = uploadId;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.chunkCount = chunkCount;
+        this.receivedChunks = receivedChunks;
+        this.nextChunk = nextChunk;
+        this.identifier = identifier;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public List<Integer> getReceivedChunks() {
+        return receivedChunks;
+    }
+
+    public int getNextChunk() {
+        return nextChunk;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    // Setters
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public void setReceivedChunks(List<Integer> receivedChunks) {
+        this.receivedChunks = receivedChunks;
+    }
+
+    public void setNextChunk(int nextChunk) {
+        this.nextChunk = nextChunk;
+    }
+
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+}
@@ -0,0 +1,55 @@
+package com.uploads.payloads.response;
+
+import java.time.LocalDateTime;
+
+public class UploadListItem {
+    private String identifier;
+    private String name;
+    private String thumbnailLink;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public UploadListItem() {
+    }
+
+    public UploadListItem(String identifier, String name, String thumbnailLink, LocalDateTime createdAt) {
+        this.identifier = identifier;
+        this.name = name;
+        this.thumbnailLink = thumbnailLink;
+        this.createdAt = createdAt;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getThumbnailLink() {
+        return thumbnailLink;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    // Setters
+
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setThumbnailLink(String thumbnailLink) {
+        this.thumbnailLink = thumbnailLink;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
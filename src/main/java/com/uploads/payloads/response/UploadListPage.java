@@ -0,0 +1,35 @@
+package com.uploads.payloads.response;
+
+import java.util.List;
+
+public class UploadListPage {
+    private List<UploadListItem> items;
+    private String nextCursor; // null on the last page
+
+    // Constructors
+    public UploadListPage() {
+    }
+
+    public UploadListPage(List<UploadListItem> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UploadListItem> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    // Setters
+
+    public void setItems(List<UploadListItem> items) {
+        this.items = items;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,52 @@
+package com.uploads.payloads.response;
+
+public class UploadResult {
+    private String identifier;
+    private String message;
+    private long size;
+    private String sha256;
+
+    // Constructors
+    public UploadResult() {
+    }
+
+    public UploadResult(String identifier, String message, long size, String sha256) {
+        this.identifier = identifier;
+        this.message = message;
+        this.size = size;
+        this.sha256 = sha256;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    // Setters
+    public void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+}
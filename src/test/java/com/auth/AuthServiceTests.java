@@ -0,0 +1,133 @@
+package com.auth;
+
+import com.auth.components.JwtUtil;
+import com.auth.components.LoginThrottle;
+import com.auth.components.PasswordHashingService;
+import com.auth.payloads.request.NewUser;
+import com.auth.payloads.request.UserLogin;
+import com.auth.revocation.TokenRevocationStore;
+import com.common.models.user.User;
+import com.common.models.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTests {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final PasswordHashingService passwordHashingService = mock(PasswordHashingService.class);
+	private final JwtUtil jwtUtil = mock(JwtUtil.class);
+	private final LoginThrottle loginThrottle = new LoginThrottle(2, 50, 15, 1000);
+	private final AuthService authService = new AuthService(userRepository, passwordHashingService,
+			mock(TokenRevocationStore.class), loginThrottle, jwtUtil);
+
+	@Test
+	void wrongPasswordsUseUpTheAccountsAttempts() {
+		when(userRepository.findByUsername("alice")).thenReturn(user("alice", "hash"));
+		when(passwordHashingService.matches(any(), anyString())).thenReturn(CompletableFuture.completedFuture(false));
+
+		for (int i = 0; i < 2; i++) {
+			CompletionException ex = assertThrows(CompletionException.class,
+					() -> authService.login(new UserLogin("alice", "wrong", null), "10.0.0.1").join());
+			assertInstanceOf(BadCredentialsException.class, ex.getCause());
+		}
+		assertThrows(LoginThrottledException.class,
+				() -> authService.login(new UserLogin("alice", "secret", null), "10.0.0.1"));
+	}
+
+	@Test
+	void refusedHashingGivesTheAttemptBack() {
+		when(userRepository.findByUsername("alice")).thenReturn(user("alice", "hash"));
+		when(passwordHashingService.matches(any(), anyString()))
+				.thenThrow(new HashingCapacityExceededException("busy"));
+
+		for (int i = 0; i < 5; i++) {
+			assertThrows(HashingCapacityExceededException.class,
+					() -> authService.login(new UserLogin("alice", "secret", null), "10.0.0.1"));
+		}
+		loginThrottle.reserve("alice", "10.0.0.1");
+	}
+
+	@Test
+	void successfulLoginClearsEarlierFailures() {
+		when(userRepository.findByUsername("alice")).thenReturn(user("alice", "hash"));
+		when(passwordHashingService.matches("wrong", "hash")).thenReturn(CompletableFuture.completedFuture(false));
+		when(passwordHashingService.matches("secret", "hash")).thenReturn(CompletableFuture.completedFuture(true));
+		when(jwtUtil.generateToken("alice")).thenReturn("token");
+
+		assertThrows(CompletionException.class,
+				() -> authService.login(new UserLogin("alice", "wrong", null), "10.0.0.1").join());
+		assertEquals("token", authService.login(new UserLogin("alice", "secret", null), "10.0.0.1").join());
+
+		loginThrottle.reserve("alice", "10.0.0.1");
+		loginThrottle.reserve("alice", "10.0.0.1");
+	}
+
+	@Test
+	void savesNewUsersOffTheHashingPool() {
+		AtomicReference<Thread> savedOn = new AtomicReference<>();
+		when(passwordHashingService.encode("secret")).thenReturn(CompletableFuture.completedFuture("hash"));
+		when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+			savedOn.set(Thread.currentThread());
+			return invocation.getArgument(0);
+		});
+
+		User saved = authService.createUser(new NewUser("alice", "alice@example.com", "secret")).join();
+
+		assertEquals("hash", saved.getPassword());
+		assertTrue(savedOn.get().isVirtual());
+	}
+
+	@Test
+	void rehashesOutdatedHashesAndSavesThemOffTheHashingPool() {
+		User alice = user("alice", "old");
+		AtomicReference<Thread> savedOn = new AtomicReference<>();
+		when(userRepository.findByUsername("alice")).thenReturn(alice);
+		when(passwordHashingService.matches("secret", "old")).thenReturn(CompletableFuture.completedFuture(true));
+		when(passwordHashingService.needsRehash("old")).thenReturn(true);
+		when(passwordHashingService.encode("secret")).thenReturn(CompletableFuture.completedFuture("new"));
+		when(userRepository.save(alice)).thenAnswer(invocation -> {
+			savedOn.set(Thread.currentThread());
+			return alice;
+		});
+		when(jwtUtil.generateToken("alice")).thenReturn("token");
+
+		assertEquals("token", authService.login(new UserLogin("alice", "secret", null), "10.0.0.1").join());
+
+		assertEquals("new", alice.getPassword());
+		assertTrue(savedOn.get().isVirtual());
+	}
+
+	@Test
+	void aFullHashingPoolLeavesTheOldHashForALaterLogin() {
+		User alice = user("alice", "old");
+		when(userRepository.findByUsername("alice")).thenReturn(alice);
+		when(passwordHashingService.matches("secret", "old")).thenReturn(CompletableFuture.completedFuture(true));
+		when(passwordHashingService.needsRehash("old")).thenReturn(true);
+		when(passwordHashingService.encode("secret")).thenThrow(new HashingCapacityExceededException("busy"));
+		when(jwtUtil.generateToken("alice")).thenReturn("token");
+
+		assertEquals("token", authService.login(new UserLogin("alice", "secret", null), "10.0.0.1").join());
+
+		assertEquals("old", alice.getPassword());
+		verify(userRepository, never()).save(any());
+	}
+
+	private static User user(String username, String hash) {
+		User user = new User();
+		user.setUsername(username);
+		user.setPassword(hash);
+		return user;
+	}
+}
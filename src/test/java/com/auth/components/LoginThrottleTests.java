@@ -0,0 +1,94 @@
+package com.auth.components;
+
+import com.auth.LoginThrottledException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTests {
+
+	private final LoginThrottle throttle = new LoginThrottle(3, 10, 15, 1000);
+
+	@Test
+	void failedAttemptsKeepTheirReservation() {
+		for (int i = 0; i < 3; i++) {
+			throttle.reserve("alice", "10.0.0.1");
+		}
+
+		LoginThrottledException ex = assertThrows(LoginThrottledException.class,
+				() -> throttle.reserve("Alice", "10.0.0.2"));
+		assertEquals(15 * 60, ex.getRetryAfterSeconds());
+	}
+
+	@Test
+	void successClearsTheAccountAndGivesTheAddressAttemptBack() {
+		LoginThrottle throttle = new LoginThrottle(3, 3, 15, 1000);
+		throttle.reserve("alice", "10.0.0.1");
+		throttle.reserve("alice", "10.0.0.1");
+		throttle.reserve("alice", "10.0.0.1");
+		throttle.recordSuccess("alice", "10.0.0.1");
+
+		throttle.reserve("alice", "10.0.0.1");
+		assertThrows(LoginThrottledException.class, () -> throttle.reserve("bob", "10.0.0.1"));
+	}
+
+	@Test
+	void releasedAttemptsDoNotCount() {
+		for (int i = 0; i < 10; i++) {
+			throttle.reserve("alice", "10.0.0.1");
+			throttle.release("alice", "10.0.0.1");
+		}
+
+		throttle.reserve("alice", "10.0.0.1");
+	}
+
+	@Test
+	void refusedAccountDoesNotChargeTheAddress() {
+		LoginThrottle throttle = new LoginThrottle(1, 2, 15, 1000);
+		throttle.reserve("alice", "10.0.0.1");
+
+		assertThrows(LoginThrottledException.class, () -> throttle.reserve("alice", "10.0.0.1"));
+		assertThrows(LoginThrottledException.class, () -> throttle.reserve("alice", "10.0.0.1"));
+
+		// Only alice's one reservation is held against the address
+		throttle.reserve("bob", "10.0.0.1");
+		assertThrows(LoginThrottledException.class, () -> throttle.reserve("carol", "10.0.0.1"));
+	}
+
+	@Test
+	void concurrentAttemptsCannotAllPassTheLimit() throws Exception {
+		int attempts = 32;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(attempts);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < attempts; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					try {
+						throttle.reserve("alice", "10.0.0.1");
+						return true;
+					} catch (LoginThrottledException ex) {
+						return false;
+					}
+				}));
+			}
+			start.countDown();
+
+			int admitted = 0;
+			for (Future<Boolean> result : results) {
+				admitted += result.get() ? 1 : 0;
+			}
+			assertEquals(3, admitted);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
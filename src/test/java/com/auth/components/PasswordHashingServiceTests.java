@@ -0,0 +1,87 @@
+package com.auth.components;
+
+import com.auth.HashingCapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void hashesAndVerifiesOnThePool() throws Exception {
+		PasswordHashingService service = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry, 4, 2, 8);
+		try {
+			String hash = service.encode("secret").get(10, TimeUnit.SECONDS);
+
+			assertTrue(service.matches("secret", hash).get(10, TimeUnit.SECONDS));
+			assertFalse(service.matches("wrong", hash).get(10, TimeUnit.SECONDS));
+			assertEquals(3, meterRegistry.get("auth.hashing.queue.wait").timer().count());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void runsOnPoolThreadsNotTheCaller() throws Exception {
+		PasswordEncoder encoder = mock(PasswordEncoder.class);
+		when(encoder.encode(any())).thenAnswer(invocation -> Thread.currentThread().getName());
+		PasswordHashingService service = new PasswordHashingService(encoder, meterRegistry, 10, 1, 8);
+		try {
+			assertTrue(service.encode("secret").get(10, TimeUnit.SECONDS).startsWith("password-hashing-"));
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void refusesWorkOnceThePoolAndQueueAreFull() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PasswordEncoder encoder = mock(PasswordEncoder.class);
+		when(encoder.encode(any())).thenAnswer(invocation -> {
+			running.countDown();
+			release.await();
+			return "hash";
+		});
+		PasswordHashingService service = new PasswordHashingService(encoder, meterRegistry, 10, 1, 1);
+		try {
+			CompletableFuture<String> busy = service.encode("first");
+			assertTrue(running.await(10, TimeUnit.SECONDS));
+			CompletableFuture<String> queued = service.encode("second");
+
+			assertThrows(HashingCapacityExceededException.class, () -> service.encode("third"));
+			assertEquals(1.0, meterRegistry.get("auth.hashing.rejected").counter().count());
+
+			release.countDown();
+			assertEquals("hash", busy.get(10, TimeUnit.SECONDS));
+			assertEquals("hash", queued.get(10, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			service.shutdown();
+		}
+	}
+
+	@Test
+	void rehashesOnlyHashesOfAnotherCost() {
+		PasswordHashingService service = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry, 10, 1, 1);
+		try {
+			assertFalse(service.needsRehash("$2a$10$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234"));
+			assertTrue(service.needsRehash("$2a$04$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234"));
+			assertTrue(service.needsRehash("{noop}plain"));
+		} finally {
+			service.shutdown();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.common.kafka;
+
+import com.common.kafka.events.UploadChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCodecTests {
+
+	private final EventCodec codec = new EventCodec();
+
+	@Test
+	void roundTripsEventsAsSmile() throws IOException {
+		byte[] payload = codec.encode(new UploadChangedEvent("abc", "READY", 1_700_000_000_000L));
+
+		assertArrayEquals(new byte[]{':', ')', '\n'}, Arrays.copyOf(payload, 3));
+		UploadChangedEvent decoded = codec.decode(payload, UploadChangedEvent.class);
+		assertEquals("abc", decoded.getIdentifier());
+		assertEquals("READY", decoded.getChange());
+		assertEquals(1_700_000_000_000L, decoded.getChangedAt());
+	}
+
+	@Test
+	void readsLegacyJsonPayloads() throws IOException {
+		byte[] payload = "{\"identifier\":\"abc\",\"change\":\"DELETED\",\"changedAt\":42}"
+				.getBytes(StandardCharsets.UTF_8);
+
+		UploadChangedEvent decoded = codec.decode(payload, UploadChangedEvent.class);
+
+		assertEquals("abc", decoded.getIdentifier());
+		assertEquals("DELETED", decoded.getChange());
+		assertEquals(42L, decoded.getChangedAt());
+	}
+
+	@Test
+	void ignoresFieldsAddedByNewerProducers() throws IOException {
+		byte[] payload = "{\"identifier\":\"abc\",\"addedLater\":true}".getBytes(StandardCharsets.UTF_8);
+
+		assertEquals("abc", codec.decode(payload, UploadChangedEvent.class).getIdentifier());
+	}
+
+	@Test
+	void rejectsMissingAndMalformedPayloads() {
+		assertThrows(IOException.class, () -> codec.decode(null, UploadChangedEvent.class));
+		assertThrows(IOException.class, () -> codec.decode(new byte[]{':', ')'}, UploadChangedEvent.class));
+		assertThrows(IOException.class,
+				() -> codec.decode("not json".getBytes(StandardCharsets.UTF_8), UploadChangedEvent.class));
+	}
+}
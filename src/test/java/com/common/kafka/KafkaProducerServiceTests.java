@@ -0,0 +1,94 @@
+package com.common.kafka;
+
+import com.common.kafka.events.TokenRevokedEvent;
+import com.common.kafka.events.UploadChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class KafkaProducerServiceTests {
+
+	private KafkaTemplate<String, byte[]> kafkaTemplate;
+	private SimpleMeterRegistry meterRegistry;
+	private KafkaProducerService producer;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		kafkaTemplate = mock(KafkaTemplate.class);
+		meterRegistry = new SimpleMeterRegistry();
+		producer = new KafkaProducerService(kafkaTemplate, new EventCodec(), meterRegistry, 50);
+	}
+
+	@Test
+	void countsFailedSendsByTopic() {
+		when(kafkaTemplate.send(eq(KafkaTopics.TOKEN_REVOKED), anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+		CompletableFuture<SendResult<String, byte[]>> send = producer.publishTokenRevoked(new TokenRevokedEvent("jti", 1L));
+
+		assertTrue(send.isCompletedExceptionally());
+		assertEquals(1, meterRegistry.get("kafka.produce")
+				.tags("topic", KafkaTopics.TOKEN_REVOKED, "outcome", "failure").timer().count());
+	}
+
+	@Test
+	void failsTheFutureWhenTheProducerRefusesTheSend() {
+		when(kafkaTemplate.send(anyString(), anyString(), any()))
+				.thenThrow(new KafkaException("Topic token-revoked not present in metadata after 60000 ms."));
+
+		CompletableFuture<SendResult<String, byte[]>> send = producer.publishTokenRevoked(new TokenRevokedEvent("jti", 1L));
+
+		assertTrue(send.isCompletedExceptionally());
+		EventPublishException ex = assertThrows(EventPublishException.class, () -> producer.await(send));
+		assertInstanceOf(KafkaException.class, ex.getCause());
+		assertEquals(1, meterRegistry.get("kafka.produce")
+				.tags("topic", KafkaTopics.TOKEN_REVOKED, "outcome", "failure").timer().count());
+	}
+
+	@Test
+	void uploadChangedEventsSurviveARefusedSend() {
+		when(kafkaTemplate.send(anyString(), anyString(), any())).thenThrow(new KafkaException("buffer exhausted"));
+
+		assertDoesNotThrow(() -> producer.publishUploadChanged(new UploadChangedEvent("video", "TIER", 1L)));
+		assertEquals(1, meterRegistry.get("kafka.produce")
+				.tags("topic", KafkaTopics.UPLOAD_CHANGED, "outcome", "failure").timer().count());
+	}
+
+	@Test
+	void awaitReportsAFailedSend() {
+		when(kafkaTemplate.send(anyString(), anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+		EventPublishException ex = assertThrows(EventPublishException.class,
+				() -> producer.await(producer.publishTokenRevoked(new TokenRevokedEvent("jti", 1L))));
+		assertTrue(ex.getMessage().contains("broker down"));
+	}
+
+	@Test
+	void awaitGivesUpAfterTheTimeout() {
+		when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+
+		assertThrows(EventPublishException.class,
+				() -> producer.await(producer.publishTokenRevoked(new TokenRevokedEvent("jti", 1L))));
+	}
+
+	@Test
+	void awaitReturnsOnceTheBrokerAcknowledges() {
+		when(kafkaTemplate.send(anyString(), anyString(), any()))
+				.thenReturn(CompletableFuture.completedFuture(null));
+
+		assertDoesNotThrow(() -> producer.await(producer.publishTokenRevoked(new TokenRevokedEvent("jti", 1L))));
+	}
+}
@@ -0,0 +1,264 @@
+package com.common.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3BlobStorageTests {
+
+	private static final int PART_SIZE = S3BlobStorage.MIN_PART_SIZE;
+
+	@TempDir
+	Path tempDir;
+
+	private FakeS3 fake;
+	private S3BlobStorage storage;
+
+	@BeforeEach
+	void setUp() {
+		fake = new FakeS3();
+		storage = new S3BlobStorage(fake, "videos", PART_SIZE, 3, 3, false);
+	}
+
+	@AfterEach
+	void tearDown() {
+		storage.shutdown();
+	}
+
+	@Test
+	void uploadsLargeFilesAsParallelParts() throws IOException {
+		byte[] video = randomBytes(3 * PART_SIZE + 123);
+		Path source = Files.write(tempDir.resolve("video.mp4"), video);
+
+		storage.put("ab/abcdef.mp4", source);
+
+		assertArrayEquals(video, fake.objects.get("ab/abcdef.mp4"));
+		assertEquals(4, fake.partsReceived.get());
+		assertTrue(fake.maxInFlight.get() > 1, "parts should be uploaded concurrently");
+		assertTrue(fake.maxInFlight.get() <= 3, "in-flight parts are bounded by the buffer pool");
+		assertFalse(Files.exists(source));
+	}
+
+	@Test
+	void abortsTheUploadWhenAPartFails() throws IOException {
+		fake.failPart = 2;
+		Path source = Files.write(tempDir.resolve("video.mp4"), randomBytes(3 * PART_SIZE));
+
+		assertThrows(IOException.class, () -> storage.put("ab/abcdef.mp4", source));
+
+		assertTrue(fake.aborted);
+		assertFalse(fake.objects.containsKey("ab/abcdef.mp4"));
+		assertTrue(Files.exists(source));
+	}
+
+	@Test
+	void readsOnlyTheRequestedRange() throws IOException {
+		byte[] video = randomBytes(1000);
+		storage.put("ab/small.mp4", Files.write(tempDir.resolve("small.mp4"), video));
+
+		try (InputStream in = storage.openRange("ab/small.mp4", 100, 50)) {
+			assertArrayEquals(Arrays.copyOfRange(video, 100, 150), in.readAllBytes());
+		}
+		assertEquals("bytes=100-149", fake.lastRange);
+		assertEquals(1000, storage.size("ab/small.mp4"));
+	}
+
+	@Test
+	void reportsMissingBlobs() throws IOException {
+		assertFalse(storage.exists("ab/missing.mp4"));
+		assertThrows(NoSuchFileException.class, () -> storage.size("ab/missing.mp4"));
+		assertThrows(NoSuchFileException.class, () -> storage.openRange("ab/missing.mp4", 0, 10));
+	}
+
+	@Test
+	void deletesEverythingBelowADirectoryKey() throws IOException {
+		fake.objects.put("ab/abcdef.mp4", new byte[1]);
+		fake.objects.put("ab/abcdef.mp4.segments/init.mp4", new byte[1]);
+		fake.objects.put("ab/abcdef.mp4.segments/seg-00001.m4s", new byte[1]);
+		fake.objects.put("ab/abcdef.mp4.segmentsX/other", new byte[1]);
+
+		storage.deleteDirectory("ab/abcdef.mp4.segments");
+
+		assertEquals(Set.of("ab/abcdef.mp4", "ab/abcdef.mp4.segmentsX/other"), fake.objects.keySet());
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(7).nextBytes(bytes);
+		return bytes;
+	}
+
+	/** Just enough of S3 for {@link S3BlobStorage}, kept in memory. */
+	private static final class FakeS3 implements S3Client {
+
+		final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+		final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+		final AtomicInteger partsReceived = new AtomicInteger();
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		volatile int failPart;
+		volatile boolean aborted;
+		volatile String lastRange;
+
+		@Override
+		public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+			objects.put(request.key(), read(body));
+			return PutObjectResponse.builder().build();
+		}
+
+		@Override
+		public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+			return CreateMultipartUploadResponse.builder().uploadId("upload-1").build();
+		}
+
+		@Override
+		public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(100);
+				if (request.partNumber() == failPart) {
+					throw S3Exception.builder().statusCode(500).message("injected failure").build();
+				}
+				parts.put(request.partNumber(), read(body));
+				partsReceived.incrementAndGet();
+				return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(ex);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+
+		@Override
+		public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+			List<CompletedPart> completed = request.multipartUpload().parts();
+			ByteArrayOutputStream object = new ByteArrayOutputStream();
+			for (int i = 0; i < completed.size(); i++) {
+				assertEquals(i + 1, completed.get(i).partNumber());
+				assertEquals("etag-" + (i + 1), completed.get(i).eTag());
+				object.writeBytes(parts.get(i + 1));
+			}
+			objects.put(request.key(), object.toByteArray());
+			return CompleteMultipartUploadResponse.builder().build();
+		}
+
+		@Override
+		public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+			aborted = true;
+			return AbortMultipartUploadResponse.builder().build();
+		}
+
+		@Override
+		public HeadObjectResponse headObject(HeadObjectRequest request) {
+			return HeadObjectResponse.builder().contentLength((long) object(request.key()).length).build();
+		}
+
+		@Override
+		public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+			byte[] object = object(request.key());
+			lastRange = request.range();
+			String[] bounds = request.range().substring("bytes=".length()).split("-");
+			int start = Integer.parseInt(bounds[0]);
+			int end = Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+			return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+					AbortableInputStream.create(new ByteArrayInputStream(object, start, end - start + 1)));
+		}
+
+		@Override
+		public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+			objects.remove(request.key());
+			return DeleteObjectResponse.builder().build();
+		}
+
+		@Override
+		public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+			List<S3Object> contents = objects.keySet().stream()
+					.filter(key -> key.startsWith(request.prefix()))
+					.map(key -> S3Object.builder().key(key).build())
+					.toList();
+			return ListObjectsV2Response.builder().contents(contents).isTruncated(false).build();
+		}
+
+		@Override
+		public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+			for (ObjectIdentifier object : request.delete().objects()) {
+				objects.remove(object.key());
+			}
+			return DeleteObjectsResponse.builder().build();
+		}
+
+		@Override
+		public String serviceName() {
+			return SERVICE_NAME;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		private byte[] object(String key) {
+			byte[] object = objects.get(key);
+			if (object == null) {
+				throw NoSuchKeyException.builder().statusCode(404).message("The specified key does not exist.").build();
+			}
+			return object;
+		}
+
+		private static byte[] read(RequestBody body) {
+			try (InputStream in = body.contentStreamProvider().newStream()) {
+				return in.readAllBytes();
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTests {
+
+	private static final int KEYS = 20_000;
+
+	@Test
+	void spreadsKeysEvenlyOverNodes() {
+		ConsistentHashRing ring = ring("a", "b", "c", "d");
+
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < KEYS; i++) {
+			counts.merge(ring.locate("video-" + i), 1, Integer::sum);
+		}
+
+		assertEquals(4, counts.size());
+		counts.values().forEach(count -> assertTrue(Math.abs(count - KEYS / 4) < KEYS / 4 * 0.2,
+				"Share out of balance: " + counts));
+	}
+
+	@Test
+	void addingANodeMovesOnlyItsShare() {
+		ConsistentHashRing ring = ring("a", "b", "c", "d");
+		List<String> before = owners(ring);
+
+		ring.add("e");
+		List<String> after = owners(ring);
+
+		int moved = 0;
+		for (int i = 0; i < KEYS; i++) {
+			if (!before.get(i).equals(after.get(i))) {
+				assertEquals("e", after.get(i), "Keys may only move to the new node");
+				moved++;
+			}
+		}
+		assertTrue(moved > KEYS / 5 * 0.8 && moved < KEYS / 5 * 1.2, "Moved " + moved);
+	}
+
+	@Test
+	void removingANodeMovesOnlyItsKeys() {
+		ConsistentHashRing ring = ring("a", "b", "c", "d");
+		List<String> before = owners(ring);
+
+		ring.remove("b");
+		List<String> after = owners(ring);
+
+		for (int i = 0; i < KEYS; i++) {
+			if (before.get(i).equals("b")) {
+				assertNotEquals("b", after.get(i));
+			} else {
+				assertEquals(before.get(i), after.get(i));
+			}
+		}
+	}
+
+	@Test
+	void hotKeySpillsOverOnceItsOwnerIsFull() {
+		ConsistentHashRing ring = ring("a", "b", "c", "d");
+		String owner = ring.locate("hot");
+
+		List<ConsistentHashRing.Lease> leases = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			leases.add(ring.acquire("hot"));
+		}
+
+		for (String node : ring.nodes()) {
+			assertTrue(ring.load(node) <= Math.ceil(1.25 * 100 / 4), node + " over its bound: " + ring.load(node));
+		}
+		assertTrue(leases.stream().anyMatch(lease -> !lease.node().equals(owner)));
+
+		leases.forEach(ConsistentHashRing.Lease::close);
+		ring.nodes().forEach(node -> assertEquals(0, ring.load(node)));
+		try (ConsistentHashRing.Lease lease = ring.acquire("hot")) {
+			assertEquals(owner, lease.node(), "An idle owner takes its key back");
+		}
+	}
+
+	@Test
+	void emptyRingRoutesNowhere() {
+		ConsistentHashRing ring = new ConsistentHashRing(160, 1.25);
+
+		assertNull(ring.locate("video"));
+		assertNull(ring.acquire("video"));
+	}
+
+	private static ConsistentHashRing ring(String... nodes) {
+		ConsistentHashRing ring = new ConsistentHashRing(160, 1.25);
+		for (String node : nodes) {
+			ring.add(node);
+		}
+		return ring;
+	}
+
+	private static List<String> owners(ConsistentHashRing ring) {
+		List<String> owners = new ArrayList<>(KEYS);
+		for (int i = 0; i < KEYS; i++) {
+			owners.add(ring.locate("video-" + i));
+		}
+		return owners;
+	}
+}
@@ -0,0 +1,118 @@
+package com.gateway;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Routes through the gateway to several streamers running as in-JVM HTTP servers. */
+class GatewayControllerTests {
+
+	private final List<HttpServer> streamers = new ArrayList<>();
+	private StreamerRouter router;
+	private GatewayController controller;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		List<String> nodes = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			String name = "streamer-" + i;
+			server.createContext("/api/streamer/", exchange -> {
+				byte[] body = (name + " " + exchange.getRequestHeaders().getFirst(HttpHeaders.RANGE) + " "
+						+ exchange.getRequestHeaders().getFirst("X-Forwarded-For")).getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add(HttpHeaders.ACCEPT_RANGES, "bytes");
+				exchange.sendResponseHeaders(206, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			});
+			server.createContext("/api/streamer/health", exchange -> {
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			});
+			server.start();
+			streamers.add(server);
+			nodes.add("http://127.0.0.1:" + server.getAddress().getPort());
+		}
+		HttpClient httpClient = new GatewayConfig().streamerHttpClient(1000);
+		router = new StreamerRouter(httpClient, nodes, 160, 1.25);
+		controller = new GatewayController(router, httpClient);
+	}
+
+	@AfterEach
+	void tearDown() {
+		streamers.forEach(server -> server.stop(0));
+	}
+
+	@Test
+	void sendsEveryRequestForAVideoToTheSameStreamer() throws IOException {
+		Map<String, String> owners = new HashMap<>();
+		for (int i = 0; i < 30; i++) {
+			owners.put("video-" + i, streamerOf(get("video-" + i)));
+		}
+
+		for (int i = 0; i < 30; i++) {
+			assertEquals(owners.get("video-" + i), streamerOf(get("video-" + i)));
+		}
+		assertEquals(3, new HashSet<>(owners.values()).size(), "Videos should be spread over all streamers");
+	}
+
+	@Test
+	void forwardsRangeAndClientAddress() throws IOException {
+		MockHttpServletResponse response = get("video-1");
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertTrue(response.getContentAsString().endsWith(" bytes=0-99 10.0.0.7"));
+	}
+
+	@Test
+	void failedStreamerOnlyLosesItsOwnVideos() throws IOException {
+		Map<String, String> before = new HashMap<>();
+		for (int i = 0; i < 30; i++) {
+			before.put("video-" + i, streamerOf(get("video-" + i)));
+		}
+
+		streamers.get(0).stop(0);
+		router.probeNodes();
+
+		assertEquals(2, router.liveNodes().size());
+		for (int i = 0; i < 30; i++) {
+			String owner = streamerOf(get("video-" + i));
+			assertNotEquals("streamer-0", owner);
+			if (!before.get("video-" + i).equals("streamer-0")) {
+				assertEquals(before.get("video-" + i), owner, "Videos of healthy streamers must not move");
+			}
+		}
+	}
+
+	private MockHttpServletResponse get(String identifier) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/" + identifier + "/stream");
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-99");
+		request.setRemoteAddr("10.0.0.7");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.forward(request, response);
+		return response;
+	}
+
+	private static String streamerOf(MockHttpServletResponse response) throws IOException {
+		return response.getContentAsString().split(" ")[0];
+	}
+}
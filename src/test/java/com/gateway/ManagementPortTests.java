@@ -0,0 +1,70 @@
+package com.gateway;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Boots the gateway, which needs no database or broker, to check where the actuator endpoints are served. */
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		classes = GatewayApplication.class,
+		properties = "management.server.port=0")
+class ManagementPortTests {
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	int serverPort;
+
+	@LocalManagementPort
+	int managementPort;
+
+	@Value("${management.endpoints.web.exposure.include}")
+	String exposed;
+
+	@Test
+	void shipsTheActuatorOnItsOwnPort() throws IOException {
+		Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+
+		String managementPort = properties.getProperty("management.server.port");
+		assertNotNull(managementPort);
+		assertNotEquals(properties.getProperty("server.port", "8080"), managementPort);
+	}
+
+	@Test
+	void servesMetricsOnTheManagementPort() throws Exception {
+		assertNotEquals(serverPort, managementPort);
+		assertTrue(exposed.contains("prometheus"));
+
+		assertEquals(200, get(managementPort, "/actuator/prometheus").statusCode());
+		assertEquals(200, get(managementPort, "/actuator/metrics").statusCode());
+		assertEquals(200, get(managementPort, "/actuator/health").statusCode());
+	}
+
+	@Test
+	void servesNoActuatorEndpointOnThePublicPort() throws Exception {
+		assertEquals(404, get(serverPort, "/actuator/prometheus").statusCode());
+		assertEquals(404, get(serverPort, "/actuator/metrics").statusCode());
+		assertEquals(404, get(serverPort, "/actuator/health").statusCode());
+		assertEquals(404, get(serverPort, "/actuator").statusCode());
+	}
+
+	private HttpResponse<String> get(int port, String path) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).GET().build();
+		return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,64 @@
+package com.importer;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportFilesTests {
+
+	private static final String HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+	@Test
+	void readsCsvWithHeaderAndEmptyCells() throws IOException {
+		String csv = "name,identifier,uploadedBy,dataPathLink,thumbnailLink,legacyId\n"
+				+ "My clip,6f1c2e4a,alice,3a/3a7b.mp4,,17\n"
+				+ "\"Clip, with comma\",0b9d2f7e,bob,0b/0b9d.mp4,0b/thumb.jpg,18\n";
+
+		List<UploadRecord> uploads = readAll(csv, true, UploadRecord.class);
+
+		assertEquals(2, uploads.size());
+		assertEquals("My clip", uploads.get(0).getName());
+		assertNull(uploads.get(0).getThumbnailLink());
+		assertEquals("Clip, with comma", uploads.get(1).getName());
+		assertEquals("0b/thumb.jpg", uploads.get(1).getThumbnailLink());
+		assertNull(BulkImportService.validate(uploads.get(0)));
+	}
+
+	@Test
+	void readsJsonLines() throws IOException {
+		String jsonl = "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"" + HASH + "\"}\n"
+				+ "{\"username\":\"bob\",\"email\":\"bob@example.com\",\"password\":\"hunter2\"}\n";
+
+		List<UserRecord> users = readAll(jsonl, false, UserRecord.class);
+
+		assertEquals(2, users.size());
+		assertEquals(HASH, users.get(0).getPassword());
+		assertNull(BulkImportService.validate(users.get(0)));
+		assertEquals("password is not a BCrypt hash", BulkImportService.validate(users.get(1)));
+	}
+
+	@Test
+	void rejectsUploadsThatWouldNeverBeProcessed() {
+		UploadRecord upload = new UploadRecord();
+		upload.setName("My clip");
+		upload.setIdentifier("6f1c2e4a");
+		upload.setUploadedBy("alice");
+		upload.setDataPathLink("3a/3a7b.mp4");
+		upload.setUploadStatus("PENDING");
+
+		assertEquals("uploadStatus must be READY or FAILED", BulkImportService.validate(upload));
+	}
+
+	private static <T> List<T> readAll(String content, boolean csv, Class<T> type) throws IOException {
+		try (MappingIterator<T> records = ImportFiles.open(
+				new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), csv, type)) {
+			return records.readAll();
+		}
+	}
+}
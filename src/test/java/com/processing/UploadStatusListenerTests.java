@@ -0,0 +1,105 @@
+package com.processing;
+
+import com.common.kafka.EventCodec;
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.KafkaTopics;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.kafka.events.UploadStatusEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadStatusListenerTests {
+
+	private final EventCodec eventCodec = new EventCodec();
+	private final UploadStatusWriter writer = mock(UploadStatusWriter.class);
+	private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+	private final Acknowledgment ack = mock(Acknowledgment.class);
+	private final UploadStatusListener listener = new UploadStatusListener(writer, kafkaProducerService, eventCodec);
+	private final List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+
+	@Test
+	void writesTheLatestStatusPerUploadThenAcknowledgesThenAnnounces() {
+		record(new UploadStatusEvent("a", "FAILED", 1L));
+		record(new UploadStatusEvent("b", "READY", 2L));
+		record(new UploadStatusEvent("a", "READY", 3L));
+		when(writer.write(anyList())).thenReturn(List.of("a"));
+
+		listener.onStatuses(records, ack);
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<UploadStatusEvent>> written = ArgumentCaptor.forClass(List.class);
+		InOrder order = inOrder(writer, ack, kafkaProducerService);
+		order.verify(writer).write(written.capture());
+		order.verify(ack).acknowledge();
+		ArgumentCaptor<UploadChangedEvent> changed = ArgumentCaptor.forClass(UploadChangedEvent.class);
+		order.verify(kafkaProducerService).publishUploadChanged(changed.capture());
+		assertEquals(List.of("a:READY", "b:READY"),
+				written.getValue().stream().map(event -> event.getIdentifier() + ":" + event.getStatus()).toList());
+		assertEquals("a", changed.getValue().getIdentifier());
+		assertEquals("READY", changed.getValue().getChange());
+	}
+
+	@Test
+	void skipsMalformedAndNonFinalEvents() {
+		records.add(new ConsumerRecord<>(KafkaTopics.UPLOAD_STATUS, 0, records.size(), "x",
+				"not an event".getBytes(StandardCharsets.UTF_8)));
+		record(new UploadStatusEvent("b", "PROCESSING", 1L));
+		record(new UploadStatusEvent(null, "READY", 1L));
+		record(new UploadStatusEvent("c", "READY", 1L));
+		when(writer.write(anyList())).thenReturn(List.of());
+
+		listener.onStatuses(records, ack);
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<UploadStatusEvent>> written = ArgumentCaptor.forClass(List.class);
+		verify(writer).write(written.capture());
+		assertEquals(List.of("c"), written.getValue().stream().map(UploadStatusEvent::getIdentifier).toList());
+		verify(ack).acknowledge();
+		verify(kafkaProducerService, never()).publishUploadChanged(any());
+	}
+
+	@Test
+	void failedWriteIsNotAcknowledgedSoThePollIsReplayed() {
+		record(new UploadStatusEvent("a", "READY", 1L));
+		when(writer.write(anyList())).thenThrow(new IllegalStateException("database down"));
+
+		assertThrows(IllegalStateException.class, () -> listener.onStatuses(records, ack));
+
+		verify(ack, never()).acknowledge();
+		verify(kafkaProducerService, never()).publishUploadChanged(any());
+	}
+
+	@Test
+	void announcesOnlyTheRowsThatChanged() {
+		record(new UploadStatusEvent("a", "READY", 1L));
+		record(new UploadStatusEvent("b", "FAILED", 1L));
+		record(new UploadStatusEvent("c", "READY", 1L));
+		when(writer.write(anyList())).thenReturn(List.of("a", "c"));
+
+		listener.onStatuses(records, ack);
+
+		verify(kafkaProducerService, times(2)).publishUploadChanged(any());
+	}
+
+	private void record(UploadStatusEvent event) {
+		records.add(new ConsumerRecord<>(KafkaTopics.UPLOAD_STATUS, 0, records.size(), event.getIdentifier(),
+				eventCodec.encode(event)));
+	}
+}
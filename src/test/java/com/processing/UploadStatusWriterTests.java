@@ -0,0 +1,109 @@
+package com.processing;
+
+import com.common.kafka.events.UploadStatusEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadStatusWriterTests {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final UploadStatusWriter writer = new UploadStatusWriter(jdbcTemplate);
+
+	@Test
+	void reportsRowsWithAPositiveUpdateCount() {
+		batchReturns(1, 0, 1);
+
+		List<String> updated = writer.write(List.of(event("a", "READY"), event("b", "READY"), event("c", "FAILED")));
+
+		assertEquals(List.of("a", "c"), updated);
+		verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+	}
+
+	@Test
+	void looksUpRowsWhoseCountsTheDriverDidNotReport() throws SQLException {
+		batchReturns(Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO);
+		// a and c carry this batch's timestamp; c was changed to READY by someone else, b not at all
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(1);
+			for (Map.Entry<String, String> row : Map.of("a", "READY", "c", "READY").entrySet()) {
+				ResultSet rs = mock(ResultSet.class);
+				when(rs.getString(1)).thenReturn(row.getKey());
+				when(rs.getString(2)).thenReturn(row.getValue());
+				handler.processRow(rs);
+			}
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+		List<String> updated = writer.write(List.of(event("a", "READY"), event("b", "READY"), event("c", "FAILED")));
+
+		assertEquals(List.of("a"), updated);
+		ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+		verify(jdbcTemplate).query(eq("select identifier, upload_status from uploads where updated_at = ? and identifier in (?, ?, ?)"),
+				any(RowCallbackHandler.class), args.capture());
+		assertEquals(List.of("a", "b", "c"), List.of(args.getValue()).subList(1, 4));
+	}
+
+	@Test
+	void onlyMovesUploadsFromStatesThatMayReachTheNewOne() throws SQLException {
+		batchReturns(1, 1);
+		writer.write(List.of(event("a", "READY"), event("b", "FAILED")));
+		ParameterizedPreparedStatementSetter<UploadStatusEvent> setter = setter();
+
+		PreparedStatement ready = mock(PreparedStatement.class);
+		setter.setValues(ready, event("a", "READY"));
+		verify(ready).setString(4, "PROCESSING");
+		verify(ready).setString(5, "PROCESSING");
+
+		PreparedStatement failed = mock(PreparedStatement.class);
+		setter.setValues(failed, event("b", "FAILED"));
+		verify(failed).setString(4, "PENDING");
+		verify(failed).setString(5, "PROCESSING");
+
+		assertThrows(IllegalArgumentException.class, () -> setter.setValues(mock(PreparedStatement.class), event("c", "PENDING")));
+	}
+
+	@Test
+	void writesNothingForAnEmptyPoll() {
+		assertEquals(List.of(), writer.write(List.of()));
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void batchReturns(int... counts) {
+		when(jdbcTemplate.batchUpdate(anyString(), any(List.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+				.thenReturn(new int[][]{counts});
+	}
+
+	@SuppressWarnings("unchecked")
+	private ParameterizedPreparedStatementSetter<UploadStatusEvent> setter() {
+		ArgumentCaptor<ParameterizedPreparedStatementSetter<UploadStatusEvent>> setter =
+				ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), any(List.class), anyInt(), setter.capture());
+		return setter.getValue();
+	}
+
+	private static UploadStatusEvent event(String identifier, String status) {
+		return new UploadStatusEvent(identifier, status, 1L);
+	}
+}
@@ -0,0 +1,235 @@
+package com.processing.mp4;
+
+import com.common.media.SegmentLayout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Mp4SegmenterTests {
+
+	private static final int SAMPLE_SIZE = 10;
+
+	@TempDir
+	Path storage;
+
+	private final Mp4Segmenter segmenter = new Mp4Segmenter(true, 2);
+
+	@Test
+	void cutsKeyframeAlignedSegmentsAndWritesManifests() throws IOException {
+		Path video = write(new Fixture());
+
+		assertTrue(segmenter.segment(video));
+
+		Path segments = SegmentLayout.segmentDirectory(video);
+		assertTrue(Files.isRegularFile(segments.resolve(SegmentLayout.INIT_SEGMENT)));
+		assertTrue(Files.isRegularFile(segments.resolve(SegmentLayout.mediaSegmentName(1))));
+		assertTrue(Files.isRegularFile(segments.resolve(SegmentLayout.mediaSegmentName(2))));
+		assertFalse(Files.exists(segments.resolve(SegmentLayout.mediaSegmentName(3))));
+		String playlist = Files.readString(segments.resolve(SegmentLayout.HLS_MEDIA_PLAYLIST));
+		assertEquals(2, playlist.split("#EXTINF:2.000,", -1).length - 1);
+		String master = Files.readString(segments.resolve(SegmentLayout.HLS_MASTER_PLAYLIST));
+		assertTrue(master.contains("CODECS=\"avc1.64001f\""), master);
+		assertTrue(master.contains("RESOLUTION=640x360"), master);
+	}
+
+	@Test
+	void copiesEachSegmentsSamplesAfterItsMoof() throws IOException {
+		Path video = write(new Fixture());
+
+		segmenter.segment(video);
+
+		byte[] first = Files.readAllBytes(SegmentLayout.segmentDirectory(video).resolve(SegmentLayout.mediaSegmentName(1)));
+		byte[] media = new byte[2 * SAMPLE_SIZE];
+		System.arraycopy(first, first.length - media.length, media, 0, media.length);
+		for (int i = 0; i < media.length; i++) {
+			assertEquals(i / SAMPLE_SIZE + 1, media[i]);
+		}
+	}
+
+	@Test
+	void skipsFilesThatAreNotMp4() throws IOException {
+		Path video = Files.writeString(storage.resolve("clip.mp4"), "definitely not an mp4 file", StandardCharsets.US_ASCII);
+
+		assertFalse(segmenter.segment(video));
+		assertFalse(Files.exists(SegmentLayout.segmentDirectory(video)));
+	}
+
+	@Test
+	void rejectsSampleSizeTableShorterThanItsCount() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tables.put("stsz", fullBox("stsz", ints(0, 1000, 10, 10, 10, 10)));
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsForgedSampleCountWithoutAllocatingForIt() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tables.put("stsz", fullBox("stsz", ints(SAMPLE_SIZE, -1)));
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsChunkOffsetTableShorterThanItsCount() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tables.put("stco", fullBox("stco", ints(3, 0)));
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsSampleToChunkEntriesRunningPastTheBox() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tables.put("stsc", fullBox("stsc", ints(2, 1, 4, 1)));
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsSampleToChunkReferencesToMissingChunks() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tables.put("stsc", fullBox("stsc", ints(1, 2, 4, 1)));
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsTimeToSampleTablesThatDoNotCoverEverySample() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tables.put("stts", fullBox("stts", ints(1, 3, 1000)));
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsSamplesOutsideTheFile() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.chunkOffset = 1 << 20;
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsTruncatedTrackHeader() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tkhd = fullBox("tkhd", ints(0, 0));
+
+		assertMalformed(fixture);
+	}
+
+	@Test
+	void rejectsTruncatedSampleEntry() throws IOException {
+		Fixture fixture = new Fixture();
+		fixture.tables.put("stsd", fullBox("stsd", concat(ints(1), box("avc1", new byte[20]))));
+
+		assertMalformed(fixture);
+	}
+
+	private void assertMalformed(Fixture fixture) throws IOException {
+		Path video = write(fixture);
+
+		assertThrows(Mp4FormatException.class, () -> segmenter.segment(video));
+
+		try (Stream<Path> files = Files.list(storage)) {
+			assertEquals(1, files.count(), "only the source video should remain");
+		}
+	}
+
+	private Path write(Fixture fixture) throws IOException {
+		return Files.write(storage.resolve("clip.mp4"), fixture.bytes());
+	}
+
+	/**
+	 * A progressive MP4 with one 640x360 H.264 track: four samples of one second each in a single
+	 * chunk, with sync samples 1 and 3. Sample i's bytes all have the value i.
+	 */
+	private static final class Fixture {
+
+		final Map<String, byte[]> tables = new HashMap<>();
+		byte[] tkhd;
+		Integer chunkOffset;
+
+		Fixture() {
+			ByteBuffer tkhdBody = ByteBuffer.wrap(new byte[80]);
+			tkhdBody.putInt(8, 1);
+			tkhd = fullBox("tkhd", tkhdBody.array());
+			tables.put("stsd", fullBox("stsd", concat(ints(1), avc1())));
+			tables.put("stts", fullBox("stts", ints(1, 4, 1000)));
+			tables.put("stss", fullBox("stss", ints(2, 1, 3)));
+			tables.put("stsz", fullBox("stsz", ints(0, 4, SAMPLE_SIZE, SAMPLE_SIZE, SAMPLE_SIZE, SAMPLE_SIZE)));
+			tables.put("stsc", fullBox("stsc", ints(1, 1, 4, 1)));
+		}
+
+		byte[] bytes() {
+			byte[] ftyp = box("ftyp", concat("isom".getBytes(StandardCharsets.US_ASCII), ints(0),
+					"isommp41".getBytes(StandardCharsets.US_ASCII)));
+			int moovSize = moov(0).length;
+			int offset = chunkOffset != null ? chunkOffset : ftyp.length + moovSize + 8;
+			byte[] media = new byte[4 * SAMPLE_SIZE];
+			for (int i = 0; i < media.length; i++) {
+				media[i] = (byte) (i / SAMPLE_SIZE + 1);
+			}
+			return concat(ftyp, moov(offset), box("mdat", media));
+		}
+
+		private byte[] moov(int offset) {
+			byte[] stco = tables.getOrDefault("stco", fullBox("stco", ints(1, offset)));
+			byte[] stbl = box("stbl", tables.get("stsd"), tables.get("stts"), tables.get("stss"),
+					tables.get("stsz"), tables.get("stsc"), stco);
+			ByteBuffer mdhd = ByteBuffer.wrap(new byte[20]);
+			mdhd.putInt(8, 1000);
+			byte[] hdlr = fullBox("hdlr", concat(ints(0), "vide".getBytes(StandardCharsets.US_ASCII), new byte[13]));
+			byte[] mdia = box("mdia", fullBox("mdhd", mdhd.array()), hdlr, box("minf", stbl));
+			ByteBuffer mvhd = ByteBuffer.wrap(new byte[96]);
+			mvhd.putInt(8, 1000);
+			return box("moov", fullBox("mvhd", mvhd.array()), box("trak", tkhd, mdia));
+		}
+
+		private static byte[] avc1() {
+			ByteBuffer entry = ByteBuffer.wrap(new byte[78]);
+			entry.putShort(24, (short) 640).putShort(26, (short) 360);
+			byte[] avcC = box("avcC", new byte[]{1, 0x64, 0x00, 0x1f, (byte) 0xff, (byte) 0xe0, 0});
+			return box("avc1", concat(entry.array(), avcC));
+		}
+	}
+
+	private static byte[] box(String type, byte[]... children) {
+		byte[] body = concat(children);
+		ByteBuffer box = ByteBuffer.allocate(8 + body.length);
+		box.putInt(8 + body.length).put(type.getBytes(StandardCharsets.US_ASCII)).put(body);
+		return box.array();
+	}
+
+	/** A version 0 full box. */
+	private static byte[] fullBox(String type, byte[] body) {
+		return box(type, new byte[4], body);
+	}
+
+	private static byte[] ints(int... values) {
+		ByteBuffer buffer = ByteBuffer.allocate(4 * values.length);
+		for (int value : values) {
+			buffer.putInt(value);
+		}
+		return buffer.array();
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			out.writeBytes(part);
+		}
+		return out.toByteArray();
+	}
+}
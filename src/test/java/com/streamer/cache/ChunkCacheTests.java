@@ -0,0 +1,94 @@
+package com.streamer.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkCacheTests {
+
+	@TempDir
+	Path storage;
+
+	private Path file;
+	private FileChannel channel;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		file = Files.write(storage.resolve("video.mp4"), new byte[64]);
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		channel.close();
+	}
+
+	@Test
+	void chunksAreAdmittedOnTheirSecondMiss() throws IOException {
+		ChunkCache cache = new ChunkCache(true, 4, 16);
+
+		assertNull(cache.acquire(file, channel, 64, 0));
+		ChunkCache.Chunk chunk = cache.acquire(file, channel, 64, 0);
+
+		assertNotNull(chunk);
+		cache.release(chunk);
+		assertTrue(cache.isCached(file, 64, 0, 4));
+	}
+
+	@Test
+	void prefetchNeverEvictsAdmittedChunks() throws IOException {
+		ChunkCache cache = new ChunkCache(true, 4, 8);
+		admit(cache, 0);
+		admit(cache, 1);
+
+		assertFalse(cache.prefetch(file, channel, 64, 5));
+
+		assertTrue(cache.isCached(file, 64, 0, 8));
+		assertFalse(cache.isCached(file, 64, 20, 4));
+		assertEquals(0, cache.stats().getEvictions());
+	}
+
+	@Test
+	void prefetchRecyclesOnlyUnreadPrefetchedChunks() throws IOException {
+		ChunkCache cache = new ChunkCache(true, 4, 12);
+		admit(cache, 0);
+		assertTrue(cache.prefetch(file, channel, 64, 1));
+		assertTrue(cache.prefetch(file, channel, 64, 2));
+		// Reading chunk 1 admits it, leaving chunk 2 as the only unread prefetch
+		cache.release(cache.acquire(file, channel, 64, 1));
+
+		assertTrue(cache.prefetch(file, channel, 64, 3));
+
+		assertTrue(cache.isCached(file, 64, 0, 8));
+		assertFalse(cache.isCached(file, 64, 8, 4));
+		assertTrue(cache.isCached(file, 64, 12, 4));
+	}
+
+	@Test
+	void demandEvictsTheLeastRecentlyUsedChunk() throws IOException {
+		ChunkCache cache = new ChunkCache(true, 4, 8);
+		admit(cache, 0);
+		admit(cache, 1);
+		cache.release(cache.acquire(file, channel, 64, 0));
+
+		admit(cache, 2);
+
+		assertTrue(cache.isCached(file, 64, 0, 4));
+		assertFalse(cache.isCached(file, 64, 4, 4));
+		assertEquals(1, cache.stats().getEvictions());
+	}
+
+	private void admit(ChunkCache cache, long chunkIndex) throws IOException {
+		assertNull(cache.acquire(file, channel, 64, chunkIndex));
+		cache.release(cache.acquire(file, channel, 64, chunkIndex));
+	}
+}
@@ -0,0 +1,162 @@
+package com.streamer.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadaheadPrefetcherTests {
+
+	private static final int CHUNK = 16;
+	private static final long LENGTH = 1024;
+
+	@TempDir
+	Path storage;
+
+	private Path file;
+	private final ChunkCache cache = new ChunkCache(true, CHUNK, LENGTH);
+	private final Deque<Runnable> queued = new ArrayDeque<>();
+	private boolean overBudget;
+	private final Executor executor = task -> {
+		if (overBudget) {
+			throw new RejectedExecutionException("full");
+		}
+		queued.add(task);
+	};
+
+	@BeforeEach
+	void setUp() throws IOException {
+		file = Files.write(storage.resolve("video.mp4"), new byte[(int) LENGTH]);
+	}
+
+	@Test
+	void readsAheadOnceTheRunReachesTheTrigger() {
+		ReadaheadPrefetcher prefetcher = prefetcher(8);
+
+		range(prefetcher, 0);
+		range(prefetcher, 1);
+		assertTrue(queued.isEmpty());
+
+		range(prefetcher, 2);
+		runQueued();
+
+		assertTrue(cached(3));
+		assertFalse(cached(4));
+	}
+
+	@Test
+	void windowDoublesWithEverySequentialRangeUpToTheMaximum() {
+		ReadaheadPrefetcher prefetcher = prefetcher(4);
+
+		for (int chunk = 0; chunk <= 5; chunk++) {
+			range(prefetcher, chunk);
+		}
+		runQueued();
+
+		// Windows of 1, 2, 4 and (capped) 4 chunks after ranges 2 to 5
+		for (int chunk = 3; chunk <= 9; chunk++) {
+			assertTrue(cached(chunk), "chunk " + chunk);
+		}
+		assertFalse(cached(10));
+	}
+
+	@Test
+	void rangesWithinAChunkOfTheLastEndStillCountAsSequential() {
+		ReadaheadPrefetcher prefetcher = prefetcher(8);
+
+		prefetcher.onRange("viewer", file, LENGTH, 0, CHUNK);
+		prefetcher.onRange("viewer", file, LENGTH, CHUNK + 8, CHUNK);
+		prefetcher.onRange("viewer", file, LENGTH, 2 * CHUNK + 8, CHUNK);
+
+		assertEquals(1, queued.size());
+	}
+
+	@Test
+	void seekCancelsTheQueuedPrefetchAndRestartsTheRun() {
+		ReadaheadPrefetcher prefetcher = prefetcher(8);
+		range(prefetcher, 0);
+		range(prefetcher, 1);
+		range(prefetcher, 2);
+
+		range(prefetcher, 40);
+		runQueued();
+
+		assertFalse(cached(3));
+		range(prefetcher, 41);
+		assertTrue(queued.isEmpty());
+		range(prefetcher, 42);
+		runQueued();
+		assertTrue(cached(43));
+	}
+
+	@Test
+	void viewersAreTrackedSeparately() {
+		ReadaheadPrefetcher prefetcher = prefetcher(8);
+
+		prefetcher.onRange("alice", file, LENGTH, 0, CHUNK);
+		prefetcher.onRange("bob", file, LENGTH, CHUNK, CHUNK);
+		prefetcher.onRange("alice", file, LENGTH, 2 * CHUNK, CHUNK);
+
+		assertTrue(queued.isEmpty());
+	}
+
+	@Test
+	void prefetchRefusedByTheBudgetIsAskedForAgainByTheNextRange() {
+		ReadaheadPrefetcher prefetcher = prefetcher(8);
+		range(prefetcher, 0);
+		range(prefetcher, 1);
+
+		overBudget = true;
+		range(prefetcher, 2);
+		range(prefetcher, 3);
+		assertTrue(queued.isEmpty());
+
+		overBudget = false;
+		range(prefetcher, 4);
+		runQueued();
+
+		// Nothing refused is counted as prefetched: the window starts right after the range served
+		assertTrue(cached(5));
+		assertTrue(cached(8));
+		assertFalse(cached(9));
+	}
+
+	@Test
+	void disabledPrefetcherSchedulesNothing() {
+		ReadaheadPrefetcher prefetcher = new ReadaheadPrefetcher(cache, false, 2, 8, executor);
+
+		for (int chunk = 0; chunk <= 5; chunk++) {
+			range(prefetcher, chunk);
+		}
+
+		assertTrue(queued.isEmpty());
+	}
+
+	private ReadaheadPrefetcher prefetcher(int maxWindowChunks) {
+		return new ReadaheadPrefetcher(cache, true, 2, maxWindowChunks, executor);
+	}
+
+	private void range(ReadaheadPrefetcher prefetcher, long chunk) {
+		prefetcher.onRange("viewer", file, LENGTH, chunk * CHUNK, CHUNK);
+	}
+
+	private void runQueued() {
+		Runnable task;
+		while ((task = queued.poll()) != null) {
+			task.run();
+		}
+	}
+
+	private boolean cached(long chunk) {
+		return cache.isCached(file, LENGTH, chunk * CHUNK, CHUNK);
+	}
+}
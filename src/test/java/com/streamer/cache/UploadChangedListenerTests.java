@@ -0,0 +1,82 @@
+package com.streamer.cache;
+
+import com.common.kafka.EventCodec;
+import com.common.kafka.events.UploadChangedEvent;
+import com.common.models.uploads.UploadRepository;
+import com.common.models.uploads.Uploads;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadChangedListenerTests {
+
+	private final EventCodec eventCodec = new EventCodec();
+	private final UploadRepository uploadRepository = mock(UploadRepository.class);
+	private final UploadLookupCache cache = new UploadLookupCache(uploadRepository, 100, 300, 30, false);
+	private final UploadChangedListener listener = new UploadChangedListener(cache, eventCodec);
+
+	@Test
+	void eventDropsTheChangedUploadOnly() {
+		when(uploadRepository.findByIdentifier("a")).thenReturn(Optional.of(upload("blob-a1")), Optional.of(upload("blob-a2")));
+		when(uploadRepository.findByIdentifier("b")).thenReturn(Optional.of(upload("blob-b")));
+		assertEquals(Optional.of("blob-a1"), cache.findBlobKey("a"));
+		assertEquals(Optional.of("blob-b"), cache.findBlobKey("b"));
+
+		listener.onUploadChanged(eventCodec.encode(new UploadChangedEvent("a", "DELETED", 1L)));
+
+		assertEquals(Optional.of("blob-a2"), cache.findBlobKey("a"));
+		assertEquals(Optional.of("blob-b"), cache.findBlobKey("b"));
+		verify(uploadRepository, times(2)).findByIdentifier("a");
+		verify(uploadRepository, times(1)).findByIdentifier("b");
+	}
+
+	@Test
+	void eventMakesANewUploadVisibleDespiteTheCachedMiss() {
+		when(uploadRepository.findByIdentifier("a")).thenReturn(Optional.empty(), Optional.of(upload("blob-a")));
+		assertEquals(Optional.empty(), cache.findBlobKey("a"));
+
+		listener.onUploadChanged(eventCodec.encode(new UploadChangedEvent("a", "CREATED", 1L)));
+
+		assertEquals(Optional.of("blob-a"), cache.findBlobKey("a"));
+	}
+
+	@Test
+	void malformedEventClearsTheWholeCache() {
+		when(uploadRepository.findByIdentifier("a")).thenReturn(Optional.of(upload("blob-a")));
+		when(uploadRepository.findByIdentifier("b")).thenReturn(Optional.of(upload("blob-b")));
+		cache.findBlobKey("a");
+		cache.findBlobKey("b");
+
+		listener.onUploadChanged("not an event".getBytes(StandardCharsets.UTF_8));
+
+		cache.findBlobKey("a");
+		cache.findBlobKey("b");
+		verify(uploadRepository, times(2)).findByIdentifier("a");
+		verify(uploadRepository, times(2)).findByIdentifier("b");
+	}
+
+	@Test
+	void eventWithoutIdentifierIsIgnored() {
+		when(uploadRepository.findByIdentifier("a")).thenReturn(Optional.of(upload("blob-a")));
+		cache.findBlobKey("a");
+
+		listener.onUploadChanged(eventCodec.encode(new UploadChangedEvent(null, "READY", 1L)));
+
+		cache.findBlobKey("a");
+		verify(uploadRepository, times(1)).findByIdentifier("a");
+	}
+
+	private static Uploads upload(String blobKey) {
+		Uploads upload = new Uploads();
+		upload.setDataPathLink(blobKey);
+		upload.setIsDeleted(false);
+		return upload;
+	}
+}
@@ -0,0 +1,127 @@
+package com.streamer.components;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BandwidthSchedulerTests {
+
+	private static final int PIECE = BandwidthScheduler.MAX_PIECE;
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+	@Test
+	void nodeBudgetIsSplitEvenlyAcrossViewersNotRequests() {
+		BandwidthScheduler scheduler = scheduler(10_000_000, 0, 0);
+
+		try (BandwidthScheduler.Allowance first = scheduler.open("alice");
+			 BandwidthScheduler.Allowance second = scheduler.open("alice")) {
+			assertEquals(10_000_000, scheduler.streamRate());
+			try (BandwidthScheduler.Allowance other = scheduler.open("bob")) {
+				assertEquals(5_000_000, scheduler.streamRate());
+			}
+		}
+	}
+
+	@Test
+	void perViewerCapAppliesBelowTheFairShare() {
+		assertEquals(1_000_000, scheduler(10_000_000, 1_000_000, 0).streamRate());
+		assertEquals(1_000_000, scheduler(0, 1_000_000, 0).streamRate());
+	}
+
+	@Test
+	void idleViewersGiveTheirShareBackOnlyAfterTheIdleTime() {
+		BandwidthScheduler scheduler = scheduler(10_000_000, 0, 0);
+		scheduler.open("alice").close();
+		scheduler.open("bob").close();
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(29_999));
+		scheduler.evictIdleViewers();
+		assertEquals(5_000_000, scheduler.streamRate());
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		scheduler.evictIdleViewers();
+		assertEquals(10_000_000, scheduler.streamRate());
+	}
+
+	@Test
+	void openViewersAreNeverEvicted() {
+		BandwidthScheduler scheduler = scheduler(10_000_000, 0, 0);
+		try (BandwidthScheduler.Allowance open = scheduler.open("alice")) {
+			scheduler.open("bob").close();
+			clock.addAndGet(60 * SECOND);
+			scheduler.evictIdleViewers();
+			assertEquals(10_000_000, scheduler.streamRate());
+		}
+	}
+
+	@Test
+	void burstIsGrantedOncePerViewerNotPerRequest() {
+		BandwidthScheduler scheduler = scheduler(0, 1_000_000, 4 * PIECE);
+		try (BandwidthScheduler.Allowance first = scheduler.open("alice")) {
+			for (int i = 0; i < 4; i++) {
+				assertEquals(0, first.tryAcquire(PIECE));
+			}
+		}
+		try (BandwidthScheduler.Allowance next = scheduler.open("alice")) {
+			assertTrue(next.tryAcquire(PIECE) > 0, "A new segment request must not get a fresh burst");
+		}
+		try (BandwidthScheduler.Allowance other = scheduler.open("bob")) {
+			assertEquals(0, other.tryAcquire(PIECE));
+		}
+	}
+
+	@Test
+	void refillsAtTheRateAndWaitsForTheMissingTokens() {
+		BandwidthScheduler scheduler = scheduler(0, 1_000_000, PIECE);
+		try (BandwidthScheduler.Allowance allowance = scheduler.open("alice")) {
+			assertEquals(0, allowance.tryAcquire(PIECE));
+
+			long wait = allowance.tryAcquire(PIECE);
+			assertEquals(PIECE * SECOND / 1_000_000, wait, TimeUnit.MICROSECONDS.toNanos(1));
+
+			clock.addAndGet(wait / 2);
+			assertTrue(allowance.tryAcquire(PIECE) > 0);
+			clock.addAndGet(wait / 2 + 1);
+			assertEquals(0, allowance.tryAcquire(PIECE));
+		}
+	}
+
+	@Test
+	void refillsStopAtATenthOfASecondOfTheRate() {
+		BandwidthScheduler scheduler = scheduler(0, 10_000_000, 0);
+		try (BandwidthScheduler.Allowance allowance = scheduler.open("alice")) {
+			clock.addAndGet(60 * SECOND);
+			int capacity = (int) BandwidthScheduler.capacity(10_000_000);
+			for (int taken = 0; taken + PIECE <= capacity; taken += PIECE) {
+				assertEquals(0, allowance.tryAcquire(PIECE));
+			}
+			assertTrue(allowance.tryAcquire(PIECE) > 0, "An idle bucket must not save up more than its capacity");
+		}
+	}
+
+	@Test
+	void burstsOfNewViewersAreChargedToTheNodeBudget() {
+		// The node bucket holds a tenth of a second of 1 MB/s, i.e. just over one piece
+		BandwidthScheduler scheduler = scheduler(1_000_000, 0, 8 * PIECE);
+		try (BandwidthScheduler.Allowance alice = scheduler.open("alice");
+			 BandwidthScheduler.Allowance bob = scheduler.open("bob")) {
+			assertEquals(0, alice.tryAcquire(PIECE));
+			long wait = bob.tryAcquire(PIECE);
+			assertTrue(wait > 0, "Both bursts together would exceed the node budget");
+
+			clock.addAndGet(wait);
+			assertEquals(0, bob.tryAcquire(PIECE));
+		}
+	}
+
+	private BandwidthScheduler scheduler(long nodeBytesPerSecond, long streamBytesPerSecond, long initialBurstBytes) {
+		return new BandwidthScheduler(new SimpleMeterRegistry(), nodeBytesPerSecond, streamBytesPerSecond,
+				initialBurstBytes, 30_000, clock::get);
+	}
+}
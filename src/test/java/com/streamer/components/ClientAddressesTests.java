@@ -0,0 +1,71 @@
+package com.streamer.components;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientAddressesTests {
+
+	private final ClientAddresses clientAddresses = new ClientAddresses(List.of("10.0.0.0/8", "::1"));
+
+	@Test
+	void ignoresForwardedAddressesFromAnUntrustedConnection() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRemoteAddr("203.0.113.7");
+		request.addHeader(ClientAddresses.X_FORWARDED_FOR, "198.51.100.1");
+
+		assertEquals("203.0.113.7", clientAddresses.clientAddress(request));
+	}
+
+	@Test
+	void takesTheAddressTheTrustedProxyWasCalledFrom() {
+		// The gateway appends the real client after whatever the client sent itself
+		assertEquals("203.0.113.7", clientAddresses.clientAddress("10.0.0.5", "198.51.100.1, 203.0.113.7"));
+		assertEquals("203.0.113.7", clientAddresses.clientAddress("10.0.0.5", "203.0.113.7"));
+	}
+
+	@Test
+	void skipsForwardedAddressesOfOtherTrustedProxies() {
+		assertEquals("203.0.113.7", clientAddresses.clientAddress("10.0.0.5", "203.0.113.7, 10.1.2.3"));
+		assertEquals("203.0.113.7", clientAddresses.clientAddress("::1", "203.0.113.7"));
+	}
+
+	@Test
+	void rotatingTheHeaderDoesNotChangeTheViewer() {
+		assertEquals(clientAddresses.clientAddress("10.0.0.5", "1.1.1.1, 203.0.113.7"),
+				clientAddresses.clientAddress("10.0.0.5", "2.2.2.2, 203.0.113.7"));
+		assertEquals(clientAddresses.clientAddress("203.0.113.7", "1.1.1.1"),
+				clientAddresses.clientAddress("203.0.113.7", "2.2.2.2"));
+	}
+
+	@Test
+	void stopsAtAnEntryThatIsNotAnAddress() {
+		assertEquals("10.1.2.3", clientAddresses.clientAddress("10.0.0.5", "example.com, 10.1.2.3"));
+		assertEquals("10.0.0.5", clientAddresses.clientAddress("10.0.0.5", "999.1.1.1"));
+	}
+
+	@Test
+	void matchesCidrRangesBitByBit() {
+		ClientAddresses narrow = new ClientAddresses(List.of("192.168.4.0/22", "fc00::/7"));
+
+		assertEquals("203.0.113.7", narrow.clientAddress("192.168.7.255", "203.0.113.7"));
+		assertEquals("192.168.8.1", narrow.clientAddress("192.168.8.1", "203.0.113.7"));
+		assertEquals("203.0.113.7", narrow.clientAddress("fd12::1", "203.0.113.7"));
+		assertEquals("fe80::1", narrow.clientAddress("fe80::1", "203.0.113.7"));
+	}
+
+	@Test
+	void trustsNoOneWithoutConfiguredProxies() {
+		assertEquals("127.0.0.1", new ClientAddresses(List.of()).clientAddress("127.0.0.1", "203.0.113.7"));
+	}
+
+	@Test
+	void rejectsMalformedProxyRanges() {
+		assertThrows(IllegalArgumentException.class, () -> new ClientAddresses(List.of("gateway.internal")));
+		assertThrows(IllegalArgumentException.class, () -> new ClientAddresses(List.of("10.0.0.0/33")));
+		assertThrows(IllegalArgumentException.class, () -> new ClientAddresses(List.of("10.0.0.0/x")));
+	}
+}
@@ -0,0 +1,231 @@
+package com.streamer.components;
+
+import com.common.storage.LocalBlobStorage;
+import com.streamer.cache.ChunkCache;
+import com.streamer.cache.ReadaheadPrefetcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeResponseWriterTests {
+
+	private static final String ETAG = "\"3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b\"";
+	private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+	@TempDir
+	Path storage;
+
+	private RangeResponseWriter writer;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Files.writeString(storage.resolve("video.mp4"), "0123456789", StandardCharsets.US_ASCII);
+		ChunkCache cache = new ChunkCache(false, 1024, 4096);
+		writer = new RangeResponseWriter(cache, new ReadaheadPrefetcher(cache, false, 2, 8, 1, 1),
+				new LocalBlobStorage(storage.toString()), new ClientAddresses(List.of()));
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchWithoutReadingTheBlob() throws IOException {
+		Files.delete(storage.resolve("video.mp4"));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer.write(request, response, "video.mp4", metadata());
+
+		assertEquals(304, response.getStatus());
+		assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchForAnExistingSegment() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/segments/1.m4s");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer.write(request, response, "video.mp4", segmentMetadata());
+
+		assertEquals(304, response.getStatus());
+	}
+
+	@Test
+	void failsAConditionalRequestForAMissingSegment() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/segments/1.m4s");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		assertThrows(NoSuchFileException.class,
+				() -> writer.write(request, response, "missing.m4s", segmentMetadata()));
+		assertNotEquals(304, response.getStatus());
+	}
+
+	@Test
+	void servesTheRangeWhenIfRangeMatches() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+		request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer.write(request, response, "video.mp4", metadata());
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 2-4/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("234", response.getContentAsString());
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+	}
+
+	@Test
+	void servesTheWholeBlobWhenIfRangeIsStale() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer.write(request, response, "video.mp4", metadata());
+
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("0123456789", response.getContentAsString());
+	}
+
+	@Test
+	void rejectsARangePastTheEndOfTheFile() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer.write(request, response, "video.mp4", metadata());
+
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void ignoresAMalformedRangeHeader() throws IOException {
+		for (String range : new String[]{"bytes=garbage", "bytes=5-2", "items=0-4", "0-4"}) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+			request.addHeader(HttpHeaders.RANGE, range);
+			MockHttpServletResponse response = new MockHttpServletResponse();
+
+			writer.write(request, response, "video.mp4", metadata());
+
+			assertEquals(200, response.getStatus(), range);
+			assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+			assertEquals("0123456789", response.getContentAsString(), range);
+		}
+	}
+
+	@Test
+	void servesOnlyTheSatisfiableRangesOfAMixedHeader() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.RANGE, "bytes=20-30,0-1");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer.write(request, response, "video.mp4", metadata());
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 0-1/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(2, response.getContentLengthLong());
+		assertEquals("01", response.getContentAsString());
+	}
+
+	@Test
+	void servesMultipleRangesAsMultipart() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-1,8-9");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer.write(request, response, "video.mp4", metadata());
+
+		assertEquals(206, response.getStatus());
+		assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+		String body = response.getContentAsString();
+		assertEquals(body.length(), response.getContentLengthLong());
+		assertTrue(body.contains("Content-Range: bytes 0-1/10\r\n\r\n01\r\n"));
+		assertTrue(body.contains("Content-Range: bytes 8-9/10\r\n\r\n89\r\n"));
+	}
+
+	@Test
+	void sendsUncachedRangesWithSendfileWhileTheCacheIsEnabled() throws IOException {
+		ChunkCache cache = new ChunkCache(true, 4, 16);
+		MockHttpServletRequest request = sendfileRequest("bytes=2-5");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer(cache).write(request, response, "video.mp4", metadata());
+
+		assertEquals(206, response.getStatus());
+		assertEquals(storage.resolve("video.mp4").toAbsolutePath().toString(),
+				request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals(2L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void servesFullyCachedRangesFromTheCacheInsteadOfSendfile() throws IOException {
+		ChunkCache cache = new ChunkCache(true, 4, 16);
+		Path file = storage.resolve("video.mp4");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			assertTrue(cache.prefetch(file, channel, 10, 0));
+			assertTrue(cache.prefetch(file, channel, 10, 1));
+		}
+		MockHttpServletRequest request = sendfileRequest("bytes=2-5");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer(cache).write(request, response, "video.mp4", metadata());
+
+		assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals("2345", response.getContentAsString());
+		assertEquals(2, cache.stats().getHits());
+		assertEquals(0, cache.stats().getMisses());
+	}
+
+	@Test
+	void streamsThroughTheCacheWithoutSendfileSupport() throws IOException {
+		ChunkCache cache = new ChunkCache(true, 4, 16);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.RANGE, "bytes=3-8");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		writer(cache).write(request, response, "video.mp4", metadata());
+
+		assertEquals("345678", response.getContentAsString());
+	}
+
+	private RangeResponseWriter writer(ChunkCache cache) {
+		return new RangeResponseWriter(cache, new ReadaheadPrefetcher(cache, false, 2, 8, 1, 1),
+				new LocalBlobStorage(storage.toString()), new ClientAddresses(List.of()));
+	}
+
+	private static MockHttpServletRequest sendfileRequest(String range) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/streamer/x/stream");
+		request.addHeader(HttpHeaders.RANGE, range);
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		return request;
+	}
+
+	private static ContentMetadata metadata() {
+		return new ContentMetadata(ETAG, LAST_MODIFIED, 10);
+	}
+
+	private static ContentMetadata segmentMetadata() {
+		return new ContentMetadata(ETAG, LAST_MODIFIED, -1);
+	}
+}
@@ -0,0 +1,167 @@
+package com.streamer.components;
+
+import com.common.storage.LocalBlobStorage;
+import com.streamer.cache.ChunkCache;
+import com.streamer.cache.ReadaheadPrefetcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Exceptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveRangeResponseWriterTests {
+
+	private static final String ETAG = "\"3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b\"";
+	private static final long LAST_MODIFIED = 1_700_000_000_000L;
+	private static final MediaType VIDEO_MP4 = MediaType.parseMediaType("video/mp4");
+
+	@TempDir
+	Path storage;
+
+	private ReactiveRangeResponseWriter writer;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Files.writeString(storage.resolve("video.mp4"), "0123456789", StandardCharsets.US_ASCII);
+		ChunkCache cache = new ChunkCache(false, 1024, 4096);
+		writer = new ReactiveRangeResponseWriter(new ReadaheadPrefetcher(cache, false, 2, 8, 1, 1),
+				new LocalBlobStorage(storage.toString()), new ClientAddresses(List.of()));
+	}
+
+	@Test
+	void servesTheWholeFile() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream"));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, metadata()).block();
+
+		assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+		assertEquals(10, exchange.getResponse().getHeaders().getContentLength());
+		assertEquals(ETAG, exchange.getResponse().getHeaders().getETag());
+		assertEquals("0123456789", exchange.getResponse().getBodyAsString().block());
+	}
+
+	@Test
+	void servesASingleRange() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream")
+				.header(HttpHeaders.RANGE, "bytes=2-4")
+				.header(HttpHeaders.IF_RANGE, ETAG));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, metadata()).block();
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, exchange.getResponse().getStatusCode());
+		assertEquals("bytes 2-4/10", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals("234", exchange.getResponse().getBodyAsString().block());
+	}
+
+	@Test
+	void servesMultipleRangesAsMultipart() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream")
+				.header(HttpHeaders.RANGE, "bytes=0-1,8-9"));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, metadata()).block();
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, exchange.getResponse().getStatusCode());
+		String body = exchange.getResponse().getBodyAsString().block();
+		assertEquals(body.length(), exchange.getResponse().getHeaders().getContentLength());
+		assertTrue(body.contains("Content-Range: bytes 0-1/10\r\n\r\n01\r\n"));
+		assertTrue(body.contains("Content-Range: bytes 8-9/10\r\n\r\n89\r\n"));
+	}
+
+	@Test
+	void servesTheWholeFileWhenIfRangeIsStale() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream")
+				.header(HttpHeaders.RANGE, "bytes=2-4")
+				.header(HttpHeaders.IF_RANGE, "\"stale\""));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, metadata()).block();
+
+		assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+		assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals("0123456789", exchange.getResponse().getBodyAsString().block());
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchWithoutReadingTheBlob() throws IOException {
+		Files.delete(storage.resolve("video.mp4"));
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream")
+				.header(HttpHeaders.IF_NONE_MATCH, ETAG));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, metadata()).block();
+
+		assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+	}
+
+	@Test
+	void failsAConditionalRequestForAMissingSegment() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/segments/1.m4s")
+				.header(HttpHeaders.IF_NONE_MATCH, ETAG));
+
+		RuntimeException ex = assertThrows(RuntimeException.class,
+				() -> writer.write(exchange, "missing.m4s", VIDEO_MP4, segmentMetadata()).block());
+		assertInstanceOf(NoSuchFileException.class, Exceptions.unwrap(ex));
+		assertNotEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchForAnExistingSegment() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/segments/1.m4s")
+				.header(HttpHeaders.IF_NONE_MATCH, ETAG));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, segmentMetadata()).block();
+
+		assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+	}
+
+	@Test
+	void ignoresAMalformedRangeHeader() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream")
+				.header(HttpHeaders.RANGE, "bytes=garbage"));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, metadata()).block();
+
+		assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+		assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals("0123456789", exchange.getResponse().getBodyAsString().block());
+	}
+
+	@Test
+	void rejectsUnsatisfiableRanges() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream")
+				.header(HttpHeaders.RANGE, "bytes=20-30"));
+
+		writer.write(exchange, "video.mp4", VIDEO_MP4, metadata()).block();
+
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, exchange.getResponse().getStatusCode());
+		assertEquals("bytes */10", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void failsForAMissingBlob() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/streamer/x/stream"));
+
+		RuntimeException ex = assertThrows(RuntimeException.class,
+				() -> writer.write(exchange, "missing.mp4", VIDEO_MP4, metadata()).block());
+		assertInstanceOf(NoSuchFileException.class, Exceptions.unwrap(ex));
+	}
+
+	private static ContentMetadata metadata() {
+		return new ContentMetadata(ETAG, LAST_MODIFIED, 10);
+	}
+
+	private static ContentMetadata segmentMetadata() {
+		return new ContentMetadata(ETAG, LAST_MODIFIED, -1);
+	}
+}
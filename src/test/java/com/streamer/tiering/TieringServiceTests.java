@@ -0,0 +1,136 @@
+package com.streamer.tiering;
+
+import com.common.kafka.KafkaProducerService;
+import com.common.models.locks.BlobLocks;
+import com.common.models.locks.JobLeases;
+import com.common.models.uploads.BlobRef;
+import com.common.models.uploads.UploadRepository;
+import com.common.storage.LocalBlobStorage;
+import com.common.storage.TieredBlobStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TieringServiceTests {
+
+	private static final String HASH = "ab" + "0".repeat(62);
+	private static final String HOT_KEY = "ab/" + HASH + ".mp4";
+	private static final String COLD_KEY = TieredBlobStorage.coldKey(HOT_KEY);
+
+	@TempDir
+	Path hotDir;
+
+	@TempDir
+	Path coldDir;
+
+	private TieredBlobStorage storage;
+	private UploadRepository uploadRepository;
+	private JobLeases jobLeases;
+	private BlobLocks blobLocks;
+	private TieringService tieringService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		storage = new TieredBlobStorage(new LocalBlobStorage(hotDir.toString()), new LocalBlobStorage(coldDir.toString()));
+		uploadRepository = mock(UploadRepository.class);
+		jobLeases = mock(JobLeases.class);
+		when(jobLeases.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+		blobLocks = mock(BlobLocks.class);
+		when(blobLocks.withLock(anyString(), any()))
+				.thenAnswer(invocation -> invocation.<BlobLocks.LockedAction<?>>getArgument(1).run());
+		tieringService = new TieringService(uploadRepository, storage, mock(KafkaProducerService.class),
+				jobLeases, blobLocks, 60, 14, 20, 15, 50, Long.MAX_VALUE / 2000);
+	}
+
+	@Test
+	void skipsTheRunWhileAnotherNodeHoldsTheLease() {
+		when(jobLeases.tryAcquire(anyString(), any(Duration.class))).thenReturn(false);
+
+		tieringService.rebalance();
+
+		verifyNoInteractions(uploadRepository, blobLocks);
+		verify(jobLeases, never()).release(anyString());
+	}
+
+	@Test
+	void demotesAnIdleBlobAndKeepsTheHotCopyForTheGracePeriod() throws IOException {
+		put(HOT_KEY);
+		when(uploadRepository.findHotBlobsIdleSince(eq(TieredBlobStorage.COLD_PREFIX), any(), any()))
+				.thenReturn(List.of(blob(HOT_KEY)));
+		when(uploadRepository.switchBlobKey(eq(HASH), eq(HOT_KEY), eq(COLD_KEY), any())).thenReturn(1);
+		when(uploadRepository.existsByContentHashAndDataPathLinkAndIsDeletedFalse(HASH, COLD_KEY)).thenReturn(true);
+
+		tieringService.rebalance();
+
+		assertTrue(storage.exists(COLD_KEY));
+		assertTrue(storage.exists(HOT_KEY), "Streams already reading the hot copy keep it until the grace period ends");
+		verify(blobLocks).withLock(eq(HASH), any());
+		verify(jobLeases).release(anyString());
+	}
+
+	@Test
+	void keepsARetiredCopyThatAnUploadStartedSharing() throws IOException {
+		put(HOT_KEY);
+		put(COLD_KEY);
+		when(uploadRepository.findBlobsSwitchedBefore(any(), any())).thenReturn(List.of(blob(COLD_KEY)));
+		when(uploadRepository.existsByContentHashAndDataPathLink(HASH, HOT_KEY)).thenReturn(true);
+
+		tieringService.rebalance();
+
+		assertTrue(storage.exists(HOT_KEY));
+		InOrder inOrder = inOrder(blobLocks, uploadRepository);
+		inOrder.verify(blobLocks).withLock(eq(HASH), any());
+		inOrder.verify(uploadRepository).existsByContentHashAndDataPathLink(HASH, HOT_KEY);
+		inOrder.verify(uploadRepository).clearTierChange(HASH, COLD_KEY);
+	}
+
+	@Test
+	void deletesARetiredCopyNothingReferences() throws IOException {
+		put(HOT_KEY);
+		put(COLD_KEY);
+		when(uploadRepository.findBlobsSwitchedBefore(any(), any())).thenReturn(List.of(blob(COLD_KEY)));
+
+		tieringService.rebalance();
+
+		assertFalse(storage.exists(HOT_KEY));
+		assertTrue(storage.exists(COLD_KEY));
+		verify(uploadRepository).clearTierChange(HASH, COLD_KEY);
+	}
+
+	@Test
+	void releasesTheLeaseWhenTheRunFails() {
+		when(uploadRepository.findBlobsSwitchedBefore(any(), any())).thenThrow(new IllegalStateException("boom"));
+
+		assertThrows(IllegalStateException.class, tieringService::rebalance);
+
+		verify(jobLeases).release(anyString());
+	}
+
+	private void put(String key) throws IOException {
+		Path file = Files.createTempFile(hotDir, "blob", ".tmp");
+		Files.writeString(file, "video bytes", StandardCharsets.US_ASCII);
+		storage.put(key, file);
+	}
+
+	private static BlobRef blob(String dataPathLink) {
+		return new BlobRef() {
+			@Override
+			public String getContentHash() { return HASH; }
+
+			@Override
+			public String getDataPathLink() { return dataPathLink; }
+		};
+	}
+}
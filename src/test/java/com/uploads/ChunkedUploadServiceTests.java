@@ -0,0 +1,178 @@
+package com.uploads;
+
+import com.common.kafka.KafkaProducerService;
+import com.common.models.locks.BlobLocks;
+import com.common.models.uploads.UploadRepository;
+import com.common.models.uploads.Uploads;
+import com.common.storage.LocalBlobStorage;
+import com.uploads.payloads.request.InitiateChunkedUpload;
+import com.uploads.payloads.response.ChunkedUploadStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ChunkedUploadServiceTests {
+
+	@TempDir
+	Path storage;
+
+	private LocalBlobStorage blobStorage;
+	private UploadRepository uploadRepository;
+	private ChunkedUploadService chunkedUploadService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		blobStorage = new LocalBlobStorage(storage.toString());
+		BlobLocks blobLocks = mock(BlobLocks.class);
+		when(blobLocks.withLock(anyString(), any()))
+				.thenAnswer(invocation -> invocation.<BlobLocks.LockedAction<?>>getArgument(1).run());
+		VideoStorageService videoStorageService = new VideoStorageService(blobStorage, blobLocks, storage.toString());
+		uploadRepository = mock(UploadRepository.class);
+		UploadMetrics uploadMetrics = new UploadMetrics(new SimpleMeterRegistry());
+		KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+		when(kafkaProducerService.publishUploadCreated(any())).thenReturn(new CompletableFuture<>());
+		UploadService uploadService = new UploadService(videoStorageService, uploadRepository,
+				kafkaProducerService, uploadMetrics, 20, 100);
+		chunkedUploadService = new ChunkedUploadService(videoStorageService, uploadService, uploadMetrics,
+				4, 16, 1024, 0);
+	}
+
+	@Test
+	void completesAnUploadOnceEveryChunkIsIn() throws IOException {
+		when(uploadRepository.saveAndFlush(any(Uploads.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		String uploadId = uploadAllChunks();
+
+		ChunkedUploadStatus status = chunkedUploadService.complete(uploadId);
+
+		assertNotNull(status.getIdentifier());
+		assertThrows(NoSuchElementException.class, () -> chunkedUploadService.status(uploadId));
+	}
+
+	@Test
+	void refusesToCompleteWithAMissingChunk() throws IOException {
+		String uploadId = chunkedUploadService.initiate(new InitiateChunkedUpload("clip.mp4", 10, null), "alice")
+				.getUploadId();
+		chunk(uploadId, 0, "0123");
+
+		ChunkedUploadConflictException ex = assertThrows(ChunkedUploadConflictException.class,
+				() -> chunkedUploadService.complete(uploadId));
+		assertTrue(ex.getMessage().contains("chunk 1"));
+	}
+
+	@Test
+	void failedCompletionKeepsTheSessionSoItCanBeRetried() throws IOException {
+		when(uploadRepository.saveAndFlush(any(Uploads.class)))
+				.thenThrow(new DataAccessResourceFailureException("database down"))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+		String uploadId = uploadAllChunks();
+
+		assertThrows(DataAccessResourceFailureException.class, () -> chunkedUploadService.complete(uploadId));
+		assertEquals(-1, chunkedUploadService.status(uploadId).getNextChunk(), "The session and its chunks survive");
+
+		ChunkedUploadStatus status = chunkedUploadService.complete(uploadId);
+
+		assertNotNull(status.getIdentifier());
+		assertEquals(1, Files.list(storage).filter(Files::isDirectory).filter(dir -> !dir.endsWith(".parts")).count());
+	}
+
+	@Test
+	void refusesToCompleteWhileARetriedChunkIsStillBeingWritten() throws Exception {
+		when(uploadRepository.saveAndFlush(any(Uploads.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		String uploadId = uploadAllChunks();
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		InputStream slowChunk = new ByteArrayInputStream("4567".getBytes(StandardCharsets.US_ASCII)) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				writing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return super.read(b, off, len);
+			}
+		};
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<ChunkedUploadStatus> retry = executor.submit(() -> chunkedUploadService.writeChunk(uploadId, 1, slowChunk));
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+			ChunkedUploadConflictException ex = assertThrows(ChunkedUploadConflictException.class,
+					() -> chunkedUploadService.complete(uploadId));
+			assertTrue(ex.getMessage().contains("still receiving a chunk"));
+
+			release.countDown();
+			retry.get(5, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+
+		ChunkedUploadStatus status = chunkedUploadService.complete(uploadId);
+
+		assertNotNull(status.getIdentifier());
+	}
+
+	@Test
+	void refusesChunksOnceCompletionHasStarted() throws IOException {
+		String uploadId = uploadAllChunks();
+		when(uploadRepository.saveAndFlush(any(Uploads.class))).thenAnswer(invocation -> {
+			ChunkedUploadConflictException ex = assertThrows(ChunkedUploadConflictException.class,
+					() -> chunk(uploadId, 1, "4567"));
+			assertTrue(ex.getMessage().contains("being completed"));
+			return invocation.getArgument(0);
+		});
+
+		assertNotNull(chunkedUploadService.complete(uploadId).getIdentifier());
+	}
+
+	@Test
+	void sweepsIdleSessionsAndTheirPartFiles() throws IOException, InterruptedException {
+		String uploadId = chunkedUploadService.initiate(new InitiateChunkedUpload("clip.mp4", 10, null), "alice")
+				.getUploadId();
+		Path partFile = storage.resolve(".parts").resolve(uploadId + ".part");
+		assertTrue(Files.exists(partFile));
+		Thread.sleep(5);
+
+		chunkedUploadService.expireIdleSessions();
+
+		assertThrows(NoSuchElementException.class, () -> chunkedUploadService.status(uploadId));
+		assertFalse(Files.exists(partFile));
+	}
+
+	private String uploadAllChunks() throws IOException {
+		String uploadId = chunkedUploadService.initiate(new InitiateChunkedUpload("clip.mp4", 10, null), "alice")
+				.getUploadId();
+		chunk(uploadId, 2, "89");
+		chunk(uploadId, 0, "0123");
+		chunk(uploadId, 1, "4567");
+		return uploadId;
+	}
+
+	private void chunk(String uploadId, int index, String body) throws IOException {
+		chunkedUploadService.writeChunk(uploadId, index,
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)));
+	}
+}
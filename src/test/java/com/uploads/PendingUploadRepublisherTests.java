@@ -0,0 +1,91 @@
+package com.uploads;
+
+import com.common.kafka.EventPublishException;
+import com.common.kafka.KafkaProducerService;
+import com.common.kafka.events.UploadCreatedEvent;
+import com.common.models.locks.JobLeases;
+import com.common.models.uploads.UploadRepository;
+import com.common.models.uploads.UploadStatus;
+import com.common.models.uploads.Uploads;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PendingUploadRepublisherTests {
+
+	private UploadRepository uploadRepository;
+	private KafkaProducerService kafkaProducerService;
+	private JobLeases jobLeases;
+	private PendingUploadRepublisher republisher;
+
+	@BeforeEach
+	void setUp() {
+		uploadRepository = mock(UploadRepository.class);
+		kafkaProducerService = mock(KafkaProducerService.class);
+		when(kafkaProducerService.publishUploadCreated(any())).thenReturn(CompletableFuture.completedFuture(null));
+		jobLeases = mock(JobLeases.class);
+		when(jobLeases.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+		republisher = new PendingUploadRepublisher(uploadRepository, kafkaProducerService, jobLeases, 15, 100);
+	}
+
+	@Test
+	void republishesUploadsPendingLongerThanThePeriod() {
+		when(uploadRepository.findByUploadStatusAndUpdatedAtBeforeAndIsDeletedFalseOrderByUpdatedAt(
+				eq(UploadStatus.PENDING.name()), any(), any())).thenReturn(List.of(upload("a"), upload("b")));
+
+		LocalDateTime before = LocalDateTime.now();
+		republisher.republishStalePending();
+
+		ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(uploadRepository).findByUploadStatusAndUpdatedAtBeforeAndIsDeletedFalseOrderByUpdatedAt(
+				eq(UploadStatus.PENDING.name()), cutoff.capture(), any());
+		assertFalse(cutoff.getValue().isAfter(before.minusMinutes(15).plusSeconds(5)));
+		ArgumentCaptor<UploadCreatedEvent> events = ArgumentCaptor.forClass(UploadCreatedEvent.class);
+		verify(kafkaProducerService, times(2)).publishUploadCreated(events.capture());
+		assertEquals("a", events.getAllValues().get(0).getIdentifier());
+		assertEquals("blobs/a.mp4", events.getAllValues().get(0).getDataPathLink());
+		verify(uploadRepository).touchIfStatus(eq("a"), eq(UploadStatus.PENDING.name()), any());
+		verify(uploadRepository).touchIfStatus(eq("b"), eq(UploadStatus.PENDING.name()), any());
+		verify(jobLeases).release(anyString());
+	}
+
+	@Test
+	void stopsAtTheFirstFailedSendWithoutTouchingTheRow() {
+		when(uploadRepository.findByUploadStatusAndUpdatedAtBeforeAndIsDeletedFalseOrderByUpdatedAt(
+				anyString(), any(), any())).thenReturn(List.of(upload("a"), upload("b")));
+		doThrow(new EventPublishException("broker down", null)).when(kafkaProducerService).await(any());
+
+		republisher.republishStalePending();
+
+		verify(kafkaProducerService, times(1)).publishUploadCreated(any());
+		verify(uploadRepository, never()).touchIfStatus(anyString(), anyString(), any());
+		verify(jobLeases).release(anyString());
+	}
+
+	@Test
+	void leavesTheRunToTheNodeHoldingTheLease() {
+		when(jobLeases.tryAcquire(anyString(), any(Duration.class))).thenReturn(false);
+
+		republisher.republishStalePending();
+
+		verifyNoInteractions(uploadRepository, kafkaProducerService);
+	}
+
+	private static Uploads upload(String identifier) {
+		Uploads upload = new Uploads("clip", identifier, "alice", UploadStatus.PENDING.name(), false,
+				"blobs/" + identifier + ".mp4", null, false);
+		upload.setContentHash("hash-" + identifier);
+		return upload;
+	}
+}
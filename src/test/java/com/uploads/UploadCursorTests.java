@@ -0,0 +1,63 @@
+package com.uploads;
+
+import com.common.models.uploads.UploadSummary;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadCursorTests {
+
+	@Test
+	void decodesTheLastRowItWasEncodedFrom() {
+		LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 30, 5, 123_000_000);
+
+		String cursor = UploadCursor.encode(summary(42L, createdAt));
+		UploadCursor decoded = UploadCursor.decode(cursor);
+
+		assertEquals(createdAt, decoded.createdAt);
+		assertEquals(42L, decoded.id);
+		assertTrue(cursor.matches("[A-Za-z0-9_-]+"), "Cursors are URL-safe without escaping: " + cursor);
+	}
+
+	@Test
+	void keepsWholeSecondTimestamps() {
+		LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+		assertEquals(createdAt, UploadCursor.decode(UploadCursor.encode(summary(1L, createdAt))).createdAt);
+	}
+
+	@Test
+	void rejectsCursorsItDidNotIssue() {
+		assertThrows(IllegalArgumentException.class, () -> UploadCursor.decode("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> UploadCursor.decode(encode("2024-03-01T12:30")));
+		assertThrows(IllegalArgumentException.class, () -> UploadCursor.decode(encode("yesterday|1")));
+		assertThrows(IllegalArgumentException.class, () -> UploadCursor.decode(encode("2024-03-01T12:30|one")));
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static UploadSummary summary(long id, LocalDateTime createdAt) {
+		return new UploadSummary() {
+			@Override
+			public Long getId() { return id; }
+
+			@Override
+			public String getIdentifier() { return "upload-" + id; }
+
+			@Override
+			public String getName() { return "clip " + id; }
+
+			@Override
+			public String getThumbnailLink() { return null; }
+
+			@Override
+			public LocalDateTime getCreatedAt() { return createdAt; }
+		};
+	}
+}
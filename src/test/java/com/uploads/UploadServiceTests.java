@@ -0,0 +1,158 @@
+package com.uploads;
+
+import com.common.kafka.KafkaProducerService;
+import com.common.models.locks.BlobLocks;
+import com.common.models.uploads.UploadRepository;
+import com.common.models.uploads.UploadSummary;
+import com.common.models.uploads.Uploads;
+import com.common.storage.LocalBlobStorage;
+import com.uploads.payloads.response.UploadListPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.domain.Limit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UploadServiceTests {
+
+	@TempDir
+	Path storage;
+
+	private LocalBlobStorage blobStorage;
+	private VideoStorageService videoStorageService;
+	private UploadRepository uploadRepository;
+	private UploadService uploadService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		blobStorage = new LocalBlobStorage(storage.toString());
+		BlobLocks blobLocks = mock(BlobLocks.class);
+		when(blobLocks.withLock(anyString(), any()))
+				.thenAnswer(invocation -> invocation.<BlobLocks.LockedAction<?>>getArgument(1).run());
+		videoStorageService = new VideoStorageService(blobStorage, blobLocks, storage.toString());
+		uploadRepository = mock(UploadRepository.class);
+		when(uploadRepository.saveAndFlush(any(Uploads.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+		when(kafkaProducerService.publishUploadCreated(any())).thenReturn(new CompletableFuture<>());
+		uploadService = new UploadService(videoStorageService, uploadRepository, kafkaProducerService,
+				new UploadMetrics(new SimpleMeterRegistry()), 20, 100);
+	}
+
+	@Test
+	void deletingOneExtensionOfTheSameBytesKeepsTheOther() throws IOException {
+		Uploads mp4 = register("clip.mp4");
+		Uploads mov = register("clip.MOV");
+		assertEquals(mp4.getContentHash(), mov.getContentHash());
+		assertNotEquals(mp4.getDataPathLink(), mov.getDataPathLink());
+		when(uploadRepository.findByIdentifier(mov.getIdentifier())).thenReturn(Optional.of(mov));
+		when(uploadRepository.existsByContentHashAndDataPathLinkAndIsDeletedFalse(mp4.getContentHash(),
+				mp4.getDataPathLink())).thenReturn(true);
+
+		uploadService.deleteUpload(mov.getIdentifier(), "alice");
+
+		assertFalse(blobStorage.exists(mov.getDataPathLink()), "The .mov blob has no live upload left");
+		assertTrue(blobStorage.exists(mp4.getDataPathLink()));
+		verify(uploadRepository).existsByContentHashAndDataPathLinkAndIsDeletedFalse(mov.getContentHash(),
+				mov.getDataPathLink());
+	}
+
+	@Test
+	void sharedBlobIsKeptWhileAnotherUploadReferencesIt() throws IOException {
+		Uploads first = register("clip.mp4");
+		Uploads second = register("copy.mp4");
+		assertEquals(first.getDataPathLink(), second.getDataPathLink());
+		when(uploadRepository.findByIdentifier(second.getIdentifier())).thenReturn(Optional.of(second));
+		when(uploadRepository.existsByContentHashAndDataPathLinkAndIsDeletedFalse(first.getContentHash(),
+				first.getDataPathLink())).thenReturn(true);
+
+		uploadService.deleteUpload(second.getIdentifier(), "alice");
+
+		assertTrue(blobStorage.exists(first.getDataPathLink()));
+	}
+
+	@Test
+	void listsOnlyAUsersPublicUploads() {
+		when(uploadRepository.findPublicUploaderPage(eq("alice"), any())).thenReturn(rows(1));
+
+		assertEquals(1, uploadService.listByUploader("alice", null, null).getItems().size());
+
+		verify(uploadRepository).findPublicUploaderPage(eq("alice"), eq(Limit.of(21)));
+	}
+
+	@Test
+	void nextPagesSeekPastTheCursor() {
+		String cursor = UploadCursor.encode(UploadCursorTests.summary(7L, LocalDateTime.of(2024, 1, 1, 0, 0)));
+
+		uploadService.listByUploader("alice", cursor, null);
+
+		verify(uploadRepository).findPublicUploaderPageAfter(eq("alice"), eq(LocalDateTime.of(2024, 1, 1, 0, 0)),
+				eq(7L), any());
+	}
+
+	@Test
+	void fullPageWithAnExtraRowHasACursorToTheLastItem() {
+		when(uploadRepository.findCatalogPage(any())).thenReturn(rows(21));
+
+		UploadListPage page = uploadService.listCatalog(null, null);
+
+		assertEquals(20, page.getItems().size());
+		UploadCursor next = UploadCursor.decode(page.getNextCursor());
+		assertEquals(20L, next.id);
+		verify(uploadRepository).findCatalogPage(Limit.of(21));
+	}
+
+	@Test
+	void exactlyFullLastPageHasNoCursor() {
+		when(uploadRepository.findCatalogPage(any())).thenReturn(rows(20));
+
+		UploadListPage page = uploadService.listCatalog(null, null);
+
+		assertEquals(20, page.getItems().size());
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	void pageSizeIsClampedToTheConfiguredRange() {
+		uploadService.listCatalog(null, 1000);
+		uploadService.listCatalog(null, 0);
+
+		verify(uploadRepository).findCatalogPage(Limit.of(101));
+		verify(uploadRepository).findCatalogPage(Limit.of(2));
+	}
+
+	@Test
+	void malformedCursorIsABadRequest() {
+		assertThrows(IllegalArgumentException.class, () -> uploadService.listCatalog("???", null));
+	}
+
+	private static List<UploadSummary> rows(int count) {
+		List<UploadSummary> rows = new ArrayList<>();
+		LocalDateTime newest = LocalDateTime.of(2024, 6, 1, 0, 0);
+		for (int i = 1; i <= count; i++) {
+			rows.add(UploadCursorTests.summary(i, newest.minusMinutes(i)));
+		}
+		return rows;
+	}
+
+	private Uploads register(String filename) throws IOException {
+		StoredVideo stored = videoStorageService.storeVideo(
+				new ByteArrayInputStream("same bytes".getBytes(StandardCharsets.US_ASCII)), filename, "video/mp4");
+		return uploadService.registerUpload(filename, stored, "alice");
+	}
+}
@@ -0,0 +1,92 @@
+package com.uploads.multipart;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTests {
+
+	private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+	@Test
+	void readsFieldsAndFileAcrossSmallReads() throws IOException {
+		byte[] file = new byte[200_000];
+		new Random(42).nextBytes(file);
+		// A near-miss of the delimiter inside the payload must not end the part
+		byte[] nearMiss = ("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1)).getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(nearMiss, 0, file, 100_000, nearMiss.length);
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(("--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+				+ "My clip\r\n"
+				+ "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"clip.mp4\"\r\n"
+				+ "Content-Type: video/mp4\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		body.write(file);
+		body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+		MultipartStreamReader reader = new MultipartStreamReader(trickle(body.toByteArray(), 997), BOUNDARY);
+
+		MultipartStreamReader.Part title = reader.nextPart();
+		assertEquals("title", title.getName());
+		assertNull(title.getFileName());
+		assertEquals("My clip", new String(title.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+		MultipartStreamReader.Part upload = reader.nextPart();
+		assertEquals("file", upload.getName());
+		assertEquals("clip.mp4", upload.getFileName());
+		assertEquals("video/mp4", upload.getContentType());
+		assertArrayEquals(file, upload.getInputStream().readAllBytes());
+
+		assertNull(reader.nextPart());
+	}
+
+	@Test
+	void skipsUnreadParts() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"a\"\r\n\r\n"
+				+ "ignored\r\n"
+				+ "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"b\"\r\n\r\n"
+				+ "kept\r\n"
+				+ "--" + BOUNDARY + "--\r\n";
+		MultipartStreamReader reader = new MultipartStreamReader(
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)), BOUNDARY);
+
+		reader.nextPart();
+		MultipartStreamReader.Part second = reader.nextPart();
+		assertEquals("b", second.getName());
+		assertEquals("kept", new String(second.getInputStream().readAllBytes(), StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	void failsOnTruncatedBody() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"clip.mp4\"\r\n\r\n"
+				+ "partial";
+		MultipartStreamReader reader = new MultipartStreamReader(
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)), BOUNDARY);
+
+		InputStream part = reader.nextPart().getInputStream();
+		assertThrows(EOFException.class, part::readAllBytes);
+	}
+
+	private static InputStream trickle(byte[] bytes, int maxRead) {
+		return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return super.read(b, off, Math.min(len, maxRead));
+			}
+		};
+	}
+}